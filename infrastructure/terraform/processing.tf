@@ -20,7 +20,9 @@ resource "aws_sqs_queue" "photo_processing" {
   
   redrive_policy = jsonencode({
     deadLetterTargetArn = aws_sqs_queue.photo_processing_dlq.arn
-    maxReceiveCount     = 3
+    # Messages over the per-user processing cap are re-sent with a delay rather than received
+    # again, so only failed or timed-out processing counts here
+    maxReceiveCount     = 5
   })
   
   tags = merge(local.common_tags, {
@@ -0,0 +1,30 @@
+package com.starscape.rapidupload.common.cache;
+
+import java.util.List;
+
+/**
+ * Names of the Hibernate second-level and query cache regions.
+ * Sizes and TTLs for each are configured in {@code hibernate-cache.conf}.
+ */
+public final class CacheRegions {
+    
+    // Entity regions
+    public static final String USERS = "users";
+    public static final String TAGS = "tags";
+    public static final String PHOTOS = "photos";
+    
+    // Query result regions
+    public static final String USER_LOOKUPS = "user-lookups";
+    public static final String TAG_LISTS = "tag-lists";
+    public static final String PHOTO_TAG_LISTS = "photo-tag-lists";
+    
+    // Hibernate's own regions
+    public static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+    public static final String DEFAULT_QUERY_RESULTS = "default-query-results-region";
+    
+    public static final List<String> ALL = List.of(
+        USERS, TAGS, PHOTOS, USER_LOOKUPS, TAG_LISTS, PHOTO_TAG_LISTS, UPDATE_TIMESTAMPS, DEFAULT_QUERY_RESULTS);
+    
+    private CacheRegions() {
+    }
+}
@@ -0,0 +1,66 @@
+package com.starscape.rapidupload.common.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts second-level cache entries for rows changed outside Hibernate (JdbcTemplate bulk
+ * statements). Changes made through JPA keep the cache current on their own.
+ * <p>
+ * Entries are evicted immediately and again after the surrounding transaction completes,
+ * so a concurrent read cannot re-cache the old row while the change is uncommitted.
+ * A no-op when the second-level cache is disabled.
+ */
+@Component
+public class SecondLevelCacheEvictor {
+    
+    private final Cache cache;
+    
+    public SecondLevelCacheEvictor(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+    
+    /**
+     * Evict cached entities of the given type by ID.
+     */
+    public void evictEntities(Class<?> entityType, Collection<?> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<?> snapshot = List.copyOf(ids);
+        runNowAndAfterCompletion(() -> snapshot.forEach(id -> cache.evictEntityData(entityType, id)));
+    }
+    
+    /**
+     * Evict cached query results that read photo_tags, after tag links are inserted or deleted in bulk.
+     */
+    public void evictPhotoTagQueries() {
+        runNowAndAfterCompletion(() -> cache.evictQueryRegion(CacheRegions.PHOTO_TAG_LISTS));
+    }
+    
+    /**
+     * Evict cached query results that read tags, after tags are inserted or deleted in bulk.
+     */
+    public void evictTagQueries() {
+        runNowAndAfterCompletion(() -> cache.evictQueryRegion(CacheRegions.TAG_LISTS));
+    }
+    
+    private void runNowAndAfterCompletion(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
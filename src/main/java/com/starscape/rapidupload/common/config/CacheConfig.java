@@ -0,0 +1,75 @@
+package com.starscape.rapidupload.common.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.starscape.rapidupload.common.cache.CacheRegions;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+
+/**
+ * Hibernate second-level and query cache backed by in-process Caffeine caches (via JCache).
+ * Region TTLs and size bounds live in {@code hibernate-cache.conf}; set
+ * {@code app.cache.l2.enabled=false} to turn both caches off.
+ */
+@Configuration
+public class CacheConfig {
+    
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.cache.l2.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheManager hibernateCacheManager(@Value("${app.cache.l2.config:classpath:hibernate-cache.conf}") String config) {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create(config), getClass().getClassLoader());
+    }
+    
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(ObjectProvider<CacheManager> hibernateCacheManager) {
+        return properties -> {
+            CacheManager cacheManager = hibernateCacheManager.getIfAvailable();
+            boolean enabled = cacheManager != null;
+            
+            properties.put("hibernate.cache.use_second_level_cache", enabled);
+            properties.put("hibernate.cache.use_query_cache", enabled);
+            if (enabled) {
+                properties.put("hibernate.cache.region.factory_class", "jcache");
+                properties.put("hibernate.javax.cache.cache_manager", cacheManager);
+                // Every region must be declared (and so bounded) in the config
+                properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            }
+        };
+    }
+    
+    /**
+     * Hit, miss, eviction and size metrics per region, tagged cache=<region>.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.l2.enabled", havingValue = "true", matchIfMissing = true)
+    public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String region : CacheRegions.ALL) {
+                Cache<Object, Object> cache = caffeineCache(hibernateCacheManager, region);
+                if (cache != null) {
+                    CaffeineCacheMetrics.monitor(registry, cache, region);
+                }
+            }
+        };
+    }
+    
+    /**
+     * The Caffeine cache behind a JCache region, or null if the region is not configured.
+     */
+    @SuppressWarnings("unchecked")
+    private static Cache<Object, Object> caffeineCache(CacheManager cacheManager, String region) {
+        var cache = cacheManager.getCache(region);
+        return cache != null ? (Cache<Object, Object>) cache.unwrap(Cache.class) : null;
+    }
+}
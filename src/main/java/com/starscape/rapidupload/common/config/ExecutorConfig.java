@@ -0,0 +1,32 @@
+package com.starscape.rapidupload.common.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors for fanning out blocking I/O (S3 calls, presigning) from request handlers,
+ * and for the photo processing workers.
+ * Virtual threads keep per-task cost low; callers bound concurrency themselves.
+ */
+@Configuration
+public class ExecutorConfig {
+    
+    @Bean(destroyMethod = "close")
+    public ExecutorService uploadPreparationExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+    
+    /**
+     * Fixed pool of platform threads: processing is CPU and heap bound (image decoding),
+     * so the worker count caps how many photos are decoded at once.
+     * Not drained on shutdown; unfinished photos are redelivered from SQS.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService photoProcessingExecutor(@Value("${app.processing.scheduler.workers:10}") int workers) {
+        return Executors.newFixedThreadPool(workers, Thread.ofPlatform().name("photo-processing-", 0).factory());
+    }
+}
@@ -13,6 +13,11 @@ public class ProcessingProperties {
     
     private List<Integer> thumbnailSizes;
     private List<String> supportedFormats;
+    // Images with more pixels are rejected before decoding
+    private long maxPixels = 250_000_000;
+    // Images with more pixels are decoded in bands rather than all at once
+    private long tiledDecodePixels = 24_000_000;
+    private Derivatives derivatives = new Derivatives();
     
     public List<Integer> getThumbnailSizes() {
         return thumbnailSizes;
@@ -30,6 +35,30 @@ public class ProcessingProperties {
         this.supportedFormats = supportedFormats;
     }
     
+    public long getMaxPixels() {
+        return maxPixels;
+    }
+    
+    public void setMaxPixels(long maxPixels) {
+        this.maxPixels = maxPixels;
+    }
+    
+    public long getTiledDecodePixels() {
+        return tiledDecodePixels;
+    }
+    
+    public void setTiledDecodePixels(long tiledDecodePixels) {
+        this.tiledDecodePixels = tiledDecodePixels;
+    }
+    
+    public Derivatives getDerivatives() {
+        return derivatives;
+    }
+    
+    public void setDerivatives(Derivatives derivatives) {
+        this.derivatives = derivatives;
+    }
+    
     /**
      * Check if a MIME type is supported.
      * Performs case-insensitive comparison.
@@ -45,5 +74,95 @@ public class ProcessingProperties {
                 .map(format -> format.toLowerCase().trim())
                 .anyMatch(format -> format.equals(normalizedMimeType));
     }
+    
+    /**
+     * How thumbnails are encoded, whatever the format of the original.
+     * Thumbnails without visible transparency use the opaque profile, so PNG screenshots get
+     * compact JPEG or WebP thumbnails; the transparent profile keeps an alpha channel.
+     */
+    public static class Derivatives {
+        
+        private DerivativeProfile opaque = new DerivativeProfile("jpeg", 0.75f, true);
+        // Interlaced PNGs are larger, so PNG thumbnails are not progressive by default
+        private DerivativeProfile transparent = new DerivativeProfile("png", 0.75f, false);
+        
+        public DerivativeProfile getOpaque() {
+            return opaque;
+        }
+        
+        public void setOpaque(DerivativeProfile opaque) {
+            this.opaque = opaque;
+        }
+        
+        public DerivativeProfile getTransparent() {
+            return transparent;
+        }
+        
+        public void setTransparent(DerivativeProfile transparent) {
+            this.transparent = transparent;
+        }
+    }
+    
+    public static class DerivativeProfile {
+        
+        // ImageIO format name: jpeg, png or webp; formats that cannot be written fall back at startup
+        private String format;
+        // Lossy compression quality from 0 to 1; lossless formats always use maximum compression
+        private float quality;
+        // JPEG chroma subsampling: 4:2:0, 4:2:2 or 4:4:4
+        private String chromaSubsampling = "4:2:0";
+        private boolean progressive = true;
+        // Leave out optional headers, such as the JPEG JFIF segment
+        private boolean stripMetadata = true;
+        
+        public DerivativeProfile() {
+        }
+        
+        public DerivativeProfile(String format, float quality, boolean progressive) {
+            this.format = format;
+            this.quality = quality;
+            this.progressive = progressive;
+        }
+        
+        public String getFormat() {
+            return format;
+        }
+        
+        public void setFormat(String format) {
+            this.format = format;
+        }
+        
+        public float getQuality() {
+            return quality;
+        }
+        
+        public void setQuality(float quality) {
+            this.quality = quality;
+        }
+        
+        public String getChromaSubsampling() {
+            return chromaSubsampling;
+        }
+        
+        public void setChromaSubsampling(String chromaSubsampling) {
+            this.chromaSubsampling = chromaSubsampling;
+        }
+        
+        public boolean isProgressive() {
+            return progressive;
+        }
+        
+        public void setProgressive(boolean progressive) {
+            this.progressive = progressive;
+        }
+        
+        public boolean isStripMetadata() {
+            return stripMetadata;
+        }
+        
+        public void setStripMetadata(boolean stripMetadata) {
+            this.stripMetadata = stripMetadata;
+        }
+    }
 }
 
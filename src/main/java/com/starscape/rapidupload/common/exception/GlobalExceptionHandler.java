@@ -69,6 +69,20 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
     
+    @ExceptionHandler(QuotaExceededException.class)
+    public ResponseEntity<ErrorResponse> handleQuotaExceeded(QuotaExceededException ex) {
+        ErrorResponse response = new ErrorResponse(
+            ex.getCode(),
+            ex.getMessage(),
+            Map.of(
+                "quotaBytes", String.valueOf(ex.getQuotaBytes()),
+                "usedBytes", String.valueOf(ex.getUsedBytes()),
+                "requestedBytes", String.valueOf(ex.getRequestedBytes())),
+            Instant.now()
+        );
+        return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE).body(response);
+    }
+    
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleAccessDenied(AccessDeniedException ex) {
         ErrorResponse response = new ErrorResponse(
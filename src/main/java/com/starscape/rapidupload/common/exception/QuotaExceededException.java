@@ -0,0 +1,30 @@
+package com.starscape.rapidupload.common.exception;
+
+/**
+ * The user's storage quota cannot fit the requested bytes.
+ */
+public class QuotaExceededException extends BusinessException {
+    private final long quotaBytes;
+    private final long usedBytes;
+    private final long requestedBytes;
+    
+    public QuotaExceededException(long quotaBytes, long usedBytes, long requestedBytes) {
+        super("QUOTA_EXCEEDED", String.format(
+            "Storage quota exceeded: %d of %d bytes used, %d bytes requested", usedBytes, quotaBytes, requestedBytes));
+        this.quotaBytes = quotaBytes;
+        this.usedBytes = usedBytes;
+        this.requestedBytes = requestedBytes;
+    }
+    
+    public long getQuotaBytes() {
+        return quotaBytes;
+    }
+    
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+    
+    public long getRequestedBytes() {
+        return requestedBytes;
+    }
+}
@@ -0,0 +1,109 @@
+package com.starscape.rapidupload.common.geo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Geohash encoding and cell geometry.
+ * A geohash interleaves longitude and latitude bits into base-32 characters, so points that share
+ * a prefix share a cell and every cell is a contiguous range of hashes in a B-tree index.
+ */
+public final class Geohash {
+    
+    public static final int MAX_PRECISION = 12;
+    
+    private static final char[] ALPHABET = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    
+    private Geohash() {
+    }
+    
+    /**
+     * Encode a point as a geohash of the given length.
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Geohash precision must be between 1 and " + MAX_PRECISION);
+        }
+        double latLo = -90, latHi = 90;
+        double lonLo = -180, lonHi = 180;
+        boolean even = true;
+        int bits = 0;
+        int code = 0;
+        StringBuilder hash = new StringBuilder(precision);
+        
+        while (hash.length() < precision) {
+            if (even) {
+                double mid = (lonLo + lonHi) / 2;
+                if (longitude >= mid) {
+                    code = code * 2 + 1;
+                    lonLo = mid;
+                } else {
+                    code = code * 2;
+                    lonHi = mid;
+                }
+            } else {
+                double mid = (latLo + latHi) / 2;
+                if (latitude >= mid) {
+                    code = code * 2 + 1;
+                    latLo = mid;
+                } else {
+                    code = code * 2;
+                    latHi = mid;
+                }
+            }
+            even = !even;
+            if (++bits == 5) {
+                hash.append(ALPHABET[code]);
+                bits = 0;
+                code = 0;
+            }
+        }
+        return hash.toString();
+    }
+    
+    /**
+     * Height of a cell of the given precision, in degrees of latitude.
+     */
+    public static double cellHeight(int precision) {
+        return 180.0 / (1L << (5 * precision / 2));
+    }
+    
+    /**
+     * Width of a cell of the given precision, in degrees of longitude.
+     */
+    public static double cellWidth(int precision) {
+        return 360.0 / (1L << ((5 * precision + 1) / 2));
+    }
+    
+    /**
+     * Number of cells of the given precision a box spans, at most.
+     * The box must not cross the antimeridian.
+     */
+    public static long cellsSpanned(double minLat, double maxLat, double minLon, double maxLon, int precision) {
+        long rows = (long) Math.floor((maxLat - minLat) / cellHeight(precision)) + 2;
+        long columns = (long) Math.floor((maxLon - minLon) / cellWidth(precision)) + 2;
+        return rows * columns;
+    }
+    
+    /**
+     * Geohashes of the given precision whose cells together cover a box.
+     * The box must not cross the antimeridian.
+     */
+    public static List<String> covering(double minLat, double maxLat, double minLon, double maxLon, int precision) {
+        double height = cellHeight(precision);
+        double width = cellWidth(precision);
+        Set<String> cells = new LinkedHashSet<>();
+        
+        // Step through cell centers, starting from the cell that contains the south-west corner
+        double firstLat = Math.floor((minLat + 90) / height) * height - 90 + height / 2;
+        double firstLon = Math.floor((minLon + 180) / width) * width - 180 + width / 2;
+        for (double lat = firstLat; lat - height / 2 <= maxLat && lat < 90; lat += height) {
+            for (double lon = firstLon; lon - width / 2 <= maxLon && lon < 180; lon += width) {
+                cells.add(encode(lat, lon, precision));
+            }
+        }
+        return new ArrayList<>(cells);
+    }
+}
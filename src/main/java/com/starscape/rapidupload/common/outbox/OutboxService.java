@@ -3,37 +3,93 @@ package com.starscape.rapidupload.common.outbox;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.starscape.rapidupload.common.domain.DomainEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Records domain events in the outbox table inside the caller's transaction.
+ * Each event is also published in-process, so local listeners can react once the
+ * transaction commits without polling the outbox.
+ */
 @Service
 public class OutboxService {
     
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO outbox_events (event_id, aggregate_type, aggregate_id, event_type, payload, created_at) " +
+            "VALUES (?, ?, ?, ?, CAST(? AS jsonb), ?)";
+    
+    private static final int BATCH_SIZE = 1000;
+    
     private final OutboxEventRepository outboxRepository;
     private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
     
-    public OutboxService(OutboxEventRepository outboxRepository, ObjectMapper objectMapper) {
+    public OutboxService(
+            OutboxEventRepository outboxRepository,
+            ObjectMapper objectMapper,
+            JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher) {
         this.outboxRepository = outboxRepository;
         this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
     }
     
     @Transactional
     public void publish(DomainEvent event, String aggregateType) {
+        outboxRepository.save(toOutboxEvent(event, aggregateType));
+        eventPublisher.publishEvent(event);
+    }
+    
+    /**
+     * Publish many events with a single JDBC batch insert.
+     * Used on bulk write paths where saving one outbox row per event would cost one round trip each.
+     * 
+     * @param events The events to publish
+     * @param aggregateType The aggregate type shared by all events
+     */
+    @Transactional
+    public void publishAll(List<? extends DomainEvent> events, String aggregateType) {
+        if (events.isEmpty()) {
+            return;
+        }
+        
+        List<OutboxEvent> outboxEvents = new ArrayList<>(events.size());
+        for (DomainEvent event : events) {
+            outboxEvents.add(toOutboxEvent(event, aggregateType));
+        }
+        
+        jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, outboxEvents, BATCH_SIZE, (ps, outboxEvent) -> {
+            ps.setString(1, outboxEvent.getEventId());
+            ps.setString(2, outboxEvent.getAggregateType());
+            ps.setString(3, outboxEvent.getAggregateId());
+            ps.setString(4, outboxEvent.getEventType());
+            ps.setString(5, outboxEvent.getPayload());
+            ps.setTimestamp(6, Timestamp.from(outboxEvent.getCreatedAt()));
+        });
+        events.forEach(eventPublisher::publishEvent);
+    }
+    
+    private OutboxEvent toOutboxEvent(DomainEvent event, String aggregateType) {
         try {
             String eventId = "evt_" + UUID.randomUUID().toString().replace("-", "");
             String payload = objectMapper.writeValueAsString(event);
             
-            OutboxEvent outboxEvent = new OutboxEvent(
+            return new OutboxEvent(
                 eventId,
                 aggregateType,
                 event.getAggregateId(),
                 event.getEventType(),
                 payload
             );
-            
-            outboxRepository.save(outboxEvent);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to serialize event", e);
         }
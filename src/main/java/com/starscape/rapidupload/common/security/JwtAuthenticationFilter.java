@@ -1,6 +1,6 @@
 package com.starscape.rapidupload.common.security;
 
-import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,8 +12,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -33,21 +31,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (jwt != null && tokenProvider.isTokenValid(jwt)) {
-                Claims claims = tokenProvider.validateToken(jwt);
-                String userId = claims.getSubject();
-                String email = claims.get("email", String.class);
-                String scopesStr = claims.get("scopes", String.class);
-                List<String> scopes = scopesStr != null ? 
-                    Arrays.asList(scopesStr.split(",")) : List.of();
-                
-                UserPrincipal principal = new UserPrincipal(userId, email, scopes);
+            if (jwt != null) {
+                UserPrincipal principal = tokenProvider.authenticate(jwt);
                 UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
+        } catch (JwtException | IllegalArgumentException ex) {
+            // Invalid or expired token: continue unauthenticated, as before
+            logger.debug("Rejected JWT: " + ex.getMessage());
         } catch (Exception ex) {
             logger.error("Could not set user authentication in security context", ex);
         }
@@ -1,5 +1,8 @@
 package com.starscape.rapidupload.common.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -7,7 +10,9 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -15,16 +20,29 @@ import java.util.List;
 public class JwtTokenProvider {
     
     private final SecretKey secretKey;
+    private final JwtParser parser;
     private final long expirationMs;
     private final String issuer;
     
+    // Recently verified tokens, so repeat requests with the same token skip parsing and signature checks
+    private final Cache<String, UserPrincipal> verifiedTokens;
+    
     public JwtTokenProvider(
             @Value("${app.security.jwt.secret}") String secret,
             @Value("${app.security.jwt.expiration-ms}") long expirationMs,
-            @Value("${app.security.jwt.issuer}") String issuer) {
+            @Value("${app.security.jwt.issuer}") String issuer,
+            @Value("${app.security.jwt.cache.max-size:10000}") long cacheMaxSize,
+            @Value("${app.security.jwt.cache.ttl-seconds:300}") long cacheTtlSeconds) {
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
         this.expirationMs = expirationMs;
         this.issuer = issuer;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new TokenExpiry(Duration.ofSeconds(cacheTtlSeconds)))
+                .build();
     }
     
     public String generateToken(String userId, String email, List<String> scopes) {
@@ -43,24 +61,72 @@ public class JwtTokenProvider {
     }
     
     public Claims validateToken(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
+    }
+    
+    /**
+     * Verify a token and build the principal it represents.
+     * The token is parsed once; verified tokens are cached until they expire (or the cache TTL,
+     * whichever comes first), so later requests with the same token are a map lookup.
+     *
+     * @throws JwtException if the token is malformed, has a bad signature or has expired
+     * @throws IllegalArgumentException if the token is blank
+     */
+    public UserPrincipal authenticate(String token) {
+        UserPrincipal cached = verifiedTokens.getIfPresent(token);
+        if (cached != null && cached.isCredentialsNonExpired()) {
+            return cached;
+        }
+        
+        UserPrincipal principal = toPrincipal(validateToken(token));
+        verifiedTokens.put(token, principal);
+        return principal;
     }
     
     public String getUserIdFromToken(String token) {
-        return validateToken(token).getSubject();
+        return authenticate(token).getUserId();
     }
     
     public boolean isTokenValid(String token) {
         try {
-            validateToken(token);
+            authenticate(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
+    
+    private UserPrincipal toPrincipal(Claims claims) {
+        String scopesStr = claims.get("scopes", String.class);
+        List<String> scopes = scopesStr != null ?
+            Arrays.asList(scopesStr.split(",")) : List.of();
+        Instant expiresAt = claims.getExpiration() != null ? claims.getExpiration().toInstant() : null;
+        
+        return new UserPrincipal(claims.getSubject(), claims.get("email", String.class), scopes, expiresAt);
+    }
+    
+    /**
+     * Expires each cached principal at the cache TTL or its token's expiry, whichever is sooner.
+     */
+    private record TokenExpiry(Duration ttl) implements Expiry<String, UserPrincipal> {
+        
+        @Override
+        public long expireAfterCreate(String token, UserPrincipal principal, long currentTime) {
+            if (principal.getExpiresAt() == null) {
+                return ttl.toNanos();
+            }
+            Duration untilExpiry = Duration.between(Instant.now(), principal.getExpiresAt());
+            return Math.max(0, Math.min(ttl.toNanos(), untilExpiry.toNanos()));
+        }
+        
+        @Override
+        public long expireAfterUpdate(String token, UserPrincipal principal, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, principal, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String token, UserPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
-
@@ -4,20 +4,33 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class UserPrincipal implements UserDetails {
     
     private final String userId;
     private final String email;
     private final List<String> scopes;
+    private final List<GrantedAuthority> authorities;
+    private final Instant expiresAt;
     
     public UserPrincipal(String userId, String email, List<String> scopes) {
+        this(userId, email, scopes, null);
+    }
+    
+    /**
+     * @param expiresAt When the credentials behind this principal expire, or null if they never do
+     */
+    public UserPrincipal(String userId, String email, List<String> scopes, Instant expiresAt) {
         this.userId = userId;
         this.email = email;
-        this.scopes = scopes;
+        this.scopes = List.copyOf(scopes);
+        this.authorities = this.scopes.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        this.expiresAt = expiresAt;
     }
     
     public String getUserId() {
@@ -28,11 +41,13 @@ public class UserPrincipal implements UserDetails {
         return email;
     }
     
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+    
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return scopes.stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        return authorities;
     }
     
     @Override
@@ -57,7 +72,7 @@ public class UserPrincipal implements UserDetails {
     
     @Override
     public boolean isCredentialsNonExpired() {
-        return true;
+        return expiresAt == null || Instant.now().isBefore(expiresAt);
     }
     
     @Override
@@ -65,4 +80,3 @@ public class UserPrincipal implements UserDetails {
         return true;
     }
 }
-
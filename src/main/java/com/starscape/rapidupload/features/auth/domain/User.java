@@ -1,12 +1,17 @@
 package com.starscape.rapidupload.features.auth.domain;
 
+import com.starscape.rapidupload.common.cache.CacheRegions;
 import com.starscape.rapidupload.common.domain.AggregateRoot;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.Instant;
 import java.util.Objects;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.USERS)
 public class User extends AggregateRoot<String> {
     
     @Id
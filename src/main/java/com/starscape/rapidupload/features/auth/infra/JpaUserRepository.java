@@ -1,8 +1,12 @@
 package com.starscape.rapidupload.features.auth.infra;
 
+import com.starscape.rapidupload.common.cache.CacheRegions;
 import com.starscape.rapidupload.features.auth.domain.User;
 import com.starscape.rapidupload.features.auth.domain.UserRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -11,6 +15,10 @@ import java.util.Optional;
 public interface JpaUserRepository extends JpaRepository<User, String>, UserRepository {
     
     @Override
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.USER_LOOKUPS)
+    })
     Optional<User> findByEmail(String email);
     
     @Override
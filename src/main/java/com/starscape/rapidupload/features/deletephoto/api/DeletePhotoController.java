@@ -1,9 +1,15 @@
 package com.starscape.rapidupload.features.deletephoto.api;
 
 import com.starscape.rapidupload.common.security.UserPrincipal;
+import com.starscape.rapidupload.features.deletephoto.api.dto.BulkPhotoRequest;
+import com.starscape.rapidupload.features.deletephoto.api.dto.BulkPhotoResponse;
+import com.starscape.rapidupload.features.deletephoto.app.BulkDeletePhotosHandler;
+import com.starscape.rapidupload.features.deletephoto.app.BulkPermanentDeleteHandler;
+import com.starscape.rapidupload.features.deletephoto.app.BulkRestorePhotosHandler;
 import com.starscape.rapidupload.features.deletephoto.app.DeletePhotoHandler;
 import com.starscape.rapidupload.features.deletephoto.app.PermanentDeleteHandler;
 import com.starscape.rapidupload.features.deletephoto.app.RestorePhotoHandler;
+import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -20,14 +26,23 @@ public class DeletePhotoController {
     private final DeletePhotoHandler deletePhotoHandler;
     private final RestorePhotoHandler restorePhotoHandler;
     private final PermanentDeleteHandler permanentDeleteHandler;
+    private final BulkDeletePhotosHandler bulkDeletePhotosHandler;
+    private final BulkRestorePhotosHandler bulkRestorePhotosHandler;
+    private final BulkPermanentDeleteHandler bulkPermanentDeleteHandler;
     
     public DeletePhotoController(
             DeletePhotoHandler deletePhotoHandler,
             RestorePhotoHandler restorePhotoHandler,
-            PermanentDeleteHandler permanentDeleteHandler) {
+            PermanentDeleteHandler permanentDeleteHandler,
+            BulkDeletePhotosHandler bulkDeletePhotosHandler,
+            BulkRestorePhotosHandler bulkRestorePhotosHandler,
+            BulkPermanentDeleteHandler bulkPermanentDeleteHandler) {
         this.deletePhotoHandler = deletePhotoHandler;
         this.restorePhotoHandler = restorePhotoHandler;
         this.permanentDeleteHandler = permanentDeleteHandler;
+        this.bulkDeletePhotosHandler = bulkDeletePhotosHandler;
+        this.bulkRestorePhotosHandler = bulkRestorePhotosHandler;
+        this.bulkPermanentDeleteHandler = bulkPermanentDeleteHandler;
     }
     
     /**
@@ -68,5 +83,42 @@ public class DeletePhotoController {
         permanentDeleteHandler.handle(photoId, principal.getUserId());
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
+    
+    /**
+     * Soft delete many photos, selected by IDs or a filter.
+     * POST /commands/photos/bulk/delete
+     */
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<BulkPhotoResponse> bulkDeletePhotos(
+            @Valid @RequestBody BulkPhotoRequest request,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        
+        return ResponseEntity.ok(bulkDeletePhotosHandler.handle(request, principal.getUserId()));
+    }
+    
+    /**
+     * Restore many soft-deleted photos, selected by IDs or a filter.
+     * POST /commands/photos/bulk/restore
+     */
+    @PostMapping("/bulk/restore")
+    public ResponseEntity<BulkPhotoResponse> bulkRestorePhotos(
+            @Valid @RequestBody BulkPhotoRequest request,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        
+        return ResponseEntity.ok(bulkRestorePhotosHandler.handle(request, principal.getUserId()));
+    }
+    
+    /**
+     * Permanently delete many photos past the retention period, selected by IDs or a filter.
+     * S3 objects are removed asynchronously.
+     * POST /commands/photos/bulk/permanent-delete
+     */
+    @PostMapping("/bulk/permanent-delete")
+    public ResponseEntity<BulkPhotoResponse> bulkPermanentDeletePhotos(
+            @Valid @RequestBody BulkPhotoRequest request,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        
+        return ResponseEntity.ok(bulkPermanentDeleteHandler.handle(request, principal.getUserId()));
+    }
 }
 
@@ -0,0 +1,36 @@
+package com.starscape.rapidupload.features.deletephoto.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Request DTO for bulk delete, restore and permanent-delete commands.
+ * Selects photos either by explicit IDs or by a filter, not both.
+ */
+public record BulkPhotoRequest(
+    @Size(max = 1000, message = "Maximum 1000 photo IDs per request")
+    List<String> photoIds,
+    
+    @Valid
+    Filter filter
+) {
+    /**
+     * Set-based selection. All given criteria must match.
+     * 
+     * @param jobId Photos uploaded in this job
+     * @param deletedOlderThanDays Photos that have been in the trash for more than this many days
+     */
+    public record Filter(
+        String jobId,
+        
+        @Positive(message = "Days must be positive")
+        Integer deletedOlderThanDays
+    ) {}
+    
+    public boolean hasPhotoIds() {
+        return photoIds != null && !photoIds.isEmpty();
+    }
+}
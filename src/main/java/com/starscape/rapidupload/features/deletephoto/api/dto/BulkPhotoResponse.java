@@ -0,0 +1,9 @@
+package com.starscape.rapidupload.features.deletephoto.api.dto;
+
+/**
+ * Response DTO for bulk photo commands.
+ * Photos that do not exist, belong to another user or are not in the required state are skipped.
+ */
+public record BulkPhotoResponse(
+    int affected
+) {}
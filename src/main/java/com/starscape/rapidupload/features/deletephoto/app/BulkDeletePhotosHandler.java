@@ -0,0 +1,49 @@
+package com.starscape.rapidupload.features.deletephoto.app;
+
+import com.starscape.rapidupload.features.deletephoto.api.dto.BulkPhotoRequest;
+import com.starscape.rapidupload.features.deletephoto.api.dto.BulkPhotoResponse;
+import com.starscape.rapidupload.features.deletephoto.infra.PhotoBulkRepository;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter;
+import com.starscape.rapidupload.features.listphotos.app.PhotoTimelineCounter;
+import com.starscape.rapidupload.features.tags.app.TagUsageCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Handler for soft-deleting many photos with a single set-based update.
+ */
+@Service
+public class BulkDeletePhotosHandler {
+    
+    private static final Logger log = LoggerFactory.getLogger(BulkDeletePhotosHandler.class);
+    
+    private final PhotoBulkRepository photoBulkRepository;
+    private final TagUsageCounter tagUsageCounter;
+    private final PhotoTimelineCounter photoTimelineCounter;
+    private final LibraryStatsCounter libraryStatsCounter;
+    
+    public BulkDeletePhotosHandler(
+            PhotoBulkRepository photoBulkRepository,
+            TagUsageCounter tagUsageCounter,
+            PhotoTimelineCounter photoTimelineCounter,
+            LibraryStatsCounter libraryStatsCounter) {
+        this.photoBulkRepository = photoBulkRepository;
+        this.tagUsageCounter = tagUsageCounter;
+        this.photoTimelineCounter = photoTimelineCounter;
+        this.libraryStatsCounter = libraryStatsCounter;
+    }
+    
+    @Transactional
+    public BulkPhotoResponse handle(BulkPhotoRequest request, String userId) {
+        List<String> photoIds = photoBulkRepository.softDelete(userId, BulkPhotoSelections.from(request));
+        tagUsageCounter.photosTrashed(userId, photoIds);
+        photoTimelineCounter.photosTrashed(photoIds);
+        libraryStatsCounter.photosTrashed(photoIds);
+        log.info("Bulk soft-deleted {} photos for user {}", photoIds.size(), userId);
+        return new BulkPhotoResponse(photoIds.size());
+    }
+}
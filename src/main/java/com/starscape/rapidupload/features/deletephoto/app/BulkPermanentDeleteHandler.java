@@ -0,0 +1,60 @@
+package com.starscape.rapidupload.features.deletephoto.app;
+
+import com.starscape.rapidupload.features.deletephoto.api.dto.BulkPhotoRequest;
+import com.starscape.rapidupload.features.deletephoto.api.dto.BulkPhotoResponse;
+import com.starscape.rapidupload.features.deletephoto.infra.PhotoBulkRepository;
+import com.starscape.rapidupload.features.deletephoto.infra.PhotoBulkRepository.DeletedPhoto;
+import com.starscape.rapidupload.features.deletephoto.infra.S3CleanupService;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter.PurgedPhoto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Handler for permanently deleting many photos.
+ * Only photos past the trash retention period are deleted. Rows (and their tag links) are removed
+ * with one set-based delete; the S3 objects are queued for asynchronous batched deletion.
+ */
+@Service
+public class BulkPermanentDeleteHandler {
+    
+    private static final Logger log = LoggerFactory.getLogger(BulkPermanentDeleteHandler.class);
+    
+    private final PhotoBulkRepository photoBulkRepository;
+    private final S3CleanupService s3CleanupService;
+    private final LibraryStatsCounter libraryStatsCounter;
+    private final int retentionDays;
+    
+    public BulkPermanentDeleteHandler(
+            PhotoBulkRepository photoBulkRepository,
+            S3CleanupService s3CleanupService,
+            LibraryStatsCounter libraryStatsCounter,
+            @Value("${app.trash.retention-days:7}") int retentionDays) {
+        this.photoBulkRepository = photoBulkRepository;
+        this.s3CleanupService = s3CleanupService;
+        this.libraryStatsCounter = libraryStatsCounter;
+        this.retentionDays = retentionDays;
+    }
+    
+    @Transactional
+    public BulkPhotoResponse handle(BulkPhotoRequest request, String userId) {
+        Instant retentionCutoff = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
+        
+        List<DeletedPhoto> deleted = photoBulkRepository.deletePermanently(
+            userId, retentionCutoff, BulkPhotoSelections.from(request));
+        libraryStatsCounter.trashedPhotosDeleted(
+            deleted.stream().map(photo -> new PurgedPhoto(photo.userId(), photo.status(), photo.bytes())).toList());
+        int queuedObjects = s3CleanupService.enqueuePhotos(deleted.stream().map(DeletedPhoto::storedPhoto).toList()).size();
+        
+        log.info("Bulk permanently deleted {} photos for user {}, queued {} S3 objects for deletion",
+            deleted.size(), userId, queuedObjects);
+        return new BulkPhotoResponse(deleted.size());
+    }
+}
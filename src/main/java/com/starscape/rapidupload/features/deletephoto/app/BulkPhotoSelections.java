@@ -0,0 +1,38 @@
+package com.starscape.rapidupload.features.deletephoto.app;
+
+import com.starscape.rapidupload.features.deletephoto.api.dto.BulkPhotoRequest;
+import com.starscape.rapidupload.features.deletephoto.infra.PhotoBulkRepository.PhotoSelection;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Translates bulk command requests into photo selections.
+ */
+final class BulkPhotoSelections {
+    
+    private BulkPhotoSelections() {
+    }
+    
+    static PhotoSelection from(BulkPhotoRequest request) {
+        BulkPhotoRequest.Filter filter = request.filter();
+        
+        if (request.hasPhotoIds() == (filter != null)) {
+            throw new IllegalArgumentException("Specify either photoIds or filter");
+        }
+        
+        if (request.hasPhotoIds()) {
+            return new PhotoSelection(List.copyOf(request.photoIds()), null, null);
+        }
+        
+        if (filter.jobId() == null && filter.deletedOlderThanDays() == null) {
+            throw new IllegalArgumentException("Filter must specify jobId or deletedOlderThanDays");
+        }
+        
+        Instant deletedBefore = filter.deletedOlderThanDays() != null
+            ? Instant.now().minus(filter.deletedOlderThanDays(), ChronoUnit.DAYS)
+            : null;
+        return new PhotoSelection(null, filter.jobId(), deletedBefore);
+    }
+}
@@ -0,0 +1,49 @@
+package com.starscape.rapidupload.features.deletephoto.app;
+
+import com.starscape.rapidupload.features.deletephoto.api.dto.BulkPhotoRequest;
+import com.starscape.rapidupload.features.deletephoto.api.dto.BulkPhotoResponse;
+import com.starscape.rapidupload.features.deletephoto.infra.PhotoBulkRepository;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter;
+import com.starscape.rapidupload.features.listphotos.app.PhotoTimelineCounter;
+import com.starscape.rapidupload.features.tags.app.TagUsageCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Handler for restoring many soft-deleted photos with a single set-based update.
+ */
+@Service
+public class BulkRestorePhotosHandler {
+    
+    private static final Logger log = LoggerFactory.getLogger(BulkRestorePhotosHandler.class);
+    
+    private final PhotoBulkRepository photoBulkRepository;
+    private final TagUsageCounter tagUsageCounter;
+    private final PhotoTimelineCounter photoTimelineCounter;
+    private final LibraryStatsCounter libraryStatsCounter;
+    
+    public BulkRestorePhotosHandler(
+            PhotoBulkRepository photoBulkRepository,
+            TagUsageCounter tagUsageCounter,
+            PhotoTimelineCounter photoTimelineCounter,
+            LibraryStatsCounter libraryStatsCounter) {
+        this.photoBulkRepository = photoBulkRepository;
+        this.tagUsageCounter = tagUsageCounter;
+        this.photoTimelineCounter = photoTimelineCounter;
+        this.libraryStatsCounter = libraryStatsCounter;
+    }
+    
+    @Transactional
+    public BulkPhotoResponse handle(BulkPhotoRequest request, String userId) {
+        List<String> photoIds = photoBulkRepository.restore(userId, BulkPhotoSelections.from(request));
+        tagUsageCounter.photosRestored(userId, photoIds);
+        photoTimelineCounter.photosRestored(photoIds);
+        libraryStatsCounter.photosRestored(photoIds);
+        log.info("Bulk restored {} photos for user {}", photoIds.size(), userId);
+        return new BulkPhotoResponse(photoIds.size());
+    }
+}
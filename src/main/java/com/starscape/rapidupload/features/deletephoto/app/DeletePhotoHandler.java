@@ -1,11 +1,16 @@
 package com.starscape.rapidupload.features.deletephoto.app;
 
 import com.starscape.rapidupload.common.exception.NotFoundException;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter;
+import com.starscape.rapidupload.features.listphotos.app.PhotoTimelineCounter;
+import com.starscape.rapidupload.features.tags.app.TagUsageCounter;
 import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
 import com.starscape.rapidupload.features.uploadphoto.domain.PhotoRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 /**
  * Handler for soft-deleting photos.
  * Marks photo as deleted by setting deletedAt timestamp.
@@ -14,9 +19,19 @@ import org.springframework.transaction.annotation.Transactional;
 public class DeletePhotoHandler {
     
     private final PhotoRepository photoRepository;
+    private final TagUsageCounter tagUsageCounter;
+    private final PhotoTimelineCounter photoTimelineCounter;
+    private final LibraryStatsCounter libraryStatsCounter;
     
-    public DeletePhotoHandler(PhotoRepository photoRepository) {
+    public DeletePhotoHandler(
+            PhotoRepository photoRepository,
+            TagUsageCounter tagUsageCounter,
+            PhotoTimelineCounter photoTimelineCounter,
+            LibraryStatsCounter libraryStatsCounter) {
         this.photoRepository = photoRepository;
+        this.tagUsageCounter = tagUsageCounter;
+        this.photoTimelineCounter = photoTimelineCounter;
+        this.libraryStatsCounter = libraryStatsCounter;
     }
     
     @Transactional
@@ -38,6 +53,9 @@ public class DeletePhotoHandler {
         // Mark as deleted
         photo.markDeleted();
         photoRepository.save(photo);
+        tagUsageCounter.photosTrashed(userId, List.of(photoId));
+        photoTimelineCounter.photosTrashed(List.of(photoId));
+        libraryStatsCounter.photosTrashed(List.of(photoId));
     }
 }
 
@@ -136,7 +136,7 @@ public class ListTrashHandler {
             (photo.getStatus() == PhotoStatus.PROCESSING || photo.getStatus() == PhotoStatus.COMPLETED)) {
             try {
                 // Generate presigned URL for 256px thumbnail
-                String thumbnailKey = getThumbnailKey(photo.getS3Key(), 256);
+                String thumbnailKey = photo.getThumbnailKey(256);
                 log.debug("Generating presigned URL for thumbnail: bucket={}, key={}", bucket, thumbnailKey);
                 thumbnailUrl = generatePresignedGetUrl(thumbnailKey);
             } catch (Exception e) {
@@ -169,21 +169,6 @@ public class ListTrashHandler {
         );
     }
     
-    /**
-     * Generate thumbnail S3 key from original key.
-     */
-    private String getThumbnailKey(String originalKey, int size) {
-        int lastSlash = originalKey.lastIndexOf('/');
-        String basePath = originalKey.substring(0, lastSlash);
-        String filename = originalKey.substring(lastSlash + 1);
-        
-        int lastDot = filename.lastIndexOf('.');
-        String name = lastDot >= 0 ? filename.substring(0, lastDot) : filename;
-        String ext = lastDot >= 0 ? filename.substring(lastDot) : "";
-        
-        return basePath + "/thumbnails/" + name + "_" + size + ext;
-    }
-    
     /**
      * Generate presigned GET URL for S3 object.
      */
@@ -2,11 +2,14 @@ package com.starscape.rapidupload.features.deletephoto.app;
 
 import com.starscape.rapidupload.common.exception.NotFoundException;
 import com.starscape.rapidupload.features.deletephoto.infra.S3CleanupService;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter.PurgedPhoto;
 import com.starscape.rapidupload.features.tags.domain.PhotoTagRepository;
 import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
 import com.starscape.rapidupload.features.uploadphoto.domain.PhotoRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,26 +19,31 @@ import java.util.List;
 
 /**
  * Handler for permanently deleting photos.
- * Only allows deletion if photo was soft-deleted more than 7 days ago.
+ * Only allows deletion if photo was soft-deleted more than app.trash.retention-days (default 7) ago.
  * Deletes S3 objects and database records.
  */
 @Service
 public class PermanentDeleteHandler {
     
     private static final Logger log = LoggerFactory.getLogger(PermanentDeleteHandler.class);
-    private static final int RETENTION_DAYS = 7;
     
     private final PhotoRepository photoRepository;
     private final PhotoTagRepository photoTagRepository;
     private final S3CleanupService s3CleanupService;
+    private final LibraryStatsCounter libraryStatsCounter;
+    private final int retentionDays;
     
     public PermanentDeleteHandler(
             PhotoRepository photoRepository,
             PhotoTagRepository photoTagRepository,
-            S3CleanupService s3CleanupService) {
+            S3CleanupService s3CleanupService,
+            LibraryStatsCounter libraryStatsCounter,
+            @Value("${app.trash.retention-days:7}") int retentionDays) {
         this.photoRepository = photoRepository;
         this.photoTagRepository = photoTagRepository;
         this.s3CleanupService = s3CleanupService;
+        this.libraryStatsCounter = libraryStatsCounter;
+        this.retentionDays = retentionDays;
     }
     
     @Transactional
@@ -53,10 +61,10 @@ public class PermanentDeleteHandler {
             throw new IllegalArgumentException("Photo must be soft-deleted before permanent deletion");
         }
         
-        // Verify 7-day retention period has passed
-        Instant cutoffDate = Instant.now().minus(RETENTION_DAYS, ChronoUnit.DAYS);
+        // Verify retention period has passed
+        Instant cutoffDate = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
         if (photo.getDeletedAt().isAfter(cutoffDate)) {
-            long daysRemaining = ChronoUnit.DAYS.between(photo.getDeletedAt(), cutoffDate) + RETENTION_DAYS;
+            long daysRemaining = ChronoUnit.DAYS.between(photo.getDeletedAt(), cutoffDate) + retentionDays;
             throw new IllegalArgumentException(
                 String.format("Photo cannot be permanently deleted yet. %d days remaining in retention period.", daysRemaining));
         }
@@ -70,7 +78,7 @@ public class PermanentDeleteHandler {
         
         // Delete S3 objects (original and thumbnails)
         if (photo.getS3Key() != null) {
-            boolean s3Deleted = s3CleanupService.deletePhotoAndThumbnails(photo.getS3Key());
+            boolean s3Deleted = s3CleanupService.deletePhotoAndThumbnails(photo.getS3Key(), photo.getThumbnailExtension());
             if (!s3Deleted) {
                 log.warn("Some S3 objects failed to delete for photo {}, but proceeding with database deletion", photoId);
             }
@@ -78,6 +86,7 @@ public class PermanentDeleteHandler {
         
         // Delete photo record from database
         photoRepository.delete(photo);
+        libraryStatsCounter.trashedPhotosDeleted(List.of(new PurgedPhoto(userId, photo.getStatus(), photo.getBytes())));
         log.info("Permanently deleted photo: photoId={}, userId={}", photoId, userId);
     }
 }
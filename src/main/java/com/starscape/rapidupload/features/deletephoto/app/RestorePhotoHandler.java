@@ -1,11 +1,16 @@
 package com.starscape.rapidupload.features.deletephoto.app;
 
 import com.starscape.rapidupload.common.exception.NotFoundException;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter;
+import com.starscape.rapidupload.features.listphotos.app.PhotoTimelineCounter;
+import com.starscape.rapidupload.features.tags.app.TagUsageCounter;
 import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
 import com.starscape.rapidupload.features.uploadphoto.domain.PhotoRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 /**
  * Handler for restoring soft-deleted photos.
  * Restores photo by clearing deletedAt timestamp.
@@ -14,9 +19,19 @@ import org.springframework.transaction.annotation.Transactional;
 public class RestorePhotoHandler {
     
     private final PhotoRepository photoRepository;
+    private final TagUsageCounter tagUsageCounter;
+    private final PhotoTimelineCounter photoTimelineCounter;
+    private final LibraryStatsCounter libraryStatsCounter;
     
-    public RestorePhotoHandler(PhotoRepository photoRepository) {
+    public RestorePhotoHandler(
+            PhotoRepository photoRepository,
+            TagUsageCounter tagUsageCounter,
+            PhotoTimelineCounter photoTimelineCounter,
+            LibraryStatsCounter libraryStatsCounter) {
         this.photoRepository = photoRepository;
+        this.tagUsageCounter = tagUsageCounter;
+        this.photoTimelineCounter = photoTimelineCounter;
+        this.libraryStatsCounter = libraryStatsCounter;
     }
     
     @Transactional
@@ -37,6 +52,9 @@ public class RestorePhotoHandler {
         // Restore photo
         photo.restore();
         photoRepository.save(photo);
+        tagUsageCounter.photosRestored(userId, List.of(photoId));
+        photoTimelineCounter.photosRestored(List.of(photoId));
+        libraryStatsCounter.photosRestored(List.of(photoId));
     }
 }
 
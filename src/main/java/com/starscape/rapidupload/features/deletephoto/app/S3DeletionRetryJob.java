@@ -0,0 +1,54 @@
+package com.starscape.rapidupload.features.deletephoto.app;
+
+import com.starscape.rapidupload.features.deletephoto.infra.S3CleanupService;
+import com.starscape.rapidupload.features.deletephoto.infra.S3DeletionQueueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Works off the S3 deletion queue: keys queued by bulk permanent deletes and failed deletions.
+ * Keys are claimed with a short lease, deleted from S3 outside any transaction, and then settled:
+ * succeeded keys are removed from the queue; failed keys are rescheduled with backoff.
+ */
+@Service
+public class S3DeletionRetryJob {
+    
+    private static final Logger log = LoggerFactory.getLogger(S3DeletionRetryJob.class);
+    
+    private final S3DeletionQueueRepository deletionQueueRepository;
+    private final S3CleanupService s3CleanupService;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    
+    public S3DeletionRetryJob(
+            S3DeletionQueueRepository deletionQueueRepository,
+            S3CleanupService s3CleanupService,
+            @Value("${app.cleanup.retry.batch-size:1000}") int batchSize,
+            @Value("${app.cleanup.retry.max-attempts:10}") int maxAttempts,
+            @Value("${app.cleanup.retry.lease-seconds:300}") long leaseSeconds) {
+        this.deletionQueueRepository = deletionQueueRepository;
+        this.s3CleanupService = s3CleanupService;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.cleanup.retry.interval-ms:60000}")  // Every minute by default
+    public void retryFailedDeletions() {
+        List<String> keys = deletionQueueRepository.claimDue(maxAttempts, batchSize, lease);
+        if (keys.isEmpty()) {
+            return;
+        }
+        
+        int failed = s3CleanupService.deleteQueuedKeys(keys);
+        
+        log.info("Processed {} queued S3 deletions: {} succeeded, {} failed", keys.size(), keys.size() - failed, failed);
+    }
+}
@@ -0,0 +1,167 @@
+package com.starscape.rapidupload.features.deletephoto.app;
+
+import com.starscape.rapidupload.features.deletephoto.infra.PhotoBulkRepository;
+import com.starscape.rapidupload.features.deletephoto.infra.PhotoBulkRepository.DeletedPhoto;
+import com.starscape.rapidupload.features.deletephoto.infra.PhotoBulkRepository.TrashedPhoto;
+import com.starscape.rapidupload.features.deletephoto.infra.S3CleanupService;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter.PurgedPhoto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Permanently deletes trashed photos past the retention period, across all users.
+ * Walks expired trash in keyset batches; each batch deletes tag links and rows with set-based
+ * statements and queues the S3 objects in the same transaction, then deletes them with batched
+ * DeleteObjects requests. Batches are paced to a configured rate so purging never competes
+ * with interactive traffic; the wait between batches is a scheduled task, not a sleep on the
+ * scheduling thread. A run that is still going when the next one is due makes it a no-op.
+ */
+@Service
+public class TrashPurgeJob {
+    
+    private static final Logger log = LoggerFactory.getLogger(TrashPurgeJob.class);
+    
+    private final PhotoBulkRepository photoBulkRepository;
+    private final S3CleanupService s3CleanupService;
+    private final LibraryStatsCounter libraryStatsCounter;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final int retentionDays;
+    private final int batchSize;
+    private final int maxPhotosPerSecond;
+    private final int maxBatchesPerRun;
+    private final AtomicBoolean running = new AtomicBoolean();
+    
+    public TrashPurgeJob(
+            PhotoBulkRepository photoBulkRepository,
+            S3CleanupService s3CleanupService,
+            LibraryStatsCounter libraryStatsCounter,
+            PlatformTransactionManager transactionManager,
+            TaskScheduler taskScheduler,
+            @Value("${app.trash.retention-days:7}") int retentionDays,
+            @Value("${app.trash.purge.batch-size:200}") int batchSize,
+            @Value("${app.trash.purge.max-photos-per-second:100}") int maxPhotosPerSecond,
+            @Value("${app.trash.purge.max-batches-per-run:100}") int maxBatchesPerRun) {
+        this.photoBulkRepository = photoBulkRepository;
+        this.s3CleanupService = s3CleanupService;
+        this.libraryStatsCounter = libraryStatsCounter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskScheduler = taskScheduler;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+        this.maxPhotosPerSecond = maxPhotosPerSecond;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.trash.purge.interval-ms:3600000}")  // Hourly by default
+    public void purgeExpiredTrash() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Previous trash purge still running, skipping this run");
+            return;
+        }
+        PurgeRun run = new PurgeRun(Instant.now().minus(retentionDays, ChronoUnit.DAYS));
+        runBatch(run);
+    }
+    
+    /**
+     * Purge one batch, then schedule the next one for the end of its time slot rather than
+     * sleeping, so the shared scheduling thread is free for other jobs between batches.
+     * The run ends, clearing the running flag, whenever no next batch was scheduled.
+     */
+    private void runBatch(PurgeRun run) {
+        boolean scheduled = false;
+        try {
+            scheduled = purgeAndScheduleNext(run);
+        } finally {
+            if (!scheduled) {
+                if (run.purged > 0) {
+                    log.info("Purged {} expired trash photos ({} S3 objects left for retry)", run.purged, run.failedObjects);
+                }
+                running.set(false);
+            }
+        }
+    }
+    
+    /**
+     * @return Whether the next batch was scheduled
+     */
+    private boolean purgeAndScheduleNext(PurgeRun run) {
+        long started = System.currentTimeMillis();
+        boolean more;
+        try {
+            PurgedBatch result = transactionTemplate.execute(status -> purgeBatch(run.retentionCutoff, run.cursor));
+            more = result != null && !result.photos().isEmpty();
+            if (more) {
+                // Queue entries are committed, so a crash here only delays deletion until the queue job runs
+                run.failedObjects += s3CleanupService.deleteQueuedKeys(result.objectKeys());
+                run.purged += result.photos().size();
+                run.cursor = result.photos().get(result.photos().size() - 1);
+                run.batches++;
+                more = result.photos().size() == batchSize && run.batches < maxBatchesPerRun;
+            }
+        } catch (RuntimeException e) {
+            log.error("Trash purge batch failed after {} photos", run.purged, e);
+            more = false;
+        }
+        
+        if (!more) {
+            return false;
+        }
+        long minBatchMillis = 1000L * batchSize / Math.max(1, maxPhotosPerSecond);
+        long delayMillis = Math.max(0, minBatchMillis - (System.currentTimeMillis() - started));
+        try {
+            taskScheduler.schedule(() -> runBatch(run), Instant.now().plusMillis(delayMillis));
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Shutting down: the rest is purged on the next run
+            log.debug("Trash purge stopped early: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    private PurgedBatch purgeBatch(Instant retentionCutoff, TrashedPhoto cursor) {
+        List<TrashedPhoto> photos = photoBulkRepository.lockExpiredTrash(retentionCutoff, cursor, batchSize);
+        if (photos.isEmpty()) {
+            return new PurgedBatch(photos, List.of());
+        }
+        
+        List<DeletedPhoto> deleted = photoBulkRepository.deleteByIds(photos.stream().map(TrashedPhoto::photoId).toList());
+        libraryStatsCounter.trashedPhotosDeleted(
+            deleted.stream().map(photo -> new PurgedPhoto(photo.userId(), photo.status(), photo.bytes())).toList());
+        List<String> objectKeys = s3CleanupService.enqueuePhotos(deleted.stream().map(DeletedPhoto::storedPhoto).toList());
+        return new PurgedBatch(photos, objectKeys);
+    }
+    
+    private record PurgedBatch(
+        List<TrashedPhoto> photos,
+        List<String> objectKeys
+    ) {}
+    
+    /**
+     * Progress of one run across its batches; each batch runs after the previous one finished.
+     */
+    private static final class PurgeRun {
+        private final Instant retentionCutoff;
+        private TrashedPhoto cursor = TrashedPhoto.START;
+        private int batches;
+        private int purged;
+        private int failedObjects;
+        
+        private PurgeRun(Instant retentionCutoff) {
+            this.retentionCutoff = retentionCutoff;
+        }
+    }
+}
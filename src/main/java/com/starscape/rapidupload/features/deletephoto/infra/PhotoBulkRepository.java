@@ -0,0 +1,206 @@
+package com.starscape.rapidupload.features.deletephoto.infra;
+
+import com.starscape.rapidupload.common.cache.SecondLevelCacheEvictor;
+import com.starscape.rapidupload.features.deletephoto.infra.S3CleanupService.StoredPhoto;
+import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set-based soft delete, restore and permanent delete of a user's photos.
+ * Every statement is scoped to the user, so IDs owned by someone else are simply not matched.
+ * Changed photos are evicted from the second-level cache, since these statements bypass Hibernate.
+ */
+@Repository
+public class PhotoBulkRepository {
+    
+    private static final String LOCK_EXPIRED_TRASH_SQL =
+            "SELECT photo_id, deleted_at FROM photos " +
+            "WHERE deleted_at < ? AND (deleted_at, photo_id) > (?, ?) " +
+            "ORDER BY deleted_at, photo_id LIMIT ? FOR UPDATE SKIP LOCKED";
+    
+    private static final String DELETE_TAG_LINKS_SQL =
+            "DELETE FROM photo_tags WHERE photo_id = ANY(?)";
+    
+    private static final String DELETE_PHOTOS_SQL =
+            "DELETE FROM photos WHERE photo_id = ANY(?) RETURNING photo_id, user_id, status, bytes, s3_key, thumbnail_extension";
+    
+    private static final RowMapper<DeletedPhoto> DELETED_PHOTO_MAPPER = (rs, rowNum) -> new DeletedPhoto(
+        rs.getString("photo_id"),
+        rs.getString("user_id"),
+        PhotoStatus.valueOf(rs.getString("status")),
+        rs.getLong("bytes"),
+        rs.getString("s3_key"),
+        rs.getString("thumbnail_extension"));
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final SecondLevelCacheEvictor cacheEvictor;
+    
+    public PhotoBulkRepository(JdbcTemplate jdbcTemplate, SecondLevelCacheEvictor cacheEvictor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheEvictor = cacheEvictor;
+    }
+    
+    /**
+     * Soft-delete the selected photos that are not already in the trash.
+     *
+     * @return IDs of the photos moved to the trash
+     */
+    public List<String> softDelete(String userId, PhotoSelection selection) {
+        StringBuilder sql = new StringBuilder(
+            "UPDATE photos SET deleted_at = NOW() WHERE user_id = ? AND deleted_at IS NULL");
+        List<Object> args = new ArrayList<>(List.of(userId));
+        appendSelection(sql, args, selection);
+        return updateReturningIds(sql, args);
+    }
+    
+    /**
+     * Restore the selected photos that are in the trash.
+     *
+     * @return IDs of the photos restored
+     */
+    public List<String> restore(String userId, PhotoSelection selection) {
+        StringBuilder sql = new StringBuilder(
+            "UPDATE photos SET deleted_at = NULL WHERE user_id = ? AND deleted_at IS NOT NULL");
+        List<Object> args = new ArrayList<>(List.of(userId));
+        appendSelection(sql, args, selection);
+        return updateReturningIds(sql, args);
+    }
+    
+    /**
+     * Delete the selected photos that were soft-deleted before the retention cutoff.
+     * Tag links are removed by the photo_tags foreign key cascade.
+     *
+     * @return The deleted photos
+     */
+    public List<DeletedPhoto> deletePermanently(String userId, Instant retentionCutoff, PhotoSelection selection) {
+        StringBuilder sql = new StringBuilder(
+            "DELETE FROM photos WHERE user_id = ? AND deleted_at < ?");
+        List<Object> args = new ArrayList<>(List.of(userId, retentionCutoff));
+        appendSelection(sql, args, selection);
+        sql.append(" RETURNING photo_id, user_id, status, bytes, s3_key, thumbnail_extension");
+        
+        List<DeletedPhoto> deleted = jdbcTemplate.query(sql.toString(), bind(args), DELETED_PHOTO_MAPPER);
+        cacheEvictor.evictEntities(Photo.class, deleted.stream().map(DeletedPhoto::photoId).toList());
+        if (!deleted.isEmpty()) {
+            // The cascade removed tag links behind the query cache's back
+            cacheEvictor.evictPhotoTagQueries();
+        }
+        return deleted;
+    }
+    
+    /**
+     * Lock the next batch of expired trash across all users, in (deleted_at, photo_id) order
+     * after the given keyset cursor. Rows locked by another purger are skipped.
+     * Must run inside a transaction.
+     */
+    public List<TrashedPhoto> lockExpiredTrash(Instant retentionCutoff, TrashedPhoto after, int limit) {
+        return jdbcTemplate.query(LOCK_EXPIRED_TRASH_SQL,
+            (rs, rowNum) -> new TrashedPhoto(
+                rs.getString("photo_id"),
+                rs.getTimestamp("deleted_at").toInstant()),
+            Timestamp.from(retentionCutoff),
+            Timestamp.from(after.deletedAt()),
+            after.photoId(),
+            limit);
+    }
+    
+    /**
+     * Delete photos and their tag links by ID, regardless of owner.
+     *
+     * @return The deleted photos
+     */
+    public List<DeletedPhoto> deleteByIds(Collection<String> photoIds) {
+        PreparedStatementSetter ids = bind(List.<Object>of(photoIds));
+        jdbcTemplate.update(DELETE_TAG_LINKS_SQL, ids);
+        List<DeletedPhoto> deleted = jdbcTemplate.query(DELETE_PHOTOS_SQL, ids, DELETED_PHOTO_MAPPER);
+        
+        cacheEvictor.evictEntities(Photo.class, photoIds);
+        cacheEvictor.evictPhotoTagQueries();
+        return deleted;
+    }
+    
+    private List<String> updateReturningIds(StringBuilder sql, List<Object> args) {
+        sql.append(" RETURNING photo_id");
+        List<String> photoIds = jdbcTemplate.query(sql.toString(), bind(args), (rs, rowNum) -> rs.getString("photo_id"));
+        cacheEvictor.evictEntities(Photo.class, photoIds);
+        return photoIds;
+    }
+    
+    private void appendSelection(StringBuilder sql, List<Object> args, PhotoSelection selection) {
+        if (selection.photoIds() != null) {
+            sql.append(" AND photo_id = ANY(?)");
+            args.add(selection.photoIds());
+        }
+        if (selection.jobId() != null) {
+            sql.append(" AND job_id = ?");
+            args.add(selection.jobId());
+        }
+        if (selection.deletedBefore() != null) {
+            sql.append(" AND deleted_at < ?");
+            args.add(selection.deletedBefore());
+        }
+    }
+    
+    private PreparedStatementSetter bind(List<Object> args) {
+        return ps -> {
+            for (int i = 0; i < args.size(); i++) {
+                Object arg = args.get(i);
+                if (arg instanceof Collection<?> values) {
+                    ps.setArray(i + 1, ps.getConnection().createArrayOf("varchar", values.toArray()));
+                } else if (arg instanceof Instant instant) {
+                    ps.setTimestamp(i + 1, Timestamp.from(instant));
+                } else {
+                    ps.setObject(i + 1, arg);
+                }
+            }
+        };
+    }
+    
+    /**
+     * A permanently deleted photo.
+     *
+     * @param s3Key S3 key of the original, null for photos that were never uploaded
+     * @param thumbnailExtension Extension of its thumbnails, null if they are keyed by the original's
+     */
+    public record DeletedPhoto(
+        String photoId,
+        String userId,
+        PhotoStatus status,
+        long bytes,
+        String s3Key,
+        String thumbnailExtension
+    ) {
+        public StoredPhoto storedPhoto() {
+            return new StoredPhoto(s3Key, thumbnailExtension);
+        }
+    }
+    
+    /**
+     * Keyset position of a soft-deleted photo.
+     */
+    public record TrashedPhoto(
+        String photoId,
+        Instant deletedAt
+    ) {
+        public static final TrashedPhoto START = new TrashedPhoto("", Instant.EPOCH);
+    }
+    
+    /**
+     * Which photos a bulk command applies to. Null criteria are ignored; at least one should be set.
+     */
+    public record PhotoSelection(
+        List<String> photoIds,
+        String jobId,
+        Instant deletedBefore
+    ) {}
+}
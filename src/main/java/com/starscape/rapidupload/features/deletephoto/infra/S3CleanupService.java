@@ -1,103 +1,199 @@
 package com.starscape.rapidupload.features.deletephoto.infra;
 
+import com.starscape.rapidupload.common.config.ProcessingProperties;
+import com.starscape.rapidupload.features.uploadphoto.domain.ThumbnailKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Service for cleaning up S3 objects (original photos and thumbnails).
- * Handles errors gracefully to ensure database cleanup proceeds even if S3 deletion fails.
+ * Deletes keys with batched DeleteObjects requests and records failed keys in the
+ * deletion retry queue, so database cleanup proceeds even if S3 deletion fails.
  */
 @Service
 public class S3CleanupService {
     
     private static final Logger log = LoggerFactory.getLogger(S3CleanupService.class);
     
+    // DeleteObjects accepts at most 1,000 keys per request
+    private static final int MAX_KEYS_PER_REQUEST = 1000;
+    
     private final S3Client s3Client;
+    private final ProcessingProperties processingProperties;
+    private final S3DeletionQueueRepository deletionQueueRepository;
     private final String bucket;
     
-    public S3CleanupService(S3Client s3Client, @Value("${aws.s3.bucket}") String bucket) {
+    public S3CleanupService(
+            S3Client s3Client,
+            ProcessingProperties processingProperties,
+            S3DeletionQueueRepository deletionQueueRepository,
+            @Value("${aws.s3.bucket}") String bucket) {
         this.s3Client = s3Client;
+        this.processingProperties = processingProperties;
+        this.deletionQueueRepository = deletionQueueRepository;
         this.bucket = bucket;
     }
     
     /**
      * Delete photo and its thumbnails from S3.
-     * 
+     *
      * @param s3Key The S3 key of the original photo
-     * @return true if all deletions succeeded, false otherwise
+     * @param thumbnailExtension The photo's thumbnail extension, null if keyed by the original's
+     * @return true if all deletions succeeded, false otherwise (failed keys are queued for retry)
      */
-    public boolean deletePhotoAndThumbnails(String s3Key) {
+    public boolean deletePhotoAndThumbnails(String s3Key, String thumbnailExtension) {
         if (s3Key == null || s3Key.isBlank()) {
             log.warn("S3 key is null or blank, skipping S3 cleanup");
             return false;
         }
         
-        boolean allSucceeded = true;
-        
-        // Delete thumbnails first
-        List<Integer> thumbnailSizes = List.of(256, 1024);
-        for (int size : thumbnailSizes) {
-            String thumbnailKey = getThumbnailKey(s3Key, size);
-            if (!deleteS3Object(thumbnailKey)) {
-                allSucceeded = false;
-            }
-        }
+        return deletePhotos(List.of(new StoredPhoto(s3Key, thumbnailExtension))).failed() == 0;
+    }
+    
+    /**
+     * Delete many photos and their thumbnails from S3.
+     * Keys are gathered across all photos and sent in DeleteObjects requests of up to 1,000 keys.
+     * Keys that fail to delete are recorded in the retry queue.
+     *
+     * @param photos The photos' stored objects; photos without an S3 key are skipped
+     * @return The number of object keys deleted and failed
+     */
+    public BulkDeleteResult deletePhotos(Collection<StoredPhoto> photos) {
+        List<String> keys = objectKeysForPhotos(photos);
         
-        // Delete original photo
-        if (!deleteS3Object(s3Key)) {
-            allSucceeded = false;
+        List<FailedDeletion> failures = deleteKeys(keys);
+        if (!failures.isEmpty()) {
+            log.warn("Failed to delete {} of {} S3 objects, queued for retry", failures.size(), keys.size());
+            deletionQueueRepository.enqueue(failures);
         }
         
-        return allSucceeded;
+        return new BulkDeleteResult(keys.size() - failures.size(), failures.size());
     }
     
     /**
-     * Delete a single S3 object.
+     * Queue many photos and their thumbnails for asynchronous deletion.
+     * Runs in the caller's transaction, so keys are only queued if the database delete commits.
+     *
+     * @param photos The photos' stored objects; photos without an S3 key are skipped
+     * @return The object keys queued
+     */
+    public List<String> enqueuePhotos(Collection<StoredPhoto> photos) {
+        List<String> keys = objectKeysForPhotos(photos);
+        deletionQueueRepository.enqueueKeys(keys);
+        return keys;
+    }
+    
+    /**
+     * Delete keys that are in the deletion queue and settle their queue entries:
+     * deleted keys are removed, failed keys are rescheduled with backoff.
+     * Call outside a transaction, so no queue rows stay locked during the S3 requests.
      * 
-     * @param key The S3 key to delete
-     * @return true if deletion succeeded or object doesn't exist, false on error
+     * @param keys Queued object keys
+     * @return The number of keys that failed to delete
+     */
+    public int deleteQueuedKeys(List<String> keys) {
+        List<FailedDeletion> failures = deleteKeys(keys);
+        
+        Set<String> failedKeys = new HashSet<>();
+        failures.forEach(failure -> failedKeys.add(failure.key()));
+        List<String> succeeded = keys.stream()
+            .filter(key -> !failedKeys.contains(key))
+            .toList();
+        
+        deletionQueueRepository.remove(succeeded);
+        deletionQueueRepository.recordFailures(failures);
+        return failures.size();
+    }
+    
+    /**
+     * Delete object keys with batched DeleteObjects requests.
+     * Missing keys count as deleted. Does not touch the retry queue.
+     *
+     * @param keys The object keys to delete
+     * @return The keys that could not be deleted, with the reason
      */
-    private boolean deleteS3Object(String key) {
-        try {
-            DeleteObjectRequest deleteRequest = DeleteObjectRequest.builder()
+    public List<FailedDeletion> deleteKeys(List<String> keys) {
+        List<FailedDeletion> failures = new ArrayList<>();
+        
+        for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_REQUEST) {
+            List<String> chunk = keys.subList(from, Math.min(from + MAX_KEYS_PER_REQUEST, keys.size()));
+            
+            List<ObjectIdentifier> objects = chunk.stream()
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+            
+            DeleteObjectsRequest deleteRequest = DeleteObjectsRequest.builder()
                     .bucket(bucket)
-                    .key(key)
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
                     .build();
             
-            s3Client.deleteObject(deleteRequest);
-            log.info("Successfully deleted S3 object: bucket={}, key={}", bucket, key);
-            return true;
-            
-        } catch (NoSuchKeyException e) {
-            log.debug("S3 object does not exist (already deleted?): bucket={}, key={}", bucket, key);
-            return true; // Consider this success - object doesn't exist
-        } catch (Exception e) {
-            log.error("Failed to delete S3 object: bucket={}, key={}", bucket, key, e);
-            return false;
+            try {
+                // Quiet mode: the response only lists keys that failed
+                DeleteObjectsResponse response = s3Client.deleteObjects(deleteRequest);
+                response.errors().forEach(error ->
+                    failures.add(new FailedDeletion(error.key(), error.code() + ": " + error.message())));
+                log.debug("Deleted {} S3 objects in one request ({} errors)", chunk.size(), response.errors().size());
+            } catch (Exception e) {
+                log.error("DeleteObjects request for {} keys failed: bucket={}", chunk.size(), bucket, e);
+                chunk.forEach(key -> failures.add(new FailedDeletion(key, e.getMessage())));
+            }
         }
+        
+        return failures;
     }
     
     /**
-     * Generate thumbnail S3 key from original key.
-     * Uses the same pattern as existing code in ListPhotosHandler and GetPhotoMetadataHandler.
+     * All object keys stored for the photos: for each, one thumbnail per configured size, then the original.
      */
-    private String getThumbnailKey(String originalKey, int size) {
-        int lastSlash = originalKey.lastIndexOf('/');
-        String basePath = originalKey.substring(0, lastSlash);
-        String filename = originalKey.substring(lastSlash + 1);
-        
-        int lastDot = filename.lastIndexOf('.');
-        String name = lastDot >= 0 ? filename.substring(0, lastDot) : filename;
-        String ext = lastDot >= 0 ? filename.substring(lastDot) : "";
+    private List<String> objectKeysForPhotos(Collection<StoredPhoto> photos) {
+        List<Integer> thumbnailSizes = processingProperties.getThumbnailSizes() != null
+            ? processingProperties.getThumbnailSizes()
+            : List.of();
         
-        return basePath + "/thumbnails/" + name + "_" + size + ext;
+        List<String> keys = new ArrayList<>();
+        for (StoredPhoto photo : photos) {
+            if (photo.s3Key() == null || photo.s3Key().isBlank()) {
+                continue;
+            }
+            for (int size : thumbnailSizes) {
+                keys.add(ThumbnailKeys.forSize(photo.s3Key(), photo.thumbnailExtension(), size));
+            }
+            keys.add(photo.s3Key());
+        }
+        return keys;
     }
+    
+    /**
+     * The S3 objects of one photo.
+     *
+     * @param s3Key S3 key of the original, null for photos that were never uploaded
+     * @param thumbnailExtension Extension of its thumbnails, null if they are keyed by the original's
+     */
+    public record StoredPhoto(
+        String s3Key,
+        String thumbnailExtension
+    ) {}
+    
+    public record BulkDeleteResult(
+        int deleted,
+        int failed
+    ) {}
+    
+    public record FailedDeletion(
+        String key,
+        String error
+    ) {}
 }
-
@@ -0,0 +1,103 @@
+package com.starscape.rapidupload.features.deletephoto.infra;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Queue of S3 objects awaiting deletion: keys handed off by bulk permanent deletes and keys
+ * whose deletion failed. Failed keys are retried with exponential backoff until they succeed
+ * or run out of attempts; queuing a key again restarts its attempts.
+ */
+@Repository
+public class S3DeletionQueueRepository {
+    
+    // A key queued again, such as by a later failed delete, gets a fresh set of attempts starting now
+    private static final String ENQUEUE_SQL =
+            "INSERT INTO s3_deletion_queue (s3_key, last_error) VALUES (?, ?) " +
+            "ON CONFLICT (s3_key) DO UPDATE SET attempts = 0, next_attempt_at = NOW(), " +
+            "last_error = COALESCE(EXCLUDED.last_error, s3_deletion_queue.last_error)";
+    
+    // Leases due keys by moving their next attempt past the lease, so the claim commits at once
+    // and no row lock is held while S3 is called
+    private static final String CLAIM_DUE_SQL =
+            "UPDATE s3_deletion_queue SET next_attempt_at = NOW() + ? * INTERVAL '1 second' " +
+            "WHERE s3_key IN (" +
+            "  SELECT s3_key FROM s3_deletion_queue " +
+            "  WHERE next_attempt_at <= NOW() AND attempts < ? " +
+            "  ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED" +
+            ") RETURNING s3_key";
+    
+    private static final String REMOVE_SQL =
+            "DELETE FROM s3_deletion_queue WHERE s3_key = ANY(?)";
+    
+    private static final String RECORD_FAILURE_SQL =
+            "UPDATE s3_deletion_queue SET attempts = attempts + 1, last_error = ?, " +
+            "next_attempt_at = NOW() + LEAST(INTERVAL '1 minute' * POWER(2, LEAST(attempts, 16)), INTERVAL '6 hours') " +
+            "WHERE s3_key = ?";
+    
+    private static final int BATCH_SIZE = 1000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public S3DeletionQueueRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Queue object keys for asynchronous deletion by the queue processor.
+     */
+    public void enqueueKeys(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(ENQUEUE_SQL, keys, BATCH_SIZE, (ps, key) -> {
+            ps.setString(1, key);
+            ps.setNull(2, Types.VARCHAR);
+        });
+    }
+    
+    public void enqueue(Collection<S3CleanupService.FailedDeletion> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(ENQUEUE_SQL, failures, BATCH_SIZE, (ps, failure) -> {
+            ps.setString(1, failure.key());
+            ps.setString(2, failure.error());
+        });
+    }
+    
+    /**
+     * Claim keys that are due for a retry by leasing them: they are not due again until the
+     * lease runs out, so a claimer that dies without recording a result only delays them.
+     * Needs no surrounding transaction; keys being claimed by another instance are skipped.
+     */
+    public List<String> claimDue(int maxAttempts, int limit, Duration lease) {
+        return jdbcTemplate.queryForList(CLAIM_DUE_SQL, String.class, lease.toSeconds(), maxAttempts, limit);
+    }
+    
+    public void remove(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(REMOVE_SQL,
+            ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", keys.toArray())));
+    }
+    
+    /**
+     * Record failed attempts and schedule the next one with exponential backoff.
+     */
+    public void recordFailures(Collection<S3CleanupService.FailedDeletion> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(RECORD_FAILURE_SQL, failures, BATCH_SIZE, (ps, failure) -> {
+            ps.setString(1, failure.error());
+            ps.setString(2, failure.key());
+        });
+    }
+}
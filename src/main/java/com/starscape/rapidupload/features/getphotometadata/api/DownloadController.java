@@ -79,8 +79,8 @@ public class DownloadController {
             throw new IllegalStateException("Photo not yet uploaded");
         }
         
-        String thumbnailKey = getThumbnailKey(photo.getS3Key(), size);
-        String presignedUrl = generatePresignedGetUrl(thumbnailKey, "thumbnail_" + photo.getFilename());
+        String thumbnailKey = photo.getThumbnailKey(size);
+        String presignedUrl = generatePresignedGetUrl(thumbnailKey, "thumbnail_" + thumbnailFilename(photo));
         
         return ResponseEntity.ok(Map.of(
             "url", presignedUrl,
@@ -89,18 +89,16 @@ public class DownloadController {
     }
     
     /**
-     * Generate thumbnail S3 key from original key.
+     * The photo's filename with the extension of its thumbnails' encoded format.
      */
-    private String getThumbnailKey(String originalKey, int size) {
-        int lastSlash = originalKey.lastIndexOf('/');
-        String basePath = originalKey.substring(0, lastSlash);
-        String filename = originalKey.substring(lastSlash + 1);
-        
+    private String thumbnailFilename(Photo photo) {
+        String filename = photo.getFilename();
+        if (photo.getThumbnailExtension() == null) {
+            return filename;
+        }
         int lastDot = filename.lastIndexOf('.');
-        String name = lastDot >= 0 ? filename.substring(0, lastDot) : filename;
-        String ext = lastDot >= 0 ? filename.substring(lastDot) : "";
-        
-        return basePath + "/thumbnails/" + name + "_" + size + ext;
+        String name = lastDot > 0 ? filename.substring(0, lastDot) : filename;
+        return name + "." + photo.getThumbnailExtension();
     }
     
     /**
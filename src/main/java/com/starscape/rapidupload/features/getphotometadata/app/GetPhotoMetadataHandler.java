@@ -82,7 +82,7 @@ public class GetPhotoMetadataHandler {
         if (photo.getS3Key() != null) {
             List<Integer> sizes = List.of(256, 1024);
             for (int size : sizes) {
-                String thumbnailKey = getThumbnailKey(photo.getS3Key(), size);
+                String thumbnailKey = photo.getThumbnailKey(size);
                 String url = generatePresignedGetUrl(thumbnailKey);
                 thumbnailUrls.add(url);
             }
@@ -123,21 +123,6 @@ public class GetPhotoMetadataHandler {
                 .collect(Collectors.toList());
     }
     
-    /**
-     * Generate thumbnail S3 key from original key.
-     */
-    private String getThumbnailKey(String originalKey, int size) {
-        int lastSlash = originalKey.lastIndexOf('/');
-        String basePath = originalKey.substring(0, lastSlash);
-        String filename = originalKey.substring(lastSlash + 1);
-        
-        int lastDot = filename.lastIndexOf('.');
-        String name = lastDot >= 0 ? filename.substring(0, lastDot) : filename;
-        String ext = lastDot >= 0 ? filename.substring(lastDot) : "";
-        
-        return basePath + "/thumbnails/" + name + "_" + size + ext;
-    }
-    
     /**
      * Generate presigned GET URL for S3 object.
      */
@@ -0,0 +1,33 @@
+package com.starscape.rapidupload.features.librarystats.api;
+
+import com.starscape.rapidupload.common.security.UserPrincipal;
+import com.starscape.rapidupload.features.librarystats.api.dto.LibraryStatsResponse;
+import com.starscape.rapidupload.features.librarystats.app.GetLibraryStatsHandler;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for library dashboards: photo counts, storage and trash size.
+ */
+@RestController
+@RequestMapping("/queries/library")
+public class LibraryStatsController {
+    
+    private final GetLibraryStatsHandler getLibraryStatsHandler;
+    
+    public LibraryStatsController(GetLibraryStatsHandler getLibraryStatsHandler) {
+        this.getLibraryStatsHandler = getLibraryStatsHandler;
+    }
+    
+    /**
+     * Library totals for the authenticated user.
+     * GET /queries/library/stats
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<LibraryStatsResponse> getStats(@AuthenticationPrincipal UserPrincipal principal) {
+        return ResponseEntity.ok(getLibraryStatsHandler.handle(principal.getUserId()));
+    }
+}
@@ -0,0 +1,45 @@
+package com.starscape.rapidupload.features.librarystats.api.dto;
+
+import java.time.Instant;
+
+/**
+ * Response DTO for a user's library totals.
+ * Photo count, bytes and status counts cover photos outside the trash; the trash is reported separately.
+ *
+ * @param storageBytes Bytes stored for the user, trash included
+ * @param quota Storage quota usage
+ */
+public record LibraryStatsResponse(
+    long photoCount,
+    long totalBytes,
+    StatusCounts statusCounts,
+    long trashedCount,
+    long trashedBytes,
+    long storageBytes,
+    Quota quota,
+    Instant updatedAt
+) {
+    /**
+     * @param pending Photos queued, uploading or processing
+     */
+    public record StatusCounts(
+        long pending,
+        long completed,
+        long failed,
+        long cancelled
+    ) {}
+    
+    /**
+     * Quota usage counts pending and COMPLETED photos, trash included.
+     *
+     * @param reservedBytes Bytes held for photos still uploading or processing
+     * @param usedBytes Stored plus reserved bytes
+     */
+    public record Quota(
+        long limitBytes,
+        long storedBytes,
+        long reservedBytes,
+        long usedBytes,
+        long remainingBytes
+    ) {}
+}
@@ -0,0 +1,53 @@
+package com.starscape.rapidupload.features.librarystats.app;
+
+import com.starscape.rapidupload.features.librarystats.api.dto.LibraryStatsResponse;
+import com.starscape.rapidupload.features.librarystats.api.dto.LibraryStatsResponse.Quota;
+import com.starscape.rapidupload.features.librarystats.api.dto.LibraryStatsResponse.StatusCounts;
+import com.starscape.rapidupload.features.librarystats.infra.LibraryStatsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Handler for a user's library totals. Reads the single user_library_stats row;
+ * users who have never uploaded have no row and get zeros.
+ */
+@Service
+public class GetLibraryStatsHandler {
+    
+    private final LibraryStatsRepository libraryStatsRepository;
+    private final long defaultQuotaBytes;
+    
+    public GetLibraryStatsHandler(
+            LibraryStatsRepository libraryStatsRepository,
+            @Value("${app.upload.quota.default-bytes:10737418240}") long defaultQuotaBytes) {
+        this.libraryStatsRepository = libraryStatsRepository;
+        this.defaultQuotaBytes = defaultQuotaBytes;
+    }
+    
+    @Transactional(readOnly = true)
+    public LibraryStatsResponse handle(String userId) {
+        return libraryStatsRepository.findByUserId(userId)
+            .map(stats -> new LibraryStatsResponse(
+                stats.photoCount(),
+                stats.totalBytes(),
+                new StatusCounts(
+                    stats.pendingCount(),
+                    stats.completedCount(),
+                    stats.failedCount(),
+                    stats.cancelledCount()),
+                stats.trashedCount(),
+                stats.trashedBytes(),
+                stats.totalBytes() + stats.trashedBytes(),
+                quota(stats.quotaBytes() != null ? stats.quotaBytes() : defaultQuotaBytes,
+                    stats.storedBytes(), stats.reservedBytes()),
+                stats.updatedAt()))
+            .orElseGet(() -> new LibraryStatsResponse(
+                0, 0, new StatusCounts(0, 0, 0, 0), 0, 0, 0, quota(defaultQuotaBytes, 0, 0), null));
+    }
+    
+    private static Quota quota(long limitBytes, long storedBytes, long reservedBytes) {
+        long usedBytes = storedBytes + reservedBytes;
+        return new Quota(limitBytes, storedBytes, reservedBytes, usedBytes, Math.max(0, limitBytes - usedBytes));
+    }
+}
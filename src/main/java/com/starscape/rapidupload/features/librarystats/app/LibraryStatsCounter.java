@@ -0,0 +1,125 @@
+package com.starscape.rapidupload.features.librarystats.app;
+
+import com.starscape.rapidupload.common.exception.QuotaExceededException;
+import com.starscape.rapidupload.features.librarystats.infra.LibraryStatsRepository;
+import com.starscape.rapidupload.features.librarystats.infra.LibraryStatsRepository.LibraryStats;
+import com.starscape.rapidupload.features.librarystats.infra.LibraryStatsRepository.TrashRemoval;
+import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps per-user library totals (user_library_stats) in step with photo changes.
+ * Must be called inside the transaction that makes the change, so totals commit with it.
+ * Each call updates the user's single stats row, which stays locked until commit, so callers in
+ * long transactions should call last.
+ * Also enforces the storage quota: pending photos reserve their declared bytes when created,
+ * which are kept when they complete and released when they fail, are cancelled or are deleted.
+ */
+@Service
+public class LibraryStatsCounter {
+    
+    private static final Set<PhotoStatus> PENDING_STATUSES =
+        Set.of(PhotoStatus.QUEUED, PhotoStatus.UPLOADING, PhotoStatus.PROCESSING);
+    
+    private final LibraryStatsRepository libraryStatsRepository;
+    private final long defaultQuotaBytes;
+    
+    public LibraryStatsCounter(
+            LibraryStatsRepository libraryStatsRepository,
+            @Value("${app.upload.quota.default-bytes:10737418240}") long defaultQuotaBytes) {
+        this.libraryStatsRepository = libraryStatsRepository;
+        this.defaultQuotaBytes = defaultQuotaBytes;
+    }
+    
+    /**
+     * New photos were created, pending upload. Reserves their bytes against the user's quota.
+     *
+     * @throws QuotaExceededException if the quota cannot fit the photos; the caller's transaction
+     *         must roll back so the photos are not kept
+     */
+    public void photosCreated(String userId, Collection<Photo> photos) {
+        if (photos.isEmpty()) {
+            return;
+        }
+        long bytes = photos.stream().mapToLong(Photo::getBytes).sum();
+        if (!libraryStatsRepository.reservePending(userId, photos.size(), bytes, defaultQuotaBytes)) {
+            LibraryStats stats = libraryStatsRepository.findByUserId(userId).orElseThrow();
+            long quotaBytes = stats.quotaBytes() != null ? stats.quotaBytes() : defaultQuotaBytes;
+            throw new QuotaExceededException(quotaBytes, stats.storedBytes() + stats.reservedBytes(), bytes);
+        }
+    }
+    
+    /**
+     * A photo may have been marked COMPLETED or FAILED.
+     * Does nothing unless it left a pending status; photos in the trash have no status counts,
+     * but their reservation is still settled.
+     *
+     * @param previousStatus The photo's status before the change
+     */
+    public void photoFinished(Photo photo, PhotoStatus previousStatus) {
+        if (!PENDING_STATUSES.contains(previousStatus) || PENDING_STATUSES.contains(photo.getStatus())) {
+            return;
+        }
+        libraryStatsRepository.finishPending(
+            photo.getUserId(), photo.getStatus().name(), photo.isDeleted() ? 0 : 1, photo.getBytes());
+    }
+    
+    /**
+     * Pending photos were cancelled, releasing their reservation. Pass only the photos this
+     * transaction cancelled: any photo listed that is CANCELLED is counted, so one cancelled
+     * earlier would be counted twice.
+     */
+    public void photosCancelled(Collection<String> photoIds) {
+        libraryStatsRepository.cancelPending(photoIds);
+    }
+    
+    /**
+     * Photos moved to the trash. Pass only photos that were not already trashed.
+     */
+    public void photosTrashed(Collection<String> photoIds) {
+        libraryStatsRepository.moveToTrash(photoIds, 1);
+    }
+    
+    /**
+     * Photos restored from the trash. Pass only photos that were trashed.
+     */
+    public void photosRestored(Collection<String> photoIds) {
+        libraryStatsRepository.moveToTrash(photoIds, -1);
+    }
+    
+    /**
+     * Photos in the trash were permanently deleted, freeing the space they used.
+     */
+    public void trashedPhotosDeleted(Collection<PurgedPhoto> photos) {
+        if (photos.isEmpty()) {
+            return;
+        }
+        Map<String, TrashRemoval> removals = new LinkedHashMap<>();
+        for (PurgedPhoto photo : photos) {
+            long reservedBytes = PENDING_STATUSES.contains(photo.status()) ? photo.bytes() : 0;
+            long storedBytes = photo.status() == PhotoStatus.COMPLETED ? photo.bytes() : 0;
+            removals.merge(photo.userId(),
+                new TrashRemoval(photo.userId(), 1, photo.bytes(), reservedBytes, storedBytes),
+                (a, b) -> new TrashRemoval(a.userId(), a.photos() + b.photos(), a.bytes() + b.bytes(),
+                    a.reservedBytes() + b.reservedBytes(), a.storedBytes() + b.storedBytes()));
+        }
+        libraryStatsRepository.removeTrashed(List.copyOf(removals.values()));
+    }
+    
+    /**
+     * @param status The photo's status when it was deleted
+     */
+    public record PurgedPhoto(
+        String userId,
+        PhotoStatus status,
+        long bytes
+    ) {}
+}
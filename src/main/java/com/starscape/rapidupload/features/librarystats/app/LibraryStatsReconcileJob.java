@@ -0,0 +1,57 @@
+package com.starscape.rapidupload.features.librarystats.app;
+
+import com.starscape.rapidupload.features.librarystats.infra.LibraryStatsRepository;
+import com.starscape.rapidupload.features.librarystats.infra.LibraryStatsRepository.ReconcileBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Recounts per-user library totals from photos and fixes any that drifted.
+ * Incremental updates can drift when a photo changes status while it is being trashed, or when
+ * rows are changed outside the handlers; this job walks every user in keyset batches, so each
+ * statement stays short. It also creates rows for users who have none yet.
+ */
+@Service
+public class LibraryStatsReconcileJob {
+    
+    private static final Logger log = LoggerFactory.getLogger(LibraryStatsReconcileJob.class);
+    
+    private final LibraryStatsRepository libraryStatsRepository;
+    private final int batchSize;
+    
+    public LibraryStatsReconcileJob(
+            LibraryStatsRepository libraryStatsRepository,
+            @Value("${app.library-stats.reconcile.batch-size:500}") int batchSize) {
+        this.libraryStatsRepository = libraryStatsRepository;
+        this.batchSize = batchSize;
+    }
+    
+    @Scheduled(
+        initialDelayString = "${app.library-stats.reconcile.initial-delay-ms:1200000}",
+        fixedDelayString = "${app.library-stats.reconcile.interval-ms:21600000}")  // Every 6 hours by default
+    public void reconcileLibraryStats() {
+        String cursor = "";
+        int scanned = 0;
+        int corrected = 0;
+        
+        while (true) {
+            ReconcileBatch batch = libraryStatsRepository.reconcile(cursor, batchSize);
+            scanned += batch.scanned();
+            corrected += batch.corrected();
+            
+            if (batch.lastUserId() == null || batch.scanned() < batchSize) {
+                break;
+            }
+            cursor = batch.lastUserId();
+        }
+        
+        if (corrected > 0) {
+            log.warn("Reconciled {} drifted library stats rows out of {} users", corrected, scanned);
+        } else {
+            log.debug("Library stats consistent across {} users", scanned);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.starscape.rapidupload.features.librarystats.infra;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Materialized per-user library totals (user_library_stats).
+ * Counts are adjusted incrementally as photos are created, finish, and move in and out of the trash;
+ * {@link #reconcile} recomputes them from photos to correct any drift.
+ * The same row carries the storage quota: bytes of pending photos are reserved against it and
+ * become stored bytes when the photo completes.
+ */
+@Repository
+public class LibraryStatsRepository {
+    
+    private static final String COLUMNS =
+            "user_id, photo_count, total_bytes, pending_count, completed_count, failed_count, cancelled_count, " +
+            "trashed_count, trashed_bytes, reserved_bytes, stored_bytes";
+    
+    // Per-user totals computed from photos; "p" rows are the photos in scope
+    private static final String ACTUAL_COLUMNS =
+            "COUNT(p.photo_id) FILTER (WHERE p.deleted_at IS NULL), " +
+            "COALESCE(SUM(p.bytes) FILTER (WHERE p.deleted_at IS NULL), 0), " +
+            "COUNT(p.photo_id) FILTER (WHERE p.deleted_at IS NULL AND p.status IN ('QUEUED', 'UPLOADING', 'PROCESSING')), " +
+            "COUNT(p.photo_id) FILTER (WHERE p.deleted_at IS NULL AND p.status = 'COMPLETED'), " +
+            "COUNT(p.photo_id) FILTER (WHERE p.deleted_at IS NULL AND p.status = 'FAILED'), " +
+            "COUNT(p.photo_id) FILTER (WHERE p.deleted_at IS NULL AND p.status = 'CANCELLED'), " +
+            "COUNT(p.photo_id) FILTER (WHERE p.deleted_at IS NOT NULL), " +
+            "COALESCE(SUM(p.bytes) FILTER (WHERE p.deleted_at IS NOT NULL), 0), " +
+            "COALESCE(SUM(p.bytes) FILTER (WHERE p.status IN ('QUEUED', 'UPLOADING', 'PROCESSING')), 0), " +
+            "COALESCE(SUM(p.bytes) FILTER (WHERE p.status = 'COMPLETED'), 0)";
+    
+    private static final String FIND_BY_USER_SQL =
+            "SELECT " + COLUMNS + ", quota_bytes, updated_at FROM user_library_stats WHERE user_id = ?";
+    
+    // Matches no row when the reservation would exceed the quota (the user's own, else the default)
+    private static final String RESERVE_PENDING_SQL =
+            "UPDATE user_library_stats SET " +
+            "  photo_count = photo_count + ?, total_bytes = total_bytes + ?, pending_count = pending_count + ?, " +
+            "  reserved_bytes = reserved_bytes + ?, updated_at = NOW() " +
+            "WHERE user_id = ? AND stored_bytes + reserved_bytes + ? <= COALESCE(quota_bytes, ?)";
+    
+    private static final String CREATE_ROW_SQL =
+            "INSERT INTO user_library_stats (user_id) VALUES (?) ON CONFLICT (user_id) DO NOTHING";
+    
+    // %s is the status count column of the finished photos
+    private static final String FINISH_PENDING_SQL =
+            "UPDATE user_library_stats SET pending_count = pending_count - ?, %1$s = %1$s + ?, " +
+            "  reserved_bytes = reserved_bytes - ?, stored_bytes = stored_bytes + ?, updated_at = NOW() " +
+            "WHERE user_id = ?";
+    
+    private static final String CANCEL_PENDING_SQL =
+            "UPDATE user_library_stats s SET " +
+            "  pending_count = s.pending_count - c.photos, cancelled_count = s.cancelled_count + c.photos, " +
+            "  reserved_bytes = s.reserved_bytes - c.bytes, updated_at = NOW() " +
+            "FROM (" +
+            "  SELECT user_id, COUNT(*) FILTER (WHERE deleted_at IS NULL) AS photos, SUM(bytes) AS bytes FROM photos " +
+            "  WHERE photo_id = ANY(?) AND status = 'CANCELLED' GROUP BY user_id" +
+            ") c " +
+            "WHERE s.user_id = c.user_id";
+    
+    // Moves photos out of (direction 1) or back into (direction -1) the library totals and status counts
+    private static final String MOVE_TO_TRASH_SQL =
+            "UPDATE user_library_stats s SET " +
+            "  photo_count = s.photo_count - c.direction * c.photos, " +
+            "  total_bytes = s.total_bytes - c.direction * c.bytes, " +
+            "  pending_count = s.pending_count - c.direction * c.pending, " +
+            "  completed_count = s.completed_count - c.direction * c.completed, " +
+            "  failed_count = s.failed_count - c.direction * c.failed, " +
+            "  cancelled_count = s.cancelled_count - c.direction * c.cancelled, " +
+            "  trashed_count = s.trashed_count + c.direction * c.photos, " +
+            "  trashed_bytes = s.trashed_bytes + c.direction * c.bytes, " +
+            "  updated_at = NOW() " +
+            "FROM (" +
+            "  SELECT user_id, ?::int AS direction, COUNT(*) AS photos, SUM(bytes) AS bytes, " +
+            "    COUNT(*) FILTER (WHERE status IN ('QUEUED', 'UPLOADING', 'PROCESSING')) AS pending, " +
+            "    COUNT(*) FILTER (WHERE status = 'COMPLETED') AS completed, " +
+            "    COUNT(*) FILTER (WHERE status = 'FAILED') AS failed, " +
+            "    COUNT(*) FILTER (WHERE status = 'CANCELLED') AS cancelled " +
+            "  FROM photos WHERE photo_id = ANY(?) GROUP BY user_id" +
+            ") c " +
+            "WHERE s.user_id = c.user_id";
+    
+    private static final String REMOVE_TRASHED_SQL =
+            "UPDATE user_library_stats SET trashed_count = trashed_count - ?, trashed_bytes = trashed_bytes - ?, " +
+            "  reserved_bytes = reserved_bytes - ?, stored_bytes = stored_bytes - ?, updated_at = NOW() " +
+            "WHERE user_id = ?";
+    
+    // Recounts one keyset batch of users and rewrites only the rows that drifted
+    private static final String RECONCILE_SQL =
+            "WITH batch AS (" +
+            "  SELECT user_id FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?" +
+            "), actual AS (" +
+            "  SELECT b.user_id, " + ACTUAL_COLUMNS + " " +
+            "  FROM batch b LEFT JOIN photos p ON p.user_id = b.user_id " +
+            "  GROUP BY b.user_id" +
+            "), corrected AS (" +
+            "  INSERT INTO user_library_stats (" + COLUMNS + ") " +
+            "  SELECT * FROM actual " +
+            "  ON CONFLICT (user_id) DO UPDATE SET " +
+            "    photo_count = EXCLUDED.photo_count, total_bytes = EXCLUDED.total_bytes, " +
+            "    pending_count = EXCLUDED.pending_count, completed_count = EXCLUDED.completed_count, " +
+            "    failed_count = EXCLUDED.failed_count, cancelled_count = EXCLUDED.cancelled_count, " +
+            "    trashed_count = EXCLUDED.trashed_count, trashed_bytes = EXCLUDED.trashed_bytes, " +
+            "    reserved_bytes = EXCLUDED.reserved_bytes, stored_bytes = EXCLUDED.stored_bytes, " +
+            "    updated_at = NOW() " +
+            "  WHERE (user_library_stats.photo_count, user_library_stats.total_bytes, " +
+            "    user_library_stats.pending_count, user_library_stats.completed_count, " +
+            "    user_library_stats.failed_count, user_library_stats.cancelled_count, " +
+            "    user_library_stats.trashed_count, user_library_stats.trashed_bytes, " +
+            "    user_library_stats.reserved_bytes, user_library_stats.stored_bytes) " +
+            "    IS DISTINCT FROM (EXCLUDED.photo_count, EXCLUDED.total_bytes, " +
+            "    EXCLUDED.pending_count, EXCLUDED.completed_count, EXCLUDED.failed_count, " +
+            "    EXCLUDED.cancelled_count, EXCLUDED.trashed_count, EXCLUDED.trashed_bytes, " +
+            "    EXCLUDED.reserved_bytes, EXCLUDED.stored_bytes) " +
+            "  RETURNING user_id" +
+            ") " +
+            "SELECT (SELECT MAX(user_id) FROM batch) AS last_user_id, " +
+            "  (SELECT COUNT(*) FROM batch) AS scanned, " +
+            "  (SELECT COUNT(*) FROM corrected) AS corrected";
+    
+    private static final Map<String, String> FINISHED_COLUMNS = Map.of(
+        "COMPLETED", "completed_count",
+        "FAILED", "failed_count",
+        "CANCELLED", "cancelled_count");
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public LibraryStatsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    public Optional<LibraryStats> findByUserId(String userId) {
+        return jdbcTemplate.query(FIND_BY_USER_SQL, (rs, rowNum) -> {
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            return new LibraryStats(
+                rs.getString("user_id"),
+                rs.getLong("photo_count"),
+                rs.getLong("total_bytes"),
+                rs.getLong("pending_count"),
+                rs.getLong("completed_count"),
+                rs.getLong("failed_count"),
+                rs.getLong("cancelled_count"),
+                rs.getLong("trashed_count"),
+                rs.getLong("trashed_bytes"),
+                rs.getLong("reserved_bytes"),
+                rs.getLong("stored_bytes"),
+                rs.getObject("quota_bytes", Long.class),
+                updatedAt.toInstant());
+        }, userId).stream().findFirst();
+    }
+    
+    /**
+     * Count new pending photos and reserve their bytes, unless that would exceed the user's quota.
+     * A single conditional update of the user's row; the row is created on first use.
+     *
+     * @param defaultQuotaBytes Quota for users without their own
+     * @return false when the quota cannot fit the bytes, in which case nothing was changed
+     */
+    public boolean reservePending(String userId, int photos, long bytes, long defaultQuotaBytes) {
+        Object[] args = {photos, bytes, photos, bytes, userId, bytes, defaultQuotaBytes};
+        if (jdbcTemplate.update(RESERVE_PENDING_SQL, args) == 1) {
+            return true;
+        }
+        // No row matched: either the user has none yet or the quota is full
+        return jdbcTemplate.update(CREATE_ROW_SQL, userId) == 1
+            && jdbcTemplate.update(RESERVE_PENDING_SQL, args) == 1;
+    }
+    
+    /**
+     * Move photos from pending to a finished status and release their reservation;
+     * the bytes of COMPLETED photos stay used as stored bytes.
+     *
+     * @param status COMPLETED, FAILED or CANCELLED
+     * @param photos Photos moved between status counts (photos in the trash have none)
+     * @param bytes Bytes reserved for the photos
+     */
+    public void finishPending(String userId, String status, int photos, long bytes) {
+        String column = FINISHED_COLUMNS.get(status);
+        if (column == null) {
+            throw new IllegalArgumentException("Not a finished status: " + status);
+        }
+        long storedBytes = "COMPLETED".equals(status) ? bytes : 0;
+        jdbcTemplate.update(String.format(FINISH_PENDING_SQL, column), photos, photos, bytes, storedBytes, userId);
+    }
+    
+    /**
+     * Release the reservation of the given photos that are now CANCELLED,
+     * moving those outside the trash from pending to cancelled.
+     */
+    public void cancelPending(Collection<String> photoIds) {
+        if (photoIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(CANCEL_PENDING_SQL,
+            ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", photoIds.toArray())));
+    }
+    
+    /**
+     * Move photos into (direction 1) or out of (direction -1) the trash totals, by their current status and size.
+     * Ignores the photos' trash state, so it can run before or after the change is written.
+     */
+    public void moveToTrash(Collection<String> photoIds, int direction) {
+        if (photoIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(MOVE_TO_TRASH_SQL, ps -> {
+            ps.setInt(1, direction);
+            ps.setArray(2, ps.getConnection().createArrayOf("varchar", photoIds.toArray()));
+        });
+    }
+    
+    /**
+     * Remove permanently deleted photos from the trash totals and free the space they used.
+     */
+    public void removeTrashed(List<TrashRemoval> removals) {
+        jdbcTemplate.batchUpdate(REMOVE_TRASHED_SQL, removals, removals.size(), (ps, removal) -> {
+            ps.setInt(1, removal.photos());
+            ps.setLong(2, removal.bytes());
+            ps.setLong(3, removal.reservedBytes());
+            ps.setLong(4, removal.storedBytes());
+            ps.setString(5, removal.userId());
+        });
+    }
+    
+    /**
+     * Recount the next batch of users after the given user ID (use "" to start).
+     * Users without a row get one.
+     */
+    public ReconcileBatch reconcile(String afterUserId, int limit) {
+        return jdbcTemplate.queryForObject(RECONCILE_SQL, (rs, rowNum) -> new ReconcileBatch(
+            rs.getString("last_user_id"),
+            rs.getInt("scanned"),
+            rs.getInt("corrected")), afterUserId, limit);
+    }
+    
+    public record LibraryStats(
+        String userId,
+        long photoCount,
+        long totalBytes,
+        long pendingCount,
+        long completedCount,
+        long failedCount,
+        long cancelledCount,
+        long trashedCount,
+        long trashedBytes,
+        long reservedBytes,
+        long storedBytes,
+        Long quotaBytes,
+        Instant updatedAt
+    ) {}
+    
+    /**
+     * @param reservedBytes Bytes of the photos that were still pending
+     * @param storedBytes Bytes of the photos that were COMPLETED
+     */
+    public record TrashRemoval(
+        String userId,
+        int photos,
+        long bytes,
+        long reservedBytes,
+        long storedBytes
+    ) {}
+    
+    /**
+     * Outcome of one reconciliation batch.
+     *
+     * @param lastUserId Keyset cursor for the next batch, null when no users were left
+     */
+    public record ReconcileBatch(
+        String lastUserId,
+        int scanned,
+        int corrected
+    ) {}
+}
@@ -1,38 +1,104 @@
 package com.starscape.rapidupload.features.listphotos.api;
 
 import com.starscape.rapidupload.common.security.UserPrincipal;
+import com.starscape.rapidupload.features.listphotos.api.dto.GeoPhotosResponse;
+import com.starscape.rapidupload.features.listphotos.api.dto.PhotoExifFilter;
 import com.starscape.rapidupload.features.listphotos.api.dto.PhotoListResponse;
+import com.starscape.rapidupload.features.listphotos.api.dto.PhotoTimelineResponse;
+import com.starscape.rapidupload.features.listphotos.app.GeoPhotosHandler;
 import com.starscape.rapidupload.features.listphotos.app.ListPhotosHandler;
+import com.starscape.rapidupload.features.listphotos.app.PhotoTimelineHandler;
+import com.starscape.rapidupload.features.tags.app.TagFilter;
+import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Controller for listing photos with pagination and filtering.
- * Supports filtering by status and searching by filename.
+ * Supports filtering by status, tags, EXIF fields (see {@link PhotoExifFilter}) and searching by filename.
+ * Tag parameters may be repeated: {@code tags} must all match, at least one of {@code anyTags}
+ * must match, and none of {@code excludeTags} may match. {@code tag} is kept as a single-tag alias.
  */
 @RestController
 @RequestMapping("/queries/photos")
 public class PhotoListController {
     
     private final ListPhotosHandler listPhotosHandler;
+    private final GeoPhotosHandler geoPhotosHandler;
+    private final PhotoTimelineHandler photoTimelineHandler;
     
-    public PhotoListController(ListPhotosHandler listPhotosHandler) {
+    public PhotoListController(
+            ListPhotosHandler listPhotosHandler,
+            GeoPhotosHandler geoPhotosHandler,
+            PhotoTimelineHandler photoTimelineHandler) {
         this.listPhotosHandler = listPhotosHandler;
+        this.geoPhotosHandler = geoPhotosHandler;
+        this.photoTimelineHandler = photoTimelineHandler;
     }
     
     @GetMapping
     public ResponseEntity<PhotoListResponse> listPhotos(
             @RequestParam(required = false) String tag,
+            @RequestParam(required = false) List<String> tags,
+            @RequestParam(required = false) List<String> anyTags,
+            @RequestParam(required = false) List<String> excludeTags,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String search,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "50") int size,
+            @Valid PhotoExifFilter exif,
             @AuthenticationPrincipal UserPrincipal principal) {
         
+        List<String> allTags = new ArrayList<>();
+        if (tag != null) {
+            allTags.add(tag);
+        }
+        if (tags != null) {
+            allTags.addAll(tags);
+        }
+        TagFilter tagFilter = TagFilter.of(allTags, anyTags, excludeTags);
+        
         PhotoListResponse response = listPhotosHandler.handle(
-            principal.getUserId(), tag, status, search, page, size);
+            principal.getUserId(), tagFilter, exif, status, search, page, size);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Photos with GPS coordinates inside a map viewport, clustered by geohash cell.
+     * A viewport with {@code minLongitude > maxLongitude} crosses the antimeridian.
+     */
+    @GetMapping("/geo")
+    public ResponseEntity<GeoPhotosResponse> geoPhotos(
+            @RequestParam double minLatitude,
+            @RequestParam double maxLatitude,
+            @RequestParam double minLongitude,
+            @RequestParam double maxLongitude,
+            @RequestParam(required = false) Integer precision,
+            @RequestParam(defaultValue = "3") int photosPerCell,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        
+        GeoPhotosResponse response = geoPhotosHandler.handle(
+            principal.getUserId(), minLatitude, maxLatitude, minLongitude, maxLongitude, precision, photosPerCell);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Photo counts per capture day or month for the timeline scrubber.
+     * Only photos that finished processing are counted; {@code status} narrows to COMPLETED or FAILED.
+     */
+    @GetMapping("/timeline")
+    public ResponseEntity<PhotoTimelineResponse> timeline(
+            @RequestParam(defaultValue = "month") String granularity,
+            @RequestParam(required = false) String tag,
+            @RequestParam(required = false) String status,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        
+        PhotoTimelineResponse response = photoTimelineHandler.handle(
+            principal.getUserId(), granularity, tag, status);
         return ResponseEntity.ok(response);
     }
 }
-
@@ -0,0 +1,36 @@
+package com.starscape.rapidupload.features.listphotos.api.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response DTO for the map view: photos inside a viewport clustered by geohash cell.
+ * Cells are ordered by photo count, largest first; each carries its newest photos by capture time.
+ *
+ * @param precision Geohash length of the cells
+ */
+public record GeoPhotosResponse(
+    int precision,
+    long totalPhotos,
+    List<GeoCell> cells
+) {
+    /**
+     * @param latitude Mean latitude of the cell's photos
+     * @param longitude Mean longitude of the cell's photos
+     */
+    public record GeoCell(
+        String geohash,
+        long count,
+        double latitude,
+        double longitude,
+        List<GeoPhoto> photos
+    ) {}
+    
+    public record GeoPhoto(
+        String photoId,
+        double latitude,
+        double longitude,
+        LocalDateTime takenAt,
+        String thumbnailUrl
+    ) {}
+}
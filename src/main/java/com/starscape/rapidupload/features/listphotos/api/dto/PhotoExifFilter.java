@@ -0,0 +1,76 @@
+package com.starscape.rapidupload.features.listphotos.api.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Positive;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional EXIF filters for photo listing, bound from query parameters. All given criteria must match;
+ * photos without the EXIF field never match a filter on it.
+ * Capture times are the camera's local time, e.g. {@code takenFrom=2024-06-01T00:00:00}.
+ * The bounding box needs all four coordinates; {@code minLongitude > maxLongitude} crosses the antimeridian.
+ */
+public record PhotoExifFilter(
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    LocalDateTime takenFrom,
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    LocalDateTime takenTo,
+    
+    String cameraMake,
+    
+    String cameraModel,
+    
+    String lensModel,
+    
+    @Positive(message = "ISO must be positive")
+    Integer minIso,
+    
+    @Positive(message = "ISO must be positive")
+    Integer maxIso,
+    
+    @Positive(message = "Focal length must be positive")
+    Double minFocalLength,
+    
+    @Positive(message = "Focal length must be positive")
+    Double maxFocalLength,
+    
+    @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90", message = "Latitude must be between -90 and 90")
+    Double minLatitude,
+    
+    @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90", message = "Latitude must be between -90 and 90")
+    Double maxLatitude,
+    
+    @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180", message = "Longitude must be between -180 and 180")
+    Double minLongitude,
+    
+    @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180", message = "Longitude must be between -180 and 180")
+    Double maxLongitude
+) {
+    public boolean isEmpty() {
+        return takenFrom == null && takenTo == null
+            && isBlank(cameraMake) && isBlank(cameraModel) && isBlank(lensModel)
+            && minIso == null && maxIso == null
+            && minFocalLength == null && maxFocalLength == null
+            && !hasAnyCoordinate();
+    }
+    
+    public boolean hasAnyCoordinate() {
+        return minLatitude != null || maxLatitude != null || minLongitude != null || maxLongitude != null;
+    }
+    
+    public boolean hasBoundingBox() {
+        return minLatitude != null && maxLatitude != null && minLongitude != null && maxLongitude != null;
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,24 @@
+package com.starscape.rapidupload.features.listphotos.api.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Response DTO for the timeline scrubber: photo counts per capture day or month, newest first.
+ * Periods without photos are omitted.
+ *
+ * @param granularity "day" or "month"
+ */
+public record PhotoTimelineResponse(
+    String granularity,
+    long totalPhotos,
+    List<TimelineBucket> buckets
+) {
+    /**
+     * @param date First day of the period
+     */
+    public record TimelineBucket(
+        LocalDate date,
+        long count
+    ) {}
+}
@@ -0,0 +1,204 @@
+package com.starscape.rapidupload.features.listphotos.app;
+
+import com.starscape.rapidupload.common.config.ProcessingProperties;
+import com.starscape.rapidupload.common.geo.Geohash;
+import com.starscape.rapidupload.features.listphotos.api.dto.GeoPhotosResponse;
+import com.starscape.rapidupload.features.listphotos.api.dto.GeoPhotosResponse.GeoCell;
+import com.starscape.rapidupload.features.listphotos.api.dto.GeoPhotosResponse.GeoPhoto;
+import com.starscape.rapidupload.features.listphotos.infra.PhotoGeoRepository;
+import com.starscape.rapidupload.features.listphotos.infra.PhotoGeoRepository.CellPhoto;
+import com.starscape.rapidupload.features.listphotos.infra.PhotoSearchRepository.GeoBox;
+import com.starscape.rapidupload.features.uploadphoto.domain.ThumbnailKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Handler for the map view: clusters the user's photos inside a viewport by geohash cell.
+ * Cell size follows the viewport, so a pan or zoom returns a bounded number of cells however
+ * many photos are inside; only the top photos of each cell are returned individually.
+ */
+@Service
+public class GeoPhotosHandler {
+    
+    private static final Logger log = LoggerFactory.getLogger(GeoPhotosHandler.class);
+    
+    private static final int MAX_PHOTOS_PER_CELL = 10;
+    
+    // Upper bound on geohash ranges scanned per query; larger viewports scan fewer, shorter prefixes
+    private static final int MAX_RANGES = 32;
+    
+    private final PhotoGeoRepository photoGeoRepository;
+    private final S3Presigner s3Presigner;
+    private final String bucket;
+    private final int targetCells;
+    private final int maxCells;
+    // Smallest configured thumbnail, which processing writes first; 0 when none are configured
+    private final int thumbnailSize;
+    
+    public GeoPhotosHandler(
+            PhotoGeoRepository photoGeoRepository,
+            S3Presigner s3Presigner,
+            ProcessingProperties processingProperties,
+            @Value("${aws.s3.bucket}") String bucket,
+            @Value("${app.geo.target-cells:64}") int targetCells,
+            @Value("${app.geo.max-cells:1024}") int maxCells) {
+        this.photoGeoRepository = photoGeoRepository;
+        this.s3Presigner = s3Presigner;
+        this.bucket = bucket;
+        this.targetCells = targetCells;
+        this.maxCells = Math.max(maxCells, targetCells);
+        List<Integer> thumbnailSizes = processingProperties.getThumbnailSizes();
+        this.thumbnailSize = thumbnailSizes != null && !thumbnailSizes.isEmpty() ? Collections.min(thumbnailSizes) : 0;
+    }
+    
+    /**
+     * @param precision Geohash length of the cells, or null to size cells to the viewport; lowered
+     *        to the longest length that still covers the viewport in {@code app.geo.max-cells} cells
+     * @param photosPerCell Photos returned per cell, newest capture first
+     */
+    @Transactional(readOnly = true)
+    public GeoPhotosResponse handle(
+            String userId,
+            double minLatitude,
+            double maxLatitude,
+            double minLongitude,
+            double maxLongitude,
+            Integer precision,
+            int photosPerCell) {
+        
+        validateViewport(minLatitude, maxLatitude, minLongitude, maxLongitude);
+        if (precision != null && (precision < 1 || precision > Geohash.MAX_PRECISION)) {
+            throw new IllegalArgumentException("Precision must be between 1 and " + Geohash.MAX_PRECISION);
+        }
+        photosPerCell = Math.max(0, Math.min(photosPerCell, MAX_PHOTOS_PER_CELL));
+        
+        // A viewport across the antimeridian is covered as its eastern and western halves
+        List<GeoBox> parts = minLongitude <= maxLongitude
+            ? List.of(new GeoBox(minLatitude, maxLatitude, minLongitude, maxLongitude))
+            : List.of(new GeoBox(minLatitude, maxLatitude, minLongitude, 180),
+                      new GeoBox(minLatitude, maxLatitude, -180, maxLongitude));
+        
+        // A requested precision is capped so the response stays bounded however large the viewport
+        int cellPrecision = precision != null
+            ? Math.min(precision, largestPrecision(parts, maxCells))
+            : largestPrecision(parts, targetCells);
+        int rangePrecision = Math.min(cellPrecision, largestPrecision(parts, MAX_RANGES));
+        Set<String> rangePrefixes = new LinkedHashSet<>();
+        for (GeoBox part : parts) {
+            rangePrefixes.addAll(Geohash.covering(
+                part.minLatitude(), part.maxLatitude(), part.minLongitude(), part.maxLongitude(), rangePrecision));
+        }
+        
+        GeoBox viewport = new GeoBox(minLatitude, maxLatitude, minLongitude, maxLongitude);
+        List<CellPhoto> rows = photoGeoRepository.findClusters(
+            userId, List.copyOf(rangePrefixes), cellPrecision, viewport, photosPerCell,
+            maxCells * Math.max(photosPerCell, 1));
+        
+        // Rows arrive grouped by cell, largest cell first, photos in rank order
+        Map<String, GeoCellBuilder> cells = new LinkedHashMap<>();
+        for (CellPhoto row : rows) {
+            GeoCellBuilder cell = cells.computeIfAbsent(row.cell(), key -> new GeoCellBuilder(row));
+            if (row.cellRank() <= photosPerCell) {
+                cell.photos.add(new GeoPhoto(
+                    row.photoId(),
+                    row.latitude(),
+                    row.longitude(),
+                    row.takenAt(),
+                    thumbnailUrl(row)));
+            }
+        }
+        
+        long totalPhotos = 0;
+        List<GeoCell> result = new ArrayList<>(cells.size());
+        for (GeoCellBuilder cell : cells.values()) {
+            totalPhotos += cell.first.cellCount();
+            result.add(cell.build());
+        }
+        return new GeoPhotosResponse(cellPrecision, totalPhotos, result);
+    }
+    
+    private void validateViewport(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        if (minLatitude < -90 || maxLatitude > 90 || minLatitude > maxLatitude) {
+            throw new IllegalArgumentException("Latitudes must satisfy -90 <= minLatitude <= maxLatitude <= 90");
+        }
+        if (minLongitude < -180 || minLongitude > 180 || maxLongitude < -180 || maxLongitude > 180) {
+            throw new IllegalArgumentException("Longitudes must be between -180 and 180");
+        }
+    }
+    
+    /**
+     * The longest geohash whose cells cover the viewport in no more than the given number of cells.
+     */
+    private static int largestPrecision(List<GeoBox> parts, int maxCells) {
+        int best = 1;
+        for (int precision = 1; precision <= Geohash.MAX_PRECISION; precision++) {
+            long cells = 0;
+            for (GeoBox part : parts) {
+                cells += Geohash.cellsSpanned(
+                    part.minLatitude(), part.maxLatitude(), part.minLongitude(), part.maxLongitude(), precision);
+            }
+            if (cells > maxCells) {
+                break;
+            }
+            best = precision;
+        }
+        return best;
+    }
+    
+    private String thumbnailUrl(CellPhoto row) {
+        if (row.s3Key() == null || thumbnailSize <= 0) {
+            return null;
+        }
+        try {
+            return generatePresignedGetUrl(ThumbnailKeys.forSize(row.s3Key(), row.thumbnailExtension(), thumbnailSize));
+        } catch (Exception e) {
+            log.warn("Failed to generate thumbnail URL for photo {}: {}", row.photoId(), e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Generate presigned GET URL for S3 object.
+     */
+    private String generatePresignedGetUrl(String s3Key) {
+        GetObjectRequest getRequest = GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(s3Key)
+                .build();
+        
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(Duration.ofMinutes(15))  // Same as the list view
+                .getObjectRequest(getRequest)
+                .build();
+        
+        return s3Presigner.presignGetObject(presignRequest).url().toString();
+    }
+    
+    private static final class GeoCellBuilder {
+        private final CellPhoto first;
+        private final List<GeoPhoto> photos = new ArrayList<>();
+        
+        private GeoCellBuilder(CellPhoto first) {
+            this.first = first;
+        }
+        
+        private GeoCell build() {
+            return new GeoCell(first.cell(), first.cellCount(), first.centerLatitude(), first.centerLongitude(), photos);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.starscape.rapidupload.features.listphotos.app;
 
 import com.starscape.rapidupload.features.listphotos.api.dto.PhotoListItem;
+import com.starscape.rapidupload.features.listphotos.api.dto.PhotoExifFilter;
 import com.starscape.rapidupload.features.listphotos.api.dto.PhotoListResponse;
+import com.starscape.rapidupload.features.tags.app.TagBitmapIndex;
+import com.starscape.rapidupload.features.tags.app.TagBitmapIndex.PhotoIdPage;
+import com.starscape.rapidupload.features.tags.app.TagFilter;
 import com.starscape.rapidupload.features.tags.domain.PhotoTag;
 import com.starscape.rapidupload.features.tags.domain.PhotoTagRepository;
 import com.starscape.rapidupload.features.tags.domain.Tag;
@@ -9,8 +13,13 @@ import com.starscape.rapidupload.features.tags.domain.TagRepository;
 import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
 import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
 import com.starscape.rapidupload.features.listphotos.infra.PhotoQueryRepository;
+import com.starscape.rapidupload.features.listphotos.infra.PhotoSearchRepository;
+import com.starscape.rapidupload.features.listphotos.infra.PhotoSearchRepository.ExifCriteria;
+import com.starscape.rapidupload.features.listphotos.infra.PhotoSearchRepository.GeoBox;
+import com.starscape.rapidupload.features.listphotos.infra.PhotoSearchRepository.PhotoSearch;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -26,13 +35,20 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Handler for listing photos with pagination and filtering.
- * Supports filtering by status, tag, and searching by filename.
+ * Supports filtering by status, AND/OR/NOT tag combinations, structured EXIF fields,
+ * and searching by filename.
+ * Tag filters are resolved by the in-memory tag bitmap index; only the page of rows is loaded
+ * from the database, plus a search query when status, search or EXIF filters need it.
  */
 @Service
 public class ListPhotosHandler {
@@ -40,28 +56,38 @@ public class ListPhotosHandler {
     private static final Logger log = LoggerFactory.getLogger(ListPhotosHandler.class);
     
     private final PhotoQueryRepository photoQueryRepository;
+    private final PhotoSearchRepository photoSearchRepository;
+    private final TagBitmapIndex tagBitmapIndex;
     private final PhotoTagRepository photoTagRepository;
     private final TagRepository tagRepository;
     private final S3Presigner s3Presigner;
     private final String bucket;
+    private final int maxCandidateIds;
     
     public ListPhotosHandler(
             PhotoQueryRepository photoQueryRepository,
+            PhotoSearchRepository photoSearchRepository,
+            TagBitmapIndex tagBitmapIndex,
             PhotoTagRepository photoTagRepository,
             TagRepository tagRepository,
             S3Presigner s3Presigner,
-            @Value("${aws.s3.bucket}") String bucket) {
+            @Value("${aws.s3.bucket}") String bucket,
+            @Value("${app.tags.bitmap.max-candidate-ids:5000}") int maxCandidateIds) {
         this.photoQueryRepository = photoQueryRepository;
+        this.photoSearchRepository = photoSearchRepository;
+        this.tagBitmapIndex = tagBitmapIndex;
         this.photoTagRepository = photoTagRepository;
         this.tagRepository = tagRepository;
         this.s3Presigner = s3Presigner;
         this.bucket = bucket;
+        this.maxCandidateIds = maxCandidateIds;
     }
     
     @Transactional(readOnly = true)
     public PhotoListResponse handle(
             String userId, 
-            String tag, 
+            TagFilter tags, 
+            PhotoExifFilter exif, 
             String status, 
             String search, 
             int page, 
@@ -74,9 +100,8 @@ public class ListPhotosHandler {
         
         Page<Photo> photoPage;
         
-        // Normalize tag label if provided
-        String tagLabel = (tag != null && !tag.isBlank()) ? tag.trim() : null;
-        boolean hasTagFilter = tagLabel != null;
+        boolean hasTagFilter = !tags.isEmpty();
+        ExifCriteria exifCriteria = toExifCriteria(exif);
         boolean hasStatusFilter = status != null && !status.isBlank();
         boolean hasSearchFilter = search != null && !search.isBlank();
         
@@ -91,17 +116,8 @@ public class ListPhotosHandler {
         }
         
         // Determine which query method to use based on filters
-        if (hasStatusFilter && hasTagFilter && hasSearchFilter) {
-            photoPage = photoQueryRepository.findByUserIdAndStatusAndTagAndFilenameContaining(
-                userId, photoStatus, tagLabel, search, pageable);
-        } else if (hasStatusFilter && hasTagFilter) {
-            photoPage = photoQueryRepository.findByUserIdAndStatusAndTag(
-                userId, photoStatus, tagLabel, pageable);
-        } else if (hasTagFilter && hasSearchFilter) {
-            photoPage = photoQueryRepository.findByUserIdAndTagAndFilenameContaining(
-                userId, tagLabel, search, pageable);
-        } else if (hasTagFilter) {
-            photoPage = photoQueryRepository.findByUserIdAndTag(userId, tagLabel, pageable);
+        if (hasTagFilter || exifCriteria != null) {
+            photoPage = findByFilters(userId, tags, photoStatus, hasSearchFilter ? search : null, exifCriteria, pageable);
         } else if (hasStatusFilter) {
             photoPage = photoQueryRepository.findByUserIdAndStatus(userId, photoStatus, pageable);
         } else if (hasSearchFilter) {
@@ -129,6 +145,87 @@ public class ListPhotosHandler {
         );
     }
     
+    /**
+     * Match tags in the bitmap index and the remaining filters in the database, then load only
+     * the page of photos. Tags with an indexed status or no status are answered entirely in memory;
+     * otherwise the matched IDs are narrowed by a search query, or, when more than
+     * {@code app.tags.bitmap.max-candidate-ids} photos match, the tags are matched by the query too.
+     */
+    private Page<Photo> findByFilters(String userId, TagFilter tags, PhotoStatus status, String search,
+                                      ExifCriteria exif, Pageable pageable) {
+        Collection<String> candidateIds = null;
+        TagFilter tagFilter = null;
+        if (!tags.isEmpty()) {
+            if (search == null && exif == null && (status == null || TagBitmapIndex.isIndexed(status))) {
+                PhotoIdPage match = tagBitmapIndex.findPage(userId, tags, status, pageable.getOffset(), pageable.getPageSize());
+                return loadPage(match.photoIds(), pageable, match.total());
+            }
+            PhotoStatus indexedStatus = status != null && TagBitmapIndex.isIndexed(status) ? status : null;
+            Optional<List<String>> match = tagBitmapIndex.findAll(userId, tags, indexedStatus, maxCandidateIds);
+            if (match.isEmpty()) {
+                // Too many matches to send as an ID array; join photo_tags instead
+                tagFilter = tags;
+            } else if (match.get().isEmpty()) {
+                return Page.empty(pageable);
+            } else {
+                candidateIds = match.get();
+            }
+        }
+        
+        PhotoSearch photoSearch = new PhotoSearch(userId, candidateIds, tagFilter, status, search, exif);
+        long total = photoSearchRepository.count(photoSearch);
+        List<String> pageIds = total > pageable.getOffset()
+            ? photoSearchRepository.findPage(photoSearch, pageable.getOffset(), pageable.getPageSize())
+            : List.of();
+        return loadPage(pageIds, pageable, total);
+    }
+    
+    /**
+     * Load a page of photos by ID, in the given order.
+     * Served from the second-level cache where possible.
+     */
+    private Page<Photo> loadPage(List<String> pageIds, Pageable pageable, long total) {
+        Map<String, Photo> photosById = photoQueryRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Photo::getPhotoId, Function.identity()));
+        List<Photo> photos = pageIds.stream()
+                .map(photosById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(photos, pageable, total);
+    }
+    
+    /**
+     * Translate EXIF query parameters into search criteria, or null when none are set.
+     */
+    private static ExifCriteria toExifCriteria(PhotoExifFilter exif) {
+        if (exif == null || exif.isEmpty()) {
+            return null;
+        }
+        if (exif.hasAnyCoordinate() && !exif.hasBoundingBox()) {
+            throw new IllegalArgumentException(
+                "minLatitude, maxLatitude, minLongitude and maxLongitude must be given together");
+        }
+        GeoBox box = exif.hasBoundingBox()
+            ? new GeoBox(exif.minLatitude(), exif.maxLatitude(), exif.minLongitude(), exif.maxLongitude())
+            : null;
+        return new ExifCriteria(
+            exif.takenFrom(),
+            exif.takenTo(),
+            trimToNull(exif.cameraMake()),
+            trimToNull(exif.cameraModel()),
+            trimToNull(exif.lensModel()),
+            exif.minIso(),
+            exif.maxIso(),
+            exif.minFocalLength(),
+            exif.maxFocalLength(),
+            box
+        );
+    }
+    
+    private static String trimToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+    
     /**
      * Load tags for multiple photos efficiently.
      * Returns a map of photoId -> list of tag labels.
@@ -179,7 +276,7 @@ public class ListPhotosHandler {
             (photo.getStatus() == PhotoStatus.PROCESSING || photo.getStatus() == PhotoStatus.COMPLETED)) {
             try {
                 // Generate presigned URL for 256px thumbnail
-                String thumbnailKey = getThumbnailKey(photo.getS3Key(), 256);
+                String thumbnailKey = photo.getThumbnailKey(256);
                 log.debug("Generating presigned URL for thumbnail: bucket={}, key={}", bucket, thumbnailKey);
                 thumbnailUrl = generatePresignedGetUrl(thumbnailKey);
                 log.info("✅ Generated presigned thumbnail URL for photo {}: {}", photo.getPhotoId(), thumbnailUrl);
@@ -217,21 +314,6 @@ public class ListPhotosHandler {
         );
     }
     
-    /**
-     * Generate thumbnail S3 key from original key.
-     */
-    private String getThumbnailKey(String originalKey, int size) {
-        int lastSlash = originalKey.lastIndexOf('/');
-        String basePath = originalKey.substring(0, lastSlash);
-        String filename = originalKey.substring(lastSlash + 1);
-        
-        int lastDot = filename.lastIndexOf('.');
-        String name = lastDot >= 0 ? filename.substring(0, lastDot) : filename;
-        String ext = lastDot >= 0 ? filename.substring(lastDot) : "";
-        
-        return basePath + "/thumbnails/" + name + "_" + size + ext;
-    }
-    
     /**
      * Generate presigned GET URL for S3 object.
      */
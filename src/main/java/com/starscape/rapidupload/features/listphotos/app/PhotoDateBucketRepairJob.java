@@ -0,0 +1,57 @@
+package com.starscape.rapidupload.features.listphotos.app;
+
+import com.starscape.rapidupload.features.listphotos.infra.PhotoDateBucketRepository;
+import com.starscape.rapidupload.features.listphotos.infra.PhotoDateBucketRepository.RepairBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Recounts the timeline's per-day photo counts from photos and photo_tags and fixes any that drifted.
+ * Incremental updates can drift when a photo is tagged while it finishes processing, or when rows
+ * are changed outside the handlers; this job walks every user in keyset batches, so each
+ * statement stays short.
+ */
+@Service
+public class PhotoDateBucketRepairJob {
+    
+    private static final Logger log = LoggerFactory.getLogger(PhotoDateBucketRepairJob.class);
+    
+    private final PhotoDateBucketRepository photoDateBucketRepository;
+    private final int batchSize;
+    
+    public PhotoDateBucketRepairJob(
+            PhotoDateBucketRepository photoDateBucketRepository,
+            @Value("${app.timeline.repair.batch-size:100}") int batchSize) {
+        this.photoDateBucketRepository = photoDateBucketRepository;
+        this.batchSize = batchSize;
+    }
+    
+    @Scheduled(
+        initialDelayString = "${app.timeline.repair.initial-delay-ms:900000}",
+        fixedDelayString = "${app.timeline.repair.interval-ms:21600000}")  // Every 6 hours by default
+    public void repairDateBuckets() {
+        String cursor = "";
+        int scanned = 0;
+        int corrected = 0;
+        
+        while (true) {
+            RepairBatch batch = photoDateBucketRepository.repair(cursor, batchSize);
+            scanned += batch.scanned();
+            corrected += batch.corrected();
+            
+            if (batch.lastUserId() == null || batch.scanned() < batchSize) {
+                break;
+            }
+            cursor = batch.lastUserId();
+        }
+        
+        if (corrected > 0) {
+            log.warn("Repaired {} drifted timeline buckets across {} users", corrected, scanned);
+        } else {
+            log.debug("Timeline buckets consistent across {} users", scanned);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.starscape.rapidupload.features.listphotos.app;
+
+import com.starscape.rapidupload.features.listphotos.infra.PhotoDateBucketRepository;
+import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the timeline's per-day photo counts (photo_date_buckets) in step with photo changes.
+ * Must be called inside the transaction that makes the change, so counts commit with it.
+ * Only photos that finished processing (COMPLETED or FAILED) and are outside the trash are counted.
+ */
+@Service
+public class PhotoTimelineCounter {
+    
+    static final Set<PhotoStatus> COUNTED_STATUSES = Set.of(PhotoStatus.COMPLETED, PhotoStatus.FAILED);
+    
+    private final PhotoDateBucketRepository photoDateBucketRepository;
+    
+    public PhotoTimelineCounter(PhotoDateBucketRepository photoDateBucketRepository) {
+        this.photoDateBucketRepository = photoDateBucketRepository;
+    }
+    
+    /**
+     * A photo may have been marked COMPLETED or FAILED.
+     * Does nothing unless it reached a counted status from an uncounted one.
+     *
+     * @param previousStatus The photo's status before the change
+     */
+    public void photoFinished(Photo photo, PhotoStatus previousStatus) {
+        if (COUNTED_STATUSES.contains(previousStatus) || !COUNTED_STATUSES.contains(photo.getStatus())
+                || photo.isDeleted()) {
+            return;
+        }
+        photoDateBucketRepository.addPhoto(
+            photo.getUserId(), photo.getPhotoId(), photo.getStatus().name(), bucketDate(photo));
+    }
+    
+    /**
+     * Photos moved to the trash. Pass only photos that were not already trashed.
+     */
+    public void photosTrashed(Collection<String> photoIds) {
+        photoDateBucketRepository.adjustForPhotos(photoIds, -1);
+    }
+    
+    /**
+     * Photos restored from the trash. Pass only photos that were trashed.
+     */
+    public void photosRestored(Collection<String> photoIds) {
+        photoDateBucketRepository.adjustForPhotos(photoIds, 1);
+    }
+    
+    /**
+     * A tag was newly applied to or removed from photos.
+     *
+     * @param photoIds Photo of each link
+     * @param tagIds Tag of each link, parallel to photoIds
+     */
+    public void photosTagged(List<String> photoIds, List<String> tagIds) {
+        photoDateBucketRepository.adjustForLinks(photoIds, tagIds, 1);
+    }
+    
+    public void photoUntagged(String photoId, String tagId) {
+        photoDateBucketRepository.adjustForLinks(List.of(photoId), List.of(tagId), -1);
+    }
+    
+    /**
+     * The day a photo is shown under: its EXIF capture date, or its upload date (UTC) without one.
+     * Must match the bucket date computed in SQL by {@link PhotoDateBucketRepository}.
+     */
+    static LocalDate bucketDate(Photo photo) {
+        LocalDateTime takenAt = photo.getExif().takenAt();
+        return takenAt != null ? takenAt.toLocalDate() : photo.getCreatedAt().atOffset(ZoneOffset.UTC).toLocalDate();
+    }
+}
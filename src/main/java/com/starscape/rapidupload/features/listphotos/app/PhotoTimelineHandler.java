@@ -0,0 +1,65 @@
+package com.starscape.rapidupload.features.listphotos.app;
+
+import com.starscape.rapidupload.features.listphotos.api.dto.PhotoTimelineResponse;
+import com.starscape.rapidupload.features.listphotos.api.dto.PhotoTimelineResponse.TimelineBucket;
+import com.starscape.rapidupload.features.listphotos.infra.PhotoDateBucketRepository;
+import com.starscape.rapidupload.features.listphotos.infra.PhotoDateBucketRepository.Bucket;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Handler for the timeline: photo counts per capture day or month.
+ * Reads the photo_date_buckets rollup, so the cost depends on the number of days with photos,
+ * not on the number of photos.
+ */
+@Service
+public class PhotoTimelineHandler {
+    
+    private static final Set<String> GRANULARITIES = Set.of("day", "month");
+    
+    private final PhotoDateBucketRepository photoDateBucketRepository;
+    
+    public PhotoTimelineHandler(PhotoDateBucketRepository photoDateBucketRepository) {
+        this.photoDateBucketRepository = photoDateBucketRepository;
+    }
+    
+    /**
+     * @param granularity "day" or "month"
+     * @param tag Count only photos with this tag, or null for all photos
+     * @param status COMPLETED or FAILED, or null for both
+     */
+    @Transactional(readOnly = true)
+    public PhotoTimelineResponse handle(String userId, String granularity, String tag, String status) {
+        String period = granularity.trim().toLowerCase(Locale.ROOT);
+        if (!GRANULARITIES.contains(period)) {
+            throw new IllegalArgumentException("Granularity must be one of: day, month");
+        }
+        
+        List<String> statuses = PhotoTimelineCounter.COUNTED_STATUSES.stream().map(Enum::name).sorted().toList();
+        if (status != null && !status.isBlank()) {
+            PhotoStatus photoStatus;
+            try {
+                photoStatus = PhotoStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid status: " + status);
+            }
+            if (!PhotoTimelineCounter.COUNTED_STATUSES.contains(photoStatus)) {
+                throw new IllegalArgumentException("Timeline status must be one of: " + String.join(", ", statuses));
+            }
+            statuses = List.of(photoStatus.name());
+        }
+        String label = tag != null && !tag.isBlank() ? tag.trim() : null;
+        
+        List<Bucket> buckets = photoDateBucketRepository.findBuckets(userId, period, label, statuses);
+        long totalPhotos = buckets.stream().mapToLong(Bucket::photoCount).sum();
+        return new PhotoTimelineResponse(
+            period,
+            totalPhotos,
+            buckets.stream().map(bucket -> new TimelineBucket(bucket.date(), bucket.photoCount())).toList());
+    }
+}
@@ -0,0 +1,202 @@
+package com.starscape.rapidupload.features.listphotos.infra;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Materialized per-day photo counts (photo_date_buckets) behind the timeline.
+ * Only COMPLETED and FAILED photos outside the trash are counted, per user, tag ('' for all photos),
+ * status and capture day. Counts are adjusted incrementally; {@link #repair} recomputes them from
+ * photos and photo_tags to correct any drift.
+ */
+@Repository
+public class PhotoDateBucketRepository {
+    
+    // Capture day of a photo row; must match PhotoTimelineCounter.bucketDate
+    private static final String BUCKET_DATE =
+            "COALESCE(p.taken_at::date, (p.created_at AT TIME ZONE 'UTC')::date)";
+    
+    private static final String COUNTED_STATUSES = "p.status IN ('COMPLETED', 'FAILED')";
+    
+    private static final String UPSERT =
+            "ON CONFLICT (user_id, tag_id, status, bucket_date) " +
+            "DO UPDATE SET photo_count = photo_date_buckets.photo_count + EXCLUDED.photo_count";
+    
+    private static final String ADD_PHOTO_SQL =
+            "INSERT INTO photo_date_buckets (user_id, tag_id, status, bucket_date, photo_count) " +
+            "SELECT ?, t.tag_id, ?, ?::date, 1 FROM (" +
+            "  SELECT '' AS tag_id UNION ALL SELECT tag_id FROM photo_tags WHERE photo_id = ?" +
+            ") t " + UPSERT;
+    
+    private static final String ADJUST_FOR_PHOTOS_SQL =
+            "INSERT INTO photo_date_buckets (user_id, tag_id, status, bucket_date, photo_count) " +
+            "SELECT p.user_id, t.tag_id, p.status, " + BUCKET_DATE + ", ? * COUNT(*) " +
+            "FROM photos p " +
+            "CROSS JOIN LATERAL (" +
+            "  SELECT '' AS tag_id UNION ALL SELECT pt.tag_id FROM photo_tags pt WHERE pt.photo_id = p.photo_id" +
+            ") t " +
+            "WHERE p.photo_id = ANY(?) AND " + COUNTED_STATUSES + " " +
+            "GROUP BY 1, 2, 3, 4 " + UPSERT;
+    
+    private static final String ADJUST_FOR_LINKS_SQL =
+            "INSERT INTO photo_date_buckets (user_id, tag_id, status, bucket_date, photo_count) " +
+            "SELECT p.user_id, l.tag_id, p.status, " + BUCKET_DATE + ", ? * COUNT(*) " +
+            "FROM unnest(?::varchar[], ?::varchar[]) AS l(photo_id, tag_id) " +
+            "JOIN photos p ON p.photo_id = l.photo_id " +
+            "WHERE p.deleted_at IS NULL AND " + COUNTED_STATUSES + " " +
+            "GROUP BY 1, 2, 3, 4 " + UPSERT;
+    
+    // Recounts one keyset batch of users, rewriting rows that drifted and dropping empty ones
+    private static final String REPAIR_SQL =
+            "WITH batch AS (" +
+            "  SELECT user_id FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?" +
+            "), actual AS (" +
+            "  SELECT p.user_id, t.tag_id, p.status, " + BUCKET_DATE + " AS bucket_date, COUNT(*) AS photo_count " +
+            "  FROM batch b JOIN photos p ON p.user_id = b.user_id " +
+            "  CROSS JOIN LATERAL (" +
+            "    SELECT '' AS tag_id UNION ALL SELECT pt.tag_id FROM photo_tags pt WHERE pt.photo_id = p.photo_id" +
+            "  ) t " +
+            "  WHERE p.deleted_at IS NULL AND " + COUNTED_STATUSES + " " +
+            "  GROUP BY 1, 2, 3, 4" +
+            "), corrected AS (" +
+            "  INSERT INTO photo_date_buckets (user_id, tag_id, status, bucket_date, photo_count) " +
+            "  SELECT user_id, tag_id, status, bucket_date, photo_count FROM actual " +
+            "  ON CONFLICT (user_id, tag_id, status, bucket_date) " +
+            "  DO UPDATE SET photo_count = EXCLUDED.photo_count " +
+            "  WHERE photo_date_buckets.photo_count <> EXCLUDED.photo_count " +
+            "  RETURNING 1" +
+            "), cleared AS (" +
+            "  DELETE FROM photo_date_buckets d USING batch b " +
+            "  WHERE d.user_id = b.user_id AND NOT EXISTS (" +
+            "    SELECT 1 FROM actual a WHERE a.user_id = d.user_id AND a.tag_id = d.tag_id " +
+            "      AND a.status = d.status AND a.bucket_date = d.bucket_date" +
+            "  ) " +
+            "  RETURNING d.photo_count" +
+            ") " +
+            "SELECT (SELECT MAX(user_id) FROM batch) AS last_user_id, " +
+            "  (SELECT COUNT(*) FROM batch) AS scanned, " +
+            "  (SELECT COUNT(*) FROM corrected) + (SELECT COUNT(*) FROM cleared WHERE photo_count <> 0) AS corrected";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public PhotoDateBucketRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Counts per period for one user, newest period first. Empty periods are omitted.
+     *
+     * @param period date_trunc field the days are rolled up to ("day" or "month")
+     * @param tagLabel Count only photos with this tag, or null for all photos
+     * @param statuses Statuses to add up
+     */
+    public List<Bucket> findBuckets(String userId, String period, String tagLabel, Collection<String> statuses) {
+        StringBuilder sql = new StringBuilder(
+            "SELECT date_trunc(?, b.bucket_date::timestamp)::date AS bucket, SUM(b.photo_count) AS photo_count " +
+            "FROM photo_date_buckets b ");
+        List<Object> args = new ArrayList<>();
+        args.add(period);
+        
+        if (tagLabel != null) {
+            sql.append("JOIN tags t ON t.tag_id = b.tag_id AND t.user_id = b.user_id AND t.label = ? ");
+            args.add(tagLabel);
+        }
+        sql.append("WHERE b.user_id = ? ");
+        args.add(userId);
+        if (tagLabel == null) {
+            sql.append("AND b.tag_id = '' ");
+        }
+        sql.append("AND b.status = ANY(?) ");
+        args.add(statuses);
+        sql.append("GROUP BY 1 HAVING SUM(b.photo_count) > 0 ORDER BY 1 DESC");
+        
+        return jdbcTemplate.query(sql.toString(), bind(args),
+            (rs, rowNum) -> new Bucket(rs.getDate("bucket").toLocalDate(), rs.getLong("photo_count")));
+    }
+    
+    /**
+     * Count a photo that just reached a counted status, under all photos and each of its tags.
+     * Takes the photo's values directly, so it works before the photo row is flushed.
+     */
+    public void addPhoto(String userId, String photoId, String status, LocalDate bucketDate) {
+        jdbcTemplate.update(ADD_PHOTO_SQL, userId, status, Date.valueOf(bucketDate), photoId);
+    }
+    
+    /**
+     * Add {@code direction} (1 or -1) for each of the given photos that has a counted status,
+     * under all photos and each of its tags. Ignores the photos' trash state.
+     */
+    public void adjustForPhotos(Collection<String> photoIds, int direction) {
+        if (photoIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(ADJUST_FOR_PHOTOS_SQL, ps -> {
+            ps.setInt(1, direction);
+            ps.setArray(2, ps.getConnection().createArrayOf("varchar", photoIds.toArray()));
+        });
+    }
+    
+    /**
+     * Add {@code direction} (1 or -1) under each tag for the photos it was applied to or removed from.
+     * Only counted photos outside the trash are affected.
+     *
+     * @param photoIds Photo of each link
+     * @param tagIds Tag of each link, parallel to photoIds
+     */
+    public void adjustForLinks(List<String> photoIds, List<String> tagIds, int direction) {
+        if (photoIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(ADJUST_FOR_LINKS_SQL, ps -> {
+            ps.setInt(1, direction);
+            ps.setArray(2, ps.getConnection().createArrayOf("varchar", photoIds.toArray()));
+            ps.setArray(3, ps.getConnection().createArrayOf("varchar", tagIds.toArray()));
+        });
+    }
+    
+    /**
+     * Recount the next batch of users after the given user ID (use "" to start).
+     */
+    public RepairBatch repair(String afterUserId, int limit) {
+        return jdbcTemplate.queryForObject(REPAIR_SQL, (rs, rowNum) -> new RepairBatch(
+            rs.getString("last_user_id"),
+            rs.getInt("scanned"),
+            rs.getInt("corrected")), afterUserId, limit);
+    }
+    
+    private PreparedStatementSetter bind(List<Object> args) {
+        return ps -> {
+            for (int i = 0; i < args.size(); i++) {
+                Object arg = args.get(i);
+                if (arg instanceof Collection<?> values) {
+                    ps.setArray(i + 1, ps.getConnection().createArrayOf("varchar", values.toArray()));
+                } else {
+                    ps.setObject(i + 1, arg);
+                }
+            }
+        };
+    }
+    
+    public record Bucket(
+        LocalDate date,
+        long photoCount
+    ) {}
+    
+    /**
+     * Outcome of one repair batch.
+     *
+     * @param lastUserId Keyset cursor for the next batch, null when no users were left
+     */
+    public record RepairBatch(
+        String lastUserId,
+        int scanned,
+        int corrected
+    ) {}
+}
@@ -0,0 +1,110 @@
+package com.starscape.rapidupload.features.listphotos.infra;
+
+import com.starscape.rapidupload.features.listphotos.infra.PhotoSearchRepository.GeoBox;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Map clustering over the photos' geohash index.
+ * The viewport is scanned as a few geohash prefix ranges on idx_photos_user_geohash, clipped to
+ * the exact box, and grouped by a shorter geohash prefix: one row per top photo of each cell,
+ * carrying the cell's count and mean position.
+ */
+@Repository
+public class PhotoGeoRepository {
+    
+    private static final String FIND_CLUSTERS_SQL =
+            "WITH hits AS (" +
+            "  SELECT p.photo_id, LEFT(p.geohash, ?) AS cell, p.gps_latitude, p.gps_longitude, " +
+            "    p.taken_at, p.created_at, p.s3_key, p.thumbnail_extension " +
+            "  FROM unnest(?::varchar[]) AS r(prefix) " +
+            "  JOIN photos p ON p.user_id = ? " +
+            "    AND p.geohash >= r.prefix COLLATE \"C\" AND p.geohash < (r.prefix || '~') COLLATE \"C\" " +
+            "  WHERE p.geohash IS NOT NULL AND p.deleted_at IS NULL " +
+            "    AND p.gps_latitude BETWEEN ? AND ? AND %s" +
+            "), ranked AS (" +
+            "  SELECT hits.*, " +
+            "    COUNT(*) OVER cells AS cell_count, " +
+            "    AVG(gps_latitude) OVER cells AS center_latitude, " +
+            "    AVG(gps_longitude) OVER cells AS center_longitude, " +
+            "    ROW_NUMBER() OVER (PARTITION BY cell ORDER BY taken_at DESC NULLS LAST, created_at DESC) AS cell_rank " +
+            "  FROM hits " +
+            "  WINDOW cells AS (PARTITION BY cell)" +
+            ") " +
+            "SELECT cell, cell_count, center_latitude, center_longitude, cell_rank, " +
+            "  photo_id, gps_latitude, gps_longitude, taken_at, s3_key, thumbnail_extension " +
+            "FROM ranked WHERE cell_rank <= GREATEST(?, 1) " +
+            "ORDER BY cell_count DESC, cell, cell_rank " +
+            "LIMIT ?";
+    
+    private static final String LONGITUDE_RANGE = "p.gps_longitude BETWEEN ? AND ?";
+    
+    // A box whose west edge is east of its east edge spans the antimeridian
+    private static final String LONGITUDE_WRAPPED = "(p.gps_longitude >= ? OR p.gps_longitude <= ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public PhotoGeoRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Cluster the user's photos inside a box by geohash prefix.
+     * Every cell yields at least one row, so cells are never dropped when no photos are requested.
+     *
+     * @param rangePrefixes Geohash prefixes whose ranges together cover the box
+     * @param cellPrecision Geohash length that defines a cell
+     * @param photosPerCell How many photos to return per cell, newest capture first
+     * @param maxRows Backstop on the rows returned; the smallest cells are dropped first
+     */
+    public List<CellPhoto> findClusters(String userId, List<String> rangePrefixes, int cellPrecision,
+                                        GeoBox box, int photosPerCell, int maxRows) {
+        boolean wrapped = box.minLongitude() > box.maxLongitude();
+        String sql = String.format(FIND_CLUSTERS_SQL, wrapped ? LONGITUDE_WRAPPED : LONGITUDE_RANGE);
+        return jdbcTemplate.query(sql,
+            ps -> {
+                ps.setInt(1, cellPrecision);
+                ps.setArray(2, ps.getConnection().createArrayOf("varchar", rangePrefixes.toArray()));
+                ps.setString(3, userId);
+                ps.setDouble(4, box.minLatitude());
+                ps.setDouble(5, box.maxLatitude());
+                ps.setDouble(6, box.minLongitude());
+                ps.setDouble(7, box.maxLongitude());
+                ps.setInt(8, photosPerCell);
+                ps.setInt(9, maxRows);
+            },
+            (rs, rowNum) -> {
+                Timestamp takenAt = rs.getTimestamp("taken_at");
+                return new CellPhoto(
+                    rs.getString("cell"),
+                    rs.getLong("cell_count"),
+                    rs.getDouble("center_latitude"),
+                    rs.getDouble("center_longitude"),
+                    rs.getInt("cell_rank"),
+                    rs.getString("photo_id"),
+                    rs.getDouble("gps_latitude"),
+                    rs.getDouble("gps_longitude"),
+                    takenAt != null ? takenAt.toLocalDateTime() : null,
+                    rs.getString("s3_key"),
+                    rs.getString("thumbnail_extension"));
+            });
+    }
+    
+    public record CellPhoto(
+        String cell,
+        long cellCount,
+        double centerLatitude,
+        double centerLongitude,
+        int cellRank,
+        String photoId,
+        double latitude,
+        double longitude,
+        LocalDateTime takenAt,
+        String s3Key,
+        String thumbnailExtension
+    ) {}
+}
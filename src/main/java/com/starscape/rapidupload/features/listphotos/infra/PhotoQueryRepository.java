@@ -11,7 +11,8 @@ import org.springframework.stereotype.Repository;
 
 /**
  * Read-optimized repository for photo queries.
- * Supports pagination, filtering by status/tag, and search by filename.
+ * Supports pagination, filtering by status, and search by filename.
+ * Tag filters are answered by the tag bitmap index rather than by query.
  * All queries exclude soft-deleted photos (deletedAt IS NULL) by default.
  */
 @Repository
@@ -29,61 +30,6 @@ public interface PhotoQueryRepository extends JpaRepository<Photo, String> {
         @Param("query") String query, 
         Pageable pageable);
     
-    /**
-     * Find photos by user ID and tag label.
-     * Uses IN subquery to find photos with the specified tag.
-     * Excludes soft-deleted photos.
-     */
-    @Query("SELECT p FROM Photo p WHERE p.userId = :userId AND p.deletedAt IS NULL " +
-           "AND p.photoId IN (SELECT pt.photoId FROM PhotoTag pt, Tag t " +
-           "WHERE pt.tagId = t.tagId AND t.userId = :userId AND t.label = :tagLabel)")
-    Page<Photo> findByUserIdAndTag(
-        @Param("userId") String userId,
-        @Param("tagLabel") String tagLabel,
-        Pageable pageable);
-    
-    /**
-     * Find photos by user ID, status, and tag label.
-     * Excludes soft-deleted photos.
-     */
-    @Query("SELECT p FROM Photo p WHERE p.userId = :userId AND p.status = :status AND p.deletedAt IS NULL " +
-           "AND p.photoId IN (SELECT pt.photoId FROM PhotoTag pt, Tag t " +
-           "WHERE pt.tagId = t.tagId AND t.userId = :userId AND t.label = :tagLabel)")
-    Page<Photo> findByUserIdAndStatusAndTag(
-        @Param("userId") String userId,
-        @Param("status") PhotoStatus status,
-        @Param("tagLabel") String tagLabel,
-        Pageable pageable);
-    
-    /**
-     * Find photos by user ID, tag label, and filename search.
-     * Excludes soft-deleted photos.
-     */
-    @Query("SELECT p FROM Photo p WHERE p.userId = :userId AND p.deletedAt IS NULL " +
-           "AND LOWER(p.filename) LIKE LOWER(CONCAT('%', :query, '%')) " +
-           "AND p.photoId IN (SELECT pt.photoId FROM PhotoTag pt, Tag t " +
-           "WHERE pt.tagId = t.tagId AND t.userId = :userId AND t.label = :tagLabel)")
-    Page<Photo> findByUserIdAndTagAndFilenameContaining(
-        @Param("userId") String userId,
-        @Param("tagLabel") String tagLabel,
-        @Param("query") String query,
-        Pageable pageable);
-    
-    /**
-     * Find photos by user ID, status, tag label, and filename search.
-     * Excludes soft-deleted photos.
-     */
-    @Query("SELECT p FROM Photo p WHERE p.userId = :userId AND p.status = :status AND p.deletedAt IS NULL " +
-           "AND LOWER(p.filename) LIKE LOWER(CONCAT('%', :query, '%')) " +
-           "AND p.photoId IN (SELECT pt.photoId FROM PhotoTag pt, Tag t " +
-           "WHERE pt.tagId = t.tagId AND t.userId = :userId AND t.label = :tagLabel)")
-    Page<Photo> findByUserIdAndStatusAndTagAndFilenameContaining(
-        @Param("userId") String userId,
-        @Param("status") PhotoStatus status,
-        @Param("tagLabel") String tagLabel,
-        @Param("query") String query,
-        Pageable pageable);
-    
     /**
      * Find soft-deleted photos (trash) for a user.
      */
@@ -0,0 +1,179 @@
+package com.starscape.rapidupload.features.listphotos.infra;
+
+import com.starscape.rapidupload.features.tags.app.TagFilter;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Photo listing queries built from whichever filters are set: an optional candidate set
+ * of photo IDs (such as a tag bitmap match) or tag filter, status, filename search and
+ * structured EXIF fields.
+ * EXIF filters are served by the per-user B-tree indexes on the EXIF columns.
+ * Excludes soft-deleted photos.
+ */
+@Repository
+public class PhotoSearchRepository {
+    
+    // Correlated on photos.photo_id; served by the photo_tags primary key
+    private static final String TAGGED_WITH_ANY_SQL =
+            "SELECT 1 FROM photo_tags pt JOIN tags t ON t.tag_id = pt.tag_id " +
+            "WHERE pt.photo_id = photos.photo_id AND t.label = ANY(?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public PhotoSearchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    public long count(PhotoSearch search) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM photos");
+        appendFilters(sql, args, search);
+        Long count = jdbcTemplate.query(sql.toString(), bind(args), rs -> rs.next() ? rs.getLong(1) : 0L);
+        return count != null ? count : 0;
+    }
+    
+    /**
+     * One page of matching photo IDs, newest first.
+     */
+    public List<String> findPage(PhotoSearch search, long offset, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT photo_id FROM photos");
+        appendFilters(sql, args, search);
+        sql.append(" ORDER BY created_at DESC, photo_id LIMIT ? OFFSET ?");
+        args.add(limit);
+        args.add(offset);
+        return jdbcTemplate.query(sql.toString(), bind(args), (rs, rowNum) -> rs.getString("photo_id"));
+    }
+    
+    private void appendFilters(StringBuilder sql, List<Object> args, PhotoSearch search) {
+        sql.append(" WHERE user_id = ? AND deleted_at IS NULL");
+        args.add(search.userId());
+        if (search.candidateIds() != null) {
+            sql.append(" AND photo_id = ANY(?)");
+            args.add(search.candidateIds());
+        }
+        if (search.tags() != null) {
+            appendTagFilters(sql, args, search.tags());
+        }
+        if (search.status() != null) {
+            sql.append(" AND status = ?");
+            args.add(search.status().name());
+        }
+        if (search.filename() != null) {
+            sql.append(" AND LOWER(filename) LIKE LOWER(?)");
+            args.add("%" + search.filename() + "%");
+        }
+        if (search.exif() != null) {
+            appendExifFilters(sql, args, search.exif());
+        }
+    }
+    
+    private void appendTagFilters(StringBuilder sql, List<Object> args, TagFilter tags) {
+        for (String label : tags.allOf()) {
+            sql.append(" AND EXISTS (").append(TAGGED_WITH_ANY_SQL).append(')');
+            args.add(List.of(label));
+        }
+        if (!tags.anyOf().isEmpty()) {
+            sql.append(" AND EXISTS (").append(TAGGED_WITH_ANY_SQL).append(')');
+            args.add(tags.anyOf());
+        }
+        if (!tags.noneOf().isEmpty()) {
+            sql.append(" AND NOT EXISTS (").append(TAGGED_WITH_ANY_SQL).append(')');
+            args.add(tags.noneOf());
+        }
+    }
+    
+    private void appendExifFilters(StringBuilder sql, List<Object> args, ExifCriteria exif) {
+        appendComparison(sql, args, "taken_at", ">=", exif.takenFrom());
+        appendComparison(sql, args, "taken_at", "<=", exif.takenTo());
+        appendComparison(sql, args, "camera_make", "=", exif.cameraMake());
+        appendComparison(sql, args, "camera_model", "=", exif.cameraModel());
+        appendComparison(sql, args, "lens_model", "=", exif.lensModel());
+        appendComparison(sql, args, "iso", ">=", exif.minIso());
+        appendComparison(sql, args, "iso", "<=", exif.maxIso());
+        appendComparison(sql, args, "focal_length_mm", ">=", exif.minFocalLength());
+        appendComparison(sql, args, "focal_length_mm", "<=", exif.maxFocalLength());
+        if (exif.box() != null) {
+            GeoBox box = exif.box();
+            sql.append(" AND gps_latitude BETWEEN ? AND ?");
+            args.add(box.minLatitude());
+            args.add(box.maxLatitude());
+            // A box whose west edge is east of its east edge spans the antimeridian
+            sql.append(box.minLongitude() <= box.maxLongitude()
+                ? " AND gps_longitude BETWEEN ? AND ?"
+                : " AND (gps_longitude >= ? OR gps_longitude <= ?)");
+            args.add(box.minLongitude());
+            args.add(box.maxLongitude());
+        }
+    }
+    
+    private void appendComparison(StringBuilder sql, List<Object> args, String column, String operator, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(column).append(' ').append(operator).append(" ?");
+            args.add(value);
+        }
+    }
+    
+    private PreparedStatementSetter bind(List<Object> args) {
+        return ps -> {
+            for (int i = 0; i < args.size(); i++) {
+                Object arg = args.get(i);
+                if (arg instanceof Collection<?> values) {
+                    ps.setArray(i + 1, ps.getConnection().createArrayOf("varchar", values.toArray()));
+                } else if (arg instanceof LocalDateTime dateTime) {
+                    ps.setTimestamp(i + 1, Timestamp.valueOf(dateTime));
+                } else {
+                    ps.setObject(i + 1, arg);
+                }
+            }
+        };
+    }
+    
+    /**
+     * Filters for one listing query. Null filters are ignored.
+     *
+     * @param candidateIds Restrict to these photos, or null for all of the user's photos
+     * @param tags Tag labels matched against photo_tags, for matches too large to pass as candidateIds
+     * @param filename Case-insensitive filename substring
+     */
+    public record PhotoSearch(
+        String userId,
+        Collection<String> candidateIds,
+        TagFilter tags,
+        PhotoStatus status,
+        String filename,
+        ExifCriteria exif
+    ) {}
+    
+    /**
+     * Structured EXIF filters. Null bounds are open; text fields match exactly.
+     */
+    public record ExifCriteria(
+        LocalDateTime takenFrom,
+        LocalDateTime takenTo,
+        String cameraMake,
+        String cameraModel,
+        String lensModel,
+        Integer minIso,
+        Integer maxIso,
+        Double minFocalLength,
+        Double maxFocalLength,
+        GeoBox box
+    ) {}
+    
+    public record GeoBox(
+        double minLatitude,
+        double maxLatitude,
+        double minLongitude,
+        double maxLongitude
+    ) {}
+}
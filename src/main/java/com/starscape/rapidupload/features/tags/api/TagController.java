@@ -2,8 +2,11 @@ package com.starscape.rapidupload.features.tags.api;
 
 import com.starscape.rapidupload.common.security.UserPrincipal;
 import com.starscape.rapidupload.features.tags.api.dto.AddTagRequest;
+import com.starscape.rapidupload.features.tags.api.dto.BulkTagRequest;
+import com.starscape.rapidupload.features.tags.api.dto.BulkTagResponse;
 import com.starscape.rapidupload.features.tags.api.dto.TagsResponse;
 import com.starscape.rapidupload.features.tags.app.AddTagToPhotoHandler;
+import com.starscape.rapidupload.features.tags.app.BulkTagPhotosHandler;
 import com.starscape.rapidupload.features.tags.app.ListTagsHandler;
 import com.starscape.rapidupload.features.tags.app.RemoveTagFromPhotoHandler;
 import jakarta.validation.Valid;
@@ -26,14 +29,17 @@ public class TagController {
     private final AddTagToPhotoHandler addTagHandler;
     private final RemoveTagFromPhotoHandler removeTagHandler;
     private final ListTagsHandler listTagsHandler;
+    private final BulkTagPhotosHandler bulkTagHandler;
     
     public TagController(
             AddTagToPhotoHandler addTagHandler,
             RemoveTagFromPhotoHandler removeTagHandler,
-            ListTagsHandler listTagsHandler) {
+            ListTagsHandler listTagsHandler,
+            BulkTagPhotosHandler bulkTagHandler) {
         this.addTagHandler = addTagHandler;
         this.removeTagHandler = removeTagHandler;
         this.listTagsHandler = listTagsHandler;
+        this.bulkTagHandler = bulkTagHandler;
     }
     
     /**
@@ -65,5 +71,17 @@ public class TagController {
         removeTagHandler.handle(photoId, principal.getUserId(), decodedTag);
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
+    
+    /**
+     * Apply many tags to many photos. Tags that don't exist are created;
+     * photos that already carry a tag are left unchanged.
+     * POST /commands/photos/bulk/tags
+     */
+    @PostMapping("/bulk/tags")
+    public ResponseEntity<BulkTagResponse> bulkAddTags(
+            @Valid @RequestBody BulkTagRequest request,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        
+        return ResponseEntity.ok(bulkTagHandler.handle(request, principal.getUserId()));
+    }
 }
-
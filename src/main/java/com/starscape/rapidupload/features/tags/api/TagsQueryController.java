@@ -1,8 +1,12 @@
 package com.starscape.rapidupload.features.tags.api;
 
 import com.starscape.rapidupload.common.security.UserPrincipal;
+import com.starscape.rapidupload.features.tags.api.dto.TagCountsResponse;
+import com.starscape.rapidupload.features.tags.api.dto.TagSuggestionsResponse;
 import com.starscape.rapidupload.features.tags.api.dto.TagsResponse;
+import com.starscape.rapidupload.features.tags.app.ListTagCountsHandler;
 import com.starscape.rapidupload.features.tags.app.ListTagsHandler;
+import com.starscape.rapidupload.features.tags.app.SuggestTagsHandler;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -16,9 +20,16 @@ import org.springframework.web.bind.annotation.*;
 public class TagsQueryController {
     
     private final ListTagsHandler listTagsHandler;
+    private final SuggestTagsHandler suggestTagsHandler;
+    private final ListTagCountsHandler listTagCountsHandler;
     
-    public TagsQueryController(ListTagsHandler listTagsHandler) {
+    public TagsQueryController(
+            ListTagsHandler listTagsHandler,
+            SuggestTagsHandler suggestTagsHandler,
+            ListTagCountsHandler listTagCountsHandler) {
         this.listTagsHandler = listTagsHandler;
+        this.suggestTagsHandler = suggestTagsHandler;
+        this.listTagCountsHandler = listTagCountsHandler;
     }
     
     /**
@@ -32,5 +43,29 @@ public class TagsQueryController {
         var tags = listTagsHandler.handle(principal.getUserId());
         return ResponseEntity.ok(new TagsResponse(tags));
     }
+    
+    /**
+     * Get all tags for the authenticated user with the number of photos carrying each.
+     * GET /queries/tags/counts
+     */
+    @GetMapping("/counts")
+    public ResponseEntity<TagCountsResponse> listTagCounts(
+            @AuthenticationPrincipal UserPrincipal principal) {
+        
+        return ResponseEntity.ok(listTagCountsHandler.handle(principal.getUserId()));
+    }
+    
+    /**
+     * Autocomplete: the user's most used tags starting with a prefix (case-insensitive).
+     * GET /queries/tags/suggest?prefix=be&limit=10
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<TagSuggestionsResponse> suggestTags(
+            @RequestParam(defaultValue = "") String prefix,
+            @RequestParam(defaultValue = "10") int limit,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        
+        return ResponseEntity.ok(suggestTagsHandler.handle(principal.getUserId(), prefix, limit));
+    }
 }
 
@@ -0,0 +1,21 @@
+package com.starscape.rapidupload.features.tags.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Request DTO for applying many tags to many photos.
+ * Every tag is applied to every photo.
+ */
+public record BulkTagRequest(
+    @NotEmpty(message = "At least one photo ID is required")
+    @Size(max = 5000, message = "Maximum 5000 photo IDs per request")
+    List<@NotBlank String> photoIds,
+    
+    @NotEmpty(message = "At least one tag is required")
+    @Size(max = 20, message = "Maximum 20 tags per request")
+    List<@NotBlank(message = "Tag label is required") @Size(max = 50, message = "Tag label must be 50 characters or less") String> tags
+) {}
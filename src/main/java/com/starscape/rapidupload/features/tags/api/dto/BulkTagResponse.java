@@ -0,0 +1,14 @@
+package com.starscape.rapidupload.features.tags.api.dto;
+
+/**
+ * Response DTO for bulk tagging.
+ *
+ * @param photos Number of distinct photos tagged
+ * @param tagsCreated Number of labels that did not exist yet and were created
+ * @param linksCreated Number of photo-tag links added; links that already existed are not counted
+ */
+public record BulkTagResponse(
+    int photos,
+    int tagsCreated,
+    int linksCreated
+) {}
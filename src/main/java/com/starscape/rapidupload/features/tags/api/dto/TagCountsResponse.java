@@ -0,0 +1,16 @@
+package com.starscape.rapidupload.features.tags.api.dto;
+
+import java.util.List;
+
+/**
+ * Response DTO for listing tags with their photo counts.
+ * Photos in the trash are not counted.
+ */
+public record TagCountsResponse(
+    List<TagCount> tags
+) {
+    public record TagCount(
+        String label,
+        long photoCount
+    ) {}
+}
@@ -0,0 +1,15 @@
+package com.starscape.rapidupload.features.tags.api.dto;
+
+import java.util.List;
+
+/**
+ * Response DTO for tag autocomplete, most used tags first.
+ */
+public record TagSuggestionsResponse(
+    List<TagSuggestion> suggestions
+) {
+    public record TagSuggestion(
+        String label,
+        long usageCount
+    ) {}
+}
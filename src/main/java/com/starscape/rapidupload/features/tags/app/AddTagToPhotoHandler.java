@@ -1,6 +1,7 @@
 package com.starscape.rapidupload.features.tags.app;
 
 import com.starscape.rapidupload.common.exception.NotFoundException;
+import com.starscape.rapidupload.features.listphotos.app.PhotoTimelineCounter;
 import com.starscape.rapidupload.features.tags.domain.PhotoTag;
 import com.starscape.rapidupload.features.tags.domain.PhotoTagRepository;
 import com.starscape.rapidupload.features.tags.domain.Tag;
@@ -10,6 +11,7 @@ import com.starscape.rapidupload.features.uploadphoto.domain.PhotoRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -22,21 +24,27 @@ public class AddTagToPhotoHandler {
     private final PhotoRepository photoRepository;
     private final TagRepository tagRepository;
     private final PhotoTagRepository photoTagRepository;
+    private final TagUsageCounter tagUsageCounter;
+    private final PhotoTimelineCounter photoTimelineCounter;
     
     public AddTagToPhotoHandler(
             PhotoRepository photoRepository,
             TagRepository tagRepository,
-            PhotoTagRepository photoTagRepository) {
+            PhotoTagRepository photoTagRepository,
+            TagUsageCounter tagUsageCounter,
+            PhotoTimelineCounter photoTimelineCounter) {
         this.photoRepository = photoRepository;
         this.tagRepository = tagRepository;
         this.photoTagRepository = photoTagRepository;
+        this.tagUsageCounter = tagUsageCounter;
+        this.photoTimelineCounter = photoTimelineCounter;
     }
     
     @Transactional
     public void handle(String photoId, String userId, String tagLabel) {
         // Validate and normalize tag label
-        String normalizedLabel = normalizeTagLabel(tagLabel);
-        validateTagLabel(normalizedLabel);
+        String normalizedLabel = TagLabels.normalize(tagLabel);
+        TagLabels.validate(normalizedLabel);
         
         // Verify photo exists and belongs to user
         Photo photo = photoRepository.findById(photoId)
@@ -50,36 +58,18 @@ public class AddTagToPhotoHandler {
         Tag tag = tagRepository.findByUserIdAndLabel(userId, normalizedLabel)
                 .orElseGet(() -> {
                     String tagId = "tag_" + UUID.randomUUID().toString().replace("-", "");
-                    Tag newTag = new Tag(tagId, userId, normalizedLabel);
-                    return tagRepository.save(newTag);
+                    // Flushed so the tag row exists before its stats row references it
+                    Tag newTag = tagRepository.saveAndFlush(new Tag(tagId, userId, normalizedLabel));
+                    tagUsageCounter.tagCreated(tagId, userId, newTag.getLabel());
+                    return newTag;
                 });
         
         // Create photo-tag association if it doesn't exist
         if (!photoTagRepository.existsByPhotoIdAndTagId(photoId, tag.getTagId())) {
             PhotoTag photoTag = new PhotoTag(photoId, tag.getTagId());
             photoTagRepository.save(photoTag);
-        }
-    }
-    
-    /**
-     * Normalize tag label: trim whitespace.
-     */
-    private String normalizeTagLabel(String label) {
-        return label.trim();
-    }
-    
-    /**
-     * Validate tag label format and length.
-     */
-    private void validateTagLabel(String label) {
-        if (label.length() > 50) {
-            throw new IllegalArgumentException("Tag label must be 50 characters or less");
-        }
-        
-        // Validate format: alphanumeric, spaces, hyphens, underscores
-        if (!label.matches("^[a-zA-Z0-9\\s\\-_]+$")) {
-            throw new IllegalArgumentException("Tag label can only contain alphanumeric characters, spaces, hyphens, and underscores");
+            tagUsageCounter.photoTagged(tag, photoId, photo.isDeleted());
+            photoTimelineCounter.photosTagged(List.of(photoId), List.of(tag.getTagId()));
         }
     }
 }
-
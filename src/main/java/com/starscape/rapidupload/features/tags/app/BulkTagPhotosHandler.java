@@ -0,0 +1,124 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import com.starscape.rapidupload.common.cache.SecondLevelCacheEvictor;
+import com.starscape.rapidupload.common.exception.NotFoundException;
+import com.starscape.rapidupload.features.listphotos.app.PhotoTimelineCounter;
+import com.starscape.rapidupload.features.tags.api.dto.BulkTagRequest;
+import com.starscape.rapidupload.features.tags.api.dto.BulkTagResponse;
+import com.starscape.rapidupload.features.tags.infra.PhotoTagBulkRepository;
+import com.starscape.rapidupload.features.tags.infra.PhotoTagBulkRepository.PhotoTagLink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Handler for applying many tags to many photos in one command.
+ * Ownership is checked with one query, missing tags are created with one insert, and links
+ * are inserted in batches with ON CONFLICT DO NOTHING, so already-tagged photos are skipped.
+ */
+@Service
+public class BulkTagPhotosHandler {
+    
+    private static final Logger log = LoggerFactory.getLogger(BulkTagPhotosHandler.class);
+    
+    // Upper bound on photo x tag rows generated by one link insert
+    private static final int MAX_LINKS_PER_STATEMENT = 5000;
+    
+    private final PhotoTagBulkRepository photoTagBulkRepository;
+    private final TagUsageCounter tagUsageCounter;
+    private final PhotoTimelineCounter photoTimelineCounter;
+    private final SecondLevelCacheEvictor cacheEvictor;
+    
+    public BulkTagPhotosHandler(
+            PhotoTagBulkRepository photoTagBulkRepository,
+            TagUsageCounter tagUsageCounter,
+            PhotoTimelineCounter photoTimelineCounter,
+            SecondLevelCacheEvictor cacheEvictor) {
+        this.photoTagBulkRepository = photoTagBulkRepository;
+        this.tagUsageCounter = tagUsageCounter;
+        this.photoTimelineCounter = photoTimelineCounter;
+        this.cacheEvictor = cacheEvictor;
+    }
+    
+    @Transactional
+    public BulkTagResponse handle(BulkTagRequest request, String userId) {
+        List<String> labels = normalizeLabels(request.tags());
+        List<String> photoIds = List.copyOf(new LinkedHashSet<>(request.photoIds()));
+        
+        // Verify all photos exist and belong to user, in one query
+        Map<String, Boolean> owned = photoTagBulkRepository.findOwnedPhotos(userId, photoIds);
+        if (owned.size() < photoIds.size()) {
+            List<String> missing = photoIds.stream()
+                    .filter(photoId -> !owned.containsKey(photoId))
+                    .limit(10)
+                    .toList();
+            throw new NotFoundException("Photos not found: " + String.join(", ", missing));
+        }
+        
+        // Create missing tags, then resolve every label to its tag ID
+        List<String> candidateIds = labels.stream()
+                .map(label -> "tag_" + UUID.randomUUID().toString().replace("-", ""))
+                .toList();
+        List<String> createdTagIds = photoTagBulkRepository.insertMissingTags(userId, candidateIds, labels);
+        Map<String, String> tagIds = photoTagBulkRepository.findTagIds(userId, labels);
+        if (!createdTagIds.isEmpty()) {
+            Map<String, String> createdLabels = new HashMap<>();
+            tagIds.forEach((label, tagId) -> {
+                if (createdTagIds.contains(tagId)) {
+                    createdLabels.put(tagId, label);
+                }
+            });
+            tagUsageCounter.tagsCreated(userId, createdLabels);
+            cacheEvictor.evictTagQueries();
+        }
+        
+        List<PhotoTagLink> created = new ArrayList<>();
+        int photosPerBatch = Math.max(1, MAX_LINKS_PER_STATEMENT / tagIds.size());
+        for (int from = 0; from < photoIds.size(); from += photosPerBatch) {
+            List<String> batch = photoIds.subList(from, Math.min(from + photosPerBatch, photoIds.size()));
+            created.addAll(photoTagBulkRepository.insertLinks(batch, tagIds.values()));
+        }
+        
+        // Photos in the trash are tagged but not counted
+        Map<String, String> labelsByTagId = new HashMap<>();
+        tagIds.forEach((label, tagId) -> labelsByTagId.put(tagId, label));
+        Map<String, Integer> addedPhotos = new HashMap<>();
+        Map<String, List<String>> taggedPhotos = new HashMap<>();
+        for (PhotoTagLink link : created) {
+            if (!owned.get(link.photoId())) {
+                addedPhotos.merge(link.tagId(), 1, Integer::sum);
+            }
+            taggedPhotos.computeIfAbsent(labelsByTagId.get(link.tagId()), label -> new ArrayList<>())
+                    .add(link.photoId());
+        }
+        tagUsageCounter.photosTagged(userId, addedPhotos, taggedPhotos);
+        photoTimelineCounter.photosTagged(
+            created.stream().map(PhotoTagLink::photoId).toList(),
+            created.stream().map(PhotoTagLink::tagId).toList());
+        if (!created.isEmpty()) {
+            cacheEvictor.evictPhotoTagQueries();
+        }
+        
+        log.info("Bulk tagged {} photos with {} tags for user {}: {} links added",
+            photoIds.size(), tagIds.size(), userId, created.size());
+        return new BulkTagResponse(photoIds.size(), createdTagIds.size(), created.size());
+    }
+    
+    private List<String> normalizeLabels(List<String> tags) {
+        LinkedHashSet<String> labels = new LinkedHashSet<>();
+        for (String tag : tags) {
+            String label = TagLabels.normalize(tag);
+            TagLabels.validate(label);
+            labels.add(label);
+        }
+        return List.copyOf(labels);
+    }
+}
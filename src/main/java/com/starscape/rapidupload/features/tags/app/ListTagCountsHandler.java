@@ -0,0 +1,29 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import com.starscape.rapidupload.features.tags.api.dto.TagCountsResponse;
+import com.starscape.rapidupload.features.tags.api.dto.TagCountsResponse.TagCount;
+import com.starscape.rapidupload.features.tags.infra.TagStatsRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Handler for listing a user's tags with the number of photos carrying each one.
+ * Reads the materialized counts, sorted alphabetically.
+ */
+@Service
+public class ListTagCountsHandler {
+    
+    private final TagStatsRepository tagStatsRepository;
+    
+    public ListTagCountsHandler(TagStatsRepository tagStatsRepository) {
+        this.tagStatsRepository = tagStatsRepository;
+    }
+    
+    public TagCountsResponse handle(String userId) {
+        List<TagCount> tags = tagStatsRepository.findByUserId(userId).stream()
+                .map(tag -> new TagCount(tag.label(), tag.usageCount()))
+                .toList();
+        return new TagCountsResponse(tags);
+    }
+}
@@ -1,6 +1,7 @@
 package com.starscape.rapidupload.features.tags.app;
 
 import com.starscape.rapidupload.common.exception.NotFoundException;
+import com.starscape.rapidupload.features.listphotos.app.PhotoTimelineCounter;
 import com.starscape.rapidupload.features.tags.domain.PhotoTagRepository;
 import com.starscape.rapidupload.features.tags.domain.Tag;
 import com.starscape.rapidupload.features.tags.domain.TagRepository;
@@ -19,14 +20,20 @@ public class RemoveTagFromPhotoHandler {
     private final PhotoRepository photoRepository;
     private final TagRepository tagRepository;
     private final PhotoTagRepository photoTagRepository;
+    private final TagUsageCounter tagUsageCounter;
+    private final PhotoTimelineCounter photoTimelineCounter;
     
     public RemoveTagFromPhotoHandler(
             PhotoRepository photoRepository,
             TagRepository tagRepository,
-            PhotoTagRepository photoTagRepository) {
+            PhotoTagRepository photoTagRepository,
+            TagUsageCounter tagUsageCounter,
+            PhotoTimelineCounter photoTimelineCounter) {
         this.photoRepository = photoRepository;
         this.tagRepository = tagRepository;
         this.photoTagRepository = photoTagRepository;
+        this.tagUsageCounter = tagUsageCounter;
+        this.photoTimelineCounter = photoTimelineCounter;
     }
     
     @Transactional
@@ -47,7 +54,10 @@ public class RemoveTagFromPhotoHandler {
                 .orElseThrow(() -> new NotFoundException("Tag not found: " + normalizedLabel));
         
         // Remove photo-tag association
-        photoTagRepository.deleteByPhotoIdAndTagId(photoId, tag.getTagId());
+        if (photoTagRepository.deleteByPhotoIdAndTagId(photoId, tag.getTagId()) > 0) {
+            tagUsageCounter.photoUntagged(tag, photoId, photo.isDeleted());
+            photoTimelineCounter.photoUntagged(photoId, tag.getTagId());
+        }
     }
     
     /**
@@ -0,0 +1,36 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import com.starscape.rapidupload.features.tags.api.dto.TagSuggestionsResponse;
+import com.starscape.rapidupload.features.tags.api.dto.TagSuggestionsResponse.TagSuggestion;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Handler for tag autocomplete.
+ * Returns the user's most used tags starting with a prefix, served from the in-memory index.
+ */
+@Service
+public class SuggestTagsHandler {
+    
+    private static final int MAX_LIMIT = 50;
+    
+    private final TagSuggestionIndex tagSuggestionIndex;
+    
+    public SuggestTagsHandler(TagSuggestionIndex tagSuggestionIndex) {
+        this.tagSuggestionIndex = tagSuggestionIndex;
+    }
+    
+    public TagSuggestionsResponse handle(String userId, String prefix, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        
+        List<TagSuggestion> suggestions = tagSuggestionIndex
+                .suggest(userId, prefix != null ? prefix : "", Math.min(limit, MAX_LIMIT))
+                .stream()
+                .map(tag -> new TagSuggestion(tag.label(), tag.usageCount()))
+                .toList();
+        return new TagSuggestionsResponse(suggestions);
+    }
+}
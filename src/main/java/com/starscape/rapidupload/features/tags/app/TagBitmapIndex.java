@@ -0,0 +1,199 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.starscape.rapidupload.features.tags.infra.TagBitmapRepository;
+import com.starscape.rapidupload.features.tags.infra.TagBitmapRepository.IndexedPhoto;
+import com.starscape.rapidupload.features.tags.infra.TagBitmapRepository.TagLink;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import com.starscape.rapidupload.features.uploadphoto.domain.events.PhotoFailed;
+import com.starscape.rapidupload.features.uploadphoto.domain.events.PhotoProcessingCompleted;
+import com.starscape.rapidupload.features.uploadphoto.domain.events.PhotoQueued;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * In-memory tag bitmap indexes, one per active user, answering AND/OR/NOT tag filters
+ * combined with a status filter without touching the database.
+ * An index is built from the database on a user's first tag query and then kept current
+ * from tag and trash commands and photo lifecycle events, each applied after its transaction
+ * commits. Changes made on other instances are picked up when the entry ages out.
+ */
+@Component
+public class TagBitmapIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(TagBitmapIndex.class);
+    
+    private final TagBitmapRepository tagBitmapRepository;
+    private final Cache<String, TagBitmaps> indexes;
+    
+    public TagBitmapIndex(
+            TagBitmapRepository tagBitmapRepository,
+            @Value("${app.tags.bitmap.max-bytes:78643200}") long maxBytes,
+            @Value("${app.tags.bitmap.ttl-minutes:30}") long ttlMinutes) {
+        this.tagBitmapRepository = tagBitmapRepository;
+        // Entries are weighed in estimated heap bytes, including the photo ID lookups kept
+        // alongside the bitmaps, and reweighed whenever a change is applied
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String userId, TagBitmaps bitmaps) ->
+                    (int) Math.min(Integer.MAX_VALUE, bitmaps.estimatedBytes()))
+                .expireAfter(new LoadAgeExpiry(Duration.ofMinutes(ttlMinutes)))
+                .build();
+    }
+    
+    /**
+     * Whether a status filter can be answered by the index; others need the database.
+     */
+    public static boolean isIndexed(PhotoStatus status) {
+        return TagBitmaps.INDEXED_STATUSES.contains(status);
+    }
+    
+    /**
+     * One page of untrashed photos matching the filter, newest first.
+     *
+     * @param status An indexed status, or null for any status
+     */
+    public PhotoIdPage findPage(String userId, TagFilter filter, PhotoStatus status, long offset, int limit) {
+        TagBitmaps bitmaps = load(userId);
+        RoaringBitmap match = bitmaps.match(filter, status);
+        return new PhotoIdPage(bitmaps.photoIds(match, offset, limit), match.getLongCardinality());
+    }
+    
+    /**
+     * Every untrashed photo matching the filter, newest first.
+     * Used when further filters have to be applied by the database; empty if more than
+     * {@code maxIds} photos match, in which case the database should resolve the tags too.
+     *
+     * @param status An indexed status, or null for any status
+     */
+    public Optional<List<String>> findAll(String userId, TagFilter filter, PhotoStatus status, int maxIds) {
+        TagBitmaps bitmaps = load(userId);
+        RoaringBitmap match = bitmaps.match(filter, status);
+        if (match.getLongCardinality() > maxIds) {
+            return Optional.empty();
+        }
+        return Optional.of(bitmaps.photoIds(match));
+    }
+    
+    public void photosTagged(String userId, String label, Collection<String> photoIds) {
+        afterCommit(userId, bitmaps -> bitmaps.tag(label, photoIds));
+    }
+    
+    public void photoUntagged(String userId, String label, String photoId) {
+        afterCommit(userId, bitmaps -> {
+            bitmaps.untag(label, photoId);
+            return true;
+        });
+    }
+    
+    public void photosTrashed(String userId, Collection<String> photoIds) {
+        afterCommit(userId, bitmaps -> bitmaps.setDeleted(photoIds, true));
+    }
+    
+    public void photosRestored(String userId, Collection<String> photoIds) {
+        afterCommit(userId, bitmaps -> bitmaps.setDeleted(photoIds, false));
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPhotoQueued(PhotoQueued event) {
+        apply(event.userId(), bitmaps -> {
+            bitmaps.addPhoto(event.photoId(), PhotoStatus.QUEUED, false);
+            return true;
+        });
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPhotoProcessingCompleted(PhotoProcessingCompleted event) {
+        apply(event.userId(), bitmaps -> bitmaps.setStatus(event.photoId(), PhotoStatus.COMPLETED));
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPhotoFailed(PhotoFailed event) {
+        apply(event.userId(), bitmaps -> bitmaps.setStatus(event.photoId(), PhotoStatus.FAILED));
+    }
+    
+    private TagBitmaps load(String userId) {
+        return indexes.get(userId, id -> {
+            long start = System.nanoTime();
+            TagBitmaps bitmaps = new TagBitmaps();
+            for (IndexedPhoto photo : tagBitmapRepository.findPhotos(id)) {
+                bitmaps.addPhoto(photo.photoId(), PhotoStatus.valueOf(photo.status()), photo.deleted());
+            }
+            for (TagLink link : tagBitmapRepository.findTagLinks(id)) {
+                bitmaps.tag(link.label(), List.of(link.photoId()));
+            }
+            log.debug("Built tag bitmap index for user {}: {} photos in {} ms",
+                id, bitmaps.size(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+            return bitmaps;
+        });
+    }
+    
+    private void afterCommit(String userId, Predicate<TagBitmaps> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(userId, change);
+                }
+            });
+        } else {
+            apply(userId, change);
+        }
+    }
+    
+    /**
+     * Apply a committed change to the user's index, if loaded.
+     * Runs under the cache entry's lock, so a change that commits while the index is being
+     * built waits for the build and is applied on top of it; changes are idempotent in case
+     * the build already saw them. A change the index cannot place drops it for a rebuild.
+     */
+    private void apply(String userId, Predicate<TagBitmaps> change) {
+        indexes.asMap().computeIfPresent(userId, (id, bitmaps) -> {
+            if (change.test(bitmaps)) {
+                return bitmaps;
+            }
+            log.debug("Tag bitmap index for user {} is out of date, dropping it", id);
+            return null;
+        });
+    }
+    
+    public record PhotoIdPage(
+        List<String> photoIds,
+        long total
+    ) {}
+    
+    /**
+     * Expires an index a fixed time after it was built; incremental updates do not extend it.
+     */
+    private record LoadAgeExpiry(Duration ttl) implements Expiry<String, TagBitmaps> {
+        
+        @Override
+        public long expireAfterCreate(String userId, TagBitmaps bitmaps, long currentTime) {
+            return ttl.toNanos();
+        }
+        
+        @Override
+        public long expireAfterUpdate(String userId, TagBitmaps bitmaps, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+        
+        @Override
+        public long expireAfterRead(String userId, TagBitmaps bitmaps, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One user's photos as compressed bitmaps over photo ordinals.
+ * Ordinals follow creation order, so a higher ordinal is a newer photo and pages are read
+ * from the top of a bitmap down. Tag bitmaps keep trashed photos; the active bitmap masks them.
+ */
+final class TagBitmaps {
+    
+    // Only statuses whose every transition publishes an event can be tracked incrementally
+    static final Set<PhotoStatus> INDEXED_STATUSES = EnumSet.of(PhotoStatus.COMPLETED, PhotoStatus.FAILED);
+    
+    private static final RoaringBitmap EMPTY = new RoaringBitmap();
+    
+    // Heap per photo outside the bitmaps: the 35-character ID string, its photoIds slot,
+    // and its ordinals entry (map node, table slot and boxed ordinal)
+    private static final long PHOTO_BYTES = 150;
+    
+    // Heap per tag outside its bitmap: the label string and its map entry
+    private static final long TAG_BYTES = 100;
+    
+    private final List<String> photoIds = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final RoaringBitmap active = new RoaringBitmap();
+    private final Map<PhotoStatus, RoaringBitmap> statuses = new EnumMap<>(PhotoStatus.class);
+    private final Map<String, RoaringBitmap> tags = new HashMap<>();
+    
+    TagBitmaps() {
+        for (PhotoStatus status : INDEXED_STATUSES) {
+            statuses.put(status, new RoaringBitmap());
+        }
+    }
+    
+    synchronized int size() {
+        return photoIds.size();
+    }
+    
+    /**
+     * Estimated heap footprint, which bounds how many indexes are kept in memory.
+     */
+    synchronized long estimatedBytes() {
+        long bytes = photoIds.size() * PHOTO_BYTES + active.getLongSizeInBytes();
+        for (RoaringBitmap bitmap : statuses.values()) {
+            bytes += bitmap.getLongSizeInBytes();
+        }
+        for (RoaringBitmap bitmap : tags.values()) {
+            bytes += TAG_BYTES + bitmap.getLongSizeInBytes();
+        }
+        return bytes;
+    }
+    
+    /**
+     * Append a photo as the newest ordinal. Photos already indexed are left alone.
+     */
+    synchronized void addPhoto(String photoId, PhotoStatus status, boolean deleted) {
+        if (ordinals.containsKey(photoId)) {
+            return;
+        }
+        int ordinal = photoIds.size();
+        photoIds.add(photoId);
+        ordinals.put(photoId, ordinal);
+        if (!deleted) {
+            active.add(ordinal);
+        }
+        RoaringBitmap statusBitmap = statuses.get(status);
+        if (statusBitmap != null) {
+            statusBitmap.add(ordinal);
+        }
+    }
+    
+    /**
+     * @return false if the photo is not indexed, meaning the index is out of date
+     */
+    synchronized boolean setStatus(String photoId, PhotoStatus status) {
+        Integer ordinal = ordinals.get(photoId);
+        if (ordinal == null) {
+            return false;
+        }
+        statuses.forEach((indexed, bitmap) -> {
+            if (indexed == status) {
+                bitmap.add(ordinal);
+            } else {
+                bitmap.remove(ordinal);
+            }
+        });
+        return true;
+    }
+    
+    /**
+     * @return false if any photo is not indexed, meaning the index is out of date
+     */
+    synchronized boolean setDeleted(Collection<String> photoIds, boolean deleted) {
+        for (String photoId : photoIds) {
+            Integer ordinal = ordinals.get(photoId);
+            if (ordinal == null) {
+                return false;
+            }
+            if (deleted) {
+                active.remove(ordinal);
+            } else {
+                active.add(ordinal);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * @return false if any photo is not indexed, meaning the index is out of date
+     */
+    synchronized boolean tag(String label, Collection<String> photoIds) {
+        RoaringBitmap bitmap = tags.computeIfAbsent(label, l -> new RoaringBitmap());
+        for (String photoId : photoIds) {
+            Integer ordinal = ordinals.get(photoId);
+            if (ordinal == null) {
+                return false;
+            }
+            bitmap.add(ordinal);
+        }
+        return true;
+    }
+    
+    synchronized void untag(String label, String photoId) {
+        RoaringBitmap bitmap = tags.get(label);
+        Integer ordinal = ordinals.get(photoId);
+        if (bitmap != null && ordinal != null) {
+            bitmap.remove(ordinal);
+        }
+    }
+    
+    /**
+     * Ordinals of untrashed photos that match the filter and, if given, the status.
+     */
+    synchronized RoaringBitmap match(TagFilter filter, PhotoStatus status) {
+        RoaringBitmap result = active.clone();
+        if (status != null) {
+            result.and(statuses.getOrDefault(status, EMPTY));
+        }
+        for (String label : filter.allOf()) {
+            result.and(tags.getOrDefault(label, EMPTY));
+        }
+        if (!filter.anyOf().isEmpty()) {
+            result.and(RoaringBitmap.or(filter.anyOf().stream()
+                .map(label -> tags.getOrDefault(label, EMPTY))
+                .iterator()));
+        }
+        for (String label : filter.noneOf()) {
+            result.andNot(tags.getOrDefault(label, EMPTY));
+        }
+        return result;
+    }
+    
+    /**
+     * Photo IDs of a slice of a match, newest first.
+     */
+    synchronized List<String> photoIds(RoaringBitmap match, long offset, int limit) {
+        long cardinality = match.getLongCardinality();
+        long end = Math.min(cardinality, offset + limit);
+        List<String> result = new ArrayList<>((int) Math.max(0, end - offset));
+        for (long i = offset; i < end; i++) {
+            result.add(photoIds.get(match.select((int) (cardinality - 1 - i))));
+        }
+        return result;
+    }
+    
+    /**
+     * Photo IDs of a whole match, newest first.
+     */
+    synchronized List<String> photoIds(RoaringBitmap match) {
+        List<String> result = new ArrayList<>(match.getCardinality());
+        IntIterator ordinals = match.getReverseIntIterator();
+        while (ordinals.hasNext()) {
+            result.add(photoIds.get(ordinals.next()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * A boolean combination of tag labels: photos must carry every {@code allOf} label,
+ * at least one {@code anyOf} label when any are given, and none of the {@code noneOf} labels.
+ */
+public record TagFilter(
+    List<String> allOf,
+    List<String> anyOf,
+    List<String> noneOf
+) {
+    
+    public static final TagFilter NONE = new TagFilter(List.of(), List.of(), List.of());
+    
+    /**
+     * Build a filter from request parameters, any of which may be null.
+     * Labels are normalized and blank labels are dropped.
+     */
+    public static TagFilter of(List<String> allOf, List<String> anyOf, List<String> noneOf) {
+        return new TagFilter(labels(allOf), labels(anyOf), labels(noneOf));
+    }
+    
+    public boolean isEmpty() {
+        return allOf.isEmpty() && anyOf.isEmpty() && noneOf.isEmpty();
+    }
+    
+    private static List<String> labels(List<String> values) {
+        if (values == null) {
+            return List.of();
+        }
+        LinkedHashSet<String> labels = new LinkedHashSet<>();
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                labels.add(TagLabels.normalize(value));
+            }
+        }
+        return List.copyOf(labels);
+    }
+}
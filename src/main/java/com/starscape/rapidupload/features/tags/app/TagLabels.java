@@ -0,0 +1,31 @@
+package com.starscape.rapidupload.features.tags.app;
+
+/**
+ * Tag label normalization and validation shared by the tag command handlers.
+ */
+final class TagLabels {
+    
+    private TagLabels() {
+    }
+    
+    /**
+     * Normalize tag label: trim whitespace.
+     */
+    static String normalize(String label) {
+        return label.trim();
+    }
+    
+    /**
+     * Validate tag label format and length.
+     */
+    static void validate(String label) {
+        if (label.length() > 50) {
+            throw new IllegalArgumentException("Tag label must be 50 characters or less");
+        }
+        
+        // Validate format: alphanumeric, spaces, hyphens, underscores
+        if (!label.matches("^[a-zA-Z0-9\\s\\-_]+$")) {
+            throw new IllegalArgumentException("Tag label can only contain alphanumeric characters, spaces, hyphens, and underscores");
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import com.starscape.rapidupload.features.tags.infra.TagStatsRepository.TagUsage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable prefix index over one user's tags.
+ * Labels are held in arrays sorted by their lower-cased form, so the tags matching a prefix
+ * are one contiguous range found by binary search; the range is then ranked by usage.
+ */
+final class TagPrefixIndex {
+    
+    // Orders matches by usage (descending), then label, for a stable ranking
+    private static final Comparator<TagUsage> RANKING = Comparator
+            .comparingLong(TagUsage::usageCount).reversed()
+            .thenComparing(TagUsage::label);
+    
+    private final String[] keys;
+    private final TagUsage[] tags;
+    
+    TagPrefixIndex(List<TagUsage> usage) {
+        TagUsage[] sorted = usage.toArray(TagUsage[]::new);
+        Arrays.sort(sorted, Comparator.comparing((TagUsage tag) -> normalize(tag.label()))
+                .thenComparing(TagUsage::label));
+        
+        this.tags = sorted;
+        this.keys = new String[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            keys[i] = normalize(sorted[i].label());
+        }
+    }
+    
+    /**
+     * The most used tags whose label starts with the prefix, ignoring case.
+     *
+     * @param prefix The typed prefix; blank matches every tag
+     * @param limit Maximum number of tags to return
+     */
+    List<TagUsage> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        int from = lowerBound(key);
+        int to = key.isEmpty() ? keys.length : lowerBound(key + Character.MAX_VALUE);
+        
+        if (to - from <= limit) {
+            List<TagUsage> matches = new ArrayList<>(Arrays.asList(tags).subList(from, to));
+            matches.sort(RANKING);
+            return matches;
+        }
+        
+        // Keep the best `limit` matches in a min-heap with the weakest on top
+        PriorityQueue<TagUsage> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (int i = from; i < to; i++) {
+            best.offer(tags[i]);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<TagUsage> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        return ranked;
+    }
+    
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private static String normalize(String label) {
+        return label == null ? "" : label.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,61 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import com.starscape.rapidupload.features.tags.infra.TagStatsRepository;
+import com.starscape.rapidupload.features.tags.infra.TagStatsRepository.RepairBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Recounts tag photo counts from photo_tags and fixes any that drifted.
+ * Incremental updates can drift when a recount races a concurrent tag change, or when rows
+ * are changed outside the handlers; this job walks every tag in keyset batches, so each
+ * statement stays short.
+ */
+@Service
+public class TagStatsRepairJob {
+    
+    private static final Logger log = LoggerFactory.getLogger(TagStatsRepairJob.class);
+    
+    private final TagStatsRepository tagStatsRepository;
+    private final TagSuggestionIndex tagSuggestionIndex;
+    private final int batchSize;
+    
+    public TagStatsRepairJob(
+            TagStatsRepository tagStatsRepository,
+            TagSuggestionIndex tagSuggestionIndex,
+            @Value("${app.tags.stats.repair.batch-size:1000}") int batchSize) {
+        this.tagStatsRepository = tagStatsRepository;
+        this.tagSuggestionIndex = tagSuggestionIndex;
+        this.batchSize = batchSize;
+    }
+    
+    @Scheduled(
+        initialDelayString = "${app.tags.stats.repair.initial-delay-ms:600000}",
+        fixedDelayString = "${app.tags.stats.repair.interval-ms:21600000}")  // Every 6 hours by default
+    public void repairTagStats() {
+        String cursor = "";
+        int scanned = 0;
+        int corrected = 0;
+        
+        while (true) {
+            RepairBatch batch = tagStatsRepository.repair(cursor, batchSize);
+            scanned += batch.scanned();
+            corrected += batch.corrected();
+            batch.correctedUserIds().forEach(tagSuggestionIndex::invalidate);
+            
+            if (batch.lastTagId() == null || batch.scanned() < batchSize) {
+                break;
+            }
+            cursor = batch.lastTagId();
+        }
+        
+        if (corrected > 0) {
+            log.warn("Repaired {} drifted tag counts out of {} tags", corrected, scanned);
+        } else {
+            log.debug("Tag counts consistent across {} tags", scanned);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.starscape.rapidupload.features.tags.infra.TagStatsRepository;
+import com.starscape.rapidupload.features.tags.infra.TagStatsRepository.TagUsage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * In-memory tag prefix indexes, one per active user.
+ * An index is built from the database on a user's first suggestion request and kept until
+ * one of their tags changes, the entry ages out, or the user falls out of the bounded cache.
+ */
+@Component
+public class TagSuggestionIndex {
+    
+    private final TagStatsRepository tagStatsRepository;
+    private final Cache<String, TagPrefixIndex> indexes;
+    
+    public TagSuggestionIndex(
+            TagStatsRepository tagStatsRepository,
+            @Value("${app.tags.suggest.max-users:10000}") long maxUsers,
+            @Value("${app.tags.suggest.ttl-minutes:10}") long ttlMinutes) {
+        this.tagStatsRepository = tagStatsRepository;
+        this.indexes = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+    
+    /**
+     * The user's most used tags starting with the prefix, ignoring case.
+     */
+    public List<TagUsage> suggest(String userId, String prefix, int limit) {
+        TagPrefixIndex index = indexes.get(userId, id -> new TagPrefixIndex(tagStatsRepository.findByUserId(id)));
+        return index.suggest(prefix, limit);
+    }
+    
+    /**
+     * Drop the user's index so the next request rebuilds it.
+     * Inside a transaction the index is dropped again after completion, so a rebuild that
+     * raced with the uncommitted change does not stick.
+     */
+    public void invalidate(String userId) {
+        indexes.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    indexes.invalidate(userId);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import com.starscape.rapidupload.features.tags.domain.Tag;
+import com.starscape.rapidupload.features.tags.infra.TagStatsRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps materialized tag photo counts and the in-memory tag indexes in step with tag and trash changes.
+ * Must be called inside the transaction that makes the change, so counts commit with it and the
+ * tag bitmap index is updated once it has committed.
+ * Every change also invalidates the user's tag suggestion index, which ranks by these counts.
+ */
+@Service
+public class TagUsageCounter {
+    
+    private final TagStatsRepository tagStatsRepository;
+    private final TagSuggestionIndex tagSuggestionIndex;
+    private final TagBitmapIndex tagBitmapIndex;
+    
+    public TagUsageCounter(
+            TagStatsRepository tagStatsRepository,
+            TagSuggestionIndex tagSuggestionIndex,
+            TagBitmapIndex tagBitmapIndex) {
+        this.tagStatsRepository = tagStatsRepository;
+        this.tagSuggestionIndex = tagSuggestionIndex;
+        this.tagBitmapIndex = tagBitmapIndex;
+    }
+    
+    public void tagCreated(String tagId, String userId, String label) {
+        tagStatsRepository.create(tagId, userId, label);
+        tagSuggestionIndex.invalidate(userId);
+    }
+    
+    /**
+     * Many tags were created at once.
+     *
+     * @param labels Tag ID to label
+     */
+    public void tagsCreated(String userId, Map<String, String> labels) {
+        if (labels.isEmpty()) {
+            return;
+        }
+        tagStatsRepository.createAll(userId, labels);
+        tagSuggestionIndex.invalidate(userId);
+    }
+    
+    /**
+     * A tag was applied to a photo. Photos in the trash are not counted.
+     */
+    public void photoTagged(Tag tag, String photoId, boolean photoDeleted) {
+        if (!photoDeleted) {
+            tagStatsRepository.adjust(tag.getTagId(), 1);
+        }
+        tagSuggestionIndex.invalidate(tag.getUserId());
+        tagBitmapIndex.photosTagged(tag.getUserId(), tag.getLabel(), List.of(photoId));
+    }
+    
+    /**
+     * Tags were applied to many photos at once.
+     *
+     * @param addedPhotos Tag ID to the number of untrashed photos it was newly applied to
+     * @param taggedPhotos Label to the IDs of all photos it was newly applied to, trashed included
+     */
+    public void photosTagged(String userId, Map<String, Integer> addedPhotos, Map<String, List<String>> taggedPhotos) {
+        if (!addedPhotos.isEmpty()) {
+            tagStatsRepository.adjustAll(addedPhotos);
+            tagSuggestionIndex.invalidate(userId);
+        }
+        taggedPhotos.forEach((label, photoIds) -> tagBitmapIndex.photosTagged(userId, label, photoIds));
+    }
+    
+    /**
+     * A tag was removed from a photo. Photos in the trash are not counted.
+     */
+    public void photoUntagged(Tag tag, String photoId, boolean photoDeleted) {
+        if (!photoDeleted) {
+            tagStatsRepository.adjust(tag.getTagId(), -1);
+        }
+        tagSuggestionIndex.invalidate(tag.getUserId());
+        tagBitmapIndex.photoUntagged(tag.getUserId(), tag.getLabel(), photoId);
+    }
+    
+    /**
+     * Photos moved to the trash. Pass only photos that were not already trashed.
+     */
+    public void photosTrashed(String userId, Collection<String> photoIds) {
+        if (photoIds.isEmpty()) {
+            return;
+        }
+        tagStatsRepository.adjustForPhotos(photoIds, -1);
+        tagSuggestionIndex.invalidate(userId);
+        tagBitmapIndex.photosTrashed(userId, photoIds);
+    }
+    
+    /**
+     * Photos restored from the trash. Pass only photos that were trashed.
+     */
+    public void photosRestored(String userId, Collection<String> photoIds) {
+        if (photoIds.isEmpty()) {
+            return;
+        }
+        tagStatsRepository.adjustForPhotos(photoIds, 1);
+        tagSuggestionIndex.invalidate(userId);
+        tagBitmapIndex.photosRestored(userId, photoIds);
+    }
+}
@@ -8,7 +8,7 @@ import java.util.List;
 public interface PhotoTagRepository {
     PhotoTag save(PhotoTag photoTag);
     void delete(PhotoTag photoTag);
-    void deleteByPhotoIdAndTagId(String photoId, String tagId);
+    int deleteByPhotoIdAndTagId(String photoId, String tagId);
     List<PhotoTag> findByPhotoId(String photoId);
     List<PhotoTag> findByTagId(String tagId);
     boolean existsByPhotoIdAndTagId(String photoId, String tagId);
@@ -1,6 +1,9 @@
 package com.starscape.rapidupload.features.tags.domain;
 
+import com.starscape.rapidupload.common.cache.CacheRegions;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.Instant;
 
 /**
@@ -11,6 +14,8 @@ import java.time.Instant;
 @Table(name = "tags", uniqueConstraints = {
     @UniqueConstraint(name = "tags_user_label_unique", columnNames = {"user_id", "label"})
 })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.TAGS)
 public class Tag extends com.starscape.rapidupload.common.domain.Entity<String> {
     
     @Id
@@ -8,6 +8,7 @@ import java.util.Optional;
  */
 public interface TagRepository {
     Tag save(Tag tag);
+    Tag saveAndFlush(Tag tag);
     Optional<Tag> findById(String tagId);
     Optional<Tag> findByUserIdAndLabel(String userId, String label);
     List<Tag> findByUserId(String userId);
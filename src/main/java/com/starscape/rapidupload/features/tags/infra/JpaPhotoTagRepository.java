@@ -1,11 +1,15 @@
 package com.starscape.rapidupload.features.tags.infra;
 
+import com.starscape.rapidupload.common.cache.CacheRegions;
 import com.starscape.rapidupload.features.tags.domain.PhotoTag;
 import com.starscape.rapidupload.features.tags.domain.PhotoTagId;
 import com.starscape.rapidupload.features.tags.domain.PhotoTagRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,6 +25,10 @@ import java.util.List;
 public interface JpaPhotoTagRepository extends JpaRepository<PhotoTag, PhotoTagId>, PhotoTagRepository {
     
     @Override
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.PHOTO_TAG_LISTS)
+    })
     List<PhotoTag> findByPhotoId(String photoId);
     
     @Override
@@ -33,6 +41,6 @@ public interface JpaPhotoTagRepository extends JpaRepository<PhotoTag, PhotoTagI
     @Modifying
     @Transactional
     @Query("DELETE FROM PhotoTag pt WHERE pt.photoId = :photoId AND pt.tagId = :tagId")
-    void deleteByPhotoIdAndTagId(@Param("photoId") String photoId, @Param("tagId") String tagId);
+    int deleteByPhotoIdAndTagId(@Param("photoId") String photoId, @Param("tagId") String tagId);
 }
 
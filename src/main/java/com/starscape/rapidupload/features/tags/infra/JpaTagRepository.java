@@ -1,9 +1,13 @@
 package com.starscape.rapidupload.features.tags.infra;
 
+import com.starscape.rapidupload.common.cache.CacheRegions;
 import com.starscape.rapidupload.features.tags.domain.Tag;
 import com.starscape.rapidupload.features.tags.domain.TagRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -24,7 +28,14 @@ public interface JpaTagRepository extends JpaRepository<Tag, String>, TagReposit
     @Override
     List<Tag> findByUserId(String userId);
     
+    /**
+     * Cached in the query cache; Hibernate invalidates it whenever the tags table changes through JPA.
+     */
     @Query("SELECT t FROM Tag t WHERE t.userId = :userId ORDER BY t.label ASC")
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.TAG_LISTS)
+    })
     List<Tag> findByUserIdOrderByLabelAsc(@Param("userId") String userId);
 }
 
@@ -0,0 +1,118 @@
+package com.starscape.rapidupload.features.tags.infra;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based writes for tagging many photos at once.
+ * Each method is a constant number of statements regardless of how many photos or labels
+ * are involved; duplicates are skipped with ON CONFLICT DO NOTHING.
+ */
+@Repository
+public class PhotoTagBulkRepository {
+    
+    private static final String FIND_OWNED_PHOTOS_SQL =
+            "SELECT photo_id, deleted_at IS NOT NULL AS deleted FROM photos " +
+            "WHERE user_id = ? AND photo_id = ANY(?)";
+    
+    private static final String INSERT_TAGS_SQL =
+            "INSERT INTO tags (tag_id, user_id, label) " +
+            "SELECT UNNEST(?::varchar[]), ?, UNNEST(?::varchar[]) " +
+            "ON CONFLICT (user_id, label) DO NOTHING " +
+            "RETURNING tag_id";
+    
+    private static final String FIND_TAGS_SQL =
+            "SELECT tag_id, label FROM tags WHERE user_id = ? AND label = ANY(?)";
+    
+    private static final String INSERT_LINKS_SQL =
+            "INSERT INTO photo_tags (photo_id, tag_id) " +
+            "SELECT p.photo_id, t.tag_id FROM UNNEST(?::varchar[]) AS p(photo_id) " +
+            "CROSS JOIN UNNEST(?::varchar[]) AS t(tag_id) " +
+            "ON CONFLICT DO NOTHING " +
+            "RETURNING photo_id, tag_id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public PhotoTagBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Which of the given photos belong to the user.
+     *
+     * @return Owned photo ID to whether the photo is in the trash
+     */
+    public Map<String, Boolean> findOwnedPhotos(String userId, Collection<String> photoIds) {
+        Map<String, Boolean> owned = new HashMap<>();
+        jdbcTemplate.query(FIND_OWNED_PHOTOS_SQL,
+            ps -> {
+                ps.setString(1, userId);
+                ps.setArray(2, ps.getConnection().createArrayOf("varchar", photoIds.toArray()));
+            },
+            rs -> {
+                owned.put(rs.getString("photo_id"), rs.getBoolean("deleted"));
+            });
+        return owned;
+    }
+    
+    /**
+     * Create the user's tags that don't exist yet.
+     *
+     * @param newTagIds Candidate IDs, parallel to labels; used only for labels that are new
+     * @return IDs of the tags actually created
+     */
+    public List<String> insertMissingTags(String userId, List<String> newTagIds, List<String> labels) {
+        return jdbcTemplate.query(INSERT_TAGS_SQL,
+            ps -> {
+                ps.setArray(1, ps.getConnection().createArrayOf("varchar", newTagIds.toArray()));
+                ps.setString(2, userId);
+                ps.setArray(3, ps.getConnection().createArrayOf("varchar", labels.toArray()));
+            },
+            (rs, rowNum) -> rs.getString("tag_id"));
+    }
+    
+    /**
+     * @return Label to tag ID for the user's tags with the given labels
+     */
+    public Map<String, String> findTagIds(String userId, Collection<String> labels) {
+        Map<String, String> tagIds = new HashMap<>();
+        jdbcTemplate.query(FIND_TAGS_SQL,
+            ps -> {
+                ps.setString(1, userId);
+                ps.setArray(2, ps.getConnection().createArrayOf("varchar", labels.toArray()));
+            },
+            rs -> {
+                tagIds.put(rs.getString("label"), rs.getString("tag_id"));
+            });
+        return tagIds;
+    }
+    
+    /**
+     * Link every photo to every tag, skipping links that already exist.
+     *
+     * @return The links actually created
+     */
+    public List<PhotoTagLink> insertLinks(Collection<String> photoIds, Collection<String> tagIds) {
+        List<PhotoTagLink> created = new ArrayList<>();
+        jdbcTemplate.query(INSERT_LINKS_SQL,
+            ps -> {
+                ps.setArray(1, ps.getConnection().createArrayOf("varchar", photoIds.toArray()));
+                ps.setArray(2, ps.getConnection().createArrayOf("varchar", tagIds.toArray()));
+            },
+            rs -> {
+                created.add(new PhotoTagLink(rs.getString("photo_id"), rs.getString("tag_id")));
+            });
+        return created;
+    }
+    
+    public record PhotoTagLink(
+        String photoId,
+        String tagId
+    ) {}
+}
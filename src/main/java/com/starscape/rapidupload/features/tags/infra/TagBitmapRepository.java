@@ -0,0 +1,61 @@
+package com.starscape.rapidupload.features.tags.infra;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Reads everything needed to build a user's tag bitmap index in two statements:
+ * their photos in creation order, and their tag links by label.
+ */
+@Repository
+public class TagBitmapRepository {
+    
+    private static final String FIND_PHOTOS_SQL =
+            "SELECT photo_id, status, deleted_at IS NOT NULL AS deleted FROM photos " +
+            "WHERE user_id = ? ORDER BY created_at, photo_id";
+    
+    private static final String FIND_TAG_LINKS_SQL =
+            "SELECT t.label, pt.photo_id FROM tags t " +
+            "JOIN photo_tags pt ON pt.tag_id = t.tag_id " +
+            "WHERE t.user_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public TagBitmapRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * All of the user's photos, trashed included, oldest first.
+     */
+    public List<IndexedPhoto> findPhotos(String userId) {
+        return jdbcTemplate.query(FIND_PHOTOS_SQL,
+            (rs, rowNum) -> new IndexedPhoto(
+                rs.getString("photo_id"),
+                rs.getString("status"),
+                rs.getBoolean("deleted")),
+            userId);
+    }
+    
+    /**
+     * Every photo-tag link of the user's tags.
+     */
+    public List<TagLink> findTagLinks(String userId) {
+        return jdbcTemplate.query(FIND_TAG_LINKS_SQL,
+            (rs, rowNum) -> new TagLink(rs.getString("label"), rs.getString("photo_id")),
+            userId);
+    }
+    
+    public record IndexedPhoto(
+        String photoId,
+        String status,
+        boolean deleted
+    ) {}
+    
+    public record TagLink(
+        String label,
+        String photoId
+    ) {}
+}
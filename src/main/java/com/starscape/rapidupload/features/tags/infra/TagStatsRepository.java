@@ -0,0 +1,151 @@
+package com.starscape.rapidupload.features.tags.infra;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Materialized photo counts per tag (tag_stats). Photos in the trash are not counted.
+ * Counts are adjusted incrementally as photos are tagged, untagged, trashed and restored;
+ * {@link #repair} recomputes them from photo_tags to correct any drift.
+ */
+@Repository
+public class TagStatsRepository {
+    
+    private static final String FIND_BY_USER_SQL =
+            "SELECT label, photo_count FROM tag_stats WHERE user_id = ? ORDER BY label";
+    
+    private static final String CREATE_SQL =
+            "INSERT INTO tag_stats (tag_id, user_id, label, photo_count) VALUES (?, ?, ?, 0) " +
+            "ON CONFLICT (tag_id) DO NOTHING";
+    
+    private static final String ADJUST_SQL =
+            "UPDATE tag_stats SET photo_count = photo_count + ?, updated_at = NOW() WHERE tag_id = ?";
+    
+    private static final String ADJUST_FOR_PHOTOS_SQL =
+            "UPDATE tag_stats s SET photo_count = s.photo_count + ? * c.photos, updated_at = NOW() " +
+            "FROM (SELECT tag_id, COUNT(*) AS photos FROM photo_tags WHERE photo_id = ANY(?) GROUP BY tag_id) c " +
+            "WHERE s.tag_id = c.tag_id";
+    
+    // Recounts one keyset batch of tags and rewrites only the rows that drifted
+    private static final String REPAIR_SQL =
+            "WITH batch AS (" +
+            "  SELECT tag_id, user_id, label FROM tags WHERE tag_id > ? ORDER BY tag_id LIMIT ?" +
+            "), actual AS (" +
+            "  SELECT b.tag_id, b.user_id, b.label, COUNT(p.photo_id) AS photo_count FROM batch b " +
+            "  LEFT JOIN photo_tags pt ON pt.tag_id = b.tag_id " +
+            "  LEFT JOIN photos p ON p.photo_id = pt.photo_id AND p.deleted_at IS NULL " +
+            "  GROUP BY b.tag_id, b.user_id, b.label" +
+            "), corrected AS (" +
+            "  INSERT INTO tag_stats (tag_id, user_id, label, photo_count) " +
+            "  SELECT tag_id, user_id, label, photo_count FROM actual " +
+            "  ON CONFLICT (tag_id) DO UPDATE SET photo_count = EXCLUDED.photo_count, updated_at = NOW() " +
+            "  WHERE tag_stats.photo_count <> EXCLUDED.photo_count " +
+            "  RETURNING user_id" +
+            ") " +
+            "SELECT (SELECT MAX(tag_id) FROM batch) AS last_tag_id, " +
+            "  (SELECT COUNT(*) FROM batch) AS scanned, " +
+            "  (SELECT COUNT(*) FROM corrected) AS corrected, " +
+            "  (SELECT ARRAY_AGG(DISTINCT user_id) FROM corrected) AS user_ids";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public TagStatsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    /**
+     * Every tag of the user with its photo count, ordered by label.
+     */
+    public List<TagUsage> findByUserId(String userId) {
+        return jdbcTemplate.query(FIND_BY_USER_SQL,
+            (rs, rowNum) -> new TagUsage(rs.getString("label"), rs.getLong("photo_count")),
+            userId);
+    }
+    
+    /**
+     * Start counting a new tag at zero. Does nothing if the tag already has a row.
+     */
+    public void create(String tagId, String userId, String label) {
+        jdbcTemplate.update(CREATE_SQL, tagId, userId, label);
+    }
+    
+    public void adjust(String tagId, int delta) {
+        jdbcTemplate.update(ADJUST_SQL, delta, tagId);
+    }
+    
+    /**
+     * Create rows for many new tags at once.
+     *
+     * @param labels Tag ID to label
+     */
+    public void createAll(String userId, Map<String, String> labels) {
+        jdbcTemplate.batchUpdate(CREATE_SQL, List.copyOf(labels.entrySet()), labels.size(), (ps, tag) -> {
+            ps.setString(1, tag.getKey());
+            ps.setString(2, userId);
+            ps.setString(3, tag.getValue());
+        });
+    }
+    
+    /**
+     * Adjust many tags' counts at once.
+     *
+     * @param deltas Tag ID to the amount to add
+     */
+    public void adjustAll(Map<String, Integer> deltas) {
+        jdbcTemplate.batchUpdate(ADJUST_SQL, List.copyOf(deltas.entrySet()), deltas.size(), (ps, delta) -> {
+            ps.setInt(1, delta.getValue());
+            ps.setString(2, delta.getKey());
+        });
+    }
+    
+    /**
+     * Add {@code direction} (1 or -1) to the count of every tag on the given photos, once per photo.
+     */
+    public void adjustForPhotos(Collection<String> photoIds, int direction) {
+        if (photoIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(ADJUST_FOR_PHOTOS_SQL, ps -> {
+            ps.setInt(1, direction);
+            ps.setArray(2, ps.getConnection().createArrayOf("varchar", photoIds.toArray()));
+        });
+    }
+    
+    /**
+     * Recount the next batch of tags after the given tag ID (use "" to start).
+     */
+    public RepairBatch repair(String afterTagId, int limit) {
+        return jdbcTemplate.queryForObject(REPAIR_SQL, (rs, rowNum) -> {
+            Array userIds = rs.getArray("user_ids");
+            return new RepairBatch(
+                rs.getString("last_tag_id"),
+                rs.getInt("scanned"),
+                rs.getInt("corrected"),
+                userIds != null ? Arrays.asList((String[]) userIds.getArray()) : List.of());
+        }, afterTagId, limit);
+    }
+    
+    public record TagUsage(
+        String label,
+        long usageCount
+    ) {}
+    
+    /**
+     * Outcome of one repair batch.
+     *
+     * @param lastTagId Keyset cursor for the next batch, null when no tags were left
+     * @param correctedUserIds Owners of the tags whose counts were rewritten
+     */
+    public record RepairBatch(
+        String lastTagId,
+        int scanned,
+        int corrected,
+        List<String> correctedUserIds
+    ) {}
+}
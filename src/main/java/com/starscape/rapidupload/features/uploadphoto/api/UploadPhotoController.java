@@ -1,31 +1,58 @@
 package com.starscape.rapidupload.features.uploadphoto.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.starscape.rapidupload.common.security.UserPrincipal;
 import com.starscape.rapidupload.features.uploadphoto.api.dto.*;
 import com.starscape.rapidupload.features.uploadphoto.app.CreateUploadJobHandler;
+import com.starscape.rapidupload.features.uploadphoto.app.CreateUploadJobHandler.PreparedUploadJob;
 import com.starscape.rapidupload.features.uploadphoto.app.FinalizeMultipartUploadHandler;
+import com.starscape.rapidupload.features.uploadphoto.app.IssuePartUrlsHandler;
+import com.starscape.rapidupload.features.uploadphoto.app.ResumeMultipartUploadHandler;
 import com.starscape.rapidupload.features.uploadphoto.app.UpdateProgressHandler;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 @RestController
 @RequestMapping("/commands")
 public class UploadPhotoController {
     
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    private static final MediaType NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+    
     private final CreateUploadJobHandler createUploadJobHandler;
     private final UpdateProgressHandler updateProgressHandler;
     private final FinalizeMultipartUploadHandler finalizeMultipartUploadHandler;
+    private final IssuePartUrlsHandler issuePartUrlsHandler;
+    private final ResumeMultipartUploadHandler resumeMultipartUploadHandler;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService uploadPreparationExecutor;
     
     public UploadPhotoController(
             CreateUploadJobHandler createUploadJobHandler,
             UpdateProgressHandler updateProgressHandler,
-            FinalizeMultipartUploadHandler finalizeMultipartUploadHandler) {
+            FinalizeMultipartUploadHandler finalizeMultipartUploadHandler,
+            IssuePartUrlsHandler issuePartUrlsHandler,
+            ResumeMultipartUploadHandler resumeMultipartUploadHandler,
+            ObjectMapper objectMapper,
+            @Qualifier("uploadPreparationExecutor") ExecutorService uploadPreparationExecutor) {
         this.createUploadJobHandler = createUploadJobHandler;
         this.updateProgressHandler = updateProgressHandler;
         this.finalizeMultipartUploadHandler = finalizeMultipartUploadHandler;
+        this.issuePartUrlsHandler = issuePartUrlsHandler;
+        this.resumeMultipartUploadHandler = resumeMultipartUploadHandler;
+        this.objectMapper = objectMapper;
+        this.uploadPreparationExecutor = uploadPreparationExecutor;
     }
     
     @PostMapping("/upload-jobs")
@@ -37,6 +64,40 @@ public class UploadPhotoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     
+    /**
+     * Create an upload job and stream its upload items as NDJSON.
+     * The first line is a {@link CreateUploadJobStreamHeader}; each following line is a
+     * {@link PhotoUploadItem}, written as soon as its URLs are ready, so clients can start
+     * uploading before the whole job is prepared. If the client goes away or the request times
+     * out, presigning still outstanding is cancelled.
+     */
+    @PostMapping(value = "/upload-jobs", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> createUploadJobStream(
+            @Valid @RequestBody CreateUploadJobRequest request,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        
+        PreparedUploadJob job = createUploadJobHandler.prepare(request, principal.getUserId());
+        
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        Future<?> stream = uploadPreparationExecutor.submit(() -> {
+            try {
+                sendLine(emitter, new CreateUploadJobStreamHeader(job.jobId(), job.uploads().size()));
+                createUploadJobHandler.presign(job, item -> sendLine(emitter, item));
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+        // Interrupting the stream makes presign cancel the URLs it is still waiting on
+        emitter.onTimeout(() -> stream.cancel(true));
+        emitter.onError(e -> stream.cancel(true));
+        emitter.onCompletion(() -> stream.cancel(true));
+        
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .contentType(NDJSON)
+            .body(emitter);
+    }
+    
     @PostMapping("/upload/progress")
     public ResponseEntity<Void> updateProgress(
             @Valid @RequestBody UpdateProgressRequest request,
@@ -46,6 +107,25 @@ public class UploadPhotoController {
         return ResponseEntity.accepted().build();
     }
     
+    /**
+     * Presign URLs for a window of parts of a multipart upload.
+     * Job creation only returns the first window; clients request the rest as they upload.
+     * 
+     * @param photoId The photo ID
+     * @param request The upload ID, first part number and number of parts
+     * @param principal The authenticated user
+     * @return The part layout and presigned part URLs
+     */
+    @PostMapping("/upload/{photoId}/parts")
+    public ResponseEntity<MultipartUploadInfo> issuePartUrls(
+            @PathVariable String photoId,
+            @Valid @RequestBody PartUrlsRequest request,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        
+        MultipartUploadInfo response = issuePartUrlsHandler.handle(photoId, principal.getUserId(), request);
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Finalize a multipart upload after all parts have been uploaded.
      * This completes the S3 multipart upload and triggers processing.
@@ -64,5 +144,33 @@ public class UploadPhotoController {
         finalizeMultipartUploadHandler.handle(photoId, principal.getUserId(), request);
         return ResponseEntity.noContent().build();
     }
+    
+    /**
+     * Resume an interrupted multipart upload.
+     * Returns the parts S3 already holds (with ETags for finalize) and fresh URLs for missing parts.
+     * 
+     * @param photoId The photo ID
+     * @param principal The authenticated user
+     * @return The upload state and presigned URLs for the first missing parts
+     */
+    @PostMapping("/upload/{photoId}/resume")
+    public ResponseEntity<ResumeMultipartUploadResponse> resumeMultipartUpload(
+            @PathVariable String photoId,
+            @AuthenticationPrincipal UserPrincipal principal) {
+        
+        ResumeMultipartUploadResponse response = resumeMultipartUploadHandler.handle(photoId, principal.getUserId());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Send one NDJSON line; throws once the client is gone, which stops the stream.
+     */
+    private void sendLine(ResponseBodyEmitter emitter, Object value) {
+        try {
+            emitter.send(objectMapper.writeValueAsString(value) + "\n", NDJSON);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
 
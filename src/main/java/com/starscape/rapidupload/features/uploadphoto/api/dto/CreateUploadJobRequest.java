@@ -9,11 +9,13 @@ import java.util.List;
 
 public record CreateUploadJobRequest(
     @NotEmpty(message = "Files list cannot be empty")
-    @Size(max = 100, message = "Maximum 100 files per batch")
+    @Size(max = 1000, message = "Maximum 1000 files per batch")
     @Valid
     List<FileUploadRequest> files,
     
     @NotNull(message = "Strategy is required")
-    UploadStrategy strategy
+    UploadStrategy strategy,
+    
+    @Valid
+    UploadHints hints
 ) {}
-
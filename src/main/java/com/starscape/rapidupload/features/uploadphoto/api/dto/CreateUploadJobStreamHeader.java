@@ -0,0 +1,10 @@
+package com.starscape.rapidupload.features.uploadphoto.api.dto;
+
+/**
+ * First line of a streamed (NDJSON) upload job response.
+ * Followed by one {@link PhotoUploadItem} line per photo, in the order URLs become ready.
+ */
+public record CreateUploadJobStreamHeader(
+    String jobId,
+    int totalCount
+) {}
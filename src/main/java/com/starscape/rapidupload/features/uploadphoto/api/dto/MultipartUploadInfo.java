@@ -2,9 +2,14 @@ package com.starscape.rapidupload.features.uploadphoto.api.dto;
 
 import java.util.List;
 
+/**
+ * Multipart upload details for a photo.
+ * {@code parts} holds presigned URLs for a window of part numbers only; request further
+ * windows from {@code POST /commands/upload/{photoId}/parts}.
+ */
 public record MultipartUploadInfo(
     String uploadId,
     long partSize,
+    int partCount,
     List<PartUrl> parts
 ) {}
-
@@ -0,0 +1,21 @@
+package com.starscape.rapidupload.features.uploadphoto.api.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Request DTO for presigning a window of multipart upload part URLs.
+ */
+public record PartUrlsRequest(
+    @NotBlank(message = "Upload ID is required")
+    String uploadId,
+    
+    @Min(value = 1, message = "Start part must be at least 1")
+    @Max(value = 10000, message = "Start part cannot exceed 10000")
+    int startPart,
+    
+    @Min(value = 1, message = "Count must be between 1 and 100")
+    @Max(value = 100, message = "Count must be between 1 and 100")
+    int count
+) {}
@@ -4,14 +4,18 @@ public record PhotoUploadItem(
     String photoId,
     String method,
     String presignedUrl,
-    MultipartUploadInfo multipart
+    MultipartUploadInfo multipart,
+    String error
 ) {
     public static PhotoUploadItem singlePart(String photoId, String presignedUrl) {
-        return new PhotoUploadItem(photoId, "PUT", presignedUrl, null);
+        return new PhotoUploadItem(photoId, "PUT", presignedUrl, null, null);
     }
     
     public static PhotoUploadItem multipart(String photoId, MultipartUploadInfo multipart) {
-        return new PhotoUploadItem(photoId, "MULTIPART", null, multipart);
+        return new PhotoUploadItem(photoId, "MULTIPART", null, multipart, null);
+    }
+    
+    public static PhotoUploadItem failed(String photoId, String error) {
+        return new PhotoUploadItem(photoId, null, null, null, error);
     }
 }
-
@@ -0,0 +1,26 @@
+package com.starscape.rapidupload.features.uploadphoto.api.dto;
+
+import java.util.List;
+
+/**
+ * Response DTO for resuming a multipart upload.
+ * {@code uploadedParts} can be passed straight to finalize once the missing parts are sent;
+ * {@code parts} holds fresh presigned URLs for the first missing parts.
+ */
+public record ResumeMultipartUploadResponse(
+    String uploadId,
+    long partSize,
+    int partCount,
+    List<UploadedPart> uploadedParts,
+    List<Integer> missingParts,
+    List<PartUrl> parts
+) {
+    /**
+     * A part S3 already holds, with the ETag needed to finalize the upload.
+     */
+    public record UploadedPart(
+        int partNumber,
+        String etag,
+        long size
+    ) {}
+}
@@ -0,0 +1,20 @@
+package com.starscape.rapidupload.features.uploadphoto.api.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Optional client-advertised upload capabilities used to size multipart parts.
+ * 
+ * @param concurrency Number of parallel part uploads the client runs
+ * @param bandwidthBytesPerSecond Estimated total upload bandwidth
+ */
+public record UploadHints(
+    @Min(value = 1, message = "Concurrency must be between 1 and 64")
+    @Max(value = 64, message = "Concurrency must be between 1 and 64")
+    Integer concurrency,
+    
+    @Positive(message = "Bandwidth must be positive")
+    Long bandwidthBytesPerSecond
+) {}
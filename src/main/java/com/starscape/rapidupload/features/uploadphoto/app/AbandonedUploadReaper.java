@@ -0,0 +1,176 @@
+package com.starscape.rapidupload.features.uploadphoto.app;
+
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter;
+import com.starscape.rapidupload.features.uploadphoto.infra.S3MultipartPresignService;
+import com.starscape.rapidupload.features.uploadphoto.infra.UploadMaintenanceRepository;
+import com.starscape.rapidupload.features.uploadphoto.infra.UploadMaintenanceRepository.CancelledPhoto;
+import com.starscape.rapidupload.features.uploadphoto.infra.UploadMaintenanceRepository.StaleUpload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Cancels uploads that were started but never finished.
+ * Photos left in QUEUED/UPLOADING past the stale threshold have their multipart uploads
+ * aborted (so S3 stops billing for orphaned parts), are marked CANCELLED, and their jobs'
+ * progress is recomputed so the jobs can reach a terminal state.
+ */
+@Service
+public class AbandonedUploadReaper {
+    
+    private static final Logger log = LoggerFactory.getLogger(AbandonedUploadReaper.class);
+    
+    private static final String CANCEL_REASON = "Upload abandoned: not completed before its URLs expired";
+    
+    private final UploadMaintenanceRepository maintenanceRepository;
+    private final LibraryStatsCounter libraryStatsCounter;
+    private final S3MultipartPresignService multipartService;
+    private final ExecutorService executor;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration staleAfter;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int abortConcurrency;
+    private final String environment;
+    
+    public AbandonedUploadReaper(
+            UploadMaintenanceRepository maintenanceRepository,
+            LibraryStatsCounter libraryStatsCounter,
+            S3MultipartPresignService multipartService,
+            @Qualifier("uploadPreparationExecutor") ExecutorService executor,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.upload.reaper.stale-after-minutes:1440}") long staleAfterMinutes,
+            @Value("${app.upload.reaper.batch-size:500}") int batchSize,
+            @Value("${app.upload.reaper.max-batches-per-run:20}") int maxBatchesPerRun,
+            @Value("${app.upload.reaper.abort-concurrency:16}") int abortConcurrency,
+            @Value("${spring.profiles.active:dev}") String environment) {
+        this.maintenanceRepository = maintenanceRepository;
+        this.libraryStatsCounter = libraryStatsCounter;
+        this.multipartService = multipartService;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.staleAfter = Duration.ofMinutes(staleAfterMinutes);
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.abortConcurrency = abortConcurrency;
+        // Handle multiple profiles (comma-separated) by taking the first one
+        this.environment = environment != null && environment.contains(",")
+            ? environment.split(",")[0].trim()
+            : (environment != null ? environment : "dev");
+    }
+    
+    /**
+     * Reap stale uploads in batches until none are left or the per-run batch limit is hit.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.reaper.interval-ms:900000}")  // Every 15 minutes by default
+    public void reapAbandonedUploads() {
+        Instant cutoff = Instant.now().minus(staleAfter);
+        int totalCancelled = 0;
+        
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<StaleUpload> stale = maintenanceRepository.findStalePendingUploads(cutoff, batchSize);
+            if (stale.isEmpty()) {
+                break;
+            }
+            
+            List<String> reapable = abortMultipartUploads(stale);
+            if (reapable.isEmpty()) {
+                // Every abort in this batch failed; retry on the next run instead of spinning
+                break;
+            }
+            
+            Integer cancelled = transactionTemplate.execute(status -> {
+                // Only photos this statement cancelled are counted; others may have been cancelled
+                // by another instance or the user since they were selected
+                List<CancelledPhoto> cancelledPhotos = maintenanceRepository.cancelPendingPhotos(reapable, CANCEL_REASON);
+                maintenanceRepository.recomputeJobProgress(
+                    cancelledPhotos.stream().map(CancelledPhoto::jobId).collect(Collectors.toSet()));
+                libraryStatsCounter.photosCancelled(
+                    cancelledPhotos.stream().map(CancelledPhoto::photoId).toList());
+                return cancelledPhotos.size();
+            });
+            totalCancelled += cancelled != null ? cancelled : 0;
+            
+            if (stale.size() < batchSize) {
+                break;
+            }
+        }
+        
+        if (totalCancelled > 0) {
+            log.info("Cancelled {} abandoned uploads older than {}", totalCancelled, cutoff);
+        }
+    }
+    
+    /**
+     * Abort the multipart uploads of a batch in parallel.
+     *
+     * @return IDs of photos that can be cancelled: single-part uploads and those whose abort succeeded
+     */
+    private List<String> abortMultipartUploads(List<StaleUpload> stale) {
+        Semaphore permits = new Semaphore(abortConcurrency);
+        List<CompletableFuture<String>> futures = new ArrayList<>(stale.size());
+        
+        for (StaleUpload upload : stale) {
+            if (upload.multipartUploadId() == null) {
+                futures.add(CompletableFuture.completedFuture(upload.photoId()));
+                continue;
+            }
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    return abort(upload) ? upload.photoId() : null;
+                } finally {
+                    permits.release();
+                }
+            }, executor));
+        }
+        
+        List<String> reapable = new ArrayList<>(stale.size());
+        for (CompletableFuture<String> future : futures) {
+            String photoId = future.join();
+            if (photoId != null) {
+                reapable.add(photoId);
+            }
+        }
+        return reapable;
+    }
+    
+    private boolean abort(StaleUpload upload) {
+        // Construct S3 key: env/userId/jobId/photoId.ext
+        String extension = extractExtension(upload.filename());
+        String s3Key = String.format("%s/%s/%s/%s%s",
+            environment, upload.userId(), upload.jobId(), upload.photoId(), extension);
+        
+        try {
+            multipartService.abortMultipartUpload(s3Key, upload.multipartUploadId());
+            return true;
+        } catch (NoSuchUploadException e) {
+            // Already aborted or expired by a bucket lifecycle rule
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to abort multipart upload {} for photo {}: {}",
+                upload.multipartUploadId(), upload.photoId(), e.getMessage());
+            return false;
+        }
+    }
+    
+    private String extractExtension(String filename) {
+        int lastDot = filename.lastIndexOf('.');
+        return lastDot >= 0 ? filename.substring(lastDot) : "";
+    }
+}
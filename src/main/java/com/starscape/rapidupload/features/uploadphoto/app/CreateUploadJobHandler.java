@@ -1,57 +1,119 @@
 package com.starscape.rapidupload.features.uploadphoto.app;
 
 import com.starscape.rapidupload.common.config.ProcessingProperties;
+import com.starscape.rapidupload.common.domain.DomainEvent;
 import com.starscape.rapidupload.common.exception.BusinessException;
+import com.starscape.rapidupload.common.exception.QuotaExceededException;
 import com.starscape.rapidupload.common.outbox.OutboxService;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter;
+import com.starscape.rapidupload.features.listphotos.app.PhotoTimelineCounter;
 import com.starscape.rapidupload.features.uploadphoto.api.dto.*;
 import com.starscape.rapidupload.features.uploadphoto.domain.*;
+import com.starscape.rapidupload.features.uploadphoto.domain.events.PhotoFailed;
+import com.starscape.rapidupload.features.uploadphoto.infra.MultipartPartSizePlanner;
 import com.starscape.rapidupload.features.uploadphoto.infra.S3MultipartPresignService;
 import com.starscape.rapidupload.features.uploadphoto.infra.S3PresignService;
+import com.starscape.rapidupload.features.uploadphoto.infra.UploadJobBulkWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 
+/**
+ * Creates upload jobs in two steps: the job and its photos are persisted first, then
+ * presigned URLs are generated (and multipart uploads initiated) concurrently on virtual threads.
+ */
 @Service
 public class CreateUploadJobHandler {
     
     private static final Logger log = LoggerFactory.getLogger(CreateUploadJobHandler.class);
     
-    private final UploadJobRepository uploadJobRepository;
     private final PhotoRepository photoRepository;
     private final S3PresignService s3PresignService;
     private final S3MultipartPresignService s3MultipartPresignService;
+    private final MultipartPartSizePlanner partSizePlanner;
     private final OutboxService outboxService;
+    private final PhotoTimelineCounter photoTimelineCounter;
+    private final LibraryStatsCounter libraryStatsCounter;
+    private final UploadJobBulkWriter uploadJobBulkWriter;
     private final ProcessingProperties processingProperties;
+    private final ExecutorService uploadPreparationExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final int presignConcurrency;
+    private final int partUrlWindow;
     private final String environment;
     
     public CreateUploadJobHandler(
-            UploadJobRepository uploadJobRepository,
             PhotoRepository photoRepository,
             S3PresignService s3PresignService,
             S3MultipartPresignService s3MultipartPresignService,
+            MultipartPartSizePlanner partSizePlanner,
             OutboxService outboxService,
+            PhotoTimelineCounter photoTimelineCounter,
+            LibraryStatsCounter libraryStatsCounter,
+            UploadJobBulkWriter uploadJobBulkWriter,
             ProcessingProperties processingProperties,
+            @Qualifier("uploadPreparationExecutor") ExecutorService uploadPreparationExecutor,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.upload.presign-concurrency:32}") int presignConcurrency,
+            @Value("${app.upload.part-url-window:4}") int partUrlWindow,
             @Value("${spring.profiles.active:dev}") String environment) {
-        this.uploadJobRepository = uploadJobRepository;
         this.photoRepository = photoRepository;
         this.s3PresignService = s3PresignService;
         this.s3MultipartPresignService = s3MultipartPresignService;
+        this.partSizePlanner = partSizePlanner;
         this.outboxService = outboxService;
+        this.photoTimelineCounter = photoTimelineCounter;
+        this.libraryStatsCounter = libraryStatsCounter;
+        this.uploadJobBulkWriter = uploadJobBulkWriter;
         this.processingProperties = processingProperties;
+        this.uploadPreparationExecutor = uploadPreparationExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.presignConcurrency = presignConcurrency;
+        this.partUrlWindow = partUrlWindow;
         // Handle multiple profiles (comma-separated) by taking the first one
-        this.environment = environment != null && environment.contains(",") 
-            ? environment.split(",")[0].trim() 
+        this.environment = environment != null && environment.contains(",")
+            ? environment.split(",")[0].trim()
             : (environment != null ? environment : "dev");
     }
     
-    @Transactional
+    /**
+     * Create a job and return all upload items in request order.
+     */
     public CreateUploadJobResponse handle(CreateUploadJobRequest request, String userId) {
+        PreparedUploadJob job = prepare(request, userId);
+        
+        Map<String, PhotoUploadItem> itemsByPhotoId = new HashMap<>();
+        presign(job, item -> itemsByPhotoId.put(item.photoId(), item));
+        
+        List<PhotoUploadItem> items = job.uploads().stream()
+            .map(upload -> itemsByPhotoId.get(upload.photoId()))
+            .toList();
+        return new CreateUploadJobResponse(job.jobId(), items);
+    }
+    
+    /**
+     * Validate the request and persist the job, its photos and their outbox events in one transaction.
+     * No S3 calls are made here, so validation errors surface before any response is streamed.
+     */
+    public PreparedUploadJob prepare(CreateUploadJobRequest request, String userId) {
         log.debug("Creating upload job for user {} with {} files", userId, request.files().size());
         
         try {
@@ -59,16 +121,17 @@ public class CreateUploadJobHandler {
             String jobId = "job_" + UUID.randomUUID().toString().replace("-", "");
             UploadJob job = new UploadJob(jobId, userId, request.files().size());
             
-            List<PhotoUploadItem> items = new ArrayList<>();
+            List<Photo> photos = new ArrayList<>(request.files().size());
+            List<DomainEvent> photoEvents = new ArrayList<>(request.files().size());
+            List<PendingUpload> uploads = new ArrayList<>(request.files().size());
             
-            // Create photos and generate presigned URLs
             for (FileUploadRequest fileRequest : request.files()) {
                 // Validate MIME type against supported formats
                 if (!processingProperties.isSupportedFormat(fileRequest.mimeType())) {
                     throw new BusinessException(
                         "UNSUPPORTED_MIME_TYPE",
-                        String.format("Unsupported MIME type: %s. Supported formats: %s", 
-                            fileRequest.mimeType(), 
+                        String.format("Unsupported MIME type: %s. Supported formats: %s",
+                            fileRequest.mimeType(),
                             String.join(", ", processingProperties.getSupportedFormats()))
                     );
                 }
@@ -81,80 +144,188 @@ public class CreateUploadJobHandler {
                     fileRequest.bytes()
                 );
                 
-                job.addPhoto(photo);
+                // Reference the job without adding to its collection; rows are bulk-inserted below
+                photo.setUploadJob(job);
+                photos.add(photo);
+                photoEvents.addAll(photo.getDomainEvents());
                 
                 // Generate S3 key: env/userId/jobId/photoId.ext
                 String extension = extractExtension(fileRequest.filename());
-                String s3Key = String.format("%s/%s/%s/%s%s", 
+                String s3Key = String.format("%s/%s/%s/%s%s",
                     environment, userId, jobId, photoId, extension);
                 
-                // Determine upload strategy
-                PhotoUploadItem item;
-                try {
-                    if (s3MultipartPresignService.shouldUseMultipart(fileRequest.bytes()) && 
-                        request.strategy() == UploadStrategy.S3_MULTIPART) {
-                        
-                        log.debug("Generating multipart presigned URLs for photo {} ({} bytes)", photoId, fileRequest.bytes());
-                        // Multipart upload
-                        var multipartInfo = s3MultipartPresignService.initiateMultipartUpload(
-                            s3Key,
-                            fileRequest.mimeType(),
-                            fileRequest.bytes()
-                        );
-                        
-                        List<PartUrl> partUrls = multipartInfo.parts().stream()
-                            .map(p -> new PartUrl(p.partNumber(), p.url(), p.size()))
-                            .toList();
-                        
-                        item = PhotoUploadItem.multipart(
-                            photoId,
-                            new MultipartUploadInfo(
-                                multipartInfo.uploadId(),
-                                multipartInfo.partSize(),
-                                partUrls
-                            )
-                        );
-                    } else {
-                        log.debug("Generating single-part presigned URL for photo {} ({} bytes)", photoId, fileRequest.bytes());
-                        // Single-part upload
-                        var presignedUrl = s3PresignService.generatePresignedPutUrl(
-                            s3Key,
-                            fileRequest.mimeType(),
-                            fileRequest.bytes()
-                        );
-                        
-                        item = PhotoUploadItem.singlePart(photoId, presignedUrl.url());
-                    }
-                } catch (Exception e) {
-                    log.error("Failed to generate presigned URL for photo {}: {}", photoId, e.getMessage(), e);
-                    throw new RuntimeException("Failed to generate presigned URL: " + e.getMessage(), e);
+                // Plan part layout for multipart uploads; a part size of 0 means single-part
+                long partSize = 0;
+                if (partSizePlanner.shouldUseMultipart(fileRequest.bytes()) &&
+                    request.strategy() == UploadStrategy.S3_MULTIPART) {
+                    partSize = partSizePlanner.plan(fileRequest.bytes(), request.hints()).partSize();
                 }
-                
-                items.add(item);
-                
-                // Publish photo event
-                photo.getDomainEvents().forEach(event -> 
-                    outboxService.publish(event, "Photo"));
+                uploads.add(new PendingUpload(photoId, s3Key, fileRequest.mimeType(), fileRequest.bytes(), partSize));
             }
+            
+            // Save job, photos and their events with batched inserts
+            transactionTemplate.executeWithoutResult(status -> {
+                uploadJobBulkWriter.insertJobWithPhotos(job, photos);
+                outboxService.publishAll(photoEvents, "Photo");
+                outboxService.publishAll(job.getDomainEvents(), "UploadJob");
+                libraryStatsCounter.photosCreated(userId, photos);
+            });
+            
+            log.info("Successfully created upload job {} with {} photos", jobId, photos.size());
+            return new PreparedUploadJob(jobId, userId, uploads);
+        } catch (QuotaExceededException e) {
+            // An expected rejection, answered with 507; no stack trace needed
+            log.info("Rejected upload job for user {}: {}", userId, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to create upload job for user {}: {}", userId, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Generate presigned URLs for a prepared job, initiating multipart uploads where needed.
+     * Work fans out on virtual threads (bounded by app.upload.presign-concurrency); items are
+     * handed to the consumer on the calling thread in completion order.
+     * Photos whose URLs could not be generated are marked FAILED. If the consumer throws or the
+     * calling thread is interrupted, URLs still outstanding are abandoned; their photos stay
+     * pending until the abandoned upload reaper cancels them.
+     */
+    public void presign(PreparedUploadJob job, Consumer<PhotoUploadItem> consumer) {
+        Semaphore permits = new Semaphore(presignConcurrency);
+        CompletionService<PhotoUploadItem> completionService =
+            new ExecutorCompletionService<>(uploadPreparationExecutor);
         
-        // Save job (cascades to photos)
-        uploadJobRepository.save(job);
+        List<Future<PhotoUploadItem>> tasks = new ArrayList<>(job.uploads().size());
+        for (PendingUpload upload : job.uploads()) {
+            tasks.add(completionService.submit(() -> {
+                permits.acquire();
+                try {
+                    return presignUpload(upload);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
         
-        // Publish job events
-        job.getDomainEvents().forEach(event -> 
-            outboxService.publish(event, "UploadJob"));
+        List<PhotoUploadItem> failedItems = new ArrayList<>();
+        boolean delivered = false;
+        try {
+            for (int i = 0; i < job.uploads().size(); i++) {
+                PhotoUploadItem item = takeNext(completionService);
+                if (item.error() != null) {
+                    failedItems.add(item);
+                }
+                consumer.accept(item);
+            }
+            delivered = true;
+        } finally {
+            if (!delivered) {
+                // Nobody is left to receive the rest, such as a client that disconnected
+                tasks.forEach(task -> task.cancel(true));
+            }
+            if (!failedItems.isEmpty()) {
+                markFailed(job, failedItems);
+            }
+        }
         
-        log.info("Successfully created upload job {} with {} photos", jobId, items.size());
-        return new CreateUploadJobResponse(jobId, items);
+        log.debug("Generated upload URLs for job {} ({} failed)", job.jobId(), failedItems.size());
+    }
+    
+    private PhotoUploadItem presignUpload(PendingUpload upload) {
+        try {
+            if (upload.multipart()) {
+                log.debug("Initiating multipart upload for photo {} ({} bytes, {} byte parts)",
+                    upload.photoId(), upload.bytes(), upload.partSize());
+                var multipartInfo = s3MultipartPresignService.initiateMultipartUpload(
+                    upload.s3Key(),
+                    upload.mimeType(),
+                    upload.bytes(),
+                    upload.partSize(),
+                    partUrlWindow
+                );
+                uploadJobBulkWriter.recordMultipartUpload(
+                    upload.photoId(), multipartInfo.uploadId(), multipartInfo.partSize());
+                
+                List<PartUrl> partUrls = multipartInfo.parts().stream()
+                    .map(p -> new PartUrl(p.partNumber(), p.url(), p.size()))
+                    .toList();
+                
+                return PhotoUploadItem.multipart(
+                    upload.photoId(),
+                    new MultipartUploadInfo(
+                        multipartInfo.uploadId(),
+                        multipartInfo.partSize(),
+                        multipartInfo.partCount(),
+                        partUrls
+                    )
+                );
+            }
+            
+            log.debug("Generating single-part presigned URL for photo {} ({} bytes)", upload.photoId(), upload.bytes());
+            var presignedUrl = s3PresignService.generatePresignedPutUrl(
+                upload.s3Key(),
+                upload.mimeType(),
+                upload.bytes()
+            );
+            return PhotoUploadItem.singlePart(upload.photoId(), presignedUrl.url());
         } catch (Exception e) {
-            log.error("Failed to create upload job for user {}: {}", userId, e.getMessage(), e);
-            throw e;
+            log.error("Failed to generate presigned URL for photo {}: {}", upload.photoId(), e.getMessage(), e);
+            return PhotoUploadItem.failed(upload.photoId(), "Failed to generate presigned URL: " + e.getMessage());
         }
     }
     
+    private PhotoUploadItem takeNext(CompletionService<PhotoUploadItem> completionService) {
+        try {
+            return completionService.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating presigned URLs", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to generate presigned URLs", e.getCause());
+        }
+    }
+    
+    private void markFailed(PreparedUploadJob job, List<PhotoUploadItem> failedItems) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (PhotoUploadItem item : failedItems) {
+                photoRepository.findById(item.photoId()).ifPresent(photo -> {
+                    PhotoStatus previousStatus = photo.getStatus();
+                    photo.markFailed(item.error());
+                    photoRepository.save(photo);
+                    outboxService.publish(
+                        new PhotoFailed(item.photoId(), job.userId(), job.jobId(), item.error(), Instant.now()),
+                        "Photo");
+                    photoTimelineCounter.photoFinished(photo, previousStatus);
+                    libraryStatsCounter.photoFinished(photo, previousStatus);
+                });
+            }
+        });
+    }
+    
     private String extractExtension(String filename) {
         int lastDot = filename.lastIndexOf('.');
         return lastDot >= 0 ? filename.substring(lastDot) : "";
     }
-}
 
+    /**
+     * A persisted job whose upload URLs have not been generated yet.
+     */
+    public record PreparedUploadJob(
+        String jobId,
+        String userId,
+        List<PendingUpload> uploads
+    ) {}
+    
+    public record PendingUpload(
+        String photoId,
+        String s3Key,
+        String mimeType,
+        long bytes,
+        long partSize
+    ) {
+        public boolean multipart() {
+            return partSize > 0;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.starscape.rapidupload.features.uploadphoto.app;
+
+import com.drew.lang.GeoLocation;
+import com.drew.lang.Rational;
+import com.drew.metadata.Directory;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+import com.drew.metadata.exif.GpsDirectory;
+import com.starscape.rapidupload.features.uploadphoto.domain.ExifSummary;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads the typed EXIF fields photos are searched by from parsed image metadata.
+ * Missing or malformed values are left null rather than failing processing.
+ */
+final class ExifSummaries {
+    
+    private static final DateTimeFormatter EXIF_DATE_TIME = DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss");
+    
+    // Column widths in the photos table
+    private static final int MAX_CAMERA_LENGTH = 100;
+    private static final int MAX_LENS_LENGTH = 200;
+    
+    private ExifSummaries() {
+    }
+    
+    static ExifSummary from(Metadata metadata) {
+        ExifIFD0Directory ifd0 = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+        ExifSubIFDDirectory subIfd = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+        GpsDirectory gps = metadata.getFirstDirectoryOfType(GpsDirectory.class);
+        
+        LocalDateTime takenAt = dateTime(subIfd, ExifSubIFDDirectory.TAG_DATETIME_ORIGINAL);
+        if (takenAt == null) {
+            takenAt = dateTime(ifd0, ExifIFD0Directory.TAG_DATETIME);
+        }
+        
+        Double latitude = null;
+        Double longitude = null;
+        GeoLocation location = gps != null ? gps.getGeoLocation() : null;
+        // Corrupt GPS values would fail the photos_gps_check constraint and with it processing
+        if (location != null && !location.isZero()
+                && Math.abs(location.getLatitude()) <= 90 && Math.abs(location.getLongitude()) <= 180) {
+            latitude = location.getLatitude();
+            longitude = location.getLongitude();
+        }
+        
+        return new ExifSummary(
+            takenAt,
+            text(ifd0, ExifIFD0Directory.TAG_MAKE, MAX_CAMERA_LENGTH),
+            text(ifd0, ExifIFD0Directory.TAG_MODEL, MAX_CAMERA_LENGTH),
+            text(subIfd, ExifSubIFDDirectory.TAG_LENS_MODEL, MAX_LENS_LENGTH),
+            positiveInteger(subIfd, ExifSubIFDDirectory.TAG_ISO_EQUIVALENT),
+            positiveRational(subIfd, ExifSubIFDDirectory.TAG_FOCAL_LENGTH),
+            latitude,
+            longitude
+        );
+    }
+    
+    private static LocalDateTime dateTime(Directory directory, int tag) {
+        String value = text(directory, tag, Integer.MAX_VALUE);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value, EXIF_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            // Cameras without a clock write placeholders such as "0000:00:00 00:00:00"
+            return null;
+        }
+    }
+    
+    private static String text(Directory directory, int tag, int maxLength) {
+        if (directory == null) {
+            return null;
+        }
+        String value = directory.getString(tag);
+        if (value == null) {
+            return null;
+        }
+        // PostgreSQL text does not accept null bytes, which padded EXIF strings often contain
+        value = value.replace("\u0000", "").trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+    
+    private static Integer positiveInteger(Directory directory, int tag) {
+        Integer value = directory != null ? directory.getInteger(tag) : null;
+        return value != null && value > 0 ? value : null;
+    }
+    
+    private static Double positiveRational(Directory directory, int tag) {
+        Rational value = directory != null ? directory.getRational(tag) : null;
+        if (value == null || value.getDenominator() == 0) {
+            return null;
+        }
+        double decimal = value.doubleValue();
+        return decimal > 0 ? decimal : null;
+    }
+}
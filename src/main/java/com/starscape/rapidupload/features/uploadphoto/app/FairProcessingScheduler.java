@@ -0,0 +1,252 @@
+package com.starscape.rapidupload.features.uploadphoto.app;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Schedules uploaded photos for processing fairly across users.
+ * Photos wait in a local buffer with one FIFO queue per user, and processing workers take them in
+ * deficit round-robin order: each turn a user may spend up to {@code quantum-bytes} of photo size,
+ * so a bulk import gets the same share of workers as any other active user and a small interactive
+ * upload is picked up within a round rather than behind the whole import.
+ * 
+ * The round-robin only orders what is buffered, so admission is capped per user as well: a user
+ * may have at most {@code max-per-user} photos buffered, and further photos are refused with a
+ * {@link ProcessingDeferredException} to be offered again later. A bulk import therefore holds a
+ * bounded share of the buffer, and other users' photos are admitted as soon as they arrive while
+ * fewer than {@code buffer-size / max-per-user} users are at the cap.
+ * 
+ * With {@code preview-first} on, each photo goes through two lanes: its smallest thumbnail is made
+ * in the preview lane, then the rest of its processing is queued in the derivative lane, which
+ * workers only serve while no previews are waiting. Every buffered photo gets its first thumbnail
+ * before any larger derivatives are made; the derivative lane cannot starve, since new photos
+ * only arrive as buffered ones finish.
+ */
+@Service
+public class FairProcessingScheduler {
+    
+    private static final Logger log = LoggerFactory.getLogger(FairProcessingScheduler.class);
+    
+    private final PhotoProcessingService processingService;
+    private final ExecutorService photoProcessingExecutor;
+    private final int bufferSize;
+    private final int maxPerUser;
+    private final boolean previewFirst;
+    private final Timer waitTimer;
+    
+    // Guarded by this
+    private final Lane previewLane;
+    private final Lane derivativeLane;
+    private final Map<String, Integer> bufferedByUser = new HashMap<>();
+    private int buffered;
+    
+    public FairProcessingScheduler(
+            PhotoProcessingService processingService,
+            @Qualifier("photoProcessingExecutor") ExecutorService photoProcessingExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${app.processing.scheduler.quantum-bytes:8388608}") long quantumBytes,
+            @Value("${app.processing.scheduler.buffer-size:200}") int bufferSize,
+            @Value("${app.processing.scheduler.max-per-user:20}") int maxPerUser,
+            @Value("${app.processing.scheduler.preview-first:true}") boolean previewFirst) {
+        this.processingService = processingService;
+        this.photoProcessingExecutor = photoProcessingExecutor;
+        this.bufferSize = bufferSize;
+        this.maxPerUser = maxPerUser;
+        this.previewFirst = previewFirst;
+        this.previewLane = new Lane(quantumBytes);
+        this.derivativeLane = new Lane(quantumBytes);
+        this.waitTimer = Timer.builder("processing.scheduler.wait")
+            .description("Time photos wait in the fair scheduler before processing starts")
+            .register(meterRegistry);
+        Gauge.builder("processing.scheduler.buffered", this, FairProcessingScheduler::buffered)
+            .description("Photos buffered in the fair scheduler, including those being processed")
+            .register(meterRegistry);
+        Gauge.builder("processing.scheduler.active.users", this, FairProcessingScheduler::activeUserCount)
+            .description("Users with photos waiting in the fair scheduler")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Queue a photo for processing behind the user's earlier photos.
+     *
+     * @param size Object size in bytes, charged against the user's turn
+     * @return Completes when the photo was fully processed; fails at once with a
+     *         {@link ProcessingDeferredException} if the buffer is full or the user is at the cap
+     */
+    public CompletableFuture<Void> submit(String userId, String s3Key, String etag, long size) {
+        ProcessingTask task = new ProcessingTask(
+            userId, s3Key, etag, size, !previewFirst, false, new CompletableFuture<>(), System.nanoTime());
+        synchronized (this) {
+            if (buffered >= bufferSize) {
+                return CompletableFuture.failedFuture(new ProcessingDeferredException(
+                    "Processing buffer is full (" + bufferSize + " photos)"));
+            }
+            int userBuffered = bufferedByUser.getOrDefault(userId, 0);
+            if (userBuffered >= maxPerUser) {
+                return CompletableFuture.failedFuture(new ProcessingDeferredException(
+                    "User has " + userBuffered + " photos buffered (max " + maxPerUser + ")"));
+            }
+            (previewFirst ? previewLane : derivativeLane).add(task);
+            bufferedByUser.put(userId, userBuffered + 1);
+            buffered++;
+        }
+        dispatch(task);
+        return task.done();
+    }
+    
+    /**
+     * One worker run per queued task; the worker takes whichever task is due, not necessarily this one.
+     */
+    private void dispatch(ProcessingTask task) {
+        try {
+            photoProcessingExecutor.execute(this::runNext);
+        } catch (RejectedExecutionException e) {
+            // Shutting down: the photo is left for redelivery
+            task.done().completeExceptionally(e);
+        }
+    }
+    
+    private void runNext() {
+        ProcessingTask task = next();
+        if (task == null) {
+            return;
+        }
+        try {
+            if (!task.previewed() || !previewFirst) {
+                waitTimer.record(Duration.ofNanos(System.nanoTime() - task.enqueuedNanos()));
+            }
+            if (!task.previewed()) {
+                ProcessingTask derivatives = task.withPreview(processingService.processPreview(
+                    task.s3Key(), task.etag(), task.size()));
+                synchronized (this) {
+                    derivativeLane.add(derivatives);
+                }
+                dispatch(derivatives);
+                return;
+            }
+            processingService.processPhoto(task.s3Key(), task.etag(), task.size(), task.previewReady());
+            finished(task);
+            task.done().complete(null);
+        } catch (Exception e) {
+            log.error("Failed to process scheduled photo: {}", task.s3Key(), e);
+            finished(task);
+            task.done().completeExceptionally(e);
+        }
+    }
+    
+    private synchronized void finished(ProcessingTask task) {
+        buffered--;
+        bufferedByUser.computeIfPresent(task.userId(), (userId, count) -> count > 1 ? count - 1 : null);
+    }
+    
+    /**
+     * Take the next task, previews first, or null if no task is waiting.
+     */
+    private synchronized ProcessingTask next() {
+        ProcessingTask task = previewLane.next();
+        return task != null ? task : derivativeLane.next();
+    }
+    
+    private synchronized int buffered() {
+        return buffered;
+    }
+    
+    private synchronized int activeUserCount() {
+        return Math.max(previewLane.activeUsers.size(), derivativeLane.activeUsers.size());
+    }
+    
+    /**
+     * Per-user FIFO queues served in deficit round-robin order.
+     */
+    private static final class Lane {
+        private final long quantumBytes;
+        private final Map<String, UserQueue> queues = new HashMap<>();
+        private final ArrayDeque<UserQueue> activeUsers = new ArrayDeque<>();
+        
+        private Lane(long quantumBytes) {
+            this.quantumBytes = quantumBytes;
+        }
+        
+        private void add(ProcessingTask task) {
+            UserQueue queue = queues.computeIfAbsent(task.userId(), UserQueue::new);
+            if (queue.tasks.isEmpty()) {
+                // A newly active user can start on its first turn
+                queue.deficit = quantumBytes;
+                activeUsers.addLast(queue);
+            }
+            queue.tasks.addLast(task);
+        }
+        
+        /**
+         * Take the next task in deficit round-robin order, or null if the lane is empty.
+         * The user at the head keeps its turn while its deficit covers its next photo; otherwise it
+         * moves to the back with another quantum added.
+         */
+        private ProcessingTask next() {
+            while (!activeUsers.isEmpty()) {
+                UserQueue queue = activeUsers.peekFirst();
+                ProcessingTask head = queue.tasks.peekFirst();
+                long cost = Math.max(head.size(), 1);
+                if (queue.deficit >= cost) {
+                    queue.tasks.pollFirst();
+                    queue.deficit -= cost;
+                    if (queue.tasks.isEmpty()) {
+                        activeUsers.pollFirst();
+                        queues.remove(queue.userId);
+                    }
+                    return head;
+                }
+                activeUsers.pollFirst();
+                queue.deficit += quantumBytes;
+                activeUsers.addLast(queue);
+            }
+            return null;
+        }
+    }
+    
+    private static final class UserQueue {
+        private final String userId;
+        private final ArrayDeque<ProcessingTask> tasks = new ArrayDeque<>();
+        private long deficit;
+        
+        private UserQueue(String userId) {
+            this.userId = userId;
+        }
+    }
+    
+    /**
+     * A buffered photo; the same task moves from the preview lane to the derivative lane.
+     *
+     * @param previewed Whether the preview phase is behind it (always true without preview-first)
+     * @param previewReady Whether the preview phase generated the smallest thumbnail
+     * @param done Completes when the photo was fully processed
+     */
+    private record ProcessingTask(
+        String userId,
+        String s3Key,
+        String etag,
+        long size,
+        boolean previewed,
+        boolean previewReady,
+        CompletableFuture<Void> done,
+        long enqueuedNanos
+    ) {
+        private ProcessingTask withPreview(boolean previewReady) {
+            return new ProcessingTask(userId, s3Key, etag, size, true, previewReady, done, enqueuedNanos);
+        }
+    }
+}
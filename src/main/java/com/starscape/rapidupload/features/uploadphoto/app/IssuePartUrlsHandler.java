@@ -0,0 +1,101 @@
+package com.starscape.rapidupload.features.uploadphoto.app;
+
+import com.starscape.rapidupload.common.exception.BusinessException;
+import com.starscape.rapidupload.common.exception.NotFoundException;
+import com.starscape.rapidupload.features.uploadphoto.api.dto.MultipartUploadInfo;
+import com.starscape.rapidupload.features.uploadphoto.api.dto.PartUrl;
+import com.starscape.rapidupload.features.uploadphoto.api.dto.PartUrlsRequest;
+import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoRepository;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import com.starscape.rapidupload.features.uploadphoto.infra.S3MultipartPresignService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Handler for issuing presigned part URLs of an in-progress multipart upload on demand.
+ * Clients fetch windows of part numbers as they go instead of receiving every URL at job creation.
+ */
+@Service
+public class IssuePartUrlsHandler {
+    
+    private static final Logger log = LoggerFactory.getLogger(IssuePartUrlsHandler.class);
+    
+    private final PhotoRepository photoRepository;
+    private final S3MultipartPresignService multipartService;
+    private final String environment;
+    
+    public IssuePartUrlsHandler(
+            PhotoRepository photoRepository,
+            S3MultipartPresignService multipartService,
+            @Value("${spring.profiles.active:dev}") String environment) {
+        this.photoRepository = photoRepository;
+        this.multipartService = multipartService;
+        // Handle multiple profiles (comma-separated) by taking the first one
+        this.environment = environment != null && environment.contains(",")
+            ? environment.split(",")[0].trim()
+            : (environment != null ? environment : "dev");
+    }
+    
+    /**
+     * Presign URLs for a window of parts.
+     *
+     * @param photoId The photo ID
+     * @param userId The user ID (for authorization)
+     * @param request The upload ID and the window of part numbers
+     * @return The part layout and presigned URLs for the requested window
+     */
+    @Transactional(readOnly = true)
+    public MultipartUploadInfo handle(String photoId, String userId, PartUrlsRequest request) {
+        Photo photo = photoRepository.findById(photoId)
+                .orElseThrow(() -> new NotFoundException("Photo not found: " + photoId));
+        
+        if (!photo.getUserId().equals(userId)) {
+            throw new BusinessException("UNAUTHORIZED", "Photo does not belong to user");
+        }
+        
+        if (photo.getStatus() != PhotoStatus.QUEUED && photo.getStatus() != PhotoStatus.UPLOADING) {
+            throw new BusinessException(
+                "INVALID_STATE",
+                String.format("Cannot issue part URLs for photo in status: %s", photo.getStatus())
+            );
+        }
+        
+        if (photo.getMultipartUploadId() == null || !photo.getMultipartUploadId().equals(request.uploadId())) {
+            throw new BusinessException("INVALID_UPLOAD_ID", "Upload ID does not match the photo's multipart upload");
+        }
+        
+        long partSize = photo.getMultipartPartSize();
+        int partCount = multipartService.partCount(photo.getBytes(), partSize);
+        if (request.startPart() > partCount) {
+            throw new BusinessException(
+                "INVALID_PART_RANGE",
+                String.format("Start part %d exceeds part count %d", request.startPart(), partCount)
+            );
+        }
+        
+        // Construct S3 key: env/userId/jobId/photoId.ext
+        String extension = extractExtension(photo.getFilename());
+        String s3Key = String.format("%s/%s/%s/%s%s",
+            environment, userId, photo.getJobId(), photoId, extension);
+        
+        List<PartUrl> parts = multipartService.presignParts(
+                s3Key, request.uploadId(), photo.getBytes(), partSize, request.startPart(), request.count())
+            .stream()
+            .map(p -> new PartUrl(p.partNumber(), p.url(), p.size()))
+            .toList();
+        
+        log.debug("Issued {} part URLs for photo {} starting at part {}", parts.size(), photoId, request.startPart());
+        return new MultipartUploadInfo(request.uploadId(), partSize, partCount, parts);
+    }
+    
+    private String extractExtension(String filename) {
+        int lastDot = filename.lastIndexOf('.');
+        return lastDot >= 0 ? filename.substring(lastDot) : "";
+    }
+}
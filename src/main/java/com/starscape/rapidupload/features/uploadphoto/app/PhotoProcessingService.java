@@ -8,11 +8,21 @@ import com.drew.metadata.Tag;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.starscape.rapidupload.common.outbox.OutboxService;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter;
+import com.starscape.rapidupload.features.listphotos.app.PhotoTimelineCounter;
+import com.starscape.rapidupload.features.uploadphoto.domain.ExifSummary;
 import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
 import com.starscape.rapidupload.features.uploadphoto.domain.PhotoRepository;
 import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import com.starscape.rapidupload.features.uploadphoto.domain.ThumbnailKeys;
 import com.starscape.rapidupload.features.uploadphoto.domain.events.PhotoFailed;
 import com.starscape.rapidupload.features.uploadphoto.domain.events.PhotoProcessingCompleted;
+import com.starscape.rapidupload.features.uploadphoto.domain.events.PhotoThumbnailReady;
+import com.starscape.rapidupload.features.uploadphoto.infra.ImageDecoder;
+import com.starscape.rapidupload.features.uploadphoto.infra.ImageDecoder.ImageDimensions;
+import com.starscape.rapidupload.features.uploadphoto.infra.ImageTooLargeException;
+import com.starscape.rapidupload.features.uploadphoto.infra.ThumbnailEncoder;
+import com.starscape.rapidupload.features.uploadphoto.infra.ThumbnailEncoder.EncodedThumbnail;
 import net.coobird.thumbnailator.Thumbnails;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
@@ -28,12 +38,11 @@ import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +54,9 @@ import java.util.Optional;
  * - Generates thumbnails
  * - Computes SHA-256 checksums
  * - Updates photo status
+ * 
+ * Processing can run in two phases: {@link #processPreview} publishes the smallest thumbnail first,
+ * then {@link #processPhoto} does the rest.
  */
 @Service
 public class PhotoProcessingService {
@@ -54,23 +66,82 @@ public class PhotoProcessingService {
     private final PhotoRepository photoRepository;
     private final S3Client s3Client;
     private final OutboxService outboxService;
+    private final PhotoTimelineCounter photoTimelineCounter;
+    private final LibraryStatsCounter libraryStatsCounter;
+    private final ImageDecoder imageDecoder;
+    private final ThumbnailEncoder thumbnailEncoder;
     private final ObjectMapper objectMapper;
     private final String bucket;
     private final List<Integer> thumbnailSizes;
+    private final int previewSize;
     
     public PhotoProcessingService(
             PhotoRepository photoRepository,
             S3Client s3Client,
             OutboxService outboxService,
+            PhotoTimelineCounter photoTimelineCounter,
+            LibraryStatsCounter libraryStatsCounter,
+            ImageDecoder imageDecoder,
+            ThumbnailEncoder thumbnailEncoder,
             ObjectMapper objectMapper,
             ProcessingProperties processingProperties,
             @Value("${aws.s3.bucket}") String bucket) {
         this.photoRepository = photoRepository;
         this.s3Client = s3Client;
         this.outboxService = outboxService;
+        this.photoTimelineCounter = photoTimelineCounter;
+        this.libraryStatsCounter = libraryStatsCounter;
+        this.imageDecoder = imageDecoder;
+        this.thumbnailEncoder = thumbnailEncoder;
         this.objectMapper = objectMapper;
         this.bucket = bucket;
         this.thumbnailSizes = processingProperties.getThumbnailSizes();
+        this.previewSize = thumbnailSizes != null && !thumbnailSizes.isEmpty() ? Collections.min(thumbnailSizes) : 0;
+    }
+    
+    /**
+     * First processing phase: generate and publish only the smallest thumbnail, so galleries can
+     * show the photo before its larger thumbnails and metadata are ready. Commits the photo as
+     * PROCESSING. Failures are left to {@link #processPhoto}, which must follow either way.
+     * 
+     * @return true if the smallest thumbnail was generated and {@link #processPhoto} may skip it
+     */
+    @Transactional
+    public boolean processPreview(String s3Key, String etag, long size) {
+        if (previewSize == 0) {
+            return false;
+        }
+        Optional<Photo> photoOpt = findPhoto(s3Key);
+        if (photoOpt.isEmpty()) {
+            return false;
+        }
+        Photo photo = photoOpt.get();
+        photo.markProcessing(s3Key, bucket, etag);
+        if (photo.getStatus() != PhotoStatus.PROCESSING) {
+            return false;
+        }
+        
+        try {
+            photoRepository.save(photo);
+            byte[] imageBytes = downloadFromS3(s3Key);
+            String thumbnailKey = generateThumbnail(photo, s3Key, imageBytes, previewSize);
+            photoRepository.save(photo);
+            
+            outboxService.publish(new PhotoThumbnailReady(
+                photo.getPhotoId(),
+                photo.getUserId(),
+                photo.getJobId(),
+                previewSize,
+                thumbnailKey,
+                Instant.now()
+            ), "Photo");
+            log.debug("Generated preview thumbnail: photoId={}, key={}", photo.getPhotoId(), thumbnailKey);
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to generate preview thumbnail for photo {}, leaving it to full processing: {}",
+                photo.getPhotoId(), e.getMessage());
+            return false;
+        }
     }
     
     /**
@@ -83,22 +154,20 @@ public class PhotoProcessingService {
      */
     @Transactional
     public void processPhoto(String s3Key, String etag, long size) {
+        processPhoto(s3Key, etag, size, false);
+    }
+    
+    /**
+     * Process a photo uploaded to S3, after {@link #processPreview} when previewReady is true.
+     * 
+     * @param previewReady Whether the smallest thumbnail was already generated
+     */
+    @Transactional
+    public void processPhoto(String s3Key, String etag, long size, boolean previewReady) {
         log.info("Processing photo: s3Key={}, etag={}, size={}", s3Key, etag, size);
         
-        // Extract photoId from S3 key: dev/userId/jobId/photoId.ext
-        String photoId = extractPhotoIdFromS3Key(s3Key);
-        if (photoId == null) {
-            log.error("Could not extract photoId from S3 key: {}. This SQS message will be discarded.", s3Key);
-            // Don't throw exception - this is a permanent failure (malformed S3 key)
-            return;
-        }
-        
-        // Find photo by ID (s3_key is NULL until processing starts)
-        Optional<Photo> photoOpt = photoRepository.findById(photoId);
+        Optional<Photo> photoOpt = findPhoto(s3Key);
         if (photoOpt.isEmpty()) {
-            log.error("Photo not found for photoId: {} (S3 key: {}). Photo may not have been created or S3 key format is incorrect. This SQS message will be discarded.", photoId, s3Key);
-            // Don't throw exception - this is a permanent failure (photo doesn't exist)
-            // The photo may have been deleted or never created properly
             return;
         }
         
@@ -114,6 +183,7 @@ public class PhotoProcessingService {
             return;
         }
         
+        PhotoStatus previousStatus = photo.getStatus();
         try {
             // Mark as processing
             photo.markProcessing(s3Key, bucket, etag);
@@ -127,22 +197,20 @@ public class PhotoProcessingService {
             String checksum = DigestUtils.sha256Hex(imageBytes);
             
             // Extract EXIF metadata
-            Map<String, Object> exifData = extractExif(imageBytes);
-            String exifJson = objectMapper.writeValueAsString(exifData);
+            ExtractedExif exif = extractExif(imageBytes);
+            String exifJson = objectMapper.writeValueAsString(exif.tags());
             
-            // Read image dimensions
-            BufferedImage image = ImageIO.read(new ByteArrayInputStream(imageBytes));
-            if (image == null) {
-                throw new IOException("Failed to read image");
-            }
-            int width = image.getWidth();
-            int height = image.getHeight();
+            // Read image dimensions from the header, rejecting images over the pixel limit;
+            // thumbnails decode only what they need
+            ImageDimensions dimensions = imageDecoder.readDimensions(imageBytes);
+            int width = dimensions.width();
+            int height = dimensions.height();
             
             // Generate thumbnails
-            generateThumbnails(s3Key, imageBytes, photo.getMimeType());
+            generateThumbnails(photo, s3Key, imageBytes, previewReady ? previewSize : 0);
             
             // Mark completed
-            photo.markCompleted(width, height, exifJson, checksum);
+            photo.markCompleted(width, height, exifJson, exif.summary(), checksum);
             photoRepository.save(photo);
             
             // Publish event
@@ -156,6 +224,8 @@ public class PhotoProcessingService {
                 Instant.now()
             );
             outboxService.publish(event, "Photo");
+            photoTimelineCounter.photoFinished(photo, previousStatus);
+            libraryStatsCounter.photoFinished(photo, previousStatus);
             
             log.info("Photo processed successfully: {}", photo.getPhotoId());
             
@@ -173,7 +243,32 @@ public class PhotoProcessingService {
                 Instant.now()
             );
             outboxService.publish(event, "Photo");
+            photoTimelineCounter.photoFinished(photo, previousStatus);
+            libraryStatsCounter.photoFinished(photo, previousStatus);
+        }
+    }
+    
+    /**
+     * Find the photo an S3 key belongs to.
+     * Empty (and the SQS message is discarded) if the key is malformed or the photo doesn't exist.
+     */
+    private Optional<Photo> findPhoto(String s3Key) {
+        // Extract photoId from S3 key: dev/userId/jobId/photoId.ext
+        String photoId = extractPhotoIdFromS3Key(s3Key);
+        if (photoId == null) {
+            log.error("Could not extract photoId from S3 key: {}. This SQS message will be discarded.", s3Key);
+            // Don't throw exception - this is a permanent failure (malformed S3 key)
+            return Optional.empty();
+        }
+        
+        // Find photo by ID (s3_key is NULL until processing starts)
+        Optional<Photo> photoOpt = photoRepository.findById(photoId);
+        if (photoOpt.isEmpty()) {
+            log.error("Photo not found for photoId: {} (S3 key: {}). Photo may not have been created or S3 key format is incorrect. This SQS message will be discarded.", photoId, s3Key);
+            // Don't throw exception - this is a permanent failure (photo doesn't exist)
+            // The photo may have been deleted or never created properly
         }
+        return photoOpt;
     }
     
     /**
@@ -192,14 +287,16 @@ public class PhotoProcessingService {
     
     /**
      * Extract EXIF metadata from image bytes.
-     * Returns a map of directory names to tag maps.
+     * Returns a map of directory names to tag maps, plus the typed fields photos are searched by.
      * Sanitizes string values to remove null bytes, which PostgreSQL JSONB doesn't support.
      */
-    private Map<String, Object> extractExif(byte[] imageBytes) {
+    private ExtractedExif extractExif(byte[] imageBytes) {
         Map<String, Object> exifData = new HashMap<>();
+        ExifSummary summary = ExifSummary.EMPTY;
         
         try {
             Metadata metadata = ImageMetadataReader.readMetadata(new ByteArrayInputStream(imageBytes));
+            summary = ExifSummaries.from(metadata);
             
             for (Directory directory : metadata.getDirectories()) {
                 String directoryName = sanitizeString(directory.getName());
@@ -222,7 +319,7 @@ public class PhotoProcessingService {
             exifData.put("error", sanitizeString(e.getMessage()));
         }
         
-        return exifData;
+        return new ExtractedExif(exifData, summary);
     }
     
     /**
@@ -242,25 +339,22 @@ public class PhotoProcessingService {
     
     /**
      * Generate thumbnails for the given image and upload them to S3.
+     * A size that fails to encode or upload is logged and skipped, but an image over the pixel
+     * limits fails the photo: no size could be generated for it.
+     * 
+     * @param skipSize A size already generated, or 0
      */
-    private void generateThumbnails(String originalKey, byte[] imageBytes, String mimeType) {
+    private void generateThumbnails(Photo photo, String originalKey, byte[] imageBytes, int skipSize)
+            throws ImageTooLargeException {
         for (int size : thumbnailSizes) {
+            if (size == skipSize) {
+                continue;
+            }
             try {
-                // Generate thumbnail
-                ByteArrayOutputStream thumbOutput = new ByteArrayOutputStream();
-                Thumbnails.of(new ByteArrayInputStream(imageBytes))
-                        .size(size, size)
-                        .outputFormat(getFormatFromMimeType(mimeType))
-                        .toOutputStream(thumbOutput);
-                
-                byte[] thumbnailBytes = thumbOutput.toByteArray();
-                
-                // Upload to S3 under thumbnails/ prefix
-                String thumbnailKey = getThumbnailKey(originalKey, size);
-                uploadThumbnailToS3(thumbnailKey, thumbnailBytes, mimeType);
-                
+                String thumbnailKey = generateThumbnail(photo, originalKey, imageBytes, size);
                 log.debug("Generated thumbnail: size={}, key={}", size, thumbnailKey);
-                
+            } catch (ImageTooLargeException e) {
+                throw e;
             } catch (IOException e) {
                 log.error("Failed to generate thumbnail: size={}", size, e);
             }
@@ -268,49 +362,53 @@ public class PhotoProcessingService {
     }
     
     /**
-     * Generate thumbnail S3 key from original key.
-     * Original: env/userId/jobId/photoId.ext
-     * Thumbnail: env/userId/jobId/thumbnails/photoId_256.ext
+     * Generate one thumbnail and upload it to S3 under the thumbnails/ prefix.
+     * JPEGs are decoded at reduced resolution and oversized images in bands; other formats, and
+     * JPEGs the reduced decode can't read, go through Thumbnailator's full decode, but never
+     * images over the pixel limits. The thumbnail is encoded with a derivative profile, not
+     * necessarily in the original's format; the photo's first thumbnail records the format, and
+     * with it the key extension, for the rest.
+     * 
+     * @return The thumbnail's S3 key
      */
-    private String getThumbnailKey(String originalKey, int size) {
-        int lastSlash = originalKey.lastIndexOf('/');
-        String basePath = originalKey.substring(0, lastSlash);
-        String filename = originalKey.substring(lastSlash + 1);
+    private String generateThumbnail(Photo photo, String originalKey, byte[] imageBytes, int size)
+            throws IOException {
+        String mimeType = photo.getMimeType();
+        Optional<BufferedImage> decoded;
+        try {
+            decoded = imageDecoder.decodeForThumbnail(imageBytes, mimeType, size);
+        } catch (ImageTooLargeException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Reduced-resolution decode failed, falling back to a full decode: {}", e.getMessage());
+            decoded = Optional.empty();
+        }
         
-        int lastDot = filename.lastIndexOf('.');
-        String name = lastDot >= 0 ? filename.substring(0, lastDot) : filename;
-        String ext = lastDot >= 0 ? filename.substring(lastDot) : "";
+        BufferedImage resized = (decoded.isPresent() ? Thumbnails.of(decoded.get()) : Thumbnails.of(new ByteArrayInputStream(imageBytes)))
+                .size(size, size)
+                .asBufferedImage();
+        EncodedThumbnail thumbnail = thumbnailEncoder.encode(resized, photo.getThumbnailExtension());
         
-        return basePath + "/thumbnails/" + name + "_" + size + ext;
+        String thumbnailKey = ThumbnailKeys.forSize(originalKey, thumbnail.extension(), size);
+        uploadThumbnailToS3(thumbnailKey, thumbnail.data(), thumbnail.contentType());
+        photo.recordThumbnailExtension(thumbnail.extension());
+        return thumbnailKey;
     }
     
     /**
      * Upload thumbnail to S3.
      */
-    private void uploadThumbnailToS3(String key, byte[] data, String mimeType) {
+    private void uploadThumbnailToS3(String key, byte[] data, String contentType) {
         PutObjectRequest putRequest = PutObjectRequest.builder()
                 .bucket(bucket)
                 .key(key)
-                .contentType(mimeType)
+                .contentType(contentType)
                 .contentLength((long) data.length)
                 .build();
         
         s3Client.putObject(putRequest, RequestBody.fromBytes(data));
     }
     
-    /**
-     * Convert MIME type to image format string for Thumbnailator.
-     */
-    private String getFormatFromMimeType(String mimeType) {
-        return switch (mimeType) {
-            case "image/jpeg" -> "jpg";
-            case "image/png" -> "png";
-            case "image/gif" -> "gif";
-            case "image/webp" -> "webp";
-            default -> "jpg";
-        };
-    }
-    
     /**
      * Extract photoId from S3 key.
      * S3 key format: dev/userId/jobId/photoId.ext
@@ -337,5 +435,9 @@ public class PhotoProcessingService {
         
         return filename;
     }
+    
+    private record ExtractedExif(
+        Map<String, Object> tags,
+        ExifSummary summary
+    ) {}
 }
-
@@ -0,0 +1,14 @@
+package com.starscape.rapidupload.features.uploadphoto.app;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A photo was not admitted to the processing buffer, because the buffer is full or its user
+ * already has the maximum number of photos buffered. The photo should be offered again later.
+ */
+public class ProcessingDeferredException extends RejectedExecutionException {
+    
+    public ProcessingDeferredException(String message) {
+        super(message);
+    }
+}
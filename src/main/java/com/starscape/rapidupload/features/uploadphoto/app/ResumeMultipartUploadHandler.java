@@ -0,0 +1,126 @@
+package com.starscape.rapidupload.features.uploadphoto.app;
+
+import com.starscape.rapidupload.common.exception.BusinessException;
+import com.starscape.rapidupload.common.exception.NotFoundException;
+import com.starscape.rapidupload.features.uploadphoto.api.dto.PartUrl;
+import com.starscape.rapidupload.features.uploadphoto.api.dto.ResumeMultipartUploadResponse;
+import com.starscape.rapidupload.features.uploadphoto.api.dto.ResumeMultipartUploadResponse.UploadedPart;
+import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoRepository;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import com.starscape.rapidupload.features.uploadphoto.infra.S3MultipartPresignService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Handler for resuming an interrupted multipart upload.
+ * Lists the parts S3 already holds and presigns URLs only for the parts still missing,
+ * so a client that lost its state does not re-send the whole file.
+ */
+@Service
+public class ResumeMultipartUploadHandler {
+    
+    private static final Logger log = LoggerFactory.getLogger(ResumeMultipartUploadHandler.class);
+    
+    private final PhotoRepository photoRepository;
+    private final S3MultipartPresignService multipartService;
+    private final int partUrlWindow;
+    private final String environment;
+    
+    public ResumeMultipartUploadHandler(
+            PhotoRepository photoRepository,
+            S3MultipartPresignService multipartService,
+            @Value("${app.upload.part-url-window:4}") int partUrlWindow,
+            @Value("${spring.profiles.active:dev}") String environment) {
+        this.photoRepository = photoRepository;
+        this.multipartService = multipartService;
+        this.partUrlWindow = partUrlWindow;
+        // Handle multiple profiles (comma-separated) by taking the first one
+        this.environment = environment != null && environment.contains(",")
+            ? environment.split(",")[0].trim()
+            : (environment != null ? environment : "dev");
+    }
+    
+    /**
+     * Resume the multipart upload of a photo.
+     * 
+     * @param photoId The photo ID
+     * @param userId The user ID (for authorization)
+     * @return Uploaded parts with ETags, missing part numbers and URLs for the first missing parts
+     */
+    @Transactional(readOnly = true)
+    public ResumeMultipartUploadResponse handle(String photoId, String userId) {
+        Photo photo = photoRepository.findById(photoId)
+                .orElseThrow(() -> new NotFoundException("Photo not found: " + photoId));
+        
+        if (!photo.getUserId().equals(userId)) {
+            throw new BusinessException("UNAUTHORIZED", "Photo does not belong to user");
+        }
+        
+        if (photo.getStatus() != PhotoStatus.QUEUED && photo.getStatus() != PhotoStatus.UPLOADING) {
+            throw new BusinessException(
+                "INVALID_STATE",
+                String.format("Cannot resume upload for photo in status: %s", photo.getStatus())
+            );
+        }
+        
+        String uploadId = photo.getMultipartUploadId();
+        if (uploadId == null) {
+            throw new BusinessException("NOT_MULTIPART", "Photo does not have a multipart upload to resume");
+        }
+        
+        // Construct S3 key: env/userId/jobId/photoId.ext
+        String extension = extractExtension(photo.getFilename());
+        String s3Key = String.format("%s/%s/%s/%s%s",
+            environment, userId, photo.getJobId(), photoId, extension);
+        
+        List<S3MultipartPresignService.UploadedPart> listed;
+        try {
+            listed = multipartService.listUploadedParts(s3Key, uploadId);
+        } catch (NoSuchUploadException e) {
+            throw new BusinessException("UPLOAD_NOT_FOUND", "Multipart upload no longer exists: " + uploadId);
+        }
+        
+        long partSize = photo.getMultipartPartSize();
+        int partCount = multipartService.partCount(photo.getBytes(), partSize);
+        
+        List<UploadedPart> uploadedParts = new ArrayList<>(listed.size());
+        Set<Integer> uploadedNumbers = new HashSet<>();
+        for (S3MultipartPresignService.UploadedPart part : listed) {
+            uploadedParts.add(new UploadedPart(part.partNumber(), part.etag(), part.size()));
+            uploadedNumbers.add(part.partNumber());
+        }
+        
+        List<Integer> missingParts = new ArrayList<>();
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            if (!uploadedNumbers.contains(partNumber)) {
+                missingParts.add(partNumber);
+            }
+        }
+        
+        // Presign only the first window of missing parts; the rest are fetched on demand
+        List<PartUrl> parts = missingParts.stream()
+            .limit(partUrlWindow)
+            .map(partNumber -> multipartService.presignPart(s3Key, uploadId, photo.getBytes(), partSize, partNumber))
+            .map(p -> new PartUrl(p.partNumber(), p.url(), p.size()))
+            .toList();
+        
+        log.info("Resuming multipart upload for photo {}: {} of {} parts already uploaded",
+            photoId, uploadedParts.size(), partCount);
+        return new ResumeMultipartUploadResponse(uploadId, partSize, partCount, uploadedParts, missingParts, parts);
+    }
+    
+    private String extractExtension(String filename) {
+        int lastDot = filename.lastIndexOf('.');
+        return lastDot >= 0 ? filename.substring(lastDot) : "";
+    }
+}
@@ -0,0 +1,30 @@
+package com.starscape.rapidupload.features.uploadphoto.domain;
+
+import com.starscape.rapidupload.common.domain.ValueObject;
+
+import java.time.LocalDateTime;
+
+/**
+ * Typed EXIF fields that photos are searched by. Any field may be null when the image
+ * does not carry it. Capture time is the camera's local wall-clock time, which EXIF
+ * records without a zone.
+ */
+public record ExifSummary(
+    LocalDateTime takenAt,
+    String cameraMake,
+    String cameraModel,
+    String lensModel,
+    Integer iso,
+    Double focalLengthMm,
+    Double gpsLatitude,
+    Double gpsLongitude
+) implements ValueObject {
+    
+    public static final ExifSummary EMPTY = new ExifSummary(null, null, null, null, null, null, null, null);
+    
+    public ExifSummary {
+        if ((gpsLatitude == null) != (gpsLongitude == null)) {
+            throw new IllegalArgumentException("GPS latitude and longitude must be set together");
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package com.starscape.rapidupload.features.uploadphoto.domain;
 
+import com.starscape.rapidupload.common.cache.CacheRegions;
 import com.starscape.rapidupload.common.domain.AggregateRoot;
+import com.starscape.rapidupload.common.geo.Geohash;
 import com.starscape.rapidupload.features.uploadphoto.domain.events.PhotoQueued;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import java.time.Instant;
+import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "photos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.PHOTOS)
 public class Photo extends AggregateRoot<String> {
     
     @Id
@@ -56,6 +63,33 @@ public class Photo extends AggregateRoot<String> {
     @Column(name = "exif_json", columnDefinition = "jsonb")
     private String exifJson;
     
+    @Column(name = "taken_at")
+    private LocalDateTime takenAt;
+    
+    @Column(name = "camera_make")
+    private String cameraMake;
+    
+    @Column(name = "camera_model")
+    private String cameraModel;
+    
+    @Column(name = "lens_model")
+    private String lensModel;
+    
+    @Column(name = "iso")
+    private Integer iso;
+    
+    @Column(name = "focal_length_mm")
+    private Double focalLengthMm;
+    
+    @Column(name = "gps_latitude")
+    private Double gpsLatitude;
+    
+    @Column(name = "gps_longitude")
+    private Double gpsLongitude;
+    
+    @Column(name = "geohash")
+    private String geohash;
+    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private PhotoStatus status;
@@ -75,6 +109,15 @@ public class Photo extends AggregateRoot<String> {
     @Column(name = "deleted_at")
     private Instant deletedAt;
     
+    @Column(name = "multipart_upload_id")
+    private String multipartUploadId;
+    
+    @Column(name = "multipart_part_size")
+    private Long multipartPartSize;
+    
+    @Column(name = "thumbnail_extension")
+    private String thumbnailExtension;
+    
     protected Photo() {
         // JPA constructor
     }
@@ -133,12 +176,26 @@ public class Photo extends AggregateRoot<String> {
     public Integer getWidth() { return width; }
     public Integer getHeight() { return height; }
     public String getExifJson() { return exifJson; }
+    public String getGeohash() { return geohash; }
+    public ExifSummary getExif() {
+        return new ExifSummary(takenAt, cameraMake, cameraModel, lensModel, iso, focalLengthMm, gpsLatitude, gpsLongitude);
+    }
     public PhotoStatus getStatus() { return status; }
     public String getErrorMessage() { return errorMessage; }
     public Instant getCreatedAt() { return createdAt; }
     public Instant getUpdatedAt() { return updatedAt; }
     public Instant getCompletedAt() { return completedAt; }
     public Instant getDeletedAt() { return deletedAt; }
+    public String getMultipartUploadId() { return multipartUploadId; }
+    public Long getMultipartPartSize() { return multipartPartSize; }
+    public String getThumbnailExtension() { return thumbnailExtension; }
+    
+    /**
+     * S3 key of the thumbnail of the given size; requires the photo to have been uploaded.
+     */
+    public String getThumbnailKey(int size) {
+        return ThumbnailKeys.forSize(s3Key, thumbnailExtension, size);
+    }
     
     public boolean isDeleted() {
         return deletedAt != null;
@@ -166,11 +223,22 @@ public class Photo extends AggregateRoot<String> {
         }
     }
     
-    public void markCompleted(Integer width, Integer height, String exifJson, String checksum) {
+    public void markCompleted(Integer width, Integer height, String exifJson, ExifSummary exif, String checksum) {
         if (status == PhotoStatus.PROCESSING) {
             this.width = width;
             this.height = height;
             this.exifJson = exifJson;
+            this.takenAt = exif.takenAt();
+            this.cameraMake = exif.cameraMake();
+            this.cameraModel = exif.cameraModel();
+            this.lensModel = exif.lensModel();
+            this.iso = exif.iso();
+            this.focalLengthMm = exif.focalLengthMm();
+            this.gpsLatitude = exif.gpsLatitude();
+            this.gpsLongitude = exif.gpsLongitude();
+            this.geohash = exif.gpsLatitude() != null
+                ? Geohash.encode(exif.gpsLatitude(), exif.gpsLongitude(), Geohash.MAX_PRECISION)
+                : null;
             this.checksum = checksum;
             this.status = PhotoStatus.COMPLETED;
             this.completedAt = Instant.now();
@@ -178,6 +246,18 @@ public class Photo extends AggregateRoot<String> {
         }
     }
     
+    /**
+     * Record the format the photo's thumbnails are encoded in, once the first one is written.
+     * Later thumbnails of the photo must use the same format, since readers derive every
+     * thumbnail key from it.
+     */
+    public void recordThumbnailExtension(String thumbnailExtension) {
+        if (this.thumbnailExtension == null) {
+            this.thumbnailExtension = thumbnailExtension;
+            this.updatedAt = Instant.now();
+        }
+    }
+    
     public void markFailed(String errorMessage) {
         this.errorMessage = errorMessage;
         this.status = PhotoStatus.FAILED;
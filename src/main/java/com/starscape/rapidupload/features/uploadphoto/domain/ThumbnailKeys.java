@@ -0,0 +1,31 @@
+package com.starscape.rapidupload.features.uploadphoto.domain;
+
+/**
+ * S3 keys of a photo's thumbnails, stored next to the original under thumbnails/.
+ * Original: env/userId/jobId/photoId.ext
+ * Thumbnail: env/userId/jobId/thumbnails/photoId_256.webp
+ */
+public final class ThumbnailKeys {
+    
+    private ThumbnailKeys() {
+    }
+    
+    /**
+     * @param originalKey S3 key of the original photo
+     * @param thumbnailExtension Extension of the encoded thumbnails, without the dot; null for
+     *        photos whose thumbnails were written under the original's extension
+     */
+    public static String forSize(String originalKey, String thumbnailExtension, int size) {
+        int lastSlash = originalKey.lastIndexOf('/');
+        String basePath = originalKey.substring(0, lastSlash);
+        String filename = originalKey.substring(lastSlash + 1);
+        
+        int lastDot = filename.lastIndexOf('.');
+        String name = lastDot >= 0 ? filename.substring(0, lastDot) : filename;
+        String ext = thumbnailExtension != null
+            ? "." + thumbnailExtension
+            : lastDot >= 0 ? filename.substring(lastDot) : "";
+        
+        return basePath + "/thumbnails/" + name + "_" + size + ext;
+    }
+}
@@ -0,0 +1,33 @@
+package com.starscape.rapidupload.features.uploadphoto.domain.events;
+
+import com.starscape.rapidupload.common.domain.DomainEvent;
+import java.time.Instant;
+
+/**
+ * Domain event published when a photo's smallest thumbnail has been generated,
+ * ahead of its larger thumbnails, EXIF extraction and completion.
+ */
+public record PhotoThumbnailReady(
+    String photoId,
+    String userId,
+    String jobId,
+    int size,
+    String thumbnailKey,
+    Instant occurredOn
+) implements DomainEvent {
+    
+    @Override
+    public String getEventType() {
+        return "PhotoThumbnailReady";
+    }
+    
+    @Override
+    public String getAggregateId() {
+        return photoId;
+    }
+    
+    @Override
+    public Instant getOccurredOn() {
+        return occurredOn;
+    }
+}
@@ -0,0 +1,215 @@
+package com.starscape.rapidupload.features.uploadphoto.infra;
+
+import com.starscape.rapidupload.common.config.ProcessingProperties;
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.util.exif.ExifFilterUtils;
+import net.coobird.thumbnailator.util.exif.ExifUtils;
+import net.coobird.thumbnailator.util.exif.Orientation;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Reads images with ImageIO without decoding more pixels than needed.
+ * Dimensions come from the image header, and JPEGs are decoded for thumbnails at 1/2, 1/4 or 1/8
+ * resolution, so a 256px thumbnail of a 24MP photo never holds the full-size raster in memory.
+ *
+ * Header dimensions are checked against app.processing.max-pixels before anything is decoded.
+ * Images that would still decode to more than app.processing.tiled-decode-pixels are read in
+ * horizontal bands with {@link ImageReadParam#setSourceRegion} and downscaled band by band,
+ * so memory per photo stays bounded however large the image is.
+ */
+@Component
+public class ImageDecoder {
+    
+    private static final int MAX_SUBSAMPLING = 8;
+    
+    // Decoded pixels held per band when an image is read in bands
+    private static final long BAND_PIXELS = 4_194_304;
+    
+    // Bands are decoded at up to this multiple of the output size, then downscaled
+    private static final int BAND_OVERSAMPLING = 4;
+    
+    private final long maxPixels;
+    private final long tiledDecodePixels;
+    
+    public ImageDecoder(ProcessingProperties processingProperties) {
+        this.maxPixels = processingProperties.getMaxPixels();
+        this.tiledDecodePixels = processingProperties.getTiledDecodePixels();
+    }
+    
+    /**
+     * Read the pixel dimensions from the image header, without decoding it.
+     *
+     * @throws ImageTooLargeException if the image has more pixels than allowed
+     * @throws IOException if no ImageIO reader recognizes the data
+     */
+    public ImageDimensions readDimensions(byte[] imageBytes) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            ImageReader reader = readerFor(input);
+            try {
+                return checkedDimensions(reader);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    /**
+     * Decode an image for a thumbnail of the given size, with its EXIF orientation applied.
+     * JPEGs are decoded at the lowest resolution whose longest side is still at least the target
+     * size; images too large to decode at once are decoded in bands and downscaled to the target.
+     *
+     * @param size Longest side of the thumbnail to be made from the image
+     * @return Empty for images other than JPEG that are small enough for a full decode
+     * @throws ImageTooLargeException if the image has more pixels than allowed, or could not be
+     *         decoded in bands; such images must not be retried with a full decode
+     */
+    public Optional<BufferedImage> decodeForThumbnail(byte[] imageBytes, String mimeType, int size) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(imageBytes))) {
+            ImageReader reader = readerFor(input);
+            try {
+                ImageDimensions dimensions = checkedDimensions(reader);
+                int factor = "image/jpeg".equals(mimeType)
+                    ? subsamplingFactor(Math.max(dimensions.width(), dimensions.height()), size)
+                    : 1;
+                
+                BufferedImage image;
+                if (dimensions.pixels() / ((long) factor * factor) > tiledDecodePixels) {
+                    image = decodeInBands(reader, dimensions, size);
+                } else if (factor > 1) {
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceSubsampling(factor, factor, 0, 0);
+                    image = reader.read(0, param);
+                } else if (!"image/jpeg".equals(mimeType)) {
+                    return Optional.empty();
+                } else {
+                    image = reader.read(0);
+                }
+                return Optional.of(oriented(reader, image));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    /**
+     * The largest power-of-two factor, up to 1/8, that keeps the longest side at or above the target.
+     */
+    static int subsamplingFactor(int longestSide, int size) {
+        int factor = 1;
+        while (factor < MAX_SUBSAMPLING && longestSide / (factor * 2) >= size) {
+            factor *= 2;
+        }
+        return factor;
+    }
+    
+    /**
+     * Decode the image one horizontal band at a time, downscaling each band into an image whose
+     * longest side is the target size. Each band is subsampled to no more than
+     * {@value #BAND_OVERSAMPLING} times the output resolution and holds at most
+     * {@value #BAND_PIXELS} decoded pixels.
+     */
+    private BufferedImage decodeInBands(ImageReader reader, ImageDimensions dimensions, int size)
+            throws ImageTooLargeException {
+        int width = dimensions.width();
+        int height = dimensions.height();
+        double scale = Math.min(1.0, (double) size / Math.max(width, height));
+        int outputWidth = Math.max(1, (int) Math.round(width * scale));
+        int outputHeight = Math.max(1, (int) Math.round(height * scale));
+        
+        int factor = Math.max(1, (int) (1 / (scale * BAND_OVERSAMPLING)));
+        int decodedWidth = (width + factor - 1) / factor;
+        // Source rows per band, a multiple of the factor so bands line up with the subsampling grid
+        int bandRows = (int) Math.max(1, BAND_PIXELS / decodedWidth) * factor;
+        
+        BufferedImage output = null;
+        Graphics2D graphics = null;
+        try {
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(factor, factor, 0, 0);
+            for (int top = 0; top < height; top += bandRows) {
+                int bottom = Math.min(height, top + bandRows);
+                int outputTop = (int) Math.round(top * scale);
+                int outputBottom = bottom == height ? outputHeight : (int) Math.round(bottom * scale);
+                if (outputBottom <= outputTop) {
+                    continue;
+                }
+                
+                param.setSourceRegion(new Rectangle(0, top, width, bottom - top));
+                BufferedImage band = Thumbnails.of(reader.read(0, param))
+                        .forceSize(outputWidth, outputBottom - outputTop)
+                        .asBufferedImage();
+                if (output == null) {
+                    int type = band.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+                    output = new BufferedImage(outputWidth, outputHeight, type);
+                    graphics = output.createGraphics();
+                }
+                graphics.drawImage(band, 0, outputTop, null);
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new ImageTooLargeException(
+                "Failed to decode " + width + "x" + height + " image in bands: " + e.getMessage(), e);
+        } finally {
+            if (graphics != null) {
+                graphics.dispose();
+            }
+        }
+        return output;
+    }
+    
+    /**
+     * Apply the EXIF orientation, which only JPEG metadata carries here.
+     */
+    private BufferedImage oriented(ImageReader reader, BufferedImage image) throws IOException {
+        if (!"jpeg".equalsIgnoreCase(reader.getFormatName())) {
+            return image;
+        }
+        Orientation orientation = ExifUtils.getExifOrientation(reader, 0);
+        if (orientation == null || orientation == Orientation.TOP_LEFT) {
+            return image;
+        }
+        return ExifFilterUtils.getFilterForOrientation(orientation).apply(image);
+    }
+    
+    private ImageDimensions checkedDimensions(ImageReader reader) throws IOException {
+        ImageDimensions dimensions = new ImageDimensions(reader.getWidth(0), reader.getHeight(0));
+        if (dimensions.pixels() > maxPixels) {
+            throw new ImageTooLargeException(String.format("Image too large: %dx%d exceeds the %d pixel limit",
+                dimensions.width(), dimensions.height(), maxPixels));
+        }
+        return dimensions;
+    }
+    
+    private ImageReader readerFor(ImageInputStream input) throws IOException {
+        if (input == null) {
+            throw new IOException("Failed to read image");
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            throw new IOException("Failed to read image");
+        }
+        ImageReader reader = readers.next();
+        reader.setInput(input, false, false);
+        return reader;
+    }
+    
+    public record ImageDimensions(
+        int width,
+        int height
+    ) {
+        public long pixels() {
+            return (long) width * height;
+        }
+    }
+}
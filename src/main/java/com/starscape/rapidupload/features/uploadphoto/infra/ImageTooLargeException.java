@@ -0,0 +1,18 @@
+package com.starscape.rapidupload.features.uploadphoto.infra;
+
+import java.io.IOException;
+
+/**
+ * An image exceeds the configured pixel limits, or can only be decoded by exceeding them.
+ * Never retried with a full decode.
+ */
+public class ImageTooLargeException extends IOException {
+    
+    public ImageTooLargeException(String message) {
+        super(message);
+    }
+    
+    public ImageTooLargeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,107 @@
+package com.starscape.rapidupload.features.uploadphoto.infra;
+
+import com.starscape.rapidupload.features.uploadphoto.api.dto.UploadHints;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chooses multipart part size and count per file.
+ * Sizes parts so that each advertised client connection gets work, each part takes roughly
+ * {@code target-part-seconds} at the client's per-connection bandwidth, and S3's part limits hold.
+ */
+@Component
+public class MultipartPartSizePlanner {
+    
+    // S3 limits: 5MB minimum part (except the last), 5GB maximum part, 10,000 parts per upload
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+    
+    private static final long PART_SIZE_ALIGNMENT = 1024 * 1024; // 1MB
+    
+    private final long multipartThreshold;
+    private final long defaultPartSize;
+    private final int targetPartSeconds;
+    private final DistributionSummary partSizeSummary;
+    private final DistributionSummary partCountSummary;
+    private final Counter hintedPlans;
+    private final Counter defaultPlans;
+    
+    public MultipartPartSizePlanner(
+            MeterRegistry meterRegistry,
+            @Value("${app.upload.multipart.threshold-bytes:5242880}") long multipartThreshold,
+            @Value("${app.upload.multipart.default-part-size-bytes:8388608}") long defaultPartSize,
+            @Value("${app.upload.multipart.target-part-seconds:10}") int targetPartSeconds) {
+        this.multipartThreshold = multipartThreshold;
+        this.defaultPartSize = defaultPartSize;
+        this.targetPartSeconds = targetPartSeconds;
+        this.partSizeSummary = DistributionSummary.builder("upload.multipart.part.size")
+            .description("Planned multipart part size")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        this.partCountSummary = DistributionSummary.builder("upload.multipart.part.count")
+            .description("Planned number of parts per multipart upload")
+            .register(meterRegistry);
+        this.hintedPlans = Counter.builder("upload.multipart.plans")
+            .description("Multipart part plans, by whether the client sent upload hints")
+            .tag("hinted", "true")
+            .register(meterRegistry);
+        this.defaultPlans = Counter.builder("upload.multipart.plans")
+            .description("Multipart part plans, by whether the client sent upload hints")
+            .tag("hinted", "false")
+            .register(meterRegistry);
+    }
+    
+    public boolean shouldUseMultipart(long fileSize) {
+        return fileSize > multipartThreshold;
+    }
+    
+    /**
+     * Plan the part layout for a file.
+     *
+     * @param fileSize The file size in bytes
+     * @param hints Client upload hints, may be null
+     * @return The chosen part size and resulting part count
+     */
+    public PartPlan plan(long fileSize, UploadHints hints) {
+        // Smallest part size that keeps the upload within the part limit
+        long floor = Math.max(MIN_PART_SIZE, ceilDiv(fileSize, MAX_PARTS));
+        
+        long target = defaultPartSize;
+        boolean hinted = hints != null && (hints.concurrency() != null || hints.bandwidthBytesPerSecond() != null);
+        if (hinted) {
+            int concurrency = hints.concurrency() != null ? hints.concurrency() : 1;
+            if (hints.bandwidthBytesPerSecond() != null) {
+                // Aim for parts that take a few seconds each on one connection, bounding retry cost
+                target = (hints.bandwidthBytesPerSecond() / concurrency) * targetPartSeconds;
+            }
+            // Give every client connection at least one part of this file
+            target = Math.min(target, ceilDiv(fileSize, concurrency));
+        }
+        
+        long partSize = Math.min(MAX_PART_SIZE, Math.max(floor, align(target)));
+        int partCount = (int) ceilDiv(fileSize, partSize);
+        
+        partSizeSummary.record(partSize);
+        partCountSummary.record(partCount);
+        (hinted ? hintedPlans : defaultPlans).increment();
+        
+        return new PartPlan(partSize, partCount);
+    }
+    
+    private static long align(long size) {
+        return ceilDiv(size, PART_SIZE_ALIGNMENT) * PART_SIZE_ALIGNMENT;
+    }
+    
+    private static long ceilDiv(long value, long divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+    
+    public record PartPlan(
+        long partSize,
+        int partCount
+    ) {}
+}
@@ -2,17 +2,37 @@ package com.starscape.rapidupload.features.uploadphoto.infra;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.starscape.rapidupload.features.uploadphoto.app.PhotoProcessingService;
+import com.starscape.rapidupload.features.uploadphoto.app.FairProcessingScheduler;
+import com.starscape.rapidupload.features.uploadphoto.app.ProcessingDeferredException;
 import com.starscape.rapidupload.features.uploadphoto.infra.events.S3EventMessage;
 import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.annotation.SqsListenerAcknowledgementMode;
+import io.awspring.cloud.sqs.listener.acknowledgement.Acknowledgement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Listens to SQS messages containing S3 ObjectCreated events from EventBridge.
- * Processes photos when they are uploaded to S3.
+ * Hands uploaded photos to the {@link FairProcessingScheduler}; a message is acknowledged
+ * only once its photo has been processed, so the listener's in-flight messages are the
+ * scheduler's buffer and unprocessed photos are redelivered after a crash.
+ * 
+ * A photo the scheduler does not admit, because its user already has the maximum number of
+ * photos buffered or the buffer is full, is released back to the queue rather than held: it is
+ * sent again with a delay, backing off with each deferral, and the received copy is acknowledged.
+ * The copy starts a fresh receive count, so deferrals do not count towards the queue's
+ * maxReceiveCount and only real failures move a message to the DLQ.
  * 
  * Only enabled when aws.sqs.queue-url is configured and spring.cloud.aws.sqs.enabled=true
  */
@@ -22,20 +42,54 @@ public class S3EventListener {
     
     private static final Logger log = LoggerFactory.getLogger(S3EventListener.class);
     
-    private final PhotoProcessingService processingService;
+    /**
+     * Message attribute carrying how often a message has been deferred.
+     */
+    private static final String DEFERRALS_ATTRIBUTE = "deferrals";
+    
+    /**
+     * Longest delay SQS accepts on a sent message.
+     */
+    private static final int MAX_DELAY_SECONDS = 900;
+    
+    private final FairProcessingScheduler processingScheduler;
     private final ObjectMapper objectMapper;
+    private final SqsAsyncClient sqsAsyncClient;
+    private final String queueUrl;
+    private final int deferSeconds;
+    private final int maxDeferSeconds;
     
-    public S3EventListener(PhotoProcessingService processingService, ObjectMapper objectMapper) {
-        this.processingService = processingService;
+    public S3EventListener(
+            FairProcessingScheduler processingScheduler,
+            ObjectMapper objectMapper,
+            SqsAsyncClient sqsAsyncClient,
+            @Value("${aws.sqs.queue-url}") String queueUrl,
+            @Value("${app.processing.scheduler.defer-seconds:15}") int deferSeconds,
+            @Value("${app.processing.scheduler.max-defer-seconds:900}") int maxDeferSeconds) {
+        this.processingScheduler = processingScheduler;
         this.objectMapper = objectMapper;
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.queueUrl = queueUrl;
+        this.deferSeconds = deferSeconds;
+        this.maxDeferSeconds = Math.min(maxDeferSeconds, MAX_DELAY_SECONDS);
     }
     
     /**
      * Handle SQS message containing S3 event.
-     * The queue URL is configured via ${aws.sqs.queue-url} property.
+     * The queue URL is configured via ${aws.sqs.queue-url} property. Messages stay invisible while
+     * they wait in the scheduler's buffer, so the visibility timeout covers the wait as well.
+     * Messages are acknowledged here: a failed future leaves the message for redelivery after the
+     * visibility timeout, a released one is acknowledged once its delayed copy has been sent.
      */
-    @SqsListener("${aws.sqs.queue-url}")
-    public void handleS3Event(String message) {
+    @SqsListener(
+        value = "${aws.sqs.queue-url}",
+        maxConcurrentMessages = "${app.processing.scheduler.buffer-size:200}",
+        messageVisibilitySeconds = "${app.processing.scheduler.visibility-seconds:600}",
+        acknowledgementMode = SqsListenerAcknowledgementMode.MANUAL)
+    public CompletableFuture<Void> handleS3Event(
+            String message,
+            Acknowledgement acknowledgement,
+            @Header(name = DEFERRALS_ATTRIBUTE, required = false) String deferrals) {
         log.info("Received SQS message: {}", message);
         
         try {
@@ -44,7 +98,7 @@ public class S3EventListener {
             
             if (!"Object Created".equals(event.detailType())) {
                 log.warn("Ignoring non-ObjectCreated event: {}", event.detailType());
-                return;
+                return acknowledgement.acknowledgeAsync();
             }
             
             String s3Key = event.detail().object().key();
@@ -54,19 +108,78 @@ public class S3EventListener {
             // Skip thumbnail files to avoid infinite loops
             if (s3Key.contains("/thumbnails/")) {
                 log.debug("Skipping thumbnail file: {}", s3Key);
-                return;
+                return acknowledgement.acknowledgeAsync();
             }
             
-            // Process the photo
-            processingService.processPhoto(s3Key, etag, size);
+            // Queue the photo behind the user's earlier uploads, or hand it back to SQS for later
+            return processingScheduler.submit(extractUserId(s3Key), s3Key, etag, size)
+                .thenCompose(processed -> acknowledgement.acknowledgeAsync())
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof ProcessingDeferredException) {
+                        log.debug("Released {} for later: {}", s3Key, cause.getMessage());
+                        return defer(message, deferrals).thenCompose(sent -> acknowledgement.acknowledgeAsync());
+                    }
+                    return CompletableFuture.failedFuture(e);
+                });
             
         } catch (JsonProcessingException e) {
             log.error("Failed to parse S3 event message", e);
-            throw new RuntimeException("Invalid message format", e);
+            return CompletableFuture.failedFuture(new RuntimeException("Invalid message format", e));
         } catch (Exception e) {
             log.error("Failed to process S3 event", e);
-            throw new RuntimeException("Processing failed", e);
+            return CompletableFuture.failedFuture(new RuntimeException("Processing failed", e));
+        }
+    }
+    
+    /**
+     * Send a released message again with a delay and an incremented deferral count. If the send
+     * fails, the received copy is left unacknowledged and redelivered after its visibility timeout.
+     */
+    private CompletableFuture<?> defer(String message, String deferrals) {
+        int previous = parseDeferrals(deferrals);
+        int delay = deferralSeconds(previous);
+        
+        SendMessageRequest request = SendMessageRequest.builder()
+            .queueUrl(queueUrl)
+            .messageBody(message)
+            .delaySeconds(delay)
+            .messageAttributes(Map.of(DEFERRALS_ATTRIBUTE, MessageAttributeValue.builder()
+                .dataType("String")
+                .stringValue(Integer.toString(previous + 1))
+                .build()))
+            .build();
+        return sqsAsyncClient.sendMessage(request);
+    }
+    
+    /**
+     * Delay for a released message: doubles with each deferral up to the maximum, so a long
+     * backlog is re-offered a bounded number of times per hour.
+     */
+    private int deferralSeconds(int previousDeferrals) {
+        long delay = (long) deferSeconds << Math.min(previousDeferrals, 16);
+        return (int) Math.min(delay, maxDeferSeconds);
+    }
+    
+    private static int parseDeferrals(String deferrals) {
+        if (deferrals == null) {
+            return 0;
         }
+        try {
+            return Math.max(0, Integer.parseInt(deferrals));
+        } catch (NumberFormatException e) {
+            log.debug("Unreadable deferral count: {}", deferrals);
+            return 0;
+        }
+    }
+    
+    /**
+     * Extract userId from S3 key: env/userId/jobId/photoId.ext
+     * Keys in another layout share one queue; processing discards them.
+     */
+    private String extractUserId(String s3Key) {
+        String[] parts = s3Key.split("/");
+        return parts.length >= 4 ? parts[1] : "";
     }
 }
 
@@ -3,12 +3,14 @@ package com.starscape.rapidupload.features.uploadphoto.infra;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
 import software.amazon.awssdk.services.s3.model.CompletedPart;
 import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.ListPartsRequest;
 import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.PresignedUploadPartRequest;
@@ -16,6 +18,7 @@ import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignReque
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -27,10 +30,6 @@ public class S3MultipartPresignService {
     private final String bucket;
     private final int presignDurationMinutes;
     
-    // Minimum 5MB per part (AWS requirement), optimal 8-16MB
-    private static final long DEFAULT_PART_SIZE = 8 * 1024 * 1024; // 8MB
-    private static final long MULTIPART_THRESHOLD = 5 * 1024 * 1024; // 5MB
-    
     public S3MultipartPresignService(
             S3Client s3Client,
             S3Presigner s3Presigner,
@@ -42,14 +41,24 @@ public class S3MultipartPresignService {
         this.presignDurationMinutes = presignDurationMinutes;
     }
     
-    public boolean shouldUseMultipart(long fileSize) {
-        return fileSize > MULTIPART_THRESHOLD;
-    }
-    
+    /**
+     * Initiate a multipart upload and presign URLs for the first window of parts.
+     * Remaining part URLs are issued on demand via {@link #presignParts}, so the cost of
+     * this call does not grow with file size.
+     * 
+     * @param s3Key The S3 key of the object
+     * @param contentType The object content type
+     * @param totalBytes The total object size
+     * @param partSize The part size chosen by {@link MultipartPartSizePlanner}
+     * @param initialWindow The number of part URLs to presign up front
+     * @return The upload ID, part layout and the first window of part URLs
+     */
     public MultipartUploadInfo initiateMultipartUpload(
             String s3Key, 
             String contentType,
-            long totalBytes) {
+            long totalBytes,
+            long partSize,
+            int initialWindow) {
         
         // Create multipart upload using S3Client (cannot be presigned)
         CreateMultipartUploadRequest multipartRequest = CreateMultipartUploadRequest.builder()
@@ -61,51 +70,139 @@ public class S3MultipartPresignService {
         CreateMultipartUploadResponse multipartResponse = s3Client.createMultipartUpload(multipartRequest);
         String uploadId = multipartResponse.uploadId();
         
-        // Calculate number of parts
-        int partCount = (int) Math.ceil((double) totalBytes / DEFAULT_PART_SIZE);
-        
-        // Generate presigned URLs for each part
-        List<PartUploadUrl> partUrls = new ArrayList<>();
-        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
-            long partSize = Math.min(DEFAULT_PART_SIZE, totalBytes - (partNumber - 1) * DEFAULT_PART_SIZE);
-            
-            UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
-                    .bucket(bucket)
-                    .key(s3Key)
-                    .uploadId(uploadId)
-                    .partNumber(partNumber)
-                    .contentLength(partSize)
-                    .build();
-            
-            UploadPartPresignRequest presignPartRequest = UploadPartPresignRequest.builder()
-                    .signatureDuration(Duration.ofMinutes(presignDurationMinutes))
-                    .uploadPartRequest(uploadPartRequest)
-                    .build();
-            
-            PresignedUploadPartRequest presignedPart = s3Presigner.presignUploadPart(presignPartRequest);
-            
-            partUrls.add(new PartUploadUrl(
-                partNumber,
-                presignedPart.url().toString(),
-                partSize
-            ));
-        }
+        int partCount = partCount(totalBytes, partSize);
+        List<PartUploadUrl> partUrls = presignParts(s3Key, uploadId, totalBytes, partSize, 1, initialWindow);
         
         return new MultipartUploadInfo(
             uploadId,
             s3Key,
             bucket,
-            DEFAULT_PART_SIZE,
+            partSize,
+            partCount,
             partUrls,
             presignDurationMinutes * 60
         );
     }
     
+    /**
+     * Presign upload URLs for a window of parts of an existing multipart upload.
+     * The window is clipped to the last part of the object.
+     * 
+     * @param s3Key The S3 key of the object
+     * @param uploadId The upload ID from the initial multipart upload
+     * @param totalBytes The total object size
+     * @param partSize The part size the upload was initiated with
+     * @param startPart The first part number to presign (1-based)
+     * @param count The maximum number of parts to presign
+     * @return Presigned part URLs in part number order
+     */
+    public List<PartUploadUrl> presignParts(
+            String s3Key,
+            String uploadId,
+            long totalBytes,
+            long partSize,
+            int startPart,
+            int count) {
+        
+        int lastPart = Math.min(partCount(totalBytes, partSize), startPart + count - 1);
+        
+        List<PartUploadUrl> partUrls = new ArrayList<>();
+        for (int partNumber = startPart; partNumber <= lastPart; partNumber++) {
+            partUrls.add(presignPart(s3Key, uploadId, totalBytes, partSize, partNumber));
+        }
+        return partUrls;
+    }
+    
+    /**
+     * Presign the upload URL for a single part of an existing multipart upload.
+     * 
+     * @param s3Key The S3 key of the object
+     * @param uploadId The upload ID from the initial multipart upload
+     * @param totalBytes The total object size
+     * @param partSize The part size the upload was initiated with
+     * @param partNumber The part number to presign (1-based)
+     * @return The presigned part URL and the expected part size
+     */
+    public PartUploadUrl presignPart(
+            String s3Key,
+            String uploadId,
+            long totalBytes,
+            long partSize,
+            int partNumber) {
+        
+        long size = Math.min(partSize, totalBytes - (partNumber - 1) * partSize);
+        
+        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                .bucket(bucket)
+                .key(s3Key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength(size)
+                .build();
+        
+        UploadPartPresignRequest presignPartRequest = UploadPartPresignRequest.builder()
+                .signatureDuration(Duration.ofMinutes(presignDurationMinutes))
+                .uploadPartRequest(uploadPartRequest)
+                .build();
+        
+        PresignedUploadPartRequest presignedPart = s3Presigner.presignUploadPart(presignPartRequest);
+        
+        return new PartUploadUrl(
+            partNumber,
+            presignedPart.url().toString(),
+            size
+        );
+    }
+    
+    /**
+     * List the parts S3 has already received for a multipart upload.
+     * Follows ListParts pagination, so uploads with more than 1,000 parts are fully listed.
+     * 
+     * @param s3Key The S3 key of the object
+     * @param uploadId The upload ID from the initial multipart upload
+     * @return Uploaded parts in part number order
+     * @throws software.amazon.awssdk.services.s3.model.NoSuchUploadException if the upload was completed or aborted
+     */
+    public List<UploadedPart> listUploadedParts(String s3Key, String uploadId) {
+        ListPartsRequest listPartsRequest = ListPartsRequest.builder()
+                .bucket(bucket)
+                .key(s3Key)
+                .uploadId(uploadId)
+                .build();
+        
+        return s3Client.listPartsPaginator(listPartsRequest).parts().stream()
+                .map(part -> new UploadedPart(part.partNumber(), part.eTag(), part.size()))
+                .sorted(Comparator.comparingInt(UploadedPart::partNumber))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Abort a multipart upload, releasing the parts S3 has stored for it.
+     * 
+     * @param s3Key The S3 key of the object
+     * @param uploadId The upload ID from the initial multipart upload
+     * @throws software.amazon.awssdk.services.s3.model.NoSuchUploadException if the upload was completed or aborted
+     */
+    public void abortMultipartUpload(String s3Key, String uploadId) {
+        AbortMultipartUploadRequest abortRequest = AbortMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(s3Key)
+                .uploadId(uploadId)
+                .build();
+        
+        s3Client.abortMultipartUpload(abortRequest);
+    }
+    
+    public int partCount(long totalBytes, long partSize) {
+        return (int) Math.ceil((double) totalBytes / partSize);
+    }
+    
     public record MultipartUploadInfo(
         String uploadId,
         String key,
         String bucket,
         long partSize,
+        int partCount,
         List<PartUploadUrl> parts,
         int expiresInSeconds
     ) {}
@@ -151,6 +248,15 @@ public class S3MultipartPresignService {
         long size
     ) {}
     
+    /**
+     * A part S3 has already received, as reported by ListParts.
+     */
+    public record UploadedPart(
+        int partNumber,
+        String etag,
+        long size
+    ) {}
+    
     /**
      * Represents a completed part with its part number and ETag.
      */
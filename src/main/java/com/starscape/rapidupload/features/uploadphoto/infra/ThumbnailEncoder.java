@@ -0,0 +1,280 @@
+package com.starscape.rapidupload.features.uploadphoto.infra;
+
+import com.starscape.rapidupload.common.config.ProcessingProperties;
+import com.starscape.rapidupload.common.config.ProcessingProperties.DerivativeProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Encodes resized thumbnails with the derivative profiles in app.processing.derivatives.
+ * Thumbnails without visible transparency are written with the opaque profile (JPEG by default),
+ * whatever the original's format; those with transparency keep it with the transparent profile.
+ *
+ * Formats are looked up as ImageIO writers; WebP comes from the bundled webp-imageio plugin, whose
+ * native libwebp is loaded on first use. Each profile is tried on a tiny image at startup, and one
+ * whose writer is missing or cannot load falls back to JPEG or PNG with a warning.
+ * EXIF and other metadata of the original are never carried over; orientation is already applied
+ * to the pixels.
+ */
+@Component
+public class ThumbnailEncoder {
+    
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailEncoder.class);
+    
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+    
+    private final DerivativeProfile opaque;
+    private final DerivativeProfile transparent;
+    
+    public ThumbnailEncoder(ProcessingProperties processingProperties) {
+        ProcessingProperties.Derivatives derivatives = processingProperties.getDerivatives();
+        this.opaque = available(derivatives.getOpaque(), "jpeg");
+        this.transparent = available(derivatives.getTransparent(), "png");
+    }
+    
+    /**
+     * Encode a thumbnail with the profile that matches its transparency, or in the format the
+     * photo's other thumbnails already use.
+     *
+     * @param extension Extension of the photo's thumbnails written so far, or null for its first
+     */
+    public EncodedThumbnail encode(BufferedImage image, String extension) throws IOException {
+        return write(image, profileFor(image, extension));
+    }
+    
+    private DerivativeProfile profileFor(BufferedImage image, String extension) {
+        DerivativeProfile byContent = isOpaque(image) ? opaque : transparent;
+        if (extension == null || extension.equals(extension(byContent.getFormat()))) {
+            return byContent;
+        }
+        DerivativeProfile other = byContent == opaque ? transparent : opaque;
+        if (extension.equals(extension(other.getFormat()))) {
+            return other;
+        }
+        // The profiles changed since the photo's first thumbnail; keep its format so keys match
+        return copy(byContent, extension);
+    }
+    
+    private EncodedThumbnail write(BufferedImage image, DerivativeProfile profile) throws IOException {
+        boolean jpeg = isJpeg(profile.getFormat());
+        if (jpeg && image.getColorModel().hasAlpha()) {
+            image = flatten(image);
+        }
+        
+        ImageWriter writer = writerFor(profile.getFormat());
+        String[] mimeTypes = writer.getOriginatingProvider().getMIMETypes();
+        String contentType = mimeTypes != null && mimeTypes.length > 0
+            ? mimeTypes[0]
+            : "image/" + profile.getFormat().toLowerCase();
+        
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writeParam(writer, profile);
+            IIOMetadata metadata = null;
+            if (jpeg) {
+                metadata = writer.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), param);
+                configureJpeg(metadata, profile);
+            }
+            writer.write(null, new IIOImage(image, null, metadata), param);
+        } finally {
+            writer.dispose();
+        }
+        
+        return new EncodedThumbnail(output.toByteArray(), contentType, extension(profile.getFormat()));
+    }
+    
+    /**
+     * Whether no pixel is even partly transparent.
+     */
+    static boolean isOpaque(BufferedImage image) {
+        WritableRaster alpha = image.getAlphaRaster();
+        if (alpha == null) {
+            return true;
+        }
+        int width = alpha.getWidth();
+        int[] row = new int[width];
+        for (int y = 0; y < alpha.getHeight(); y++) {
+            alpha.getSamples(0, y, width, 1, 0, row);
+            for (int sample : row) {
+                if (sample != 255) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Explicit lossy compression at the profile's quality where the writer has it, else maximum
+     * lossless compression; progressive or interlaced output where the writer supports it.
+     */
+    private ImageWriteParam writeParam(ImageWriter writer, DerivativeProfile profile) {
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (param.canWriteCompressed()) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            String[] types = param.getCompressionTypes();
+            if (types != null && types.length > 0) {
+                param.setCompressionType(types[0]);
+                for (String type : types) {
+                    param.setCompressionType(type);
+                    if (!isLossless(param)) {
+                        break;
+                    }
+                }
+            }
+            param.setCompressionQuality(isLossless(param) ? 0f : profile.getQuality());
+        }
+        if (param.canWriteProgressive()) {
+            param.setProgressiveMode(profile.isProgressive()
+                ? ImageWriteParam.MODE_DEFAULT
+                : ImageWriteParam.MODE_DISABLED);
+        }
+        return param;
+    }
+    
+    /**
+     * Whether the param's current compression type is lossless. A type named Lossy or Lossless is
+     * taken at its word: the WebP writer reports every type as lossless.
+     */
+    private static boolean isLossless(ImageWriteParam param) {
+        String type = param.getCompressionType();
+        if (type != null && type.toLowerCase().startsWith("lossless")) {
+            return true;
+        }
+        if (type != null && type.toLowerCase().startsWith("lossy")) {
+            return false;
+        }
+        return param.isCompressionLossless();
+    }
+    
+    /**
+     * Set the chroma subsampling through the luma component's sampling factors, and drop the JFIF
+     * segment when stripping metadata. Grayscale images have a single component and are left alone.
+     */
+    private void configureJpeg(IIOMetadata metadata, DerivativeProfile profile) throws IOException {
+        Element root = (Element) metadata.getAsTree(JPEG_METADATA_FORMAT);
+        
+        NodeList components = root.getElementsByTagName("componentSpec");
+        if (components.getLength() > 1) {
+            int[] factors = samplingFactors(profile.getChromaSubsampling());
+            for (int i = 0; i < components.getLength(); i++) {
+                Element component = (Element) components.item(i);
+                component.setAttribute("HsamplingFactor", String.valueOf(i == 0 ? factors[0] : 1));
+                component.setAttribute("VsamplingFactor", String.valueOf(i == 0 ? factors[1] : 1));
+            }
+        }
+        
+        if (profile.isStripMetadata()) {
+            NodeList jfif = root.getElementsByTagName("app0JFIF");
+            if (jfif.getLength() > 0) {
+                Node node = jfif.item(0);
+                node.getParentNode().removeChild(node);
+            }
+        }
+        metadata.setFromTree(JPEG_METADATA_FORMAT, root);
+    }
+    
+    /**
+     * Horizontal and vertical luma sampling factors for a J:a:b subsampling notation.
+     */
+    private static int[] samplingFactors(String chromaSubsampling) {
+        return switch (chromaSubsampling == null ? "4:2:0" : chromaSubsampling.trim()) {
+            case "4:4:4" -> new int[] {1, 1};
+            case "4:2:2" -> new int[] {2, 1};
+            case "4:2:0" -> new int[] {2, 2};
+            default -> throw new IllegalArgumentException(
+                "Unsupported chroma subsampling: " + chromaSubsampling + " (expected 4:2:0, 4:2:2 or 4:4:4)");
+        };
+    }
+    
+    /**
+     * Composite onto white, for formats without an alpha channel.
+     */
+    private static BufferedImage flatten(BufferedImage image) {
+        BufferedImage flat = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = flat.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return flat;
+    }
+    
+    /**
+     * The profile, or a copy in the fallback format if its format cannot be written here:
+     * no ImageIO writer is registered for it, or the writer's native library does not load.
+     */
+    private DerivativeProfile available(DerivativeProfile profile, String fallbackFormat) {
+        samplingFactors(profile.getChromaSubsampling());
+        if (profile.getFormat() != null) {
+            try {
+                write(new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB), profile);
+                return profile;
+            } catch (IOException | RuntimeException | LinkageError e) {
+                log.warn("Cannot write thumbnail format '{}', writing {} instead: {}",
+                    profile.getFormat(), fallbackFormat, e.toString());
+            }
+        }
+        return copy(profile, fallbackFormat);
+    }
+    
+    private static DerivativeProfile copy(DerivativeProfile profile, String format) {
+        DerivativeProfile copy = new DerivativeProfile(format, profile.getQuality(), profile.isProgressive());
+        copy.setChromaSubsampling(profile.getChromaSubsampling());
+        copy.setStripMetadata(profile.isStripMetadata());
+        return copy;
+    }
+    
+    /**
+     * File extension for a format name, as used in thumbnail keys.
+     */
+    private static String extension(String format) {
+        if (isJpeg(format)) {
+            return "jpg";
+        }
+        return format.toLowerCase();
+    }
+    
+    private static ImageWriter writerFor(String format) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer for format: " + format);
+        }
+        return writers.next();
+    }
+    
+    private static boolean isJpeg(String format) {
+        return "jpeg".equalsIgnoreCase(format) || "jpg".equalsIgnoreCase(format);
+    }
+    
+    /**
+     * @param contentType MIME type of the encoded format, for the S3 object's Content-Type
+     * @param extension File extension of the encoded format, without the dot
+     */
+    public record EncodedThumbnail(
+        byte[] data,
+        String contentType,
+        String extension
+    ) {}
+}
@@ -0,0 +1,80 @@
+package com.starscape.rapidupload.features.uploadphoto.infra;
+
+import com.starscape.rapidupload.common.cache.SecondLevelCacheEvictor;
+import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
+import com.starscape.rapidupload.features.uploadphoto.domain.UploadJob;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Bulk write path for new upload jobs.
+ * Inserts the job row and all of its photo rows with JDBC batch statements instead of
+ * cascading through JPA, which issues a SELECT + INSERT per photo for assigned IDs.
+ * With reWriteBatchedInserts enabled on the driver, each batch is a single round trip.
+ */
+@Repository
+public class UploadJobBulkWriter {
+    
+    private static final String INSERT_JOB_SQL =
+            "INSERT INTO upload_jobs (job_id, user_id, total_count, completed_count, failed_count, " +
+            "cancelled_count, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_PHOTO_SQL =
+            "INSERT INTO photos (photo_id, job_id, user_id, filename, mime_type, bytes, status, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String RECORD_MULTIPART_SQL =
+            "UPDATE photos SET multipart_upload_id = ?, multipart_part_size = ? WHERE photo_id = ?";
+    
+    private static final int BATCH_SIZE = 1000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final SecondLevelCacheEvictor cacheEvictor;
+    
+    public UploadJobBulkWriter(JdbcTemplate jdbcTemplate, SecondLevelCacheEvictor cacheEvictor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheEvictor = cacheEvictor;
+    }
+    
+    /**
+     * Insert a new job and its photos.
+     * Must be called inside a transaction so the job and photos commit together.
+     * The photos are not attached to the job's JPA collection; they only reference the job ID.
+     */
+    public void insertJobWithPhotos(UploadJob job, List<Photo> photos) {
+        jdbcTemplate.update(INSERT_JOB_SQL,
+            job.getJobId(),
+            job.getUserId(),
+            job.getTotalCount(),
+            job.getCompletedCount(),
+            job.getFailedCount(),
+            job.getCancelledCount(),
+            job.getStatus().name(),
+            Timestamp.from(job.getCreatedAt()),
+            Timestamp.from(job.getUpdatedAt()));
+        
+        jdbcTemplate.batchUpdate(INSERT_PHOTO_SQL, photos, BATCH_SIZE, (ps, photo) -> {
+            ps.setString(1, photo.getPhotoId());
+            ps.setString(2, job.getJobId());
+            ps.setString(3, photo.getUserId());
+            ps.setString(4, photo.getFilename());
+            ps.setString(5, photo.getMimeType());
+            ps.setLong(6, photo.getBytes());
+            ps.setString(7, photo.getStatus().name());
+            ps.setTimestamp(8, Timestamp.from(photo.getCreatedAt()));
+            ps.setTimestamp(9, Timestamp.from(photo.getUpdatedAt()));
+        });
+    }
+    
+    /**
+     * Record the multipart upload backing a photo so later part URL requests can be validated.
+     * Runs outside the creation transaction, right after the upload is initiated.
+     */
+    public void recordMultipartUpload(String photoId, String uploadId, long partSize) {
+        jdbcTemplate.update(RECORD_MULTIPART_SQL, uploadId, partSize, photoId);
+        cacheEvictor.evictEntities(Photo.class, List.of(photoId));
+    }
+}
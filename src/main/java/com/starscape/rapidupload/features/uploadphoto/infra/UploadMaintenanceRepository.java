@@ -0,0 +1,112 @@
+package com.starscape.rapidupload.features.uploadphoto.infra;
+
+import com.starscape.rapidupload.common.cache.SecondLevelCacheEvictor;
+import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set-based maintenance statements for photos and upload jobs.
+ * Used by background jobs that touch many rows at once, where loading aggregates would
+ * cost a round trip per photo.
+ */
+@Repository
+public class UploadMaintenanceRepository {
+    
+    private static final String FIND_STALE_PENDING_SQL =
+            "SELECT photo_id, user_id, job_id, filename, multipart_upload_id FROM photos " +
+            "WHERE status IN ('QUEUED', 'UPLOADING') AND updated_at < ? " +
+            "ORDER BY updated_at LIMIT ?";
+    
+    private static final String CANCEL_PENDING_SQL =
+            "UPDATE photos SET status = 'CANCELLED', error_message = ?, completed_at = NOW() " +
+            "WHERE photo_id = ANY(?) AND status IN ('QUEUED', 'UPLOADING') " +
+            "RETURNING photo_id, job_id";
+    
+    // Mirrors UploadJob.updateProgress() for many jobs in one statement
+    private static final String RECOMPUTE_JOB_PROGRESS_SQL =
+            "UPDATE upload_jobs j SET " +
+            "  completed_count = c.completed, failed_count = c.failed, cancelled_count = c.cancelled, " +
+            "  status = CASE " +
+            "    WHEN c.completed + c.failed + c.cancelled < j.total_count THEN " +
+            "      CASE WHEN j.status = 'QUEUED' AND c.completed + c.failed + c.cancelled > 0 " +
+            "        THEN 'IN_PROGRESS' ELSE j.status END " +
+            "    WHEN c.failed = 0 AND c.cancelled = 0 THEN 'COMPLETED' " +
+            "    WHEN c.completed > 0 THEN 'COMPLETED_WITH_ERRORS' " +
+            "    ELSE 'FAILED' END " +
+            "FROM (" +
+            "  SELECT job_id, " +
+            "    COUNT(*) FILTER (WHERE status = 'COMPLETED') AS completed, " +
+            "    COUNT(*) FILTER (WHERE status = 'FAILED') AS failed, " +
+            "    COUNT(*) FILTER (WHERE status = 'CANCELLED') AS cancelled " +
+            "  FROM photos WHERE job_id = ANY(?) GROUP BY job_id" +
+            ") c " +
+            "WHERE j.job_id = c.job_id";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final SecondLevelCacheEvictor cacheEvictor;
+    
+    public UploadMaintenanceRepository(JdbcTemplate jdbcTemplate, SecondLevelCacheEvictor cacheEvictor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheEvictor = cacheEvictor;
+    }
+    
+    /**
+     * Find photos still waiting on an upload that have not changed since the cutoff, oldest first.
+     */
+    public List<StaleUpload> findStalePendingUploads(Instant cutoff, int limit) {
+        return jdbcTemplate.query(FIND_STALE_PENDING_SQL,
+            (rs, rowNum) -> new StaleUpload(
+                rs.getString("photo_id"),
+                rs.getString("user_id"),
+                rs.getString("job_id"),
+                rs.getString("filename"),
+                rs.getString("multipart_upload_id")),
+            Timestamp.from(cutoff), limit);
+    }
+    
+    /**
+     * Cancel photos that are still pending. Photos that moved on in the meantime, including those
+     * already cancelled, are left alone.
+     *
+     * @return The photos this call cancelled
+     */
+    public List<CancelledPhoto> cancelPendingPhotos(Collection<String> photoIds, String reason) {
+        cacheEvictor.evictEntities(Photo.class, photoIds);
+        return jdbcTemplate.query(CANCEL_PENDING_SQL,
+            ps -> {
+                ps.setString(1, reason);
+                ps.setArray(2, ps.getConnection().createArrayOf("varchar", photoIds.toArray()));
+            },
+            (rs, rowNum) -> new CancelledPhoto(rs.getString("photo_id"), rs.getString("job_id")));
+    }
+    
+    /**
+     * Recompute progress counts and status of the given jobs from their photos' statuses.
+     */
+    public int recomputeJobProgress(Collection<String> jobIds) {
+        if (jobIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(RECOMPUTE_JOB_PROGRESS_SQL,
+            ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", jobIds.toArray())));
+    }
+    
+    public record StaleUpload(
+        String photoId,
+        String userId,
+        String jobId,
+        String filename,
+        String multipartUploadId
+    ) {}
+    
+    public record CancelledPhoto(
+        String photoId,
+        String jobId
+    ) {}
+}
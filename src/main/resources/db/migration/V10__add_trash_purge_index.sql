@@ -0,0 +1,3 @@
+-- Keyset index for the trash purge job: (deleted_at, photo_id) walks expired trash in a stable order
+DROP INDEX IF EXISTS idx_photos_deleted_at;
+CREATE INDEX idx_photos_deleted_at_photo_id ON photos(deleted_at, photo_id) WHERE deleted_at IS NOT NULL;
@@ -0,0 +1,20 @@
+-- Materialized per-tag photo counts (photos in the trash are not counted).
+-- Kept up to date incrementally by the tag and delete/restore handlers; label and user_id are
+-- copied from tags so the tag sidebar is a single index read.
+CREATE TABLE tag_stats (
+    tag_id VARCHAR(64) PRIMARY KEY REFERENCES tags(tag_id) ON DELETE CASCADE,
+    user_id VARCHAR(64) NOT NULL REFERENCES users(user_id),
+    label VARCHAR(100) NOT NULL,
+    photo_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_tag_stats_user_label ON tag_stats(user_id, label) INCLUDE (photo_count);
+
+-- Backfill from existing tags
+INSERT INTO tag_stats (tag_id, user_id, label, photo_count)
+SELECT t.tag_id, t.user_id, t.label, COUNT(p.photo_id)
+FROM tags t
+LEFT JOIN photo_tags pt ON pt.tag_id = t.tag_id
+LEFT JOIN photos p ON p.photo_id = pt.photo_id AND p.deleted_at IS NULL
+GROUP BY t.tag_id, t.user_id, t.label;
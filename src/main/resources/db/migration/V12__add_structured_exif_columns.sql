@@ -0,0 +1,84 @@
+-- Typed EXIF fields photos are searched by, extracted at processing time.
+-- taken_at is the camera's local wall-clock time; EXIF does not record a zone.
+ALTER TABLE photos
+    ADD COLUMN taken_at TIMESTAMP,
+    ADD COLUMN camera_make VARCHAR(100),
+    ADD COLUMN camera_model VARCHAR(100),
+    ADD COLUMN lens_model VARCHAR(200),
+    ADD COLUMN iso INT,
+    ADD COLUMN focal_length_mm DOUBLE PRECISION,
+    ADD COLUMN gps_latitude DOUBLE PRECISION,
+    ADD COLUMN gps_longitude DOUBLE PRECISION,
+    ADD CONSTRAINT photos_gps_check CHECK (
+        (gps_latitude IS NULL AND gps_longitude IS NULL) OR
+        (gps_latitude BETWEEN -90 AND 90 AND gps_longitude BETWEEN -180 AND 180)
+    );
+
+-- Nothing queries the raw EXIF blob, and indexing every tag of every photo slowed down writes
+DROP INDEX IF EXISTS idx_photos_exif_json;
+
+-- Backfill from the stored tag descriptions. Values that do not parse are left NULL.
+CREATE FUNCTION exif_backfill_timestamp(value TEXT) RETURNS TIMESTAMP AS $$
+BEGIN
+    RETURN to_timestamp(value, 'YYYY:MM:DD HH24:MI:SS')::TIMESTAMP;
+EXCEPTION WHEN OTHERS THEN
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Leading number of a description such as "200" or "4.2 mm"
+CREATE FUNCTION exif_backfill_number(value TEXT) RETURNS DOUBLE PRECISION AS $$
+    SELECT NULLIF(substring(value FROM '^\s*([0-9]+(?:\.[0-9]+)?)'), '')::DOUBLE PRECISION;
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Degrees/minutes/seconds description such as 37° 46' 29.64" with an N/S/E/W reference
+CREATE FUNCTION exif_backfill_coordinate(value TEXT, ref TEXT) RETURNS DOUBLE PRECISION AS $$
+    SELECT CASE WHEN m IS NULL THEN NULL ELSE
+        (abs(m[1]::DOUBLE PRECISION) + m[2]::DOUBLE PRECISION / 60 + m[3]::DOUBLE PRECISION / 3600)
+        * CASE WHEN m[1] LIKE '-%' OR ref IN ('S', 'W') THEN -1 ELSE 1 END
+    END
+    FROM (SELECT regexp_match(value, '^(-?[0-9]+)° ([0-9]+)'' ([0-9.]+)"') AS m) parsed;
+$$ LANGUAGE sql IMMUTABLE;
+
+ALTER TABLE photos DISABLE TRIGGER photos_updated_at;
+
+UPDATE photos p SET
+    taken_at = COALESCE(
+        exif_backfill_timestamp(p.exif_json -> 'Exif SubIFD' ->> 'Date/Time Original'),
+        exif_backfill_timestamp(p.exif_json -> 'Exif IFD0' ->> 'Date/Time')),
+    camera_make = left(NULLIF(trim(p.exif_json -> 'Exif IFD0' ->> 'Make'), ''), 100),
+    camera_model = left(NULLIF(trim(p.exif_json -> 'Exif IFD0' ->> 'Model'), ''), 100),
+    lens_model = left(NULLIF(trim(p.exif_json -> 'Exif SubIFD' ->> 'Lens Model'), ''), 200),
+    iso = NULLIF(LEAST(exif_backfill_number(p.exif_json -> 'Exif SubIFD' ->> 'ISO Speed Ratings'), 2147483647)::INT, 0),
+    focal_length_mm = NULLIF(exif_backfill_number(p.exif_json -> 'Exif SubIFD' ->> 'Focal Length'), 0)
+WHERE p.exif_json IS NOT NULL;
+
+UPDATE photos p SET
+    gps_latitude = c.latitude,
+    gps_longitude = c.longitude
+FROM (
+    SELECT photo_id,
+        exif_backfill_coordinate(exif_json -> 'GPS' ->> 'GPS Latitude', exif_json -> 'GPS' ->> 'GPS Latitude Ref') AS latitude,
+        exif_backfill_coordinate(exif_json -> 'GPS' ->> 'GPS Longitude', exif_json -> 'GPS' ->> 'GPS Longitude Ref') AS longitude
+    FROM photos
+    WHERE exif_json -> 'GPS' IS NOT NULL
+) c
+WHERE p.photo_id = c.photo_id
+  AND c.latitude BETWEEN -90 AND 90
+  AND c.longitude BETWEEN -180 AND 180
+  AND NOT (c.latitude = 0 AND c.longitude = 0);
+
+ALTER TABLE photos ENABLE TRIGGER photos_updated_at;
+
+DROP FUNCTION exif_backfill_timestamp(TEXT);
+DROP FUNCTION exif_backfill_number(TEXT);
+DROP FUNCTION exif_backfill_coordinate(TEXT, TEXT);
+
+-- Per-user B-tree indexes for the list filters; partial, since many photos carry no EXIF
+CREATE INDEX idx_photos_user_taken_at ON photos(user_id, taken_at) WHERE taken_at IS NOT NULL;
+CREATE INDEX idx_photos_user_camera_make ON photos(user_id, camera_make) WHERE camera_make IS NOT NULL;
+CREATE INDEX idx_photos_user_camera_model ON photos(user_id, camera_model) WHERE camera_model IS NOT NULL;
+CREATE INDEX idx_photos_user_lens_model ON photos(user_id, lens_model) WHERE lens_model IS NOT NULL;
+CREATE INDEX idx_photos_user_iso ON photos(user_id, iso) WHERE iso IS NOT NULL;
+CREATE INDEX idx_photos_user_focal_length ON photos(user_id, focal_length_mm) WHERE focal_length_mm IS NOT NULL;
+CREATE INDEX idx_photos_user_gps ON photos(user_id, gps_latitude, gps_longitude) WHERE gps_latitude IS NOT NULL;
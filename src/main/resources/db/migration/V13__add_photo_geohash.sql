@@ -0,0 +1,65 @@
+-- Full-precision geohash of each photo's GPS position, for map clustering.
+-- A viewport becomes a handful of geohash prefix ranges on a plain B-tree; the "C" collation
+-- keeps the index in byte order so a prefix range is contiguous.
+ALTER TABLE photos ADD COLUMN geohash VARCHAR(12) COLLATE "C";
+
+-- Backfill photos that already have coordinates (same encoding as Geohash.encode)
+CREATE FUNCTION geohash_backfill_encode(lat DOUBLE PRECISION, lon DOUBLE PRECISION, len INT) RETURNS TEXT AS $$
+DECLARE
+    alphabet CONSTANT TEXT := '0123456789bcdefghjkmnpqrstuvwxyz';
+    lat_lo DOUBLE PRECISION := -90;
+    lat_hi DOUBLE PRECISION := 90;
+    lon_lo DOUBLE PRECISION := -180;
+    lon_hi DOUBLE PRECISION := 180;
+    mid DOUBLE PRECISION;
+    even BOOLEAN := TRUE;
+    bits INT := 0;
+    code INT := 0;
+    hash TEXT := '';
+BEGIN
+    WHILE length(hash) < len LOOP
+        IF even THEN
+            mid := (lon_lo + lon_hi) / 2;
+            IF lon >= mid THEN
+                code := code * 2 + 1;
+                lon_lo := mid;
+            ELSE
+                code := code * 2;
+                lon_hi := mid;
+            END IF;
+        ELSE
+            mid := (lat_lo + lat_hi) / 2;
+            IF lat >= mid THEN
+                code := code * 2 + 1;
+                lat_lo := mid;
+            ELSE
+                code := code * 2;
+                lat_hi := mid;
+            END IF;
+        END IF;
+        even := NOT even;
+        bits := bits + 1;
+        IF bits = 5 THEN
+            hash := hash || substr(alphabet, code + 1, 1);
+            bits := 0;
+            code := 0;
+        END IF;
+    END LOOP;
+    RETURN hash;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+ALTER TABLE photos DISABLE TRIGGER photos_updated_at;
+
+UPDATE photos
+SET geohash = geohash_backfill_encode(gps_latitude, gps_longitude, 12)
+WHERE gps_latitude IS NOT NULL;
+
+ALTER TABLE photos ENABLE TRIGGER photos_updated_at;
+
+DROP FUNCTION geohash_backfill_encode(DOUBLE PRECISION, DOUBLE PRECISION, INT);
+
+-- Map queries only show photos outside the trash; coordinates are included for viewport clipping
+CREATE INDEX idx_photos_user_geohash ON photos(user_id, geohash)
+    INCLUDE (gps_latitude, gps_longitude)
+    WHERE geohash IS NOT NULL AND deleted_at IS NULL;
@@ -0,0 +1,26 @@
+-- Per-day photo counts for the timeline scrubber (photos in the trash are not counted).
+-- One row per user, tag, terminal status and capture day; tag_id '' holds the counts across all
+-- photos. The capture day is the EXIF capture date, or the upload date (UTC) for photos without one.
+-- Kept up to date incrementally at completion, failure, tagging and delete/restore time.
+CREATE TABLE photo_date_buckets (
+    user_id VARCHAR(64) NOT NULL REFERENCES users(user_id),
+    tag_id VARCHAR(64) NOT NULL DEFAULT '',
+    status VARCHAR(20) NOT NULL,
+    bucket_date DATE NOT NULL,
+    photo_count INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, tag_id, status, bucket_date)
+);
+
+-- Backfill from existing photos
+INSERT INTO photo_date_buckets (user_id, tag_id, status, bucket_date, photo_count)
+SELECT p.user_id, t.tag_id, p.status,
+       COALESCE(p.taken_at::date, (p.created_at AT TIME ZONE 'UTC')::date),
+       COUNT(*)
+FROM photos p
+CROSS JOIN LATERAL (
+    SELECT '' AS tag_id
+    UNION ALL
+    SELECT pt.tag_id FROM photo_tags pt WHERE pt.photo_id = p.photo_id
+) t
+WHERE p.deleted_at IS NULL AND p.status IN ('COMPLETED', 'FAILED')
+GROUP BY 1, 2, 3, 4;
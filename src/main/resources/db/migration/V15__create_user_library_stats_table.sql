@@ -0,0 +1,33 @@
+-- Materialized per-user library totals for dashboards and quota checks.
+-- photo_count, total_bytes and the status counts cover photos outside the trash; trashed_count
+-- and trashed_bytes cover the trash. QUEUED, UPLOADING and PROCESSING photos count as pending.
+-- Kept up to date incrementally by the upload, processing and delete handlers.
+CREATE TABLE user_library_stats (
+    user_id VARCHAR(64) PRIMARY KEY REFERENCES users(user_id),
+    photo_count INTEGER NOT NULL DEFAULT 0,
+    total_bytes BIGINT NOT NULL DEFAULT 0,
+    pending_count INTEGER NOT NULL DEFAULT 0,
+    completed_count INTEGER NOT NULL DEFAULT 0,
+    failed_count INTEGER NOT NULL DEFAULT 0,
+    cancelled_count INTEGER NOT NULL DEFAULT 0,
+    trashed_count INTEGER NOT NULL DEFAULT 0,
+    trashed_bytes BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- Backfill from existing photos
+INSERT INTO user_library_stats (
+    user_id, photo_count, total_bytes, pending_count, completed_count, failed_count, cancelled_count,
+    trashed_count, trashed_bytes)
+SELECT u.user_id,
+       COUNT(p.photo_id) FILTER (WHERE p.deleted_at IS NULL),
+       COALESCE(SUM(p.bytes) FILTER (WHERE p.deleted_at IS NULL), 0),
+       COUNT(p.photo_id) FILTER (WHERE p.deleted_at IS NULL AND p.status IN ('QUEUED', 'UPLOADING', 'PROCESSING')),
+       COUNT(p.photo_id) FILTER (WHERE p.deleted_at IS NULL AND p.status = 'COMPLETED'),
+       COUNT(p.photo_id) FILTER (WHERE p.deleted_at IS NULL AND p.status = 'FAILED'),
+       COUNT(p.photo_id) FILTER (WHERE p.deleted_at IS NULL AND p.status = 'CANCELLED'),
+       COUNT(p.photo_id) FILTER (WHERE p.deleted_at IS NOT NULL),
+       COALESCE(SUM(p.bytes) FILTER (WHERE p.deleted_at IS NOT NULL), 0)
+FROM users u
+LEFT JOIN photos p ON p.user_id = u.user_id
+GROUP BY u.user_id;
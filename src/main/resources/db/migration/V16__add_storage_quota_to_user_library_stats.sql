@@ -0,0 +1,21 @@
+-- Storage quota accounting on the per-user stats row, so job creation checks the quota with a
+-- single-row conditional UPDATE instead of summing the user's photos.
+-- reserved_bytes covers pending photos (QUEUED, UPLOADING, PROCESSING) and stored_bytes covers
+-- COMPLETED photos, both including the trash: space is held until a photo fails, is cancelled or
+-- is permanently deleted. quota_bytes overrides the configured default quota for one user.
+ALTER TABLE user_library_stats ADD COLUMN reserved_bytes BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE user_library_stats ADD COLUMN stored_bytes BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE user_library_stats ADD COLUMN quota_bytes BIGINT;
+
+-- Backfill from existing photos
+UPDATE user_library_stats s
+SET reserved_bytes = a.reserved_bytes,
+    stored_bytes = a.stored_bytes
+FROM (
+    SELECT user_id,
+           COALESCE(SUM(bytes) FILTER (WHERE status IN ('QUEUED', 'UPLOADING', 'PROCESSING')), 0) AS reserved_bytes,
+           COALESCE(SUM(bytes) FILTER (WHERE status = 'COMPLETED'), 0) AS stored_bytes
+    FROM photos
+    GROUP BY user_id
+) a
+WHERE s.user_id = a.user_id;
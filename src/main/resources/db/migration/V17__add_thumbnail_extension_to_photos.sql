@@ -0,0 +1,5 @@
+-- File extension of a photo's thumbnails (jpg, png, webp), set when its first thumbnail is encoded.
+-- Thumbnails are encoded with derivative profiles rather than in the original's format, so their
+-- keys carry the encoded format's extension. NULL for photos whose thumbnails were written before,
+-- which are stored under the original's extension.
+ALTER TABLE photos ADD COLUMN thumbnail_extension VARCHAR(10);
@@ -0,0 +1,6 @@
+-- Track the S3 multipart upload backing a photo so part URLs can be issued on demand
+ALTER TABLE photos ADD COLUMN multipart_upload_id TEXT;
+ALTER TABLE photos ADD COLUMN multipart_part_size BIGINT;
+
+ALTER TABLE photos ADD CONSTRAINT photos_multipart_part_size_check
+    CHECK (multipart_part_size IS NULL OR multipart_part_size > 0);
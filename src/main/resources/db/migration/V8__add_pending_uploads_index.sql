@@ -0,0 +1,3 @@
+-- Supports the abandoned upload reaper's scan for photos still waiting on an upload
+CREATE INDEX idx_photos_pending_updated ON photos(updated_at)
+    WHERE status IN ('QUEUED', 'UPLOADING');
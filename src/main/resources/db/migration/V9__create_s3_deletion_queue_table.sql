@@ -0,0 +1,10 @@
+-- S3 objects whose deletion failed and should be retried
+CREATE TABLE s3_deletion_queue (
+    s3_key TEXT PRIMARY KEY,
+    attempts INT NOT NULL DEFAULT 0,
+    last_error TEXT,
+    next_attempt_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+CREATE INDEX idx_s3_deletion_queue_next_attempt ON s3_deletion_queue(next_attempt_at);
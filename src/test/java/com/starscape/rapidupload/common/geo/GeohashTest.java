@@ -0,0 +1,76 @@
+package com.starscape.rapidupload.common.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geohash encoding, cell sizes and box coverings.
+ */
+class GeohashTest {
+    
+    @Test
+    void shouldEncodeKnownPoint() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("u4pru", Geohash.encode(57.64911, 10.40744, 5));
+        assertEquals("s", Geohash.encode(0, 0, 1));
+    }
+    
+    @Test
+    void shouldRejectPrecisionOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> Geohash.encode(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> Geohash.encode(0, 0, Geohash.MAX_PRECISION + 1));
+    }
+    
+    @Test
+    void shouldSplitBitsBetweenLongitudeAndLatitude() {
+        // Odd lengths give longitude the extra bit
+        assertEquals(45.0, Geohash.cellWidth(1));
+        assertEquals(45.0, Geohash.cellHeight(1));
+        assertEquals(11.25, Geohash.cellWidth(2));
+        assertEquals(5.625, Geohash.cellHeight(2));
+        assertEquals(360.0 / (1L << 30), Geohash.cellWidth(12));
+        assertEquals(180.0 / (1L << 30), Geohash.cellHeight(12));
+    }
+    
+    @Test
+    void shouldCoverPointWithItsOwnCell() {
+        assertEquals(List.of("u4pru"), Geohash.covering(57.64911, 57.64911, 10.40744, 10.40744, 5));
+    }
+    
+    @Test
+    void shouldCoverEveryPointInBox() {
+        double minLat = 40.1, maxLat = 41.3, minLon = -74.6, maxLon = -72.9;
+        for (int precision = 1; precision <= 5; precision++) {
+            List<String> covering = Geohash.covering(minLat, maxLat, minLon, maxLon, precision);
+            Set<String> cells = new HashSet<>(covering);
+            
+            assertEquals(covering.size(), cells.size());
+            assertTrue(covering.size() <= Geohash.cellsSpanned(minLat, maxLat, minLon, maxLon, precision));
+            
+            Random random = new Random(precision);
+            for (int i = 0; i < 1000; i++) {
+                double lat = minLat + random.nextDouble() * (maxLat - minLat);
+                double lon = minLon + random.nextDouble() * (maxLon - minLon);
+                assertTrue(cells.contains(Geohash.encode(lat, lon, precision)));
+            }
+            assertTrue(cells.contains(Geohash.encode(maxLat, maxLon, precision)));
+        }
+    }
+    
+    @Test
+    void shouldCoverBoxAtTheEdgesOfTheMap() {
+        List<String> covering = Geohash.covering(80, 90, 170, 180, 2);
+        
+        assertTrue(covering.contains(Geohash.encode(90, 180, 2)));
+        assertTrue(covering.contains(Geohash.encode(80, 170, 2)));
+        assertEquals(Set.copyOf(covering).size(), covering.size());
+        // The whole map at length 1 is the 32 base cells
+        assertEquals(32, Geohash.covering(-90, 90, -180, 180, 1).size());
+    }
+}
@@ -0,0 +1,105 @@
+package com.starscape.rapidupload.features.listphotos.app;
+
+import com.starscape.rapidupload.common.config.ProcessingProperties;
+import com.starscape.rapidupload.common.geo.Geohash;
+import com.starscape.rapidupload.features.listphotos.infra.PhotoGeoRepository;
+import com.starscape.rapidupload.features.listphotos.infra.PhotoSearchRepository.GeoBox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for how the map view sizes its cells and geohash ranges: the precision fitted to
+ * the viewport, the cap on requested precisions, and viewports across the antimeridian.
+ */
+class GeoPhotosHandlerTest {
+    
+    private static final int TARGET_CELLS = 64;
+    private static final int MAX_CELLS = 1024;
+    
+    private PhotoGeoRepository repository;
+    private GeoPhotosHandler handler;
+    
+    @BeforeEach
+    void setUp() {
+        repository = mock(PhotoGeoRepository.class);
+        when(repository.findClusters(anyString(), anyList(), anyInt(), any(), anyInt(), anyInt())).thenReturn(List.of());
+        handler = new GeoPhotosHandler(
+            repository, mock(S3Presigner.class), new ProcessingProperties(), "bucket", TARGET_CELLS, MAX_CELLS);
+    }
+    
+    @Test
+    void shouldFitPrecisionToTargetCells() {
+        int precision = handler.handle("user", 40, 41, -75, -73, null, 3).precision();
+        
+        assertTrue(Geohash.cellsSpanned(40, 41, -75, -73, precision) <= TARGET_CELLS);
+        assertTrue(Geohash.cellsSpanned(40, 41, -75, -73, precision + 1) > TARGET_CELLS);
+    }
+    
+    @Test
+    void shouldKeepRequestedPrecisionWithinMaxCells() {
+        assertEquals(3, handler.handle("user", 40, 41, -75, -73, 3, 3).precision());
+    }
+    
+    @Test
+    void shouldLowerRequestedPrecisionToMaxCells() {
+        // Length 2 cells would need 34 x 34 = 1156 cells for the whole map
+        assertEquals(1, handler.handle("user", -90, 90, -180, 180, 12, 3).precision());
+        
+        int precision = handler.handle("user", 40, 41, -75, -73, 12, 3).precision();
+        assertTrue(Geohash.cellsSpanned(40, 41, -75, -73, precision) <= MAX_CELLS);
+        assertTrue(Geohash.cellsSpanned(40, 41, -75, -73, precision + 1) > MAX_CELLS);
+    }
+    
+    @Test
+    void shouldBoundRowsByMaxCells() {
+        handler.handle("user", 40, 41, -75, -73, null, 3);
+        
+        verify(repository).findClusters(eq("user"), anyList(), anyInt(), any(), eq(3), eq(MAX_CELLS * 3));
+    }
+    
+    @Test
+    void shouldCoverBothSidesOfTheAntimeridian() {
+        handler.handle("user", -10, 10, 170, -170, null, 3);
+        
+        List<String> prefixes = capturedPrefixes();
+        int length = prefixes.get(0).length();
+        assertTrue(prefixes.contains(Geohash.encode(0, 175, length)));
+        assertTrue(prefixes.contains(Geohash.encode(0, -175, length)));
+        assertFalse(prefixes.contains(Geohash.encode(0, 0, length)));
+        
+        // The viewport is passed through with its wrapped longitudes
+        ArgumentCaptor<GeoBox> box = ArgumentCaptor.forClass(GeoBox.class);
+        verify(repository).findClusters(anyString(), anyList(), anyInt(), box.capture(), anyInt(), anyInt());
+        assertEquals(170, box.getValue().minLongitude());
+        assertEquals(-170, box.getValue().maxLongitude());
+    }
+    
+    @Test
+    void shouldRejectInvalidViewportAndPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> handler.handle("user", 41, 40, -75, -73, null, 3));
+        assertThrows(IllegalArgumentException.class, () -> handler.handle("user", 40, 41, -181, -73, null, 3));
+        assertThrows(IllegalArgumentException.class, () -> handler.handle("user", 40, 41, -75, -73, 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> handler.handle("user", 40, 41, -75, -73, 13, 3));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<String> capturedPrefixes() {
+        ArgumentCaptor<List<String>> prefixes = ArgumentCaptor.forClass(List.class);
+        verify(repository).findClusters(anyString(), prefixes.capture(), anyInt(), any(), anyInt(), anyInt());
+        return prefixes.getValue();
+    }
+}
@@ -0,0 +1,111 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import com.starscape.rapidupload.features.tags.app.TagBitmapIndex.PhotoIdPage;
+import com.starscape.rapidupload.features.tags.infra.TagBitmapRepository;
+import com.starscape.rapidupload.features.tags.infra.TagBitmapRepository.IndexedPhoto;
+import com.starscape.rapidupload.features.tags.infra.TagBitmapRepository.TagLink;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import com.starscape.rapidupload.features.uploadphoto.domain.events.PhotoProcessingCompleted;
+import com.starscape.rapidupload.features.uploadphoto.domain.events.PhotoQueued;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for building a user's tag bitmap index from the database and keeping it
+ * current from commands and photo events.
+ */
+class TagBitmapIndexTest {
+    
+    private static final String USER = "user-1";
+    private static final TagFilter BEACH = new TagFilter(List.of("beach"), List.of(), List.of());
+    
+    private TagBitmapRepository repository;
+    private TagBitmapIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        repository = mock(TagBitmapRepository.class);
+        when(repository.findPhotos(USER)).thenReturn(List.of(
+            new IndexedPhoto("p1", "COMPLETED", false),
+            new IndexedPhoto("p2", "FAILED", false),
+            new IndexedPhoto("p3", "COMPLETED", false),
+            new IndexedPhoto("p4", "COMPLETED", true)
+        ));
+        when(repository.findTagLinks(USER)).thenReturn(List.of(
+            new TagLink("beach", "p1"),
+            new TagLink("beach", "p2"),
+            new TagLink("beach", "p3"),
+            new TagLink("beach", "p4")
+        ));
+        index = new TagBitmapIndex(repository, 10_000_000, 30);
+    }
+    
+    @Test
+    void shouldBuildIndexOnceAndPageFromIt() {
+        PhotoIdPage first = index.findPage(USER, BEACH, null, 0, 2);
+        PhotoIdPage second = index.findPage(USER, BEACH, null, 2, 2);
+        
+        assertEquals(List.of("p3", "p2"), first.photoIds());
+        assertEquals(List.of("p1"), second.photoIds());
+        assertEquals(3, first.total());
+        assertEquals(1, index.findPage(USER, BEACH, PhotoStatus.FAILED, 0, 10).total());
+        verify(repository, times(1)).findPhotos(USER);
+    }
+    
+    @Test
+    void shouldLeaveLargeMatchesToTheDatabase() {
+        assertEquals(Optional.of(List.of("p3", "p2", "p1")), index.findAll(USER, BEACH, null, 3));
+        assertEquals(Optional.empty(), index.findAll(USER, BEACH, null, 2));
+        assertEquals(Optional.of(List.of("p3", "p1")), index.findAll(USER, BEACH, PhotoStatus.COMPLETED, 2));
+    }
+    
+    @Test
+    void shouldApplyCommandsAndEventsToLoadedIndex() {
+        index.findPage(USER, BEACH, null, 0, 10);
+        
+        index.onPhotoQueued(new PhotoQueued("p5", USER, "p5.jpg", 1000, Instant.now()));
+        index.photosTagged(USER, "beach", List.of("p5"));
+        index.photosTrashed(USER, List.of("p1"));
+        index.photosRestored(USER, List.of("p4"));
+        
+        assertEquals(List.of("p5", "p4", "p3", "p2"), index.findPage(USER, BEACH, null, 0, 10).photoIds());
+        // Queued photos only match once they reach an indexed status
+        assertEquals(List.of("p4", "p3"), index.findPage(USER, BEACH, PhotoStatus.COMPLETED, 0, 10).photoIds());
+        
+        index.onPhotoProcessingCompleted(new PhotoProcessingCompleted("p5", USER, "job", 10, 10, "sum", Instant.now()));
+        assertEquals(List.of("p5", "p4", "p3"), index.findPage(USER, BEACH, PhotoStatus.COMPLETED, 0, 10).photoIds());
+        
+        index.photoUntagged(USER, "beach", "p3");
+        assertEquals(List.of("p5", "p4", "p2"), index.findPage(USER, BEACH, null, 0, 10).photoIds());
+        verify(repository, times(1)).findPhotos(USER);
+    }
+    
+    @Test
+    void shouldRebuildIndexWhenChangeCannotBePlaced() {
+        index.findPage(USER, BEACH, null, 0, 10);
+        
+        // A photo the index never saw means it missed an event
+        index.photosTagged(USER, "beach", List.of("unknown"));
+        index.findPage(USER, BEACH, null, 0, 10);
+        
+        verify(repository, times(2)).findPhotos(USER);
+    }
+    
+    @Test
+    void shouldIgnoreChangesForUnloadedUsers() {
+        index.photosTrashed(USER, List.of("p1"));
+        
+        // Nothing is cached to update; the index is built from the database on first use
+        assertEquals(List.of("p3", "p2", "p1"), index.findPage(USER, BEACH, null, 0, 10).photoIds());
+    }
+}
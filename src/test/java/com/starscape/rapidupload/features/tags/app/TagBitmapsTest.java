@@ -0,0 +1,120 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the AND/OR/NOT set operations, status and trash masks, and newest-first
+ * paging of a user's tag bitmaps.
+ */
+class TagBitmapsTest {
+    
+    private TagBitmaps bitmaps;
+    
+    @BeforeEach
+    void setUp() {
+        bitmaps = new TagBitmaps();
+        // Added oldest first, so p6 is the newest photo
+        bitmaps.addPhoto("p1", PhotoStatus.COMPLETED, false);
+        bitmaps.addPhoto("p2", PhotoStatus.COMPLETED, false);
+        bitmaps.addPhoto("p3", PhotoStatus.FAILED, false);
+        bitmaps.addPhoto("p4", PhotoStatus.QUEUED, false);
+        bitmaps.addPhoto("p5", PhotoStatus.COMPLETED, false);
+        bitmaps.addPhoto("p6", PhotoStatus.COMPLETED, true);
+        bitmaps.tag("beach", List.of("p1", "p2", "p5", "p6"));
+        bitmaps.tag("sunset", List.of("p2", "p3", "p5"));
+        bitmaps.tag("family", List.of("p5"));
+    }
+    
+    @Test
+    void shouldIntersectAllOfLabels() {
+        assertEquals(List.of("p5", "p2"), find(new TagFilter(List.of("beach", "sunset"), List.of(), List.of())));
+    }
+    
+    @Test
+    void shouldUniteAnyOfLabels() {
+        assertEquals(List.of("p5", "p3", "p2"), find(new TagFilter(List.of(), List.of("family", "sunset"), List.of())));
+    }
+    
+    @Test
+    void shouldSubtractNoneOfLabels() {
+        assertEquals(List.of("p4", "p1"), find(new TagFilter(List.of(), List.of(), List.of("sunset"))));
+    }
+    
+    @Test
+    void shouldCombineAllAnyAndNoneOf() {
+        TagFilter filter = new TagFilter(List.of("beach"), List.of("sunset", "family"), List.of("family"));
+        
+        assertEquals(List.of("p2"), find(filter));
+    }
+    
+    @Test
+    void shouldMatchNothingForUnknownRequiredLabel() {
+        assertEquals(List.of(), find(new TagFilter(List.of("beach", "missing"), List.of(), List.of())));
+        assertEquals(List.of(), find(new TagFilter(List.of(), List.of("missing"), List.of())));
+        assertEquals(List.of("p5", "p2", "p1"), find(new TagFilter(List.of("beach"), List.of(), List.of("missing"))));
+    }
+    
+    @Test
+    void shouldFilterByIndexedStatus() {
+        TagFilter sunset = new TagFilter(List.of("sunset"), List.of(), List.of());
+        
+        assertEquals(List.of("p5", "p2"), bitmaps.photoIds(bitmaps.match(sunset, PhotoStatus.COMPLETED)));
+        assertEquals(List.of("p3"), bitmaps.photoIds(bitmaps.match(sunset, PhotoStatus.FAILED)));
+    }
+    
+    @Test
+    void shouldExcludeTrashedPhotosUntilRestored() {
+        TagFilter beach = new TagFilter(List.of("beach"), List.of(), List.of());
+        assertEquals(List.of("p5", "p2", "p1"), find(beach));
+        
+        assertTrue(bitmaps.setDeleted(List.of("p6"), false));
+        assertEquals(List.of("p6", "p5", "p2", "p1"), find(beach));
+        
+        assertTrue(bitmaps.setDeleted(List.of("p2"), true));
+        assertEquals(List.of("p6", "p5", "p1"), find(beach));
+    }
+    
+    @Test
+    void shouldPageNewestFirst() {
+        var match = bitmaps.match(new TagFilter(List.of("beach"), List.of(), List.of()), null);
+        
+        assertEquals(List.of("p5", "p2"), bitmaps.photoIds(match, 0, 2));
+        assertEquals(List.of("p1"), bitmaps.photoIds(match, 2, 2));
+        assertEquals(List.of(), bitmaps.photoIds(match, 3, 2));
+    }
+    
+    @Test
+    void shouldApplyStatusAndTagChanges() {
+        assertTrue(bitmaps.setStatus("p2", PhotoStatus.FAILED));
+        bitmaps.untag("sunset", "p5");
+        
+        TagFilter sunset = new TagFilter(List.of("sunset"), List.of(), List.of());
+        assertEquals(List.of("p3", "p2"), bitmaps.photoIds(bitmaps.match(sunset, PhotoStatus.FAILED)));
+        assertEquals(List.of(), bitmaps.photoIds(bitmaps.match(sunset, PhotoStatus.COMPLETED)));
+    }
+    
+    @Test
+    void shouldReportChangesToUnknownPhotos() {
+        assertFalse(bitmaps.setStatus("unknown", PhotoStatus.COMPLETED));
+        assertFalse(bitmaps.setDeleted(List.of("unknown"), true));
+        assertFalse(bitmaps.tag("beach", List.of("unknown")));
+    }
+    
+    @Test
+    void shouldIgnorePhotoAddedTwice() {
+        bitmaps.addPhoto("p1", PhotoStatus.FAILED, true);
+        
+        assertEquals(6, bitmaps.size());
+        assertEquals(List.of("p5", "p2", "p1"), find(new TagFilter(List.of("beach"), List.of(), List.of())));
+    }
+    
+    private List<String> find(TagFilter filter) {
+        return bitmaps.photoIds(bitmaps.match(filter, null));
+    }
+}
@@ -0,0 +1,76 @@
+package com.starscape.rapidupload.features.tags.app;
+
+import com.starscape.rapidupload.features.tags.infra.TagStatsRepository.TagUsage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for prefix matching and usage ranking of tag suggestions.
+ */
+class TagPrefixIndexTest {
+    
+    private static final TagPrefixIndex INDEX = new TagPrefixIndex(List.of(
+        new TagUsage("sunset", 5),
+        new TagUsage("Summer", 12),
+        new TagUsage("sun", 12),
+        new TagUsage("beach", 30),
+        new TagUsage("sunrise", 1),
+        new TagUsage("snow", 7)
+    ));
+    
+    @Test
+    void shouldRankPrefixMatchesByUsageThenLabel() {
+        assertEquals(List.of("Summer", "sun", "sunset", "sunrise"), labels(INDEX.suggest("su", 10)));
+    }
+    
+    @Test
+    void shouldMatchPrefixIgnoringCaseAndWhitespace() {
+        assertEquals(List.of("Summer"), labels(INDEX.suggest("  SUM ", 10)));
+        assertEquals(List.of("sun", "sunset", "sunrise"), labels(INDEX.suggest("Sun", 10)));
+    }
+    
+    @Test
+    void shouldMatchEveryTagForBlankPrefix() {
+        assertEquals(List.of("beach", "Summer", "sun", "snow", "sunset", "sunrise"), labels(INDEX.suggest("", 10)));
+        assertEquals(List.of("beach", "Summer"), labels(INDEX.suggest(null, 2)));
+    }
+    
+    @Test
+    void shouldKeepOnlyTheMostUsedMatchesOverLimit() {
+        assertEquals(List.of("Summer", "sun"), labels(INDEX.suggest("s", 2)));
+        assertEquals(List.of("Summer", "sun", "snow"), labels(INDEX.suggest("s", 3)));
+    }
+    
+    @Test
+    void shouldReturnNothingForUnmatchedPrefix() {
+        assertTrue(INDEX.suggest("x", 10).isEmpty());
+        assertTrue(INDEX.suggest("sunsets", 10).isEmpty());
+        assertTrue(new TagPrefixIndex(List.of()).suggest("s", 10).isEmpty());
+    }
+    
+    @Test
+    void shouldAgreeWithLinearScanOnLargeIndex() {
+        List<TagUsage> usage = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            usage.add(new TagUsage("tag" + i, (i * 7919L) % 101));
+        }
+        TagPrefixIndex index = new TagPrefixIndex(usage);
+        
+        List<TagUsage> expected = usage.stream()
+            .filter(tag -> tag.label().startsWith("tag1"))
+            .sorted((a, b) -> a.usageCount() != b.usageCount()
+                ? Long.compare(b.usageCount(), a.usageCount())
+                : a.label().compareTo(b.label()))
+            .limit(20)
+            .toList();
+        assertEquals(expected, index.suggest("tag1", 20));
+    }
+    
+    private static List<String> labels(List<TagUsage> tags) {
+        return tags.stream().map(TagUsage::label).toList();
+    }
+}
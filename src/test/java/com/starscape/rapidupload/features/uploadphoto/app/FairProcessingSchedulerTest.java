@@ -0,0 +1,160 @@
+package com.starscape.rapidupload.features.uploadphoto.app;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for the deficit round-robin order and per-user admission of the fair scheduler.
+ * Workers run one at a time on a manual executor, so the order photos reach processing is the
+ * order the scheduler hands them out.
+ */
+class FairProcessingSchedulerTest {
+    
+    private static final long QUANTUM = 100;
+    
+    private ManualExecutor executor;
+    private PhotoProcessingService processingService;
+    private List<String> processed;
+    
+    @BeforeEach
+    void setUp() {
+        executor = new ManualExecutor();
+        processingService = mock(PhotoProcessingService.class);
+        processed = new ArrayList<>();
+        doAnswer(invocation -> processed.add(invocation.getArgument(0)))
+            .when(processingService).processPhoto(anyString(), anyString(), anyLong(), anyBoolean());
+    }
+    
+    @Test
+    void shouldServeNewlyActiveUserOnItsFirstTurn() {
+        FairProcessingScheduler scheduler = scheduler(200, 20);
+        for (int i = 1; i <= 4; i++) {
+            scheduler.submit("import", "import-" + i, "etag", QUANTUM);
+        }
+        executor.runNext();
+        
+        // The importing user has spent its turn; the new user starts with a full quantum
+        scheduler.submit("interactive", "interactive-1", "etag", QUANTUM);
+        executor.runAll();
+        
+        assertEquals(List.of("import-1", "interactive-1", "import-2", "import-3", "import-4"), processed);
+    }
+    
+    @Test
+    void shouldServePhotoLargerThanQuantumAfterEnoughTurns() {
+        FairProcessingScheduler scheduler = scheduler(200, 20);
+        scheduler.submit("large", "large-1", "etag", 2 * QUANTUM + QUANTUM / 2);
+        for (int i = 1; i <= 4; i++) {
+            scheduler.submit("small", "small-" + i, "etag", QUANTUM);
+        }
+        executor.runAll();
+        
+        // The large photo waits until three quanta cover it, while the other user gets one photo per turn
+        assertEquals(List.of("small-1", "small-2", "large-1", "small-3", "small-4"), processed);
+    }
+    
+    @Test
+    void shouldDeferPhotosOverPerUserCap() throws Exception {
+        FairProcessingScheduler scheduler = scheduler(200, 2);
+        CompletableFuture<Void> first = scheduler.submit("import", "import-1", "etag", QUANTUM);
+        scheduler.submit("import", "import-2", "etag", QUANTUM);
+        
+        CompletableFuture<Void> deferred = scheduler.submit("import", "import-3", "etag", QUANTUM);
+        assertDeferred(deferred);
+        
+        // Other users are still admitted
+        CompletableFuture<Void> other = scheduler.submit("interactive", "interactive-1", "etag", QUANTUM);
+        assertFalse(other.isDone());
+        
+        // A finished photo frees a slot for the capped user
+        executor.runNext();
+        assertTrue(first.isDone());
+        first.get();
+        CompletableFuture<Void> retried = scheduler.submit("import", "import-3", "etag", QUANTUM);
+        assertFalse(retried.isCompletedExceptionally());
+        executor.runAll();
+        assertTrue(retried.isDone());
+    }
+    
+    @Test
+    void shouldDeferPhotosWhenBufferIsFull() {
+        FairProcessingScheduler scheduler = scheduler(2, 20);
+        scheduler.submit("first", "first-1", "etag", QUANTUM);
+        scheduler.submit("second", "second-1", "etag", QUANTUM);
+        
+        assertDeferred(scheduler.submit("third", "third-1", "etag", QUANTUM));
+    }
+    
+    private FairProcessingScheduler scheduler(int bufferSize, int maxPerUser) {
+        return new FairProcessingScheduler(
+            processingService, executor, new SimpleMeterRegistry(), QUANTUM, bufferSize, maxPerUser, false);
+    }
+    
+    private static void assertDeferred(CompletableFuture<Void> future) {
+        assertTrue(future.isCompletedExceptionally());
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(ProcessingDeferredException.class, e.getCause());
+    }
+    
+    /**
+     * Queues submitted workers until the test runs them.
+     */
+    private static final class ManualExecutor extends AbstractExecutorService {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        
+        @Override
+        public void execute(Runnable command) {
+            tasks.addLast(command);
+        }
+        
+        void runNext() {
+            tasks.pollFirst().run();
+        }
+        
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                runNext();
+            }
+        }
+        
+        @Override
+        public void shutdown() {
+        }
+        
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+        
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+        
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+        
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
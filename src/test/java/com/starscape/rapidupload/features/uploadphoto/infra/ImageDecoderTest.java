@@ -0,0 +1,84 @@
+package com.starscape.rapidupload.features.uploadphoto.infra;
+
+import com.starscape.rapidupload.common.config.ProcessingProperties;
+import com.starscape.rapidupload.features.uploadphoto.infra.ImageDecoder.ImageDimensions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for reduced-resolution decoding and the pixel limit.
+ */
+class ImageDecoderTest {
+    
+    @Test
+    void shouldSubsampleByHalfOnlyWhenLongestSideStaysAtTarget() {
+        assertEquals(1, ImageDecoder.subsamplingFactor(100, 256));
+        assertEquals(1, ImageDecoder.subsamplingFactor(511, 256));
+        assertEquals(2, ImageDecoder.subsamplingFactor(512, 256));
+    }
+    
+    @Test
+    void shouldSubsampleByQuarterAtFourTimesTarget() {
+        assertEquals(2, ImageDecoder.subsamplingFactor(1023, 256));
+        assertEquals(4, ImageDecoder.subsamplingFactor(1024, 256));
+    }
+    
+    @Test
+    void shouldSubsampleByEighthAtMost() {
+        assertEquals(4, ImageDecoder.subsamplingFactor(2047, 256));
+        assertEquals(8, ImageDecoder.subsamplingFactor(2048, 256));
+        assertEquals(8, ImageDecoder.subsamplingFactor(100_000, 256));
+        assertEquals(8, ImageDecoder.subsamplingFactor(8192, 1024));
+    }
+    
+    @Test
+    void shouldDecodeJpegAtReducedResolution() throws IOException {
+        ImageDecoder decoder = decoder(250_000_000);
+        
+        Optional<BufferedImage> decoded = decoder.decodeForThumbnail(jpeg(2048, 1024), "image/jpeg", 256);
+        
+        assertTrue(decoded.isPresent());
+        assertEquals(256, decoded.get().getWidth());
+        assertEquals(128, decoded.get().getHeight());
+    }
+    
+    @Test
+    void shouldAcceptImageAtPixelLimit() throws IOException {
+        ImageDecoder decoder = decoder(1000 * 800);
+        
+        ImageDimensions dimensions = decoder.readDimensions(jpeg(1000, 800));
+        
+        assertEquals(1000, dimensions.width());
+        assertEquals(800, dimensions.height());
+    }
+    
+    @Test
+    void shouldRejectImageOverPixelLimit() throws IOException {
+        ImageDecoder decoder = decoder(1000 * 800);
+        byte[] image = jpeg(1001, 800);
+        
+        assertThrows(ImageTooLargeException.class, () -> decoder.readDimensions(image));
+        assertThrows(ImageTooLargeException.class, () -> decoder.decodeForThumbnail(image, "image/jpeg", 256));
+        assertThrows(ImageTooLargeException.class, () -> decoder.decodeForThumbnail(image, "image/png", 256));
+    }
+    
+    private static ImageDecoder decoder(long maxPixels) {
+        ProcessingProperties properties = new ProcessingProperties();
+        properties.setMaxPixels(maxPixels);
+        return new ImageDecoder(properties);
+    }
+    
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", output);
+        return output.toByteArray();
+    }
+}
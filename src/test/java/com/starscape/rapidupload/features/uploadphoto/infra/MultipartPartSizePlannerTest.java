@@ -0,0 +1,109 @@
+package com.starscape.rapidupload.features.uploadphoto.infra;
+
+import com.starscape.rapidupload.features.uploadphoto.api.dto.UploadHints;
+import com.starscape.rapidupload.features.uploadphoto.infra.MultipartPartSizePlanner.PartPlan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for multipart part sizing: S3's part limits, the per-connection time window
+ * and the spread of parts across client connections.
+ */
+class MultipartPartSizePlannerTest {
+    
+    private static final long MB = 1024 * 1024;
+    private static final long GB = 1024 * MB;
+    
+    private SimpleMeterRegistry meterRegistry;
+    private MultipartPartSizePlanner planner;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // 5MB threshold, 8MB default parts, 10 seconds per part
+        planner = new MultipartPartSizePlanner(meterRegistry, 5 * MB, 8 * MB, 10);
+    }
+    
+    @Test
+    void shouldUseMultipartOnlyAboveThreshold() {
+        assertFalse(planner.shouldUseMultipart(5 * MB));
+        assertTrue(planner.shouldUseMultipart(5 * MB + 1));
+    }
+    
+    @Test
+    void shouldUseDefaultPartSizeWithoutHints() {
+        assertEquals(new PartPlan(8 * MB, 13), planner.plan(100 * MB, null));
+        assertEquals(new PartPlan(8 * MB, 13), planner.plan(100 * MB, new UploadHints(null, null)));
+    }
+    
+    @Test
+    void shouldSizePartsForTargetSecondsPerConnection() {
+        // 40MB/s over 4 connections is 10MB/s each, so 10 seconds is 100MB
+        PartPlan plan = planner.plan(GB, new UploadHints(4, 40 * MB));
+        
+        assertEquals(100 * MB, plan.partSize());
+        assertEquals(11, plan.partCount());
+    }
+    
+    @Test
+    void shouldGiveEveryConnectionAPart() {
+        // The default 8MB would leave three of eight connections idle
+        PartPlan plan = planner.plan(40 * MB, new UploadHints(8, null));
+        
+        assertEquals(5 * MB, plan.partSize());
+        assertEquals(8, plan.partCount());
+    }
+    
+    @Test
+    void shouldAlignPartSizeToWholeMegabytes() {
+        // A fast client is capped at a third of the file per connection, and 31MB / 3 rounds up to 11MB
+        PartPlan plan = planner.plan(31 * MB, new UploadHints(3, 300 * MB));
+        
+        assertEquals(11 * MB, plan.partSize());
+        assertEquals(3, plan.partCount());
+    }
+    
+    @Test
+    void shouldNotGoBelowMinimumPartSize() {
+        // 100KB/s for 10 seconds is 1MB, under S3's 5MB minimum
+        PartPlan plan = planner.plan(50 * MB, new UploadHints(1, 100 * 1024L));
+        
+        assertEquals(5 * MB, plan.partSize());
+        assertEquals(10, plan.partCount());
+    }
+    
+    @Test
+    void shouldStayWithinPartLimit() {
+        long fileSize = 100 * GB;
+        
+        PartPlan plan = planner.plan(fileSize, null);
+        
+        assertTrue(plan.partCount() <= 10_000);
+        assertEquals((fileSize + 9_999) / 10_000, plan.partSize());
+        assertTrue(plan.partSize() * plan.partCount() >= fileSize);
+    }
+    
+    @Test
+    void shouldNotExceedMaximumPartSize() {
+        // 10GB/s for 10 seconds would be 100GB parts
+        PartPlan plan = planner.plan(5 * 1024 * GB, new UploadHints(1, 10 * GB));
+        
+        assertEquals(5 * GB, plan.partSize());
+        assertEquals(1024, plan.partCount());
+    }
+    
+    @Test
+    void shouldRecordPlansByWhetherHintsWereSent() {
+        planner.plan(100 * MB, null);
+        planner.plan(100 * MB, new UploadHints(4, null));
+        planner.plan(100 * MB, new UploadHints(null, 10 * MB));
+        
+        assertEquals(1, meterRegistry.get("upload.multipart.plans").tag("hinted", "false").counter().count());
+        assertEquals(2, meterRegistry.get("upload.multipart.plans").tag("hinted", "true").counter().count());
+        assertEquals(3, meterRegistry.get("upload.multipart.part.size").summary().count());
+        assertEquals(3, meterRegistry.get("upload.multipart.part.count").summary().count());
+    }
+}
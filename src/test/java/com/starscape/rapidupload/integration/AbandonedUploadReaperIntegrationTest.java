@@ -0,0 +1,188 @@
+package com.starscape.rapidupload.integration;
+
+import com.starscape.rapidupload.features.librarystats.infra.LibraryStatsRepository;
+import com.starscape.rapidupload.features.librarystats.infra.LibraryStatsRepository.LibraryStats;
+import com.starscape.rapidupload.features.uploadphoto.app.AbandonedUploadReaper;
+import com.starscape.rapidupload.features.uploadphoto.infra.UploadMaintenanceRepository;
+import com.starscape.rapidupload.features.uploadphoto.infra.UploadMaintenanceRepository.StaleUpload;
+import com.starscape.rapidupload.integration.TestUtils.TestUser;
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Integration tests for the abandoned upload reaper and its maintenance SQL.
+ * Tests: stale pending photos are cancelled once while recent ones are left alone, their jobs'
+ * progress and status are recomputed, uploads S3 no longer knows are still reaped, and the
+ * library stats count each cancellation exactly once.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(TestAwsConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)  // Force context shutdown after all tests
+public class AbandonedUploadReaperIntegrationTest extends BaseIntegrationTest {
+    
+    @LocalServerPort
+    private int port;
+    
+    @Autowired
+    private AbandonedUploadReaper reaper;
+    
+    @MockitoSpyBean
+    private UploadMaintenanceRepository maintenanceRepository;
+    
+    @Autowired
+    private LibraryStatsRepository libraryStatsRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private TestUser user;
+    
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.baseURI = "http://localhost";
+        user = TestUtils.registerUser("reaper");
+    }
+    
+    @Test
+    void shouldCancelStaleUploadsAndFailTheirJob() {
+        List<String> photoIds = TestUtils.createUploadJob(user, 1000, 2000);
+        makeStale(photoIds);
+        
+        reaper.reapAbandonedUploads();
+        
+        for (String photoId : photoIds) {
+            assertEquals("CANCELLED", photoStatus(photoId));
+        }
+        Map<String, Object> job = jobOf(photoIds.get(0));
+        assertEquals("FAILED", job.get("status"));
+        assertEquals(2, job.get("cancelled_count"));
+        assertEquals(0, job.get("completed_count"));
+        assertEquals(0, job.get("failed_count"));
+    }
+    
+    @Test
+    void shouldLeaveRecentUploadsPending() {
+        List<String> photoIds = TestUtils.createUploadJob(user, 1000, 2000);
+        makeStale(List.of(photoIds.get(0)));
+        
+        reaper.reapAbandonedUploads();
+        
+        assertEquals("CANCELLED", photoStatus(photoIds.get(0)));
+        assertEquals("QUEUED", photoStatus(photoIds.get(1)));
+        // One photo settled, one still pending: the job has started but not finished
+        Map<String, Object> job = jobOf(photoIds.get(0));
+        assertEquals("IN_PROGRESS", job.get("status"));
+        assertEquals(1, job.get("cancelled_count"));
+    }
+    
+    @Test
+    void shouldCompleteJobWithErrorsWhenOtherPhotosFinished() {
+        List<String> photoIds = TestUtils.createUploadJob(user, 1000, 2000);
+        jdbcTemplate.update("UPDATE photos SET status = 'COMPLETED' WHERE photo_id = ?", photoIds.get(1));
+        makeStale(List.of(photoIds.get(0)));
+        
+        reaper.reapAbandonedUploads();
+        
+        Map<String, Object> job = jobOf(photoIds.get(0));
+        assertEquals("COMPLETED_WITH_ERRORS", job.get("status"));
+        assertEquals(1, job.get("completed_count"));
+        assertEquals(1, job.get("cancelled_count"));
+    }
+    
+    @Test
+    void shouldCancelPhotoWhoseMultipartUploadIsAlreadyGone() {
+        List<String> photoIds = TestUtils.createUploadJob(user, 1000);
+        jdbcTemplate.update(
+            "UPDATE photos SET status = 'UPLOADING', multipart_upload_id = 'expired-upload' WHERE photo_id = ?",
+            photoIds.get(0));
+        makeStale(photoIds);
+        
+        // S3 no longer knows the upload, which counts as aborted
+        reaper.reapAbandonedUploads();
+        
+        assertEquals("CANCELLED", photoStatus(photoIds.get(0)));
+    }
+    
+    @Test
+    void shouldNotCountPhotosCancelledByAnotherRun() {
+        makeStale(TestUtils.createUploadJob(user, 1000, 2000));
+        
+        // The batch a second reaper instance selected before the first one cancelled it
+        List<StaleUpload> batch = staleUploadsOf(user.userId());
+        assertEquals(2, batch.size());
+        
+        reaper.reapAbandonedUploads();
+        
+        LibraryStats afterFirst = stats();
+        assertEquals(0, afterFirst.pendingCount());
+        assertEquals(2, afterFirst.cancelledCount());
+        assertEquals(0, afterFirst.reservedBytes());
+        
+        // The second instance reaps the same, already cancelled, batch
+        doReturn(batch).when(maintenanceRepository).findStalePendingUploads(any(), anyInt());
+        reaper.reapAbandonedUploads();
+        
+        LibraryStats afterSecond = stats();
+        assertEquals(afterFirst.pendingCount(), afterSecond.pendingCount());
+        assertEquals(afterFirst.cancelledCount(), afterSecond.cancelledCount());
+        assertEquals(afterFirst.reservedBytes(), afterSecond.reservedBytes());
+        assertEquals(afterFirst.photoCount(), afterSecond.photoCount());
+    }
+    
+    /**
+     * Backdate photos past the stale threshold. The updated_at trigger is disabled for the
+     * statement, since it would otherwise reset the timestamp to now.
+     */
+    private void makeStale(List<String> photoIds) {
+        jdbcTemplate.execute("ALTER TABLE photos DISABLE TRIGGER photos_updated_at");
+        try {
+            jdbcTemplate.update(
+                "UPDATE photos SET updated_at = NOW() - INTERVAL '30 days' WHERE photo_id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", photoIds.toArray())));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE photos ENABLE TRIGGER photos_updated_at");
+        }
+    }
+    
+    private String photoStatus(String photoId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM photos WHERE photo_id = ?", String.class, photoId);
+    }
+    
+    private Map<String, Object> jobOf(String photoId) {
+        return jdbcTemplate.queryForMap(
+            "SELECT j.status, j.completed_count, j.failed_count, j.cancelled_count FROM upload_jobs j " +
+            "JOIN photos p ON p.job_id = j.job_id WHERE p.photo_id = ?", photoId);
+    }
+    
+    private List<StaleUpload> staleUploadsOf(String userId) {
+        return maintenanceRepository.findStalePendingUploads(Instant.now().minus(Duration.ofDays(1)), 1000)
+            .stream()
+            .filter(upload -> upload.userId().equals(userId))
+            .toList();
+    }
+    
+    private LibraryStats stats() {
+        return libraryStatsRepository.findByUserId(user.userId()).orElseThrow();
+    }
+}
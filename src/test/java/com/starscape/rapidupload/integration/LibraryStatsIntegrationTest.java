@@ -0,0 +1,205 @@
+package com.starscape.rapidupload.integration;
+
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter;
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsReconcileJob;
+import com.starscape.rapidupload.features.librarystats.infra.LibraryStatsRepository;
+import com.starscape.rapidupload.features.librarystats.infra.LibraryStatsRepository.LibraryStats;
+import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoRepository;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import com.starscape.rapidupload.integration.TestUtils.TestUser;
+import io.restassured.RestAssured;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the deltas applied to user_library_stats as photos change state.
+ * Tests: finishing counts each photo once, trash and restore move status counts out of and back
+ * into the library totals, a photo finishing in the trash still settles its reservation, and
+ * the reconcile job rewrites drifted rows.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(TestAwsConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)  // Force context shutdown after all tests
+public class LibraryStatsIntegrationTest extends BaseIntegrationTest {
+    
+    @LocalServerPort
+    private int port;
+    
+    @Autowired
+    private LibraryStatsCounter libraryStatsCounter;
+    
+    @Autowired
+    private LibraryStatsRepository libraryStatsRepository;
+    
+    @Autowired
+    private LibraryStatsReconcileJob reconcileJob;
+    
+    @Autowired
+    private PhotoRepository photoRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private TestUser user;
+    
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.baseURI = "http://localhost";
+        user = TestUtils.registerUser("library-stats");
+    }
+    
+    @Test
+    void shouldCountFinishedPhotosOnce() {
+        List<String> photoIds = TestUtils.createUploadJob(user, 1000, 2000);
+        finish(photoIds.get(0), PhotoStatus.COMPLETED, PhotoStatus.PROCESSING);
+        finish(photoIds.get(1), PhotoStatus.FAILED, PhotoStatus.UPLOADING);
+        
+        // Redelivered completions are not pending any more and change nothing
+        finish(photoIds.get(0), PhotoStatus.COMPLETED, PhotoStatus.COMPLETED);
+        
+        LibraryStats stats = stats();
+        assertEquals(2, stats.photoCount());
+        assertEquals(3000, stats.totalBytes());
+        assertEquals(0, stats.pendingCount());
+        assertEquals(1, stats.completedCount());
+        assertEquals(1, stats.failedCount());
+        assertEquals(0, stats.reservedBytes());
+        assertEquals(1000, stats.storedBytes());
+    }
+    
+    @Test
+    void shouldMoveStatusCountsThroughTrash() {
+        List<String> photoIds = TestUtils.createUploadJob(user, 1000, 2000);
+        finish(photoIds.get(0), PhotoStatus.COMPLETED, PhotoStatus.PROCESSING);
+        
+        command("DELETE", "/commands/photos/" + photoIds.get(0));
+        
+        LibraryStats trashed = stats();
+        assertEquals(1, trashed.photoCount());
+        assertEquals(2000, trashed.totalBytes());
+        assertEquals(0, trashed.completedCount());
+        assertEquals(1, trashed.pendingCount());
+        assertEquals(1, trashed.trashedCount());
+        assertEquals(1000, trashed.trashedBytes());
+        // Trashed photos keep their space until permanently deleted
+        assertEquals(1000, trashed.storedBytes());
+        assertEquals(2000, trashed.reservedBytes());
+        
+        command("POST", "/commands/photos/" + photoIds.get(0) + "/restore");
+        
+        LibraryStats restored = stats();
+        assertEquals(2, restored.photoCount());
+        assertEquals(3000, restored.totalBytes());
+        assertEquals(1, restored.completedCount());
+        assertEquals(0, restored.trashedCount());
+        assertEquals(0, restored.trashedBytes());
+    }
+    
+    @Test
+    void shouldSettleReservationOfPhotoFinishingInTrash() {
+        String photoId = TestUtils.createUploadJob(user, 1000).get(0);
+        command("DELETE", "/commands/photos/" + photoId);
+        assertEquals(0, stats().pendingCount());
+        
+        finish(photoId, PhotoStatus.COMPLETED, PhotoStatus.PROCESSING);
+        
+        LibraryStats stats = stats();
+        assertEquals(0, stats.pendingCount());
+        assertEquals(0, stats.completedCount());
+        assertEquals(0, stats.reservedBytes());
+        assertEquals(1000, stats.storedBytes());
+        
+        // Restored, it is counted under the status it reached in the trash
+        command("POST", "/commands/photos/" + photoId + "/restore");
+        assertEquals(1, stats().completedCount());
+        assertEquals(1, stats().photoCount());
+    }
+    
+    @Test
+    void shouldReconcileDriftedStats() {
+        List<String> photoIds = TestUtils.createUploadJob(user, 1000, 2000);
+        finish(photoIds.get(0), PhotoStatus.COMPLETED, PhotoStatus.PROCESSING);
+        LibraryStats expected = stats();
+        jdbcTemplate.update(
+            "UPDATE user_library_stats SET photo_count = 9, completed_count = 0, reserved_bytes = 0 WHERE user_id = ?",
+            user.userId());
+        
+        reconcileJob.reconcileLibraryStats();
+        
+        LibraryStats reconciled = stats();
+        assertEquals(expected.photoCount(), reconciled.photoCount());
+        assertEquals(expected.completedCount(), reconciled.completedCount());
+        assertEquals(expected.pendingCount(), reconciled.pendingCount());
+        assertEquals(expected.reservedBytes(), reconciled.reservedBytes());
+        assertEquals(expected.storedBytes(), reconciled.storedBytes());
+    }
+    
+    @Test
+    void shouldServeStatsToTheUser() {
+        List<String> photoIds = TestUtils.createUploadJob(user, 1000, 2000);
+        finish(photoIds.get(0), PhotoStatus.COMPLETED, PhotoStatus.PROCESSING);
+        
+        given()
+                .header("Authorization", "Bearer " + user.authToken())
+                .get("/queries/library/stats")
+                .then()
+                .statusCode(200)
+                .body("photoCount", equalTo(2))
+                .body("totalBytes", equalTo(3000))
+                .body("statusCounts.pending", equalTo(1))
+                .body("statusCounts.completed", equalTo(1))
+                .body("quota.storedBytes", equalTo(1000))
+                .body("quota.reservedBytes", equalTo(2000))
+                .body("quota.usedBytes", equalTo(3000));
+    }
+    
+    /**
+     * Move a photo to a finished status and settle it as processing would.
+     *
+     * @param previousStatus The status the photo is reported to have left
+     */
+    private void finish(String photoId, PhotoStatus status, PhotoStatus previousStatus) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            jdbcTemplate.update("UPDATE photos SET status = ? WHERE photo_id = ?", status.name(), photoId);
+            entityManagerFactory.getCache().evict(Photo.class, photoId);
+            Photo photo = photoRepository.findById(photoId).orElseThrow();
+            libraryStatsCounter.photoFinished(photo, previousStatus);
+        });
+    }
+    
+    private void command(String method, String path) {
+        given()
+                .header("Authorization", "Bearer " + user.authToken())
+                .request(method, path)
+                .then()
+                .statusCode(204);
+    }
+    
+    private LibraryStats stats() {
+        return libraryStatsRepository.findByUserId(user.userId()).orElseThrow();
+    }
+}
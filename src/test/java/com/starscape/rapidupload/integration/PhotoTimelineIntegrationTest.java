@@ -0,0 +1,182 @@
+package com.starscape.rapidupload.integration;
+
+import com.starscape.rapidupload.features.listphotos.api.dto.PhotoTimelineResponse;
+import com.starscape.rapidupload.features.listphotos.api.dto.PhotoTimelineResponse.TimelineBucket;
+import com.starscape.rapidupload.features.listphotos.app.PhotoDateBucketRepairJob;
+import com.starscape.rapidupload.features.listphotos.app.PhotoTimelineCounter;
+import com.starscape.rapidupload.features.listphotos.app.PhotoTimelineHandler;
+import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoRepository;
+import com.starscape.rapidupload.features.uploadphoto.domain.PhotoStatus;
+import com.starscape.rapidupload.integration.TestUtils.TestUser;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the timeline's photo_date_buckets rollup.
+ * Tests: photos are counted once when they finish, under their capture day or upload day, and the
+ * counts follow tagging, trash and restore; the repair job rewrites counts that drifted.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(TestAwsConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)  // Force context shutdown after all tests
+public class PhotoTimelineIntegrationTest extends BaseIntegrationTest {
+    
+    @LocalServerPort
+    private int port;
+    
+    @Autowired
+    private PhotoTimelineCounter photoTimelineCounter;
+    
+    @Autowired
+    private PhotoTimelineHandler photoTimelineHandler;
+    
+    @Autowired
+    private PhotoDateBucketRepairJob repairJob;
+    
+    @Autowired
+    private PhotoRepository photoRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private TestUser user;
+    
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.baseURI = "http://localhost";
+        user = TestUtils.registerUser("timeline");
+    }
+    
+    @Test
+    void shouldCountFinishedPhotosUnderCaptureDay() {
+        List<String> photoIds = TestUtils.createUploadJob(user, 1000, 2000, 3000, 4000);
+        finish(photoIds.get(0), PhotoStatus.COMPLETED, LocalDateTime.of(2024, 3, 5, 10, 0));
+        finish(photoIds.get(1), PhotoStatus.FAILED, LocalDateTime.of(2024, 3, 20, 23, 30));
+        finish(photoIds.get(2), PhotoStatus.COMPLETED, null);
+        // The fourth photo is still waiting on its upload and is not counted
+        
+        LocalDate uploadDay = LocalDate.now(ZoneOffset.UTC);
+        assertEquals(List.of(
+            new TimelineBucket(uploadDay.withDayOfMonth(1), 1),
+            new TimelineBucket(LocalDate.of(2024, 3, 1), 2)
+        ), timeline("month", null, null).buckets());
+        assertEquals(List.of(
+            new TimelineBucket(uploadDay, 1),
+            new TimelineBucket(LocalDate.of(2024, 3, 20), 1),
+            new TimelineBucket(LocalDate.of(2024, 3, 5), 1)
+        ), timeline("day", null, null).buckets());
+        assertEquals(List.of(new TimelineBucket(LocalDate.of(2024, 3, 20), 1)),
+            timeline("day", null, "FAILED").buckets());
+        assertEquals(3, timeline("month", null, null).totalPhotos());
+    }
+    
+    @Test
+    void shouldCountPhotoOnlyWhenItFirstFinishes() {
+        String photoId = TestUtils.createUploadJob(user, 1000).get(0);
+        finish(photoId, PhotoStatus.COMPLETED, LocalDateTime.of(2024, 3, 5, 10, 0));
+        
+        // A repeated completion, such as a redelivered message, is not counted again
+        transactionTemplate.executeWithoutResult(status ->
+            photoTimelineCounter.photoFinished(photoRepository.findById(photoId).orElseThrow(), PhotoStatus.COMPLETED));
+        
+        assertEquals(1, timeline("day", null, null).totalPhotos());
+    }
+    
+    @Test
+    void shouldFollowTagsAndTrash() {
+        String photoId = TestUtils.createUploadJob(user, 1000).get(0);
+        finish(photoId, PhotoStatus.COMPLETED, LocalDateTime.of(2024, 3, 5, 10, 0));
+        
+        given()
+                .header("Authorization", "Bearer " + user.authToken())
+                .contentType(ContentType.JSON)
+                .body(Map.of("tag", "beach"))
+                .post("/commands/photos/" + photoId + "/tags")
+                .then()
+                .statusCode(204);
+        assertEquals(1, timeline("day", "beach", null).totalPhotos());
+        
+        command("DELETE", "/commands/photos/" + photoId);
+        assertEquals(0, timeline("day", null, null).totalPhotos());
+        assertEquals(0, timeline("day", "beach", null).totalPhotos());
+        
+        command("POST", "/commands/photos/" + photoId + "/restore");
+        assertEquals(1, timeline("day", null, null).totalPhotos());
+        assertEquals(1, timeline("day", "beach", null).totalPhotos());
+        
+        command("DELETE", "/commands/photos/" + photoId + "/tags/beach");
+        assertEquals(1, timeline("day", null, null).totalPhotos());
+        assertEquals(0, timeline("day", "beach", null).totalPhotos());
+    }
+    
+    @Test
+    void shouldRepairDriftedCounts() {
+        String photoId = TestUtils.createUploadJob(user, 1000).get(0);
+        finish(photoId, PhotoStatus.COMPLETED, LocalDateTime.of(2024, 3, 5, 10, 0));
+        jdbcTemplate.update("UPDATE photo_date_buckets SET photo_count = 7 WHERE user_id = ?", user.userId());
+        jdbcTemplate.update(
+            "INSERT INTO photo_date_buckets (user_id, tag_id, status, bucket_date, photo_count) " +
+            "VALUES (?, '', 'FAILED', DATE '2020-01-01', 2)", user.userId());
+        assertEquals(9, timeline("day", null, null).totalPhotos());
+        
+        repairJob.repairDateBuckets();
+        
+        assertEquals(List.of(new TimelineBucket(LocalDate.of(2024, 3, 5), 1)),
+            timeline("day", null, null).buckets());
+    }
+    
+    /**
+     * Move a photo to a finished status with the given capture time, and count it as processing would.
+     */
+    private void finish(String photoId, PhotoStatus status, LocalDateTime takenAt) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            jdbcTemplate.update("UPDATE photos SET status = ?, taken_at = ? WHERE photo_id = ?",
+                status.name(), takenAt != null ? Timestamp.valueOf(takenAt) : null, photoId);
+            entityManagerFactory.getCache().evict(Photo.class, photoId);
+            Photo photo = photoRepository.findById(photoId).orElseThrow();
+            photoTimelineCounter.photoFinished(photo, PhotoStatus.QUEUED);
+        });
+    }
+    
+    private PhotoTimelineResponse timeline(String granularity, String tag, String status) {
+        return photoTimelineHandler.handle(user.userId(), granularity, tag, status);
+    }
+    
+    private void command(String method, String path) {
+        given()
+                .header("Authorization", "Bearer " + user.authToken())
+                .request(method, path)
+                .then()
+                .statusCode(204);
+    }
+}
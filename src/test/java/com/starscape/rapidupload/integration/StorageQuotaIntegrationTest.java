@@ -0,0 +1,222 @@
+package com.starscape.rapidupload.integration;
+
+import com.starscape.rapidupload.features.librarystats.app.LibraryStatsCounter;
+import com.starscape.rapidupload.features.librarystats.infra.LibraryStatsRepository;
+import com.starscape.rapidupload.features.librarystats.infra.LibraryStatsRepository.LibraryStats;
+import com.starscape.rapidupload.features.uploadphoto.domain.Photo;
+import com.starscape.rapidupload.integration.TestUtils.TestUser;
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the storage quota kept on user_library_stats.
+ * Tests: reservation by conditional UPDATE, first-row creation, and settlement when photos
+ * finish, are cancelled or leave the trash.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(TestAwsConfig.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)  // Force context shutdown after all tests
+public class StorageQuotaIntegrationTest extends BaseIntegrationTest {
+    
+    private static final long DEFAULT_QUOTA = 10_000;
+    
+    @LocalServerPort
+    private int port;
+    
+    @Autowired
+    private LibraryStatsRepository libraryStatsRepository;
+    
+    @Autowired
+    private LibraryStatsCounter libraryStatsCounter;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private String authToken;
+    private String userId;
+    
+    @BeforeEach
+    void setUp() {
+        RestAssured.port = port;
+        RestAssured.baseURI = "http://localhost";
+        
+        TestUser user = TestUtils.registerUser("quota");
+        authToken = user.authToken();
+        userId = user.userId();
+    }
+    
+    @Test
+    void shouldCreateStatsRowOnFirstReservation() {
+        jdbcTemplate.update("DELETE FROM user_library_stats WHERE user_id = ?", userId);
+        assertTrue(libraryStatsRepository.findByUserId(userId).isEmpty());
+        
+        // The conditional UPDATE matches no row, so the row is inserted and the UPDATE retried
+        assertTrue(libraryStatsRepository.reservePending(userId, 2, 3000, DEFAULT_QUOTA));
+        
+        LibraryStats stats = stats();
+        assertEquals(2, stats.photoCount());
+        assertEquals(3000, stats.totalBytes());
+        assertEquals(2, stats.pendingCount());
+        assertEquals(3000, stats.reservedBytes());
+        assertEquals(0, stats.storedBytes());
+        
+        // A second reservation updates the existing row
+        assertTrue(libraryStatsRepository.reservePending(userId, 1, 1000, DEFAULT_QUOTA));
+        assertEquals(4000, stats().reservedBytes());
+        assertEquals(3, stats().pendingCount());
+    }
+    
+    @Test
+    void shouldReserveOnlyWhileQuotaFits() {
+        assertTrue(libraryStatsRepository.reservePending(userId, 1, 600, 1000));
+        
+        // Over the default quota: nothing changes
+        assertFalse(libraryStatsRepository.reservePending(userId, 1, 500, 1000));
+        LibraryStats stats = stats();
+        assertEquals(1, stats.photoCount());
+        assertEquals(1, stats.pendingCount());
+        assertEquals(600, stats.reservedBytes());
+        
+        // Exactly filling the quota is allowed
+        assertTrue(libraryStatsRepository.reservePending(userId, 1, 400, 1000));
+        assertEquals(1000, stats().reservedBytes());
+        assertFalse(libraryStatsRepository.reservePending(userId, 1, 1, 1000));
+        
+        // The user's own quota overrides the default, and stored bytes count against it too
+        jdbcTemplate.update(
+            "UPDATE user_library_stats SET quota_bytes = 2000, stored_bytes = 500 WHERE user_id = ?", userId);
+        assertTrue(libraryStatsRepository.reservePending(userId, 1, 500, 1000));
+        assertFalse(libraryStatsRepository.reservePending(userId, 1, 1, 1000));
+        assertEquals(1500, stats().reservedBytes());
+    }
+    
+    @Test
+    void shouldRejectUploadJobOverQuota() {
+        createJob(1000L);
+        jdbcTemplate.update("UPDATE user_library_stats SET quota_bytes = 1500 WHERE user_id = ?", userId);
+        
+        given()
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(ContentType.JSON)
+                .body(TestUtils.uploadJobRequest(1000L))
+                .post("/commands/upload-jobs")
+                .then()
+                .statusCode(507)
+                .body("code", equalTo("QUOTA_EXCEEDED"));
+        
+        // The rejected job's photos were rolled back with the failed reservation
+        Integer photos = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM photos WHERE user_id = ?", Integer.class, userId);
+        assertEquals(1, photos);
+        LibraryStats stats = stats();
+        assertEquals(1, stats.pendingCount());
+        assertEquals(1000, stats.reservedBytes());
+    }
+    
+    @Test
+    void shouldSettleReservationWhenPhotosFinish() {
+        createJob(1000L, 2000L);
+        assertEquals(3000, stats().reservedBytes());
+        
+        // A completed photo keeps its bytes as stored bytes
+        libraryStatsRepository.finishPending(userId, "COMPLETED", 1, 1000);
+        LibraryStats stats = stats();
+        assertEquals(1, stats.pendingCount());
+        assertEquals(1, stats.completedCount());
+        assertEquals(2000, stats.reservedBytes());
+        assertEquals(1000, stats.storedBytes());
+        
+        // A failed photo frees its bytes
+        libraryStatsRepository.finishPending(userId, "FAILED", 1, 2000);
+        stats = stats();
+        assertEquals(0, stats.pendingCount());
+        assertEquals(1, stats.failedCount());
+        assertEquals(0, stats.reservedBytes());
+        assertEquals(1000, stats.storedBytes());
+    }
+    
+    @Test
+    void shouldReleaseReservationWhenPhotosAreCancelled() {
+        List<String> photoIds = createJob(1000L, 2000L);
+        jdbcTemplate.update(
+            "UPDATE photos SET status = 'CANCELLED' WHERE user_id = ? AND bytes = 1000", userId);
+        
+        // Only the photo now CANCELLED is settled
+        libraryStatsCounter.photosCancelled(photoIds);
+        
+        LibraryStats stats = stats();
+        assertEquals(1, stats.pendingCount());
+        assertEquals(1, stats.cancelledCount());
+        assertEquals(2000, stats.reservedBytes());
+        assertEquals(0, stats.storedBytes());
+    }
+    
+    @Test
+    void shouldHoldReservationInTrashUntilPermanentDelete() {
+        String photoId = createJob(1000L).get(0);
+        
+        given()
+                .header("Authorization", "Bearer " + authToken)
+                .delete("/commands/photos/" + photoId)
+                .then()
+                .statusCode(204);
+        
+        // Trashed photos leave the library totals but keep their space
+        LibraryStats stats = stats();
+        assertEquals(0, stats.photoCount());
+        assertEquals(0, stats.pendingCount());
+        assertEquals(1, stats.trashedCount());
+        assertEquals(1000, stats.trashedBytes());
+        assertEquals(1000, stats.reservedBytes());
+        
+        // Move the deletion past the retention period
+        jdbcTemplate.update(
+            "UPDATE photos SET deleted_at = NOW() - INTERVAL '30 days' WHERE photo_id = ?", photoId);
+        entityManagerFactory.getCache().evict(Photo.class, photoId);
+        
+        given()
+                .header("Authorization", "Bearer " + authToken)
+                .delete("/commands/photos/" + photoId + "/permanent")
+                .then()
+                .statusCode(204);
+        
+        stats = stats();
+        assertEquals(0, stats.trashedCount());
+        assertEquals(0, stats.trashedBytes());
+        assertEquals(0, stats.reservedBytes());
+        assertEquals(0, stats.storedBytes());
+    }
+    
+    /**
+     * Create an upload job with one JPEG per size, returning its photo IDs.
+     */
+    private List<String> createJob(long... bytes) {
+        List<String> photoIds = TestUtils.createUploadJob(new TestUser(userId, authToken), bytes);
+        assertEquals(bytes.length, photoIds.size());
+        return photoIds;
+    }
+    
+    private LibraryStats stats() {
+        return libraryStatsRepository.findByUserId(userId).orElseThrow();
+    }
+}
@@ -5,6 +5,8 @@ import com.starscape.rapidupload.features.uploadphoto.infra.events.S3Bucket;
 import com.starscape.rapidupload.features.uploadphoto.infra.events.S3EventDetail;
 import com.starscape.rapidupload.features.uploadphoto.infra.events.S3EventMessage;
 import com.starscape.rapidupload.features.uploadphoto.infra.events.S3Object;
+import io.restassured.common.mapper.TypeRef;
+import io.restassured.http.ContentType;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 
@@ -14,8 +16,13 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static io.restassured.RestAssured.given;
+
 /**
  * Utility class for integration tests.
  * Provides helper methods for creating test images, SQS messages, etc.
@@ -24,6 +31,73 @@ public class TestUtils {
     
     private static final ObjectMapper objectMapper = new ObjectMapper();
     
+    private static final TypeRef<Map<String, Object>> JSON_OBJECT = new TypeRef<>() {};
+    
+    /**
+     * Register a user with a unique email through the API.
+     */
+    public static TestUser registerUser(String emailPrefix) {
+        Map<String, String> registerRequest = Map.of(
+            "email", emailPrefix + "-" + System.nanoTime() + "@example.com",
+            "password", "password123"
+        );
+        
+        Map<String, Object> response = given()
+                .contentType(ContentType.JSON)
+                .body(registerRequest)
+                .post("/api/auth/register")
+                .then()
+                .statusCode(201)
+                .extract()
+                .as(JSON_OBJECT);
+        
+        return new TestUser((String) response.get("userId"), (String) response.get("token"));
+    }
+    
+    /**
+     * Request body for a presigned upload job with one JPEG per size.
+     */
+    public static Map<String, Object> uploadJobRequest(long... bytes) {
+        List<Map<String, Object>> files = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i++) {
+            files.add(Map.of(
+                "filename", "photo" + i + ".jpg",
+                "mimeType", "image/jpeg",
+                "bytes", bytes[i]
+            ));
+        }
+        return Map.of(
+            "files", files,
+            "strategy", "S3_PRESIGNED"
+        );
+    }
+    
+    /**
+     * Create a presigned upload job with one JPEG per size through the API, returning its photo IDs.
+     */
+    public static List<String> createUploadJob(TestUser user, long... bytes) {
+        Map<String, Object> response = given()
+                .header("Authorization", "Bearer " + user.authToken())
+                .contentType(ContentType.JSON)
+                .body(uploadJobRequest(bytes))
+                .post("/commands/upload-jobs")
+                .then()
+                .statusCode(201)
+                .extract()
+                .as(JSON_OBJECT);
+        
+        List<String> photoIds = new ArrayList<>();
+        for (Object item : (List<?>) response.get("items")) {
+            photoIds.add((String) ((Map<?, ?>) item).get("photoId"));
+        }
+        return photoIds;
+    }
+    
+    public record TestUser(
+        String userId,
+        String authToken
+    ) {}
+    
     /**
      * Create a simple test JPEG image with specified dimensions.
      */